@@ -0,0 +1,104 @@
+package com.invertedIndexer.adobe.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import opennlp.tools.stemmer.snowball.SnowballStemmer;
+import opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.invertedIndexer.adobe.analysis.Analyzer;
+import com.invertedIndexer.adobe.analysis.LowerCaseFilter;
+import com.invertedIndexer.adobe.analysis.MinLengthFilter;
+import com.invertedIndexer.adobe.analysis.StemCache;
+import com.invertedIndexer.adobe.analysis.StemFilter;
+import com.invertedIndexer.adobe.analysis.Token;
+import com.invertedIndexer.adobe.analysis.Tokenizer;
+
+/**
+ * @author Cotkaria
+ * Throughput of the analysis chain, in words per second: tokenization alone, then with the
+ * stemming step, with and without the stem cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalysisBenchmark
+{
+	private static final int WORDS = 10000;
+
+	private String mText;
+	private Tokenizer mTokenizer;
+	private Token mToken;
+	private Analyzer mLowerCaseAnalyzer;
+	private Analyzer mStemmingAnalyzer;
+	private Analyzer mCachedStemmingAnalyzer;
+	private int mTokenCount;
+
+	@Setup
+	public void setUp()
+	{
+		mText = new SyntheticCorpus().document(0, WORDS);
+		mTokenizer = new Tokenizer();
+		mToken = new Token();
+		mLowerCaseAnalyzer = new Analyzer(new MinLengthFilter(2), new LowerCaseFilter());
+		mStemmingAnalyzer = new Analyzer(new MinLengthFilter(2), new LowerCaseFilter(),
+				new StemFilter(new SnowballStemmer(ALGORITHM.ENGLISH)));
+		mCachedStemmingAnalyzer = new Analyzer(new MinLengthFilter(2), new LowerCaseFilter(),
+				new StemFilter(new StemCache(ALGORITHM.ENGLISH, 64 * 1024)));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WORDS)
+	public int tokenize()
+	{
+		int count = 0;
+		mTokenizer.reset(mText);
+		while (mTokenizer.next(mToken))
+		{
+			count++;
+		}
+		return count;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WORDS)
+	public int analyzeWithoutStemming()
+	{
+		return analyze(mLowerCaseAnalyzer);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WORDS)
+	public int analyzeWithStemming()
+	{
+		return analyze(mStemmingAnalyzer);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WORDS)
+	public int analyzeWithCachedStemming()
+	{
+		return analyze(mCachedStemmingAnalyzer);
+	}
+
+	private int analyze(Analyzer analyzer)
+	{
+		mTokenCount = 0;
+		analyzer.analyze(mText, token -> mTokenCount++);
+		return mTokenCount;
+	}
+}
@@ -0,0 +1,134 @@
+package com.invertedIndexer.adobe.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Cotkaria
+ * Compares two benchmark runs saved as CSV (java -jar benchmarks.jar -rf csv -rff run.csv).
+ * For every benchmark and parameters, prints both scores, the change and whether the change is
+ * significant: the 99.9% confidence intervals of the two scores do not overlap.
+ *
+ * Usage: java -cp benchmarks.jar com.invertedIndexer.adobe.bench.CompareRuns before.csv after.csv
+ */
+public class CompareRuns
+{
+	private static final String BENCHMARK = "Benchmark";
+	private static final String MODE = "Mode";
+	private static final String SCORE = "Score";
+	private static final String ERROR = "Score Error (99.9%)";
+	private static final String UNIT = "Unit";
+	private static final String PARAM_PREFIX = "Param: ";
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length != 2)
+		{
+			System.err.println("Usage: CompareRuns <before.csv> <after.csv>");
+			System.exit(1);
+		}
+		Map<String, Map<String, String>> before = read(new File(args[0]));
+		Map<String, Map<String, String>> after = read(new File(args[1]));
+
+		System.out.println(String.format("%-70s %18s %18s %9s", "Benchmark", "Before", "After", "Change"));
+		for (Map.Entry<String, Map<String, String>> entry : after.entrySet())
+		{
+			Map<String, String> afterRow = entry.getValue();
+			Map<String, String> beforeRow = before.get(entry.getKey());
+			if (beforeRow == null)
+			{
+				System.out.println(String.format("%-70s %18s %18s", entry.getKey(), "-", format(afterRow)));
+				continue;
+			}
+			double beforeScore = parse(beforeRow.get(SCORE));
+			double afterScore = parse(afterRow.get(SCORE));
+			double beforeError = parse(beforeRow.get(ERROR));
+			double afterError = parse(afterRow.get(ERROR));
+			//higher is better for throughput, lower is better for times
+			boolean isThroughput = "thrpt".equals(afterRow.get(MODE));
+			double change = (afterScore - beforeScore) / beforeScore * 100;
+			boolean isSignificant = Math.abs(afterScore - beforeScore) > beforeError + afterError;
+			String verdict = !isSignificant ? "" : ((change > 0) == isThroughput) ? " faster" : " SLOWER";
+			System.out.println(String.format("%-70s %18s %18s %+8.1f%%%s", entry.getKey(), format(beforeRow),
+					format(afterRow), change, verdict));
+		}
+	}
+
+	/**
+	 * @return the rows of the CSV file, keyed by benchmark name and parameters
+	 */
+	private static Map<String, Map<String, String>> read(File file) throws IOException
+	{
+		List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+		List<String> header = split(lines.get(0));
+		Map<String, Map<String, String>> rows = new LinkedHashMap<String, Map<String, String>>();
+		for (String line : lines.subList(1, lines.size()))
+		{
+			if (line.trim().isEmpty())
+			{
+				continue;
+			}
+			List<String> values = split(line);
+			Map<String, String> row = new LinkedHashMap<String, String>();
+			StringBuilder key = new StringBuilder();
+			for (int i = 0; i < header.size() && i < values.size(); i++)
+			{
+				row.put(header.get(i), values.get(i));
+				if (header.get(i).startsWith(PARAM_PREFIX) && !values.get(i).isEmpty())
+				{
+					key.append(key.length() == 0 ? " (" : ", ")
+						.append(header.get(i).substring(PARAM_PREFIX.length())).append('=').append(values.get(i));
+				}
+			}
+			String name = row.get(BENCHMARK);
+			name = name.substring(name.lastIndexOf('.', name.lastIndexOf('.') - 1) + 1);
+			rows.put(name + ((key.length() > 0) ? key.append(')') : ""), row);
+		}
+		return rows;
+	}
+
+	/**
+	 * @return the fields of a CSV line, quotes removed
+	 */
+	private static List<String> split(String line)
+	{
+		List<String> fields = new ArrayList<String>();
+		StringBuilder field = new StringBuilder();
+		boolean isQuoted = false;
+		for (int i = 0; i < line.length(); i++)
+		{
+			char c = line.charAt(i);
+			if (c == '"')
+			{
+				isQuoted = !isQuoted;
+			}
+			else if (c == ',' && !isQuoted)
+			{
+				fields.add(field.toString());
+				field.setLength(0);
+			}
+			else
+			{
+				field.append(c);
+			}
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+
+	private static double parse(String value)
+	{
+		return (value == null || value.isEmpty() || value.equals("NaN")) ? 0 : Double.parseDouble(value);
+	}
+
+	private static String format(Map<String, String> row)
+	{
+		return String.format("%.2f %s", parse(row.get(SCORE)), row.get(UNIT));
+	}
+}
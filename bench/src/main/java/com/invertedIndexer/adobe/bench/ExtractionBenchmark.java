@@ -0,0 +1,95 @@
+package com.invertedIndexer.adobe.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.invertedIndexer.adobe.InverseIndexer;
+
+/**
+ * @author Cotkaria
+ * Time to index a folder holding a single PDF or DOCX file of the given number of pages (one
+ * paragraph per page for DOCX). Reading and analyzing the text are included, but the extraction
+ * (PDFBox, POI) is by far the most expensive step; the "txt" format gives the cost of the rest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtractionBenchmark
+{
+	private static final int WORDS_PER_PAGE = 400;
+
+	@Param({"pdf", "docx", "txt"})
+	public String format;
+
+	@Param({"50"})
+	public int pages;
+
+	private File mFolder;
+	private File mDocsFolder;
+	private File mStopWordsFile;
+	private InverseIndexer mIndexer;
+
+	@Setup
+	public void createDocument() throws Exception
+	{
+		SyntheticCorpus corpus = new SyntheticCorpus();
+		mFolder = Files.createTempDirectory("extraction-bench").toFile();
+		mDocsFolder = new File(mFolder, "docs");
+		mDocsFolder.mkdirs();
+		File document = new File(mDocsFolder, "document." + format);
+		switch (format)
+		{
+		case "pdf":
+			corpus.writePdf(document, pages, WORDS_PER_PAGE);
+			break;
+		case "docx":
+			corpus.writeDocx(document, pages, WORDS_PER_PAGE);
+			break;
+		default:
+			StringBuilder text = new StringBuilder();
+			for (int i = 0; i < pages; i++)
+			{
+				text.append(corpus.document(i, WORDS_PER_PAGE)).append('\n');
+			}
+			Files.write(document.toPath(), text.toString().getBytes("UTF-8"));
+			break;
+		}
+		mStopWordsFile = new File(mFolder, "stopwords.txt");
+		SyntheticCorpus.writeStopWords(mStopWordsFile);
+		mIndexer = new InverseIndexer(ALGORITHM.ENGLISH);
+	}
+
+	@TearDown
+	public void deleteDocument() throws IOException
+	{
+		FileUtils.deleteDirectory(mFolder);
+	}
+
+	@Benchmark
+	public InverseIndexer indexDocument() throws Exception
+	{
+		mIndexer.index(mDocsFolder, mStopWordsFile);
+		return mIndexer;
+	}
+}
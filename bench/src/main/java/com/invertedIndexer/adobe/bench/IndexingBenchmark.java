@@ -0,0 +1,67 @@
+package com.invertedIndexer.adobe.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.invertedIndexer.adobe.InverseIndexer;
+
+/**
+ * @author Cotkaria
+ * Throughput of InverseIndexer.indexText(), in words per second. Every iteration starts with an
+ * empty indexer and adds documents to it, so the cost of growing the index is included.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexingBenchmark
+{
+	private static final int DOCUMENTS = 1024;
+	private static final int WORDS_PER_DOCUMENT = 500;
+
+	private String[] mDocuments;
+	private InverseIndexer mIndexer;
+	private int mNextDocument;
+
+	@Setup(Level.Trial)
+	public void createDocuments()
+	{
+		SyntheticCorpus corpus = new SyntheticCorpus();
+		mDocuments = new String[DOCUMENTS];
+		for (int i = 0; i < DOCUMENTS; i++)
+		{
+			mDocuments[i] = corpus.document(i, WORDS_PER_DOCUMENT);
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void createIndexer()
+	{
+		mIndexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		mNextDocument = 0;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WORDS_PER_DOCUMENT)
+	public void indexText()
+	{
+		int document = mNextDocument++;
+		mIndexer.indexText(mDocuments[document % DOCUMENTS], "doc" + document);
+	}
+}
@@ -0,0 +1,110 @@
+package com.invertedIndexer.adobe.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.invertedIndexer.adobe.InverseIndexer;
+import com.invertedIndexer.adobe.types.MapFileToWordOccurencesEntry;
+
+/**
+ * @author Cotkaria
+ * Query latency at several corpus sizes. The frequent word is in most documents, the rare one in
+ * a few of them. The top-k queries only keep the best results, the "all results" ones rank every
+ * matching document, which measures the sorting of the results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark
+{
+	private static final int WORDS_PER_DOCUMENT = 300;
+	private static final int TOP_K = 10;
+
+	@Param({"1000", "10000"})
+	public int documents;
+
+	private File mFolder;
+	private InverseIndexer mIndexer;
+	private String mFrequentWord;
+	private String mRareWord;
+	private String mThreeWords;
+
+	@Setup
+	public void createIndex() throws Exception
+	{
+		SyntheticCorpus corpus = new SyntheticCorpus();
+		mFolder = Files.createTempDirectory("search-bench").toFile();
+		File docsFolder = new File(mFolder, "docs");
+		corpus.writeTextFiles(docsFolder, documents, WORDS_PER_DOCUMENT);
+		File stopWordsFile = new File(mFolder, "stopwords.txt");
+		SyntheticCorpus.writeStopWords(stopWordsFile);
+
+		mIndexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		mIndexer.setIndexingThreads(Runtime.getRuntime().availableProcessors());
+		mIndexer.index(docsFolder, stopWordsFile);
+
+		int stopWords = SyntheticCorpus.STOP_WORDS.length;
+		mFrequentWord = corpus.getWord(stopWords);
+		mRareWord = corpus.getWord(stopWords + 2000);
+		mThreeWords = corpus.getWord(stopWords + 10) + " " + corpus.getWord(stopWords + 50) + " "
+				+ corpus.getWord(stopWords + 200);
+	}
+
+	@TearDown
+	public void deleteIndex() throws IOException
+	{
+		FileUtils.deleteDirectory(mFolder);
+	}
+
+	@Benchmark
+	public List<MapFileToWordOccurencesEntry> frequentWordTopK()
+	{
+		return mIndexer.findTop(mFrequentWord, TOP_K);
+	}
+
+	@Benchmark
+	public List<MapFileToWordOccurencesEntry> rareWordTopK()
+	{
+		return mIndexer.findTop(mRareWord, TOP_K);
+	}
+
+	@Benchmark
+	public List<MapFileToWordOccurencesEntry> threeWordsTopK()
+	{
+		return mIndexer.findTop(mThreeWords, TOP_K);
+	}
+
+	@Benchmark
+	public List<MapFileToWordOccurencesEntry> frequentWordAllResults()
+	{
+		return mIndexer.findWithCount(mFrequentWord);
+	}
+
+	@Benchmark
+	public List<MapFileToWordOccurencesEntry> threeWordsAllResults()
+	{
+		return mIndexer.findWithCount(mThreeWords);
+	}
+}
@@ -0,0 +1,183 @@
+package com.invertedIndexer.adobe.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM;
+
+import org.apache.commons.io.FileUtils;
+
+import com.invertedIndexer.adobe.InverseIndexer;
+import com.invertedIndexer.adobe.metrics.LatencyHistogram;
+import com.invertedIndexer.adobe.metrics.LatencySnapshot;
+import com.invertedIndexer.adobe.server.SearchServer;
+
+/**
+ * @author Cotkaria
+ * Load test of the search server over localhost: for 1, 2, 4... server threads up to the number
+ * of cores, twice as many clients send batches of queries for a fixed time, and the throughput
+ * and latency seen by the clients are printed, showing how the server scales with the cores.
+ * Not a JMH benchmark, run it with
+ * java -Dsun.net.httpserver.nodelay=true -cp target/benchmarks.jar com.invertedIndexer.adobe.bench.SearchServerLoad [documents] [seconds] [queries per request]
+ */
+public class SearchServerLoad
+{
+	private static final int WORDS_PER_DOCUMENT = 300;
+	private static final int TOP_K = 10;
+
+	public static void main(String[] args) throws Exception
+	{
+		int documents = (args.length > 0) ? Integer.parseInt(args[0]) : 10000;
+		int seconds = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+		int batchSize = (args.length > 2) ? Integer.parseInt(args[2]) : 8;
+
+		SyntheticCorpus corpus = new SyntheticCorpus();
+		File folder = Files.createTempDirectory("search-load").toFile();
+		try
+		{
+			File docsFolder = new File(folder, "docs");
+			corpus.writeTextFiles(docsFolder, documents, WORDS_PER_DOCUMENT);
+			File stopWordsFile = new File(folder, "stopwords.txt");
+			SyntheticCorpus.writeStopWords(stopWordsFile);
+			InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+			indexer.setIndexingThreads(Runtime.getRuntime().availableProcessors());
+			indexer.index(docsFolder, stopWordsFile);
+
+			System.out.println(String.format("%d documents, %d queries per request, %d s per step", documents, batchSize, seconds));
+			System.out.println(String.format("%8s %8s %12s %12s %10s %10s %8s", "threads", "clients", "requests/s", "queries/s",
+					"p50 ms", "p99 ms", "errors"));
+			int cores = Runtime.getRuntime().availableProcessors();
+			for (int threads = 1; ; threads = Math.min(2 * threads, cores))
+			{
+				run(indexer, corpus, threads, 2 * threads, seconds, batchSize);
+				if (threads == cores)
+				{
+					break;
+				}
+			}
+		}
+		finally
+		{
+			FileUtils.deleteDirectory(folder);
+		}
+	}
+
+	private static void run(InverseIndexer indexer, SyntheticCorpus corpus, int threads, int clients, int seconds, int batchSize)
+			throws Exception
+	{
+		SearchServer server = new SearchServer(indexer, 0);
+		server.setThreads(threads);
+		server.setMaxPendingRequests(4 * clients);
+		server.setMaxQueriesPerRequest(batchSize);
+		server.start();
+		try
+		{
+			URL url = new URL("http://localhost:" + server.getPort() + "/search");
+			LatencyHistogram latency = new LatencyHistogram();
+			LongAdder errors = new LongAdder();
+			long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+			long end = warmupEnd + TimeUnit.SECONDS.toNanos(seconds);
+			List<Thread> clientThreads = new ArrayList<Thread>();
+			for (int client = 0; client < clients; client++)
+			{
+				Random random = new Random(client);
+				Thread thread = new Thread(() ->
+				{
+					while (System.nanoTime() < end)
+					{
+						byte[] request = createRequest(corpus, random, batchSize);
+						long start = System.nanoTime();
+						boolean isOk = send(url, request);
+						if (start > warmupEnd)
+						{
+							latency.recordSince(start);
+							if (!isOk)
+							{
+								errors.increment();
+							}
+						}
+					}
+				});
+				thread.start();
+				clientThreads.add(thread);
+			}
+			for (Thread thread : clientThreads)
+			{
+				thread.join();
+			}
+
+			LatencySnapshot snapshot = latency.snapshot();
+			double requestsPerSecond = snapshot.getCount() / (double) seconds;
+			System.out.println(String.format("%8d %8d %12.0f %12.0f %10.2f %10.2f %8d", threads, clients, requestsPerSecond,
+					requestsPerSecond * batchSize, snapshot.getP50() / 1e6, snapshot.getP99() / 1e6, errors.sum()));
+		}
+		finally
+		{
+			server.stop();
+		}
+	}
+
+	/**
+	 * @return a batch of queries of one to three words, the words having a frequency rank between
+	 * 10 and 5000 (very frequent words would make every query as slow as the "all results" ones)
+	 */
+	private static byte[] createRequest(SyntheticCorpus corpus, Random random, int batchSize)
+	{
+		StringBuilder json = new StringBuilder("{\"k\": " + TOP_K + ", \"queries\": [");
+		for (int i = 0; i < batchSize; i++)
+		{
+			json.append((i > 0) ? ", \"" : "\"");
+			for (int word = random.nextInt(3); word >= 0; word--)
+			{
+				json.append(corpus.getWord(10 + random.nextInt(5000))).append(word > 0 ? " " : "");
+			}
+			json.append('"');
+		}
+		return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return true if the server answered 200
+	 */
+	private static boolean send(URL url, byte[] request)
+	{
+		try
+		{
+			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+			connection.setRequestMethod("POST");
+			connection.setDoOutput(true);
+			try (OutputStream out = connection.getOutputStream())
+			{
+				out.write(request);
+			}
+			int status = connection.getResponseCode();
+			try (InputStream in = (status == 200) ? connection.getInputStream() : connection.getErrorStream())
+			{
+				ByteArrayOutputStream response = new ByteArrayOutputStream();
+				byte[] buffer = new byte[8192];
+				int read;
+				while (in != null && (read = in.read(buffer)) > 0)
+				{
+					response.write(buffer, 0, read);
+				}
+			}
+			return status == 200;
+		}
+		catch (IOException e)
+		{
+			return false;
+		}
+	}
+}
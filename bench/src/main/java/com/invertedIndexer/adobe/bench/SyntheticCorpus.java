@@ -0,0 +1,187 @@
+package com.invertedIndexer.adobe.bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.edit.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+
+/**
+ * @author Cotkaria
+ * Reproducible English-like corpus: the same seed always gives the same words and documents, so
+ * two benchmark runs measure the same work. Words are made of syllables and inflection suffixes
+ * (so the stemmer has something to do) and drawn with a Zipf distribution, like words of real text:
+ * a few words are in almost every document, most words are rare.
+ */
+public class SyntheticCorpus
+{
+	public static final long DEFAULT_SEED = 20160401L;
+	public static final int DEFAULT_VOCABULARY_SIZE = 50000;
+	public static final String[] STOP_WORDS = {"the", "and", "of", "to", "in"};
+
+	private static final String[] SYLLABLES = {"ab", "ac", "al", "an", "ar", "ba", "be", "bi", "bo", "ca",
+		"ce", "co", "cu", "da", "de", "di", "do", "el", "en", "er", "es", "fa", "fi", "fo", "ga", "ge",
+		"gi", "go", "ha", "he", "hi", "ho", "in", "is", "la", "le", "li", "lo", "lu", "ma", "me", "mi",
+		"mo", "na", "ne", "ni", "no", "or", "pa", "pe", "pi", "po", "ra", "re", "ri", "ro", "sa", "se",
+		"si", "so", "ta", "te", "ti", "to", "tu", "va", "ve", "vi", "vo", "za"};
+	private static final String[] SUFFIXES = {"", "", "", "s", "ing", "ed", "er", "ation", "ly", "ness", "ment"};
+	private static final double ZIPF_EXPONENT = 1.0;
+
+	private long mSeed;
+	private String[] mVocabulary;	//most frequent word first
+	private double[] mCumulativeFrequencies;
+
+	public SyntheticCorpus()
+	{
+		this(DEFAULT_SEED, DEFAULT_VOCABULARY_SIZE);
+	}
+
+	public SyntheticCorpus(long seed, int vocabularySize)
+	{
+		mSeed = seed;
+		Random random = new Random(seed);
+		Set<String> vocabulary = new LinkedHashSet<String>(Arrays.asList(STOP_WORDS));
+		while (vocabulary.size() < vocabularySize)
+		{
+			StringBuilder word = new StringBuilder();
+			for (int i = 2 + random.nextInt(3); i > 0; i--)
+			{
+				word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+			}
+			word.append(SUFFIXES[random.nextInt(SUFFIXES.length)]);
+			vocabulary.add(word.toString());
+		}
+		mVocabulary = vocabulary.toArray(new String[vocabulary.size()]);
+
+		mCumulativeFrequencies = new double[mVocabulary.length];
+		double sum = 0;
+		for (int rank = 0; rank < mVocabulary.length; rank++)
+		{
+			sum += 1 / Math.pow(rank + 1, ZIPF_EXPONENT);
+			mCumulativeFrequencies[rank] = sum;
+		}
+		for (int rank = 0; rank < mVocabulary.length; rank++)
+		{
+			mCumulativeFrequencies[rank] /= sum;
+		}
+	}
+
+	/**
+	 * @param rank: 0 for the most frequent word
+	 * @return the word of the given frequency rank, e.g. to build queries of known selectivity
+	 */
+	public String getWord(int rank)
+	{
+		return mVocabulary[rank];
+	}
+
+	public int getVocabularySize()
+	{
+		return mVocabulary.length;
+	}
+
+	/**
+	 * @param index: the same index always gives the same document
+	 * @param words
+	 * @return the text of the document, in sentences and lines
+	 */
+	public String document(int index, int words)
+	{
+		Random random = new Random(mSeed * 31 + index);
+		StringBuilder text = new StringBuilder(words * 8);
+		for (int i = 1; i <= words; i++)
+		{
+			int rank = Arrays.binarySearch(mCumulativeFrequencies, random.nextDouble());
+			text.append(mVocabulary[Math.min((rank < 0) ? -rank - 1 : rank, mVocabulary.length - 1)]);
+			text.append((i % 80 == 0) ? ".\n" : (i % 12 == 0) ? ". " : " ");
+		}
+		return text.toString();
+	}
+
+	/**
+	 * @param folder
+	 * @param documents
+	 * @param words: words per document
+	 * @throws IOException
+	 */
+	public void writeTextFiles(File folder, int documents, int words) throws IOException
+	{
+		folder.mkdirs();
+		for (int i = 0; i < documents; i++)
+		{
+			Files.write(new File(folder, String.format("doc%06d.txt", i)).toPath(),
+					document(i, words).getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * @param file
+	 * @throws IOException
+	 * Writes the stop words of the corpus, one per line, as expected by InverseIndexer.index()
+	 */
+	public static void writeStopWords(File file) throws IOException
+	{
+		Files.write(file.toPath(), String.join("\n", STOP_WORDS).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @param file
+	 * @param pages
+	 * @param wordsPerPage
+	 * @throws Exception
+	 */
+	public void writePdf(File file, int pages, int wordsPerPage) throws Exception
+	{
+		try (PDDocument document = new PDDocument())
+		{
+			for (int i = 0; i < pages; i++)
+			{
+				PDPage page = new PDPage();
+				document.addPage(page);
+				try (PDPageContentStream content = new PDPageContentStream(document, page))
+				{
+					content.beginText();
+					content.setFont(PDType1Font.HELVETICA, 8);
+					content.moveTextPositionByAmount(40, 760);
+					for (String line : document(i, wordsPerPage).split("[.\n] ?"))
+					{
+						content.drawString(line);
+						content.moveTextPositionByAmount(0, -10);
+					}
+					content.endText();
+				}
+			}
+			document.save(file.getPath());
+		}
+	}
+
+	/**
+	 * @param file
+	 * @param paragraphs
+	 * @param wordsPerParagraph
+	 * @throws IOException
+	 */
+	public void writeDocx(File file, int paragraphs, int wordsPerParagraph) throws IOException
+	{
+		try (XWPFDocument document = new XWPFDocument();
+				OutputStream output = new FileOutputStream(file))
+		{
+			for (int i = 0; i < paragraphs; i++)
+			{
+				document.createParagraph().createRun().setText(document(i, wordsPerParagraph));
+			}
+			document.write(output);
+		}
+	}
+}
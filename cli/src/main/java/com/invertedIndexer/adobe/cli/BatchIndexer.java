@@ -0,0 +1,168 @@
+package com.invertedIndexer.adobe.cli;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM;
+
+import com.invertedIndexer.adobe.InverseIndexer;
+import com.invertedIndexer.adobe.metrics.LatencySnapshot;
+import com.invertedIndexer.adobe.metrics.MetricsSnapshot;
+
+/**
+ * @author Cotkaria
+ * Command-line indexer for headless machines: indexes a folder on all the cores, saves the index
+ * (to be opened later by the application or by another run) and prints throughput statistics.
+ * It only needs the core module, JavaFX is neither required nor loaded.
+ * Several languages, with one stop words file each, are indexed in a single pass over the folder:
+ * the text of every file is extracted once and analyzed for every language.
+ * A partition of the folder can be indexed alone, as a shard served by its own SearchService and
+ * searched with the other shards through ShardSearch.
+ */
+public class BatchIndexer
+{
+	private static final String USAGE = "Usage: BatchIndexer <documents folder> <stop words file> <language> <index file> [threads] [shard/shards]\n"
+			+ "  language: english, romanian, ... (a Snowball stemmer language)\n"
+			+ "  several languages are separated by commas, e.g. english,romanian with en.txt,ro.txt as stop words files;\n"
+			+ "  the index of every language is then saved next to the index file, e.g. index-romanian.idx\n"
+			+ "  threads: threads extracting and analyzing the files, all the cores by default\n"
+			+ "  shard/shards: indexes only the files of a partition, e.g. 0/4 for the first of 4 shards";
+	private static final String[] FILE_TYPES = {"txt", "pdf", "doc", "docx"};
+
+	public static void main(String[] args) throws Exception
+	{
+		if (args.length < 4 || args.length > 6)
+		{
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+		File docsFolder = new File(args[0]);
+		String[] stopWordsFiles = args[1].split(",");
+		String[] languageNames = args[2].split(",");
+		File indexFile = new File(args[3]);
+		ALGORITHM[] languages = new ALGORITHM[languageNames.length];
+		int threads = Runtime.getRuntime().availableProcessors();
+		int shard = 0;
+		int shardCount = 1;
+		try
+		{
+			for (int i = 0; i < languageNames.length; i++)
+			{
+				languages[i] = ALGORITHM.valueOf(languageNames[i].trim().toUpperCase(Locale.ROOT));
+			}
+			if (args.length > 4)
+			{
+				threads = Integer.parseInt(args[4]);
+			}
+		}
+		catch (IllegalArgumentException e)
+		{
+			System.err.println("Invalid " + ((languages[languages.length - 1] == null) ? "language: " + args[2] : "number of threads: " + args[4]) + "\n" + USAGE);
+			System.exit(2);
+		}
+		if (args.length > 5)
+		{
+			String[] partition = args[5].split("/");
+			try
+			{
+				shard = Integer.parseInt(partition[0]);
+				shardCount = (partition.length == 2) ? Integer.parseInt(partition[1]) : 0;
+			}
+			catch (NumberFormatException e)
+			{
+				shardCount = 0;
+			}
+			if (shardCount < 1 || shard < 0 || shard >= shardCount)
+			{
+				System.err.println("Invalid shard: " + args[5] + "\n" + USAGE);
+				System.exit(2);
+			}
+		}
+		if (stopWordsFiles.length != languages.length)
+		{
+			System.err.println("Expected one stop words file per language\n" + USAGE);
+			System.exit(2);
+		}
+		for (String stopWordsFile : stopWordsFiles)
+		{
+			if (!docsFolder.isDirectory() || !new File(stopWordsFile).isFile())
+			{
+				System.err.println("Cannot read " + (!docsFolder.isDirectory() ? docsFolder : stopWordsFile) + "\n" + USAGE);
+				System.exit(2);
+			}
+		}
+
+		InverseIndexer indexer = new InverseIndexer(languages[0]);
+		indexer.setIndexingThreads(threads);
+		indexer.setPartition(shard, shardCount);
+		LinkedHashMap<InverseIndexer, File> otherLanguages = new LinkedHashMap<InverseIndexer, File>();
+		for (int i = 1; i < languages.length; i++)
+		{
+			InverseIndexer otherIndexer = new InverseIndexer(languages[i]);
+			otherIndexer.setPartition(shard, shardCount);
+			otherLanguages.put(otherIndexer, new File(stopWordsFiles[i]));
+		}
+		long start = System.nanoTime();
+		indexer.index(docsFolder, new File(stopWordsFiles[0]), otherLanguages);
+		long indexedNanos = System.nanoTime() - start;
+		indexer.save(indexFile);
+		for (InverseIndexer otherIndexer : otherLanguages.keySet())
+		{
+			otherIndexer.save(getIndexFile(indexFile, otherIndexer.getLanguage()));
+		}
+		long savedNanos = System.nanoTime() - start - indexedNanos;
+
+		printStatistics(indexer.getMetricsSnapshot(), threads, indexedNanos, savedNanos, indexFile);
+	}
+
+	/**
+	 * @param indexFile: index file of the first language
+	 * @param language
+	 * @return the index file of another language, e.g. index-romanian.idx
+	 */
+	private static File getIndexFile(File indexFile, ALGORITHM language)
+	{
+		String name = indexFile.getName();
+		int extension = name.lastIndexOf('.');
+		String suffix = "-" + language.name().toLowerCase(Locale.ROOT);
+		name = (extension > 0) ? name.substring(0, extension) + suffix + name.substring(extension) : name + suffix;
+		return new File(indexFile.getAbsoluteFile().getParentFile(), name);
+	}
+
+	private static void printStatistics(MetricsSnapshot metrics, int threads, long indexedNanos, long savedNanos, File indexFile)
+	{
+		double seconds = indexedNanos / 1e9;
+		long files = 0;
+		long bytes = 0;
+		System.out.println(String.format("%-6s %8s %12s %10s %10s %10s", "type", "files", "MB", "p50 ms", "p99 ms", "max ms"));
+		for (String type : FILE_TYPES)
+		{
+			long typeFiles = metrics.getCounter(InverseIndexer.METRIC_FILES + type);
+			if (typeFiles == 0)
+			{
+				continue;
+			}
+			long typeBytes = metrics.getCounter(InverseIndexer.METRIC_BYTES + type);
+			LatencySnapshot extraction = metrics.getLatency(InverseIndexer.METRIC_EXTRACT_LATENCY + type);
+			System.out.println(String.format("%-6s %8d %12.1f %10.1f %10.1f %10.1f", type, typeFiles, typeBytes / 1e6,
+					toMillis(extraction.getP50()), toMillis(extraction.getP99()), toMillis(extraction.getMax())));
+			files += typeFiles;
+			bytes += typeBytes;
+		}
+		long tokens = metrics.getCounter(InverseIndexer.METRIC_TOKENS);
+		System.out.println();
+		System.out.println(String.format("Indexed %d files (%.1f MB) in %.2f s on %d threads", files, bytes / 1e6, seconds, threads));
+		System.out.println(String.format("  %.1f files/s, %.2f MB/s, %.0f tokens/s", files / seconds, bytes / 1e6 / seconds, tokens / seconds));
+		System.out.println(String.format("  %d documents, %d terms, %d postings, ~%.1f MB of heap",
+				metrics.getGauge(InverseIndexer.METRIC_DOCUMENTS), metrics.getGauge(InverseIndexer.METRIC_TERMS),
+				metrics.getGauge(InverseIndexer.METRIC_POSTINGS), metrics.getGauge(InverseIndexer.METRIC_HEAP_BYTES) / 1e6));
+		System.out.println(String.format("Saved %s (%.1f MB) in %.2f s", indexFile, indexFile.length() / 1e6, savedNanos / 1e9));
+	}
+
+	private static double toMillis(long nanos)
+	{
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+}
@@ -0,0 +1,62 @@
+package com.invertedIndexer.adobe.cli;
+
+import java.io.File;
+import java.util.Locale;
+
+import opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM;
+
+import com.invertedIndexer.adobe.InverseIndexer;
+import com.invertedIndexer.adobe.server.SearchServer;
+
+/**
+ * @author Cotkaria
+ * Serves an index saved by BatchIndexer (or by the application) over HTTP on the loopback
+ * interface, see SearchServer for the requests. Runs until the process is stopped.
+ */
+public class SearchService
+{
+	private static final String USAGE = "Usage: SearchService <index file> <language> [port] [threads]\n"
+			+ "  port: 8080 by default\n"
+			+ "  threads: threads evaluating the requests, all the cores by default";
+	private static final int DEFAULT_PORT = 8080;
+	private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+	public static void main(String[] args) throws Exception
+	{
+		//without it every small response waits for the delayed acknowledgement of the client, see
+		//SearchServer. Read by the JDK when the first server is created, unless given on the command line.
+		if (System.getProperty(NODELAY_PROPERTY) == null)
+		{
+			System.setProperty(NODELAY_PROPERTY, "true");
+		}
+		if (args.length < 2 || args.length > 4)
+		{
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+		ALGORITHM language = null;
+		int port = DEFAULT_PORT;
+		int threads = Runtime.getRuntime().availableProcessors();
+		try
+		{
+			language = ALGORITHM.valueOf(args[1].toUpperCase(Locale.ROOT));
+			port = (args.length > 2) ? Integer.parseInt(args[2]) : port;
+			threads = (args.length > 3) ? Integer.parseInt(args[3]) : threads;
+		}
+		catch (IllegalArgumentException e)
+		{
+			System.err.println("Invalid " + ((language == null) ? "language: " + args[1] : "number: " + e.getMessage()) + "\n" + USAGE);
+			System.exit(2);
+		}
+
+		InverseIndexer indexer = new InverseIndexer(language);
+		indexer.open(new File(args[0]));
+		SearchServer server = new SearchServer(indexer, port);
+		server.setThreads(threads);
+		server.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+		System.out.println(String.format("Serving %s (%d documents) on http://localhost:%d/search with %d threads",
+				args[0], indexer.getSnapshot().getIndex().getDocumentCount(), server.getPort(), threads));
+		Thread.currentThread().join();
+	}
+}
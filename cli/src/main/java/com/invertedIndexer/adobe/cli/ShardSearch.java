@@ -0,0 +1,72 @@
+package com.invertedIndexer.adobe.cli;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.invertedIndexer.adobe.server.ShardCoordinator;
+import com.invertedIndexer.adobe.types.MapFileToWordOccurencesEntry;
+
+/**
+ * @author Cotkaria
+ * Searches an index partitioned by BatchIndexer into shards, each one served by a SearchService:
+ * the queries are sent to all the shards and their hits merged, see ShardCoordinator.
+ */
+public class ShardSearch
+{
+	private static final String USAGE = "Usage: ShardSearch <shards> <k> <query>...\n"
+			+ "  shards: ports of the shards served on localhost, separated by commas, in the order of the shards;\n"
+			+ "  the replicas of a shard are separated by |, e.g. 8081|8091,8082|8092\n"
+			+ "  k: maximum number of hits of every query";
+	private static final long TIMEOUT_MILLIS = 2000;
+
+	public static void main(String[] args) throws Exception
+	{
+		if (args.length < 3)
+		{
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+		List<List<InetSocketAddress>> shards = new ArrayList<List<InetSocketAddress>>();
+		int k = 0;
+		try
+		{
+			for (String shard : args[0].split(","))
+			{
+				List<InetSocketAddress> replicas = new ArrayList<InetSocketAddress>();
+				for (String port : shard.split("\\|"))
+				{
+					replicas.add(new InetSocketAddress("localhost", Integer.parseInt(port.trim())));
+				}
+				shards.add(replicas);
+			}
+			k = Integer.parseInt(args[1]);
+		}
+		catch (IllegalArgumentException e)
+		{
+			System.err.println("Invalid number: " + e.getMessage() + "\n" + USAGE);
+			System.exit(2);
+		}
+
+		List<String> queries = Arrays.asList(args).subList(2, args.length);
+		try (ShardCoordinator coordinator = new ShardCoordinator(shards))
+		{
+			coordinator.setTimeoutMillis(TIMEOUT_MILLIS);
+			ShardCoordinator.Results results = coordinator.findTop(queries, k);
+			for (int i = 0; i < queries.size(); i++)
+			{
+				System.out.println(queries.get(i));
+				for (MapFileToWordOccurencesEntry hit : results.getHits().get(i))
+				{
+					System.out.println("  " + hit.getKey() + " " + hit.getValue());
+				}
+			}
+			if (!results.isComplete())
+			{
+				System.err.println("Partial results, no answer from the shards " + results.getMissingShards());
+				System.exit(1);
+			}
+		}
+	}
+}
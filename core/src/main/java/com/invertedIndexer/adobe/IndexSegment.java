@@ -0,0 +1,174 @@
+package com.invertedIndexer.adobe;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.invertedIndexer.adobe.analysis.Analyzer;
+import com.invertedIndexer.adobe.analysis.CharArrayMap;
+import com.invertedIndexer.adobe.analysis.Token;
+import com.invertedIndexer.adobe.incremental.FileState;
+import com.invertedIndexer.adobe.types.DocumentTable;
+import com.invertedIndexer.adobe.types.InMemoryIndex;
+import com.invertedIndexer.adobe.types.MapWordToFileOccurrences;
+import com.invertedIndexer.adobe.types.PostingsList;
+
+/**
+ * @author Cotkaria
+ * Private partial index filled by a single indexing worker.
+ * A segment is never shared between threads: each worker owns its segment (and its analyzer,
+ * as analyzers are not thread-safe) and the segments are merged into the next index once the
+ * workers are done. A segment that is not filled anymore can also be searched as it is.
+ * With positions, the occurrences of a word in a document must be added in the order of the text.
+ */
+class IndexSegment
+{
+	private InMemoryIndex mIndex;
+	private MapWordToFileOccurrences mInverseIndex;
+	private DocumentTable mDocuments;
+	private Analyzer mAnalyzer;
+	private CharArrayMap<PostingsList> mTermLookup;
+	private Map<String, FileState> mFileStates;
+	private boolean mHasPositions;
+	private int[] mPosition;	//single position added by addWord(Token, int)
+
+	/**
+	 * @param analyzers: creates the analyzer of the segment
+	 * @param hasPositions: true to index the positions of the words
+	 */
+	IndexSegment(Supplier<Analyzer> analyzers, boolean hasPositions)
+	{
+		mHasPositions = hasPositions;
+		mPosition = new int[1];
+		mIndex = new InMemoryIndex();
+		mInverseIndex = mIndex.getTermsMap();
+		mDocuments = mIndex.getDocuments();
+		mAnalyzer = analyzers.get();
+		mTermLookup = new CharArrayMap<PostingsList>();
+		mFileStates = new LinkedHashMap<String, FileState>();
+	}
+
+	boolean hasPositions()
+	{
+		return mHasPositions;
+	}
+
+	Analyzer getAnalyzer()
+	{
+		return mAnalyzer;
+	}
+
+	InMemoryIndex getIndex()
+	{
+		return mIndex;
+	}
+
+	DocumentTable getDocuments()
+	{
+		return mDocuments;
+	}
+
+	/**
+	 * @param fileName
+	 * @param state: state of the file when it was indexed
+	 */
+	void addFileState(String fileName, FileState state)
+	{
+		mFileStates.put(fileName, state);
+	}
+
+	Map<String, FileState> getFileStates()
+	{
+		return mFileStates;
+	}
+
+	/**
+	 * @param docKey
+	 * @return the id of the document in this segment, the document is registered if needed
+	 */
+	int addDocument(String docKey)
+	{
+		return mDocuments.getOrAdd(docKey);
+	}
+
+	/**
+	 * @param token
+	 * @param docId
+	 * Adds an occurrence of the analyzed word, at the position of the token. The postings are
+	 * looked up with the token buffer, a String is only created the first time the segment sees a word.
+	 */
+	void addWord(Token token, int docId)
+	{
+		PostingsList postings = mTermLookup.get(token.buffer(), 0, token.length());
+		if (postings == null)
+		{
+			postings = getOrCreatePostings(token.toString());
+		}
+		mPosition[0] = token.getPosition();
+		postings.add(docId, mPosition, 0, 1);
+	}
+
+	/**
+	 * @param word: analyzed word
+	 * @param docId
+	 * @param occurrences: the number of occurrences of the word, followed by their positions if
+	 * the segment has positions. The positions are shifted by the base in place.
+	 * @param positionBase: position of the text of the occurrences in the document
+	 * Adds several occurrences of the word at once
+	 */
+	void addWord(String word, int docId, int[] occurrences, int positionBase)
+	{
+		PostingsList postings = mTermLookup.get(word);
+		if (postings == null)
+		{
+			postings = getOrCreatePostings(word);
+		}
+		if (mHasPositions)
+		{
+			for (int i = 1; i <= occurrences[0]; i++)
+			{
+				occurrences[i] += positionBase;
+			}
+		}
+		postings.add(docId, occurrences, 1, occurrences[0]);
+	}
+
+	private PostingsList getOrCreatePostings(String word)
+	{
+		PostingsList postings = mInverseIndex.get(word);
+		if (postings == null)
+		{
+			postings = new PostingsList(mHasPositions);
+			mInverseIndex.put(word, postings);
+		}
+		mTermLookup.put(word, postings);
+		return postings;
+	}
+
+	/**
+	 * @param index
+	 * Adds the postings of this segment to the given index. Documents missing from the index
+	 * are appended to it; callers that care about the ids order register them beforehand.
+	 */
+	void mergeInto(InMemoryIndex index)
+	{
+		MapWordToFileOccurrences inverseIndex = index.getTermsMap();
+		DocumentTable documents = index.getDocuments();
+		int[] docIdMap = new int[mDocuments.size()];
+		for (int docId = 0; docId < docIdMap.length; docId++)
+		{
+			docIdMap[docId] = documents.getOrAdd(mDocuments.getName(docId));
+		}
+		
+		for (Map.Entry<String, PostingsList> entry : mInverseIndex.entrySet())
+		{
+			PostingsList postings = inverseIndex.get(entry.getKey());
+			if (postings == null)
+			{
+				postings = new PostingsList(entry.getValue().size(), entry.getValue().hasPositions());
+				inverseIndex.put(entry.getKey(), postings);
+			}
+			postings.merge(entry.getValue(), docIdMap);
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package com.invertedIndexer.adobe;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.invertedIndexer.adobe.analysis.CharArraySet;
+import com.invertedIndexer.adobe.incremental.FileManifest;
+import com.invertedIndexer.adobe.types.SegmentedIndex;
+
+/**
+ * @author Cotkaria
+ * Generation of an index published for searching: the index, the stop words used to build it
+ * (needed to analyze the queries the same way) and the states of the indexed files.
+ * Nothing in a snapshot is modified once it is published, so searches read it without locks;
+ * indexing builds the next snapshot and publishes it in a single volatile write.
+ */
+public final class IndexSnapshot
+{
+	private final SegmentedIndex mIndex;
+	private final CharArraySet mStopWords;
+	private final FileManifest mManifest;
+	private final long mGeneration;
+
+	IndexSnapshot(SegmentedIndex index, CharArraySet stopWords, FileManifest manifest, long generation)
+	{
+		mIndex = index;
+		mStopWords = stopWords;
+		mManifest = manifest;
+		mGeneration = generation;
+	}
+
+	public SegmentedIndex getIndex()
+	{
+		return mIndex;
+	}
+
+	CharArraySet getStopWords()
+	{
+		return mStopWords;
+	}
+
+	public List<String> getStopWordsList()
+	{
+		return Arrays.asList(mStopWords.toArray());
+	}
+
+	/**
+	 * @return the states of the indexed files, null if unknown (e.g. an index opened from disk,
+	 * whose manifest is read from the file only when needed)
+	 */
+	FileManifest getManifest()
+	{
+		return mManifest;
+	}
+
+	/**
+	 * @return the number of the snapshot, incremented every time a snapshot is published
+	 */
+	public long getGeneration()
+	{
+		return mGeneration;
+	}
+}
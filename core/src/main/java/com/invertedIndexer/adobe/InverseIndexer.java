@@ -0,0 +1,2266 @@
+package com.invertedIndexer.adobe;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.pdfbox.cos.COSDocument;
+import org.apache.pdfbox.io.RandomAccessFile;
+import org.apache.pdfbox.pdfparser.PDFParser;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.util.PDFTextStripper;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
+
+import com.invertedIndexer.adobe.analysis.Analyzer;
+import com.invertedIndexer.adobe.analysis.CharArrayMap;
+import com.invertedIndexer.adobe.analysis.CharArraySet;
+import com.invertedIndexer.adobe.analysis.LowerCaseFilter;
+import com.invertedIndexer.adobe.analysis.MinLengthFilter;
+import com.invertedIndexer.adobe.analysis.StemCache;
+import com.invertedIndexer.adobe.analysis.StemFilter;
+import com.invertedIndexer.adobe.analysis.StopFilter;
+import com.invertedIndexer.adobe.analysis.Token;
+import com.invertedIndexer.adobe.incremental.FileManifest;
+import com.invertedIndexer.adobe.incremental.FileState;
+import com.invertedIndexer.adobe.incremental.FolderWatcher;
+import com.invertedIndexer.adobe.metrics.LatencyHistogram;
+import com.invertedIndexer.adobe.metrics.MetricsRegistry;
+import com.invertedIndexer.adobe.metrics.MetricsSnapshot;
+import com.invertedIndexer.adobe.pipeline.Emitter;
+import com.invertedIndexer.adobe.pipeline.Pipeline;
+import com.invertedIndexer.adobe.pipeline.StageWorker;
+import com.invertedIndexer.adobe.search.BooleanQuery;
+import com.invertedIndexer.adobe.search.MultiTermQuery;
+import com.invertedIndexer.adobe.search.PositionalQuery;
+import com.invertedIndexer.adobe.search.QueryParser;
+import com.invertedIndexer.adobe.search.QueryResultCache;
+import com.invertedIndexer.adobe.search.SearchHit;
+import com.invertedIndexer.adobe.search.TopKSearcher;
+import com.invertedIndexer.adobe.storage.IndexFileWriter;
+import com.invertedIndexer.adobe.storage.IndexMetadata;
+import com.invertedIndexer.adobe.storage.MappedIndex;
+import com.invertedIndexer.adobe.storage.TextCache;
+import com.invertedIndexer.adobe.types.InMemoryIndex;
+import com.invertedIndexer.adobe.types.IndexView;
+import com.invertedIndexer.adobe.types.MapWordToOccurences;
+import com.invertedIndexer.adobe.types.MapFileToWordOccurencesEntry;
+import com.invertedIndexer.adobe.types.Postings;
+import com.invertedIndexer.adobe.types.PostingsCursor;
+import com.invertedIndexer.adobe.types.SegmentedIndex;
+
+/**
+ * @author Cotkaria
+ * Class that contains application logic: 
+ * -Files indexing (get the number of occurrences for each word, ignoring stop words)
+ * -Word stemming (apply porter stemming algorithm for different languages)
+ * -Word search (support for multiple words as well, only the k best files can be searched for)
+ * -Parallel indexing: files go through a pipeline of stages (read, text extraction, analysis,
+ * merge) connected by bounded queues, each stage running on its own threads
+ * -Persistence: the index can be saved to a file and opened again (memory-mapped) without re-indexing
+ * -Incremental indexing: only the files added or modified since the last run are indexed again,
+ * optionally as soon as they change (see startWatching())
+ * -Search while indexing: searches run without locks on the last published snapshot of the index,
+ * indexing builds the next snapshot and publishes it when done (or periodically, see setSnapshotInterval())
+ */
+public class InverseIndexer
+{
+	// 1. Go through each word (what is a word? a group of letters, diacritics
+	// included, separated by specified separators: whitespace, digits and
+	// punctuation marks, i.e. auto-enable)
+	// 2. Make the word lower-case
+	// 3. Filter the stop words
+	// 4. Apply the stemming algorithm
+	// 5. Add them to the document map
+	// Steps 1-4 are the analysis chain, shared by indexing and searching (see createAnalyzer())
+
+	
+	private final static String EXTENSION_TXT = "txt";
+	private final static String EXTENSION_PDF = "pdf";
+	private final static String EXTENSION_DOC = "doc";
+	private final static String EXTENSION_DOCX = "docx";
+
+	//indexing stages, see setStageThreads()
+	private final static String STAGE_ENUMERATE = "enumerate";
+	public final static String STAGE_READ = "read";
+	public final static String STAGE_EXTRACT = "extract";
+	public final static String STAGE_ANALYZE = "analyze";
+	private final static String STAGE_MERGE = "merge";
+
+	private static final int STEM_CACHE_SIZE = 64 * 1024;
+	private static final int DEFAULT_RESULT_CACHE_HITS = 100 * 1024;
+	private static final int DEFAULT_MAX_WILDCARD_TERMS = 1024;
+	private static final int DEFAULT_PDF_PAGE_WINDOW = 16;
+	//versions of the extractors in the keys of the text cache, to be changed with the extracted text
+	private static final String PDF_EXTRACTOR = "pdf.1";
+	private static final String DOCX_EXTRACTOR = "docx.2";
+	private static final String DOC_EXTRACTOR = "doc.1";
+	private static final int LANGUAGE_DETECTION_LENGTH = 64 * 1024;	//characters of a document looked at to detect its language
+	private static final long LARGE_FILE_SIZE = 32 * 1024 * 1024;	//files streamed from disk instead of read in memory
+	private static final int TEXT_CHUNK_SIZE = 8 * 1024 * 1024;
+	private static final int MAX_SEGMENTS = 8;	//segments of the searched index before they are merged
+	private static final int DEFAULT_READ_THREADS = 2;
+	private static final int QUEUE_CAPACITY_PER_THREAD = 4;	//items waiting in front of every thread of a stage
+	private static final Pattern STOP_WORDS = Pattern.compile("(?:^\\s*)(\\w+).*");
+	private static final AtomicLong sIndexerIds = new AtomicLong();
+
+	//metrics, see getMetrics(). Metrics per file type end with the extension, e.g. "extract.pdf"
+	public final static String METRIC_SEARCH_LATENCY = "search.latency";
+	public final static String METRIC_BATCH_SEARCH_LATENCY = "search.batchLatency";	//all the queries of a batch
+	public final static String METRIC_EXTRACT_LATENCY = "extract.";	//per file, without the time waiting for the analysis
+	public final static String METRIC_FILES = "files.";
+	public final static String METRIC_BYTES = "bytes.";
+	public final static String METRIC_TOKENS = "tokens";
+	public final static String METRIC_DOCUMENTS = "index.documents";
+	public final static String METRIC_TERMS = "index.terms";
+	public final static String METRIC_POSTINGS = "index.postings";
+	public final static String METRIC_HEAP_BYTES = "index.heapBytes";
+	public final static String METRIC_GENERATION = "index.generation";
+
+	private volatile IndexSnapshot mSnapshot;	//index searched by queries, replaced as a whole by indexing
+	private long mGeneration;
+	private StemCache mStemCache;
+	private volatile QueryResultCache mResultCache;
+	private volatile TextCache mTextCache;	//text extracted from the documents, null for none
+	private ALGORITHM mLanguage;
+	private Map<String, Integer> mStageThreads;	//threads of the indexing stages
+	private volatile Pipeline mPipeline;	//pipeline of the indexing in progress
+	private int mPdfPageWindow;	//number of PDF pages extracted at a time
+	private Charset mTextCharset;	//encoding of the text files
+	private long mSnapshotInterval;	//milliseconds between the snapshots published while indexing, 0 for none
+	private volatile boolean mIsPositionsIndexed;	//positions of the words, for phrase and proximity queries
+	private volatile int mMaxWildcardTerms;	//maximum number of terms matched by a pattern of a query
+	private volatile int mShard;	//partition of the documents indexed, see setPartition()
+	private volatile int mShardCount;
+	private volatile boolean mIsLanguageDetected;	//documents only analyzed for their language, see index(File, File, LinkedHashMap)
+	private FolderWatcher mWatcher;
+	private final Object mIndexingLock = new Object();	//one indexing run at a time
+	private final long mId = sIndexerIds.incrementAndGet();	//order in which the indexing locks of several indexers are taken
+
+	private volatile String mCurrentlyIndexedFile;
+	private List<Consumer<String>> mIndexedFileListeners;
+	private volatile boolean mIsCancelled;
+
+	private final MetricsRegistry mMetrics;
+	private final LatencyHistogram mSearchLatency;
+	private final LatencyHistogram mBatchSearchLatency;
+	private final LongAdder mTokens;
+	private volatile IndexStatistics mStatistics;	//statistics of the last snapshot they were computed for
+	
+	public InverseIndexer(ALGORITHM language)
+	{
+		mLanguage = language;
+		mStemCache = new StemCache(language, STEM_CACHE_SIZE);
+		mResultCache = new QueryResultCache(DEFAULT_RESULT_CACHE_HITS);
+		mIndexedFileListeners = new CopyOnWriteArrayList<Consumer<String>>();
+		mStageThreads = new HashMap<String, Integer>();
+		mStageThreads.put(STAGE_ENUMERATE, 1);
+		mStageThreads.put(STAGE_READ, DEFAULT_READ_THREADS);
+		mStageThreads.put(STAGE_EXTRACT, 1);
+		mStageThreads.put(STAGE_ANALYZE, 1);
+		mStageThreads.put(STAGE_MERGE, 1);
+		mPdfPageWindow = DEFAULT_PDF_PAGE_WINDOW;
+		mTextCharset = StandardCharsets.UTF_8;
+		mIsPositionsIndexed = true;
+		mMaxWildcardTerms = DEFAULT_MAX_WILDCARD_TERMS;
+		mShardCount = 1;
+		mSnapshot = new IndexSnapshot(SegmentedIndex.EMPTY, new CharArraySet(), null, 0);
+		
+		mMetrics = new MetricsRegistry();
+		mSearchLatency = mMetrics.histogram(METRIC_SEARCH_LATENCY);
+		mBatchSearchLatency = mMetrics.histogram(METRIC_BATCH_SEARCH_LATENCY);
+		mTokens = mMetrics.counter(METRIC_TOKENS);
+		mMetrics.gauge(METRIC_DOCUMENTS, () -> mSnapshot.getIndex().getDocumentCount());
+		mMetrics.gauge(METRIC_TERMS, () -> mSnapshot.getIndex().getTermCount());
+		mMetrics.gauge(METRIC_POSTINGS, () -> getIndexStatistics().getPostingCount());
+		mMetrics.gauge(METRIC_HEAP_BYTES, () -> getIndexStatistics().getHeapBytes());
+		mMetrics.gauge(METRIC_GENERATION, () -> mSnapshot.getGeneration());
+		mMetrics.gauge("stemCache.hits", mStemCache::getHitCount);
+		mMetrics.gauge("stemCache.misses", mStemCache::getMissCount);
+		mMetrics.gauge("resultCache.hits", () -> mResultCache.getHitCount());
+		mMetrics.gauge("resultCache.misses", () -> mResultCache.getMissCount());
+		mMetrics.gauge("resultCache.evictions", () -> mResultCache.getEvictionCount());
+		mMetrics.gauge("resultCache.invalidations", () -> mResultCache.getInvalidationCount());
+		mMetrics.gauge("textCache.hits", () -> (mTextCache != null) ? mTextCache.getHitCount() : 0);
+		mMetrics.gauge("textCache.misses", () -> (mTextCache != null) ? mTextCache.getMissCount() : 0);
+		mMetrics.gauge("textCache.evictions", () -> (mTextCache != null) ? mTextCache.getEvictionCount() : 0);
+		mMetrics.gauge("textCache.corruptions", () -> (mTextCache != null) ? mTextCache.getCorruptionCount() : 0);
+	}
+	
+	/**
+	 * @param stopWords
+	 * @return a new analysis chain using the given stop words and the stem cache of this indexer.
+	 * Analyzers are not thread-safe, every indexing worker and every search creates its own.
+	 */
+	private Analyzer createAnalyzer(CharArraySet stopWords)
+	{
+		return new Analyzer(
+				new MinLengthFilter(2),	//ignore one-letter word as they are definitely stop words
+				new LowerCaseFilter(),
+				new StopFilter(stopWords),
+				new StemFilter(mStemCache));
+	}
+	
+	/**
+	 * @return the language of the stemmer, see the analysis chain
+	 */
+	public ALGORITHM getLanguage()
+	{
+		return mLanguage;
+	}
+	
+	/**
+	 * @return the stem cache shared by indexing and searching, e.g. for its hit rate
+	 */
+	public StemCache getStemCache()
+	{
+		return mStemCache;
+	}
+	
+	/**
+	 * @return the cache of the search results, e.g. for its hit rate
+	 */
+	public QueryResultCache getResultCache()
+	{
+		return mResultCache;
+	}
+	
+	/**
+	 * @param maxHits: maximum number of hits kept by the cache of the search results for all the
+	 * cached queries, 0 disables it. The cached results are dropped.
+	 */
+	public void setResultCacheSize(long maxHits)
+	{
+		mResultCache = new QueryResultCache(maxHits);
+	}
+	
+	/**
+	 * @param cache: cache of the text extracted from PDF and Word documents, null (the default) to
+	 * parse them every time they are indexed. A cache can be shared by the indexers of several languages.
+	 */
+	public void setTextCache(TextCache cache)
+	{
+		mTextCache = cache;
+	}
+	
+	public TextCache getTextCache()
+	{
+		return mTextCache;
+	}
+	
+	/**
+	 * @param threads: number of threads extracting and analyzing the files (see setStageThreads())
+	 */
+	public void setIndexingThreads(int threads)
+	{
+		setStageThreads(STAGE_EXTRACT, threads);
+		setStageThreads(STAGE_ANALYZE, threads);
+	}
+	
+	public int getIndexingThreads()
+	{
+		return getStageThreads(STAGE_ANALYZE);
+	}
+	
+	/**
+	 * @param stage: STAGE_READ, STAGE_EXTRACT or STAGE_ANALYZE. The folders are enumerated and the
+	 * index is merged on a single thread.
+	 * @param threads
+	 */
+	public void setStageThreads(String stage, int threads)
+	{
+		if (!STAGE_READ.equals(stage) && !STAGE_EXTRACT.equals(stage) && !STAGE_ANALYZE.equals(stage))
+		{
+			throw new IllegalArgumentException("The number of threads of this stage cannot be set: " + stage);
+		}
+		mStageThreads.put(stage, Math.max(1, threads));
+	}
+	
+	public int getStageThreads(String stage)
+	{
+		return mStageThreads.get(stage);
+	}
+	
+	/**
+	 * @return the depth of the queue of every indexing stage, e.g. "read 0/8, extract 8/8, analyze 1/16",
+	 * empty when no folder is being indexed. Items pile up in front of the slowest stage.
+	 */
+	public String getIndexingStatus()
+	{
+		Pipeline pipeline = mPipeline;
+		return (pipeline != null) ? pipeline.toString() : "";
+	}
+	
+	/**
+	 * @param pages: number of PDF pages extracted and indexed at a time, it bounds the memory
+	 * used by the text of a PDF file
+	 */
+	public void setPdfPageWindow(int pages)
+	{
+		mPdfPageWindow = Math.max(1, pages);
+	}
+	
+	public int getPdfPageWindow()
+	{
+		return mPdfPageWindow;
+	}
+	
+	/**
+	 * @param charset: encoding of the text files (UTF-8 by default)
+	 */
+	public void setTextCharset(Charset charset)
+	{
+		mTextCharset = charset;
+	}
+	
+	public Charset getTextCharset()
+	{
+		return mTextCharset;
+	}
+	
+	/**
+	 * @param millis: time between the snapshots published while a folder is indexed, so the files
+	 * indexed so far can be searched. 0 (the default) publishes the index only once complete.
+	 */
+	public void setSnapshotInterval(long millis)
+	{
+		mSnapshotInterval = Math.max(0, millis);
+	}
+	
+	public long getSnapshotInterval()
+	{
+		return mSnapshotInterval;
+	}
+	
+	/**
+	 * @param isPositionsIndexed: true (the default) to index the positions of the words, which
+	 * phrase and NEAR queries need (see findTop()). Without positions the postings take no memory
+	 * for them. Applies to the documents indexed from now on.
+	 */
+	public void setPositionsIndexed(boolean isPositionsIndexed)
+	{
+		mIsPositionsIndexed = isPositionsIndexed;
+	}
+	
+	public boolean isPositionsIndexed()
+	{
+		return mIsPositionsIndexed;
+	}
+	
+	/**
+	 * @param maxTerms: maximum number of indexed terms a word with wildcards or a fuzzy word may
+	 * match (see findTop()); a query with a word matching more terms is rejected
+	 */
+	public void setMaxWildcardTerms(int maxTerms)
+	{
+		mMaxWildcardTerms = maxTerms;
+	}
+	
+	public int getMaxWildcardTerms()
+	{
+		return mMaxWildcardTerms;
+	}
+	
+	/**
+	 * @param isLanguageDetected: true to analyze every document only for its language when a folder
+	 * is indexed for several languages (see index(File, File, LinkedHashMap)), false (the default) to analyze
+	 * every document for all of them
+	 */
+	public void setLanguageDetection(boolean isLanguageDetected)
+	{
+		mIsLanguageDetected = isLanguageDetected;
+	}
+	
+	public boolean isLanguageDetected()
+	{
+		return mIsLanguageDetected;
+	}
+	
+	/**
+	 * @param shard: partition of the documents indexed by this indexer, from 0 to shardCount - 1
+	 * @param shardCount: number of partitions, 1 (the default) to index all the documents. The
+	 * documents are spread over the partitions by their name (see getShard()), so the indexers of
+	 * all the partitions, e.g. searched together by a ShardCoordinator, index every document once.
+	 * Applies to the folders indexed from now on.
+	 */
+	public void setPartition(int shard, int shardCount)
+	{
+		if (shardCount < 1 || shard < 0 || shard >= shardCount)
+		{
+			throw new IllegalArgumentException("Invalid partition " + shard + "/" + shardCount);
+		}
+		mShard = shard;
+		mShardCount = shardCount;
+	}
+	
+	public int getShard()
+	{
+		return mShard;
+	}
+	
+	public int getShardCount()
+	{
+		return mShardCount;
+	}
+	
+	/**
+	 * @param documentName
+	 * @param shardCount
+	 * @return the partition of the document, from 0 to shardCount - 1
+	 */
+	public static int getShard(String documentName, int shardCount)
+	{
+		return Math.floorMod(documentName.hashCode(), shardCount);
+	}
+	
+	private boolean isInPartition(File file)
+	{
+		return mShardCount == 1 || getShard(file.getName(), mShardCount) == mShard;
+	}
+	
+	/**
+	 * @return the index currently searched
+	 */
+	public IndexSnapshot getSnapshot()
+	{
+		return mSnapshot;
+	}
+	
+	/**
+	 * @return the counters, latencies and gauges of this indexer (see the METRIC_* names), e.g. to
+	 * register them as an MBean with getMetrics().registerMBean()
+	 */
+	public MetricsRegistry getMetrics()
+	{
+		return mMetrics;
+	}
+	
+	/**
+	 * @return the current value of the metrics of this indexer
+	 */
+	public MetricsSnapshot getMetricsSnapshot()
+	{
+		return mMetrics.snapshot();
+	}
+	
+	/**
+	 * @return the statistics of the searched index. They go through all the terms, so they are
+	 * only computed again once a new snapshot is published.
+	 */
+	private IndexStatistics getIndexStatistics()
+	{
+		IndexSnapshot snapshot = mSnapshot;
+		IndexStatistics statistics = mStatistics;
+		if (statistics == null || statistics.getSnapshot() != snapshot)
+		{
+			statistics = new IndexStatistics(snapshot);
+			mStatistics = statistics;
+		}
+		return statistics;
+	}
+
+	public List<MapFileToWordOccurencesEntry> findWithCount(String text)
+	{
+		return findTop(text, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * @param text: the word(s) to be searched, separated by white spaces. Words in double quotes
+	 * are searched as a phrase, and two words joined by NEAR/k at most k positions apart; these
+	 * need an index with positions. Words with wildcards (invoic*, *order) and fuzzy words
+	 * (invoise~1) match several terms, at most getMaxWildcardTerms(). AND, OR, NOT, +required and -excluded words and parentheses
+	 * restrict the files searched (see QueryParser).
+	 * @param k: maximum number of results
+	 * @return the k files containing the most occurrences of the words, along with the number of
+	 * occurrences of each word in each file (of each phrase and NEAR clause: its number of matches)
+	 * The search runs on the last published snapshot, without waiting for the indexing in progress.
+	 */
+	public List<MapFileToWordOccurencesEntry> findTop(String text, int k)
+	{
+		long start = System.nanoTime();
+		IndexSnapshot snapshot = mSnapshot;
+		List<MapFileToWordOccurencesEntry> results = findTop(snapshot, text, k, snapshot.getIndex()::getPostings, () -> false);
+		mSearchLatency.recordSince(start);
+		return results;
+	}
+	
+	/**
+	 * @param texts: queries, see findTop(String, int)
+	 * @param k: maximum number of results of every query
+	 * @param isCancelled: checked between the queries, before every term expanded or looked up and
+	 * every few documents walked, e.g. once the deadline of a request is past. Only the walk of the
+	 * term dictionary by a single wildcard or fuzzy word is not interrupted.
+	 * @return the results of every query, in the order of the queries
+	 * @throws CancellationException if cancelled before all the queries are evaluated
+	 * The queries are evaluated together on the same snapshot, and the postings of the terms
+	 * shared by several queries are looked up once.
+	 */
+	public List<List<MapFileToWordOccurencesEntry>> findTop(List<String> texts, int k, BooleanSupplier isCancelled)
+	{
+		long start = System.nanoTime();
+		IndexSnapshot snapshot = mSnapshot;
+		IndexView index = snapshot.getIndex();
+		Map<String, Optional<Postings>> postings = new HashMap<String, Optional<Postings>>();
+		List<List<MapFileToWordOccurencesEntry>> results = new ArrayList<List<MapFileToWordOccurencesEntry>>();
+		Function<String, Postings> lookup = term ->
+		{
+			checkCancelled(isCancelled, results.size(), texts.size());
+			return postings.computeIfAbsent(term, key -> Optional.ofNullable(index.getPostings(key))).orElse(null);
+		};
+		
+		for (String text : texts)
+		{
+			checkCancelled(isCancelled, results.size(), texts.size());
+			results.add(findTop(snapshot, text, k, lookup, isCancelled));
+		}
+		mBatchSearchLatency.recordSince(start);
+		return results;
+	}
+	
+	private static void checkCancelled(BooleanSupplier isCancelled, int evaluatedQueries, int queries)
+	{
+		if (isCancelled.getAsBoolean())
+		{
+			throw new CancellationException("Search cancelled after " + evaluatedQueries + " of " + queries + " queries");
+		}
+	}
+	
+	/**
+	 * @param snapshot
+	 * @param text
+	 * @param k
+	 * @param postings: looks up the postings of a term
+	 * @param isCancelled: checked before every word expanded and every few documents walked
+	 * @return the k best files, see findTop(String, int)
+	 */
+	private List<MapFileToWordOccurencesEntry> findTop(IndexSnapshot snapshot, String text, int k, Function<String, Postings> postings,
+			BooleanSupplier isCancelled)
+	{
+		//a word is counted once, even if it is repeated in the query
+		Map<String, String> words = new LinkedHashMap<String, String>();
+		Map<String, PositionalQuery> positionalQueries = new HashMap<String, PositionalQuery>();
+		Map<String, MultiTermQuery> multiTermQueries = new HashMap<String, MultiTermQuery>();
+		BooleanQuery booleanQuery = new QueryParser(createAnalyzer(snapshot.getStopWords())).parse(text);
+		for (QueryParser.Clause clause : booleanQuery.getClauses())
+		{
+			words.putIfAbsent(clause.getText(), clause.getKey());
+			if (clause.getQuery() != null)
+			{
+				positionalQueries.put(clause.getKey(), clause.getQuery());
+			}
+			if (clause.getMultiTermQuery() != null)
+			{
+				multiTermQueries.put(clause.getKey(), clause.getMultiTermQuery());
+			}
+		}
+		List<String> clauseKeys = new ArrayList<String>(words.values());
+		Function<String, Postings> termPostings = postings;
+		
+		//the terms matched by the wildcard and fuzzy words, expanded once
+		int maxWildcardTerms = mMaxWildcardTerms;
+		Map<String, List<String>> expansions = new HashMap<String, List<String>>();
+		Function<String, List<String>> expansion = key -> expansions.computeIfAbsent(key, queryKey ->
+		{
+			if (isCancelled.getAsBoolean())
+			{
+				throw new CancellationException("Search cancelled before expanding " + queryKey);
+			}
+			return multiTermQueries.get(queryKey).expand(snapshot.getIndex().getTermDictionary(), maxWildcardTerms);
+		});
+		if (!positionalQueries.isEmpty() || !multiTermQueries.isEmpty())
+		{
+			//the matches of a positional or multi-term query are evaluated once, and searched like
+			//the postings of a term
+			Map<String, Optional<Postings>> matches = new HashMap<String, Optional<Postings>>();
+			postings = key ->
+			{
+				PositionalQuery query = positionalQueries.get(key);
+				if (query == null && !multiTermQueries.containsKey(key))
+				{
+					return termPostings.apply(key);
+				}
+				return matches.computeIfAbsent(key, queryKey -> Optional.ofNullable((query != null)
+						? query.evaluate(termPostings)
+						: MultiTermQuery.evaluate(expansion.apply(key), termPostings))).orElse(null);
+			};
+		}
+		if (!booleanQuery.isDisjunction())
+		{
+			//the clauses are searched in the documents matching the operators only, under keys
+			//prefixed with the query, as their hits depend on it
+			Postings queryMatches = booleanQuery.evaluate(postings);
+			String prefix = booleanQuery.getKey() + " ";
+			words.replaceAll((word, key) -> prefix + key);
+			Map<String, Optional<Postings>> filtered = new HashMap<String, Optional<Postings>>();
+			Function<String, Postings> clausePostings = postings;
+			postings = key ->
+			{
+				if (!key.startsWith(prefix))
+				{
+					return clausePostings.apply(key);
+				}
+				return filtered.computeIfAbsent(key, filteredKey -> Optional.ofNullable(
+						BooleanQuery.filter(clausePostings.apply(key.substring(prefix.length())), queryMatches))).orElse(null);
+			};
+		}
+		List<String> queryWords = new ArrayList<String>(words.keySet());
+		List<String> terms = new ArrayList<String>(words.values());
+		
+		//the hits only depend on the terms, not on their order or surface forms
+		List<String> sortedTerms = new ArrayList<String>(terms);
+		Collections.sort(sortedTerms);
+		//the terms matched by a wildcard or fuzzy word depend on the limit of their expansion too
+		List<String> cacheKey = sortedTerms;
+		if (!multiTermQueries.isEmpty())
+		{
+			cacheKey = new ArrayList<String>(sortedTerms);
+			cacheKey.add("\0maxWildcardTerms=" + maxWildcardTerms);
+		}
+		QueryResultCache cache = mResultCache;
+		QueryResultCache.Result result = cache.get(snapshot.getGeneration(), cacheKey, k);
+		if (result == null)
+		{
+			boolean[] isIndexed = new boolean[sortedTerms.size()];
+			for (int i = 0; i < isIndexed.length; i++)
+			{
+				isIndexed[i] = postings.apply(sortedTerms.get(i)) != null;
+			}
+			TopKSearcher searcher = new TopKSearcher(snapshot.getIndex(), postings);
+			searcher.setCancellation(isCancelled);
+			List<SearchHit> hits = searcher.search(sortedTerms, k);
+			result = cache.put(snapshot.getGeneration(), cacheKey, k, hits, isIndexed);
+		}
+		
+		List<MapFileToWordOccurencesEntry> results = new ArrayList<MapFileToWordOccurencesEntry>();
+		for (SearchHit hit : result.getHits(k))
+		{
+			MapWordToOccurences occurences = new MapWordToOccurences();
+			Map<String, MapWordToOccurences> variants = new HashMap<String, MapWordToOccurences>();
+			for (int i = 0; i < queryWords.size(); i++)
+			{
+				int term = sortedTerms.indexOf(terms.get(i));
+				if (result.isIndexed(term))
+				{
+					occurences.put(queryWords.get(i), hit.getFrequency(term));
+				}
+				if (multiTermQueries.containsKey(clauseKeys.get(i)) && hit.getFrequency(term) > 0)
+				{
+					variants.put(queryWords.get(i), countVariants(expansion.apply(clauseKeys.get(i)), hit.getDocId(), termPostings));
+				}
+			}
+			results.add(new MapFileToWordOccurencesEntry(hit.getDocumentName(), occurences, variants));
+		}
+		return results;
+	}
+	
+	/**
+	 * @param terms: terms matched by a wildcard or fuzzy word
+	 * @param docId
+	 * @param postings: looks up the postings of a term
+	 * @return the number of occurrences of the terms found in the document
+	 */
+	private static MapWordToOccurences countVariants(List<String> terms, int docId, Function<String, Postings> postings)
+	{
+		MapWordToOccurences variants = new MapWordToOccurences();
+		for (String term : terms)
+		{
+			Postings termPostings = postings.apply(term);
+			PostingsCursor cursor = (termPostings != null) ? termPostings.cursor() : null;
+			if (cursor != null && cursor.advance(docId) == docId)
+			{
+				variants.put(term, cursor.frequency());
+			}
+		}
+		return variants;
+	}
+	
+	public List<String> find(String text)
+	{
+		List<MapFileToWordOccurencesEntry> resultSet = findWithCount(text);
+		
+		List<String> results = new ArrayList<String>();
+		for(MapFileToWordOccurencesEntry entry: resultSet)
+		{
+			results.add(entry.getKey());
+		}		
+		return results;
+	}
+	
+	/**
+	 * @param docsDirectory
+	 * @param stopWordsFile
+	 * @throws Exception
+	 * Builds the next index from the whole folder. Searches keep running on the previous index
+	 * until it is replaced, or on the snapshots published meanwhile (see setSnapshotInterval()).
+	 */
+	public void index(File docsDirectory, File stopWordsFile) throws Exception
+	{
+		index(docsDirectory, stopWordsFile, new LinkedHashMap<InverseIndexer, File>());
+	}
+	
+	/**
+	 * @param docsDirectory
+	 * @param stopWordsFile
+	 * @param otherLanguages: indexers of other languages, with the stop words file of their language,
+	 * in the order their runs are set up
+	 * @throws IllegalArgumentException if this indexer is one of the other languages
+	 * @throws Exception
+	 * Builds the next index of this indexer and of the indexers of the other languages in a single
+	 * pass over the folder: the text of every file is read and extracted once, by this indexer, then
+	 * analyzed by the chain of every language (its stop words and stemmer) and merged into the index
+	 * of that language. The documents are registered in directory order, so the indexes have the same
+	 * document table. With language detection (see setLanguageDetection()) a document is only
+	 * analyzed for the language whose stop words it uses the most, the other indexes skip it.
+	 * cancelIndex() on this indexer cancels the indexing of all the languages.
+	 */
+	public void index(File docsDirectory, File stopWordsFile, LinkedHashMap<InverseIndexer, File> otherLanguages) throws Exception
+	{
+		List<InverseIndexer> indexers = new ArrayList<InverseIndexer>();
+		List<File> stopWordsFiles = new ArrayList<File>();
+		indexers.add(this);
+		stopWordsFiles.add(stopWordsFile);
+		for (Map.Entry<InverseIndexer, File> language : otherLanguages.entrySet())
+		{
+			if (indexers.contains(language.getKey()))
+			{
+				throw new IllegalArgumentException("An indexer can only index one language of a folder");
+			}
+			indexers.add(language.getKey());
+			stopWordsFiles.add(language.getValue());
+		}
+		
+		//the locks are always taken in the order of the indexers' creation, so two runs sharing
+		//indexers do not wait for each other's locks
+		List<InverseIndexer> lockOrder = new ArrayList<InverseIndexer>(indexers);
+		lockOrder.sort(Comparator.comparingLong(indexer -> indexer.mId));
+		index(docsDirectory, indexers, stopWordsFiles, lockOrder, 0);
+	}
+	
+	/**
+	 * @param docsDirectory
+	 * @param indexers: this indexer, followed by the indexers of the other languages
+	 * @param stopWordsFiles: stop words of every indexer
+	 * @param lockOrder: the indexers, in the order their indexing locks are taken
+	 * @param lockedIndexers: number of indexers whose indexing lock is held
+	 * @throws Exception
+	 */
+	private void index(File docsDirectory, List<InverseIndexer> indexers, List<File> stopWordsFiles,
+			List<InverseIndexer> lockOrder, int lockedIndexers) throws Exception
+	{
+		if (lockedIndexers < lockOrder.size())
+		{
+			synchronized (lockOrder.get(lockedIndexers).mIndexingLock)
+			{
+				index(docsDirectory, indexers, stopWordsFiles, lockOrder, lockedIndexers + 1);
+			}
+			return;
+		}
+		
+		List<IndexRun> runs = new ArrayList<IndexRun>();
+		for (int language = 0; language < indexers.size(); language++)
+		{
+			InverseIndexer indexer = indexers.get(language);
+			indexer.mIsCancelled = false;
+			CharArraySet stopWords = toStopWordsSet(getStopWords(stopWordsFiles.get(language)));
+			runs.add(indexer.new IndexRun(stopWords, indexer.mSnapshotInterval));
+		}
+		if (docsDirectory != null)
+		{
+			if (docsDirectory.isDirectory())
+			{
+				List<File> files = new ArrayList<File>();
+				List<List<IndexSegment>> segments = indexFiles(Collections.singletonList(docsDirectory), files, runs);
+				for (int language = 0; language < runs.size(); language++)
+				{
+					FileManifest manifest = new FileManifest(docsDirectory);
+					runs.get(language).publishIndex(SegmentedIndex.of(mergeSegments(files, segments.get(language), manifest)), manifest);
+				}
+				return;
+			}
+			else
+			{
+				System.err.println("InverseIndexer::index() docsDirectory is not a directory: "
+						+ docsDirectory);
+			}
+		}
+		else
+		{
+			System.err.println("InverseIndexer::index() docsDirectory is null.");
+		}
+		for (IndexRun run : runs)
+		{
+			run.publishIndex(SegmentedIndex.EMPTY, null);
+		}
+	}
+	
+	/**
+	 * @param docsDirectory
+	 * @param stopWordsFile
+	 * @throws Exception
+	 * Indexes again only the files added or modified since the folder was indexed and removes the
+	 * files deleted meanwhile. The whole folder is indexed if it was not indexed before (or the
+	 * index opened from disk was built from another folder or with other stop words).
+	 */
+	public void indexIncremental(File docsDirectory, File stopWordsFile) throws Exception
+	{
+		synchronized (mIndexingLock)
+		{
+			IndexSnapshot snapshot = mSnapshot;
+			FileManifest manifest = getManifest(snapshot);
+			if (manifest == null || docsDirectory == null || !manifest.isFor(docsDirectory)
+					|| !hasStopWords(snapshot, getStopWords(stopWordsFile)))
+			{
+				index(docsDirectory, stopWordsFile);
+				return;
+			}
+			mIsCancelled = false;
+			updateIndex(docsDirectory);
+		}
+	}
+	
+	/**
+	 * @param docsDirectory
+	 * @throws IOException
+	 * Watches the folder in the background and applies its changes to the index as they happen.
+	 * Searches keep running on the previous snapshot while the changes are indexed.
+	 */
+	public synchronized void startWatching(File docsDirectory) throws IOException
+	{
+		stopWatching();
+		mWatcher = new FolderWatcher(docsDirectory, folder ->
+		{
+			synchronized (mIndexingLock)
+			{
+				try
+				{
+					FileManifest manifest = getManifest(mSnapshot);
+					if (manifest != null && manifest.isFor(folder))
+					{
+						mIsCancelled = false;	//a cancelled update does not stop the next ones
+						updateIndex(folder);
+					}
+				}
+				catch (Exception e)
+				{
+					e.printStackTrace();
+				}
+			}
+		});
+		mWatcher.start();
+	}
+	
+	public synchronized void stopWatching()
+	{
+		if (mWatcher != null)
+		{
+			mWatcher.stop();
+			mWatcher = null;
+		}
+	}
+	
+	/**
+	 * @param docsDirectory
+	 * @throws Exception
+	 * Applies the changes of the folder since it was indexed: the changed files are indexed into
+	 * a new segment and the next snapshot is the current one, without the documents of the
+	 * modified and deleted files, plus the new segment.
+	 */
+	private void updateIndex(File docsDirectory) throws Exception
+	{
+		IndexSnapshot snapshot = mSnapshot;
+		List<File> files = new ArrayList<File>();
+		for (File file : docsDirectory.listFiles())
+		{
+			if (isSupported(file) && isInPartition(file))
+			{
+				files.add(file);
+			}
+		}
+		FileManifest manifest = getManifest(snapshot);
+		FileManifest.Changes changes = manifest.getChanges(files);
+		if (changes.isEmpty())
+		{
+			if (!changes.getTouched().isEmpty())
+			{
+				FileManifest nextManifest = new FileManifest(manifest);
+				changes.getTouched().forEach(nextManifest::put);
+				publish(snapshot.getIndex(), snapshot.getStopWords(), nextManifest);
+			}
+			return;
+		}
+		
+		Set<File> changedFiles = new HashSet<File>(changes.getAdded());
+		changedFiles.addAll(changes.getModified());
+		files.removeIf(file -> !changedFiles.contains(file));
+		List<File> filesToIndex = new ArrayList<File>();
+		List<IndexSegment> segments = indexFiles(files, filesToIndex,
+				Collections.singletonList(new IndexRun(snapshot.getStopWords(), 0))).get(0);
+		if (mIsCancelled)
+		{
+			return;
+		}
+		
+		List<String> removedFiles = new ArrayList<String>(changes.getDeleted());
+		for (File file : changes.getModified())
+		{
+			removedFiles.add(file.getName());
+		}
+		FileManifest nextManifest = new FileManifest(manifest);
+		changes.getTouched().forEach(nextManifest::put);
+		removedFiles.forEach(nextManifest::remove);
+		InMemoryIndex addedFiles = mergeSegments(filesToIndex, segments, nextManifest);
+		SegmentedIndex index = snapshot.getIndex().withoutDocuments(removedFiles);
+		publish(addSegment(index, addedFiles), snapshot.getStopWords(), nextManifest);
+	}
+	
+	/**
+	 * @param index
+	 * @param segment
+	 * @return the index with the given segment. When there are too many segments, the last ones
+	 * are merged, so searches do not walk many small segments: the merged tail extends back as long
+	 * as the previous segment is not bigger than the tail. Segments thus grow geometrically and a
+	 * document is copied a logarithmic number of times. The first segment (e.g. the index opened
+	 * from disk) is never merged.
+	 */
+	private static SegmentedIndex addSegment(SegmentedIndex index, IndexView segment)
+	{
+		index = index.withSegment(segment);
+		int segmentCount = index.getSegmentCount();
+		if (segmentCount > MAX_SEGMENTS)
+		{
+			int from = segmentCount - 1;
+			int tailDocuments = index.getSegment(from).getDocumentCount();
+			while (from > 1 && (from > segmentCount - 2 || index.getSegment(from - 1).getDocumentCount() <= tailDocuments))
+			{
+				from--;
+				tailDocuments += index.getSegment(from).getDocumentCount();
+			}
+			index = index.withMergedSegments(from);
+		}
+		return index;
+	}
+	
+	/**
+	 * @param snapshot
+	 * @return the states of the files indexed in the snapshot, read from the opened index file if needed
+	 * @throws IOException
+	 */
+	private static FileManifest getManifest(IndexSnapshot snapshot) throws IOException
+	{
+		SegmentedIndex index = snapshot.getIndex();
+		if (snapshot.getManifest() == null && index.getSegmentCount() == 1
+				&& index.getSegment(0) instanceof MappedIndex)
+		{
+			return ((MappedIndex) index.getSegment(0)).readManifest();
+		}
+		return snapshot.getManifest();
+	}
+	
+	private static boolean hasStopWords(IndexSnapshot snapshot, List<String> stopWords)
+	{
+		Set<String> expected = new HashSet<String>();
+		for (String stopWord : stopWords)
+		{
+			expected.add(stopWord.toLowerCase());
+		}
+		return expected.equals(new HashSet<String>(snapshot.getStopWordsList()));
+	}
+	
+	/**
+	 * @param index
+	 * @param stopWords
+	 * @param manifest
+	 * Publishes the next snapshot, the searches already running go on with the previous one
+	 */
+	private synchronized void publish(SegmentedIndex index, CharArraySet stopWords, FileManifest manifest)
+	{
+		mSnapshot = new IndexSnapshot(index, stopWords, manifest, ++mGeneration);
+	}
+	
+	/**
+	 * @param inputs: folders, whose files are indexed, and files
+	 * @param files: receives the enumerated files, in directory order
+	 * @param runs: one run per indexed language, the first one of this indexer
+	 * @return the segments containing the indexed files, for every run
+	 * @throws Exception
+	 * Indexes the files through a pipeline of stages connected by bounded queues: the folders are
+	 * enumerated, the files read, their text extracted, then analyzed into term counts that are merged
+	 * into the segments of the run. Every stage has its own threads (see setStageThreads()), a full
+	 * queue makes the stages feeding it wait, and getIndexingStatus() shows the depth of the queues.
+	 * With several runs, every text unit is analyzed once per language and merged into the segments
+	 * of the run of its language.
+	 */
+	private List<List<IndexSegment>> indexFiles(List<File> inputs, List<File> files, List<IndexRun> runs) throws Exception
+	{
+		int languageCount = runs.size();
+		Pipeline pipeline = new Pipeline();
+		pipeline.<File, File>addStage(STAGE_ENUMERATE, 1, QUEUE_CAPACITY_PER_THREAD, () -> (input, output) ->
+		{
+			for (File file : input.isDirectory() ? input.listFiles() : new File[] {input})
+			{
+				if (!isInPartition(file))
+				{
+					continue;
+				}
+				if (isSupported(file))
+				{
+					files.add(file);
+					output.emit(file);
+				}
+				else
+				{
+					System.err.println("InverseIndexer::index() ignoring unsupported file type: "
+							+ file);
+				}
+			}
+		});
+		addStage(pipeline, STAGE_READ, () -> (File file, Emitter<RawDocument> output) -> readFile(file, languageCount, output));
+		addStage(pipeline, STAGE_EXTRACT, () -> (RawDocument document, Emitter<TextUnit> output) -> extractText(document, runs, output));
+		addStage(pipeline, STAGE_ANALYZE, () ->
+		{
+			Analyzer[] analyzers = new Analyzer[languageCount];
+			for (int language = 0; language < languageCount; language++)
+			{
+				analyzers[language] = runs.get(language).createAnalyzer();
+			}
+			return (TextUnit unit, Emitter<TermCounts> output) ->
+			{
+				for (int language = 0; language < languageCount; language++)
+				{
+					CharArrayMap<int[]> counts = new CharArrayMap<int[]>();
+					int positionCount = 0;
+					if (unit.getDocument().isAnalyzedFor(language))
+					{
+						positionCount = runs.get(language).countTerms(analyzers[language], unit.getText(), counts);
+					}
+					output.emit(new TermCounts(unit, language, counts, positionCount));
+				}
+			};
+		});
+		List<List<MergeWorker>> mergeWorkers = new ArrayList<List<MergeWorker>>();
+		for (int language = 0; language < languageCount; language++)
+		{
+			mergeWorkers.add(Collections.synchronizedList(new ArrayList<MergeWorker>()));
+		}
+		addStage(pipeline, STAGE_MERGE, () ->
+		{
+			MergeWorker[] workers = new MergeWorker[languageCount];
+			for (int language = 0; language < languageCount; language++)
+			{
+				workers[language] = new MergeWorker(runs.get(language));
+				mergeWorkers.get(language).add(workers[language]);
+			}
+			return (TermCounts termCounts, Emitter<Void> output) -> workers[termCounts.getLanguage()].process(termCounts, output);
+		});
+		
+		mPipeline = pipeline;
+		if (mIsCancelled)
+		{
+			pipeline.cancel();
+		}
+		try
+		{
+			pipeline.run(inputs);
+		}
+		finally
+		{
+			mPipeline = null;
+		}
+		
+		List<List<IndexSegment>> segments = new ArrayList<List<IndexSegment>>();
+		for (int language = 0; language < languageCount; language++)
+		{
+			List<IndexSegment> runSegments = new ArrayList<IndexSegment>();
+			for (MergeWorker worker : mergeWorkers.get(language))
+			{
+				runSegments.add(worker.getSegment());
+			}
+			segments.add(runs.get(language).getSegments(runSegments));
+		}
+		return segments;
+	}
+	
+	private <I, O> void addStage(Pipeline pipeline, String stage, Supplier<StageWorker<I, O>> workers)
+	{
+		int threads = getStageThreads(stage);
+		pipeline.addStage(stage, threads, threads * QUEUE_CAPACITY_PER_THREAD, workers);
+	}
+	
+	/**
+	 * @param file
+	 * @param languageCount: number of languages the file is indexed for
+	 * @param output
+	 * Read stage: the content of the file is read in memory, unless the file is large. Then it is
+	 * streamed from disk by the extraction stage, which also hashes it. A file that cannot be read
+	 * is skipped, the other files are still indexed.
+	 */
+	private void readFile(File file, int languageCount, Emitter<RawDocument> output) throws InterruptedException
+	{
+		try
+		{
+			//size and modification time are read first, so a write while the content is read is seen as a change next time
+			long size = file.length();
+			long lastModified = file.lastModified();
+			if (size < LARGE_FILE_SIZE)
+			{
+				byte[] content = Files.readAllBytes(file.toPath());
+				output.emit(new RawDocument(file, content, size, lastModified, languageCount));
+			}
+			else
+			{
+				output.emit(new RawDocument(file, null, size, lastModified, languageCount));
+			}
+		}
+		catch (IOException | RuntimeException e)
+		{
+			//e.g. a name the platform charset cannot encode fails toPath() with an InvalidPathException
+			System.err.println("InverseIndexer::index() skipping unreadable file " + file + ": " + e);
+		}
+	}
+	
+	/**
+	 * @param document
+	 * @param runs: runs of the indexed languages
+	 * @param output
+	 * Extraction stage: the text of the document is emitted in parts (e.g. a window of PDF pages),
+	 * followed by an empty part, after which the number of parts of the document is known.
+	 * With language detection, the language of the document is detected from its first part.
+	 */
+	private void extractText(RawDocument document, List<IndexRun> runs, Emitter<TextUnit> output) throws InterruptedException
+	{
+		mCurrentlyIndexedFile = document.getName();
+		for (Consumer<String> listener : mIndexedFileListeners)
+		{
+			listener.accept(document.getName());
+		}
+		
+		long start = System.nanoTime();
+		long[] waitNanos = {0};	//time spent waiting for the analysis stage, not counted as extraction
+		int[] unitCount = {1};
+		Emitter<CharSequence> textOutput = text ->
+		{
+			int index = unitCount[0]++ - 1;
+			if (index == 0 && runs.size() > 1 && mIsLanguageDetected)
+			{
+				document.setLanguages(detectLanguages(text, runs));
+			}
+			long waitStart = System.nanoTime();
+			output.emit(new TextUnit(document, index, text));
+			waitNanos[0] += System.nanoTime() - waitStart;
+		};
+		String extension = FilenameUtils.getExtension(document.getName());
+		switch (extension)
+		{
+		case EXTENSION_TXT:
+			extractTextTxt(document, textOutput);
+			break;
+		case EXTENSION_PDF:
+			extractTextCached(document, PDF_EXTRACTOR, textOutput, this::extractTextPdf);
+			break;
+		case EXTENSION_DOC:
+			extractTextCached(document, DOC_EXTRACTOR, textOutput, this::extractTextDoc);
+			break;
+		case EXTENSION_DOCX:
+			extractTextCached(document, DOCX_EXTRACTOR, textOutput, this::extractTextDocx);
+			break;
+		}
+		mMetrics.histogram(METRIC_EXTRACT_LATENCY + extension).record(System.nanoTime() - start - waitNanos[0]);
+		mMetrics.counter(METRIC_FILES + extension).increment();
+		mMetrics.counter(METRIC_BYTES + extension).add(document.getSize());
+		if (document.getState() == null)
+		{
+			document.hashContent();	//a large file not hashed while its text was extracted
+		}
+		document.setUnitCount(unitCount[0]);
+		output.emit(new TextUnit(document, unitCount[0] - 1, ""));
+	}
+	
+	/**
+	 * @param text: first part of the text of a document
+	 * @param runs: runs of the indexed languages
+	 * @return the languages the document is analyzed for: the language whose stop words are the
+	 * most frequent in the beginning of the text, or all of them when no language stands out
+	 * (e.g. a text without stop words)
+	 */
+	private static boolean[] detectLanguages(CharSequence text, List<IndexRun> runs)
+	{
+		int[] stopWordCounts = new int[runs.size()];
+		CharSequence beginning = text.subSequence(0, Math.min(text.length(), LANGUAGE_DETECTION_LENGTH));
+		new Analyzer(new LowerCaseFilter()).analyze(beginning, token ->
+		{
+			for (int language = 0; language < stopWordCounts.length; language++)
+			{
+				if (runs.get(language).isStopWord(token))
+				{
+					stopWordCounts[language]++;
+				}
+			}
+		});
+		
+		boolean[] languages = new boolean[runs.size()];
+		int best = 0;
+		int bestCount = 0;
+		for (int language = 0; language < stopWordCounts.length; language++)
+		{
+			if (stopWordCounts[language] > stopWordCounts[best])
+			{
+				best = language;
+				bestCount = 1;
+			}
+			else if (stopWordCounts[language] == stopWordCounts[best])
+			{
+				bestCount++;
+			}
+		}
+		if (stopWordCounts[best] == 0 || bestCount > 1)
+		{
+			Arrays.fill(languages, true);
+		}
+		else
+		{
+			languages[best] = true;
+		}
+		return languages;
+	}
+	
+	/**
+	 * @param analyzer
+	 * @param text
+	 * @param hasPositions: true to record the positions of the words
+	 * @param counts: receives the number of occurrences of every analyzed word of the text,
+	 * followed by their positions in the text
+	 * @return the number of words of the text, the position following its last word
+	 */
+	private int countTerms(Analyzer analyzer, CharSequence text, boolean hasPositions, CharArrayMap<int[]> counts)
+	{
+		int[] tokens = {0};
+		int positionCount = analyzer.analyze(text, token ->
+		{
+			tokens[0]++;
+			int[] count = counts.get(token.buffer(), 0, token.length());
+			if (count == null)
+			{
+				count = new int[hasPositions ? 2 : 1];
+				counts.put(token.toString(), count);
+			}
+			else if (hasPositions && count[0] + 1 == count.length)
+			{
+				count = Arrays.copyOf(count, 2 * count.length);
+				counts.put(token.toString(), count);
+			}
+			count[0]++;
+			if (hasPositions)
+			{
+				count[count[0]] = token.getPosition();
+			}
+		});
+		mTokens.add(tokens[0]);
+		return positionCount;
+	}
+	
+	/**
+	 * @param files: the indexed files, in directory order
+	 * @param segments
+	 * @param manifest: receives the states of the indexed files
+	 * @return a new index with the content of the segments. The indexed files are registered in
+	 * directory order, so the result is the same whatever the number of workers.
+	 */
+	private static InMemoryIndex mergeSegments(List<File> files, List<IndexSegment> segments, FileManifest manifest)
+	{
+		InMemoryIndex index = new InMemoryIndex();
+		for (File file : files)
+		{
+			for (IndexSegment segment : segments)
+			{
+				if (segment.getDocuments().contains(file.getName()))
+				{
+					index.getDocuments().getOrAdd(file.getName());
+					break;
+				}
+			}
+		}
+		for (IndexSegment segment : segments)
+		{
+			segment.mergeInto(index);
+			segment.getFileStates().forEach(manifest::put);
+		}
+		return index;
+	}
+	
+	/**
+	 * Segments filled by the workers of an indexing run. With a snapshot interval, a worker seals
+	 * its segment once the interval is elapsed and goes on with a new one; the sealed segments are
+	 * published, so the files indexed so far can be searched before the run is complete.
+	 */
+	private class IndexRun
+	{
+		private CharArraySet mStopWords;
+		private boolean mHasPositions;
+		private long mInterval;	//nanoseconds
+		private List<IndexSegment> mSealedSegments;
+		private SegmentedIndex mSealedIndex;
+		private volatile long mLastPublished;
+
+		IndexRun(CharArraySet stopWords, long intervalMillis)
+		{
+			mStopWords = stopWords;
+			mHasPositions = mIsPositionsIndexed;
+			mInterval = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+			mSealedSegments = new ArrayList<IndexSegment>();
+			mSealedIndex = SegmentedIndex.EMPTY;
+			mLastPublished = System.nanoTime();
+		}
+
+		IndexSegment newSegment()
+		{
+			return new IndexSegment(this::createAnalyzer, mHasPositions);
+		}
+
+		boolean hasPositions()
+		{
+			return mHasPositions;
+		}
+
+		Analyzer createAnalyzer()
+		{
+			return InverseIndexer.this.createAnalyzer(mStopWords);
+		}
+
+		/**
+		 * @see InverseIndexer#countTerms(Analyzer, CharSequence, boolean, CharArrayMap)
+		 */
+		int countTerms(Analyzer analyzer, CharSequence text, CharArrayMap<int[]> counts)
+		{
+			return InverseIndexer.this.countTerms(analyzer, text, mHasPositions, counts);
+		}
+
+		boolean isStopWord(Token token)
+		{
+			return mStopWords.contains(token.buffer(), 0, token.length());
+		}
+
+		/**
+		 * @param index: all the documents of the run
+		 * @param manifest
+		 * Publishes the index built by the run in its indexer
+		 */
+		void publishIndex(SegmentedIndex index, FileManifest manifest)
+		{
+			publish(index, mStopWords, manifest);
+		}
+
+		/**
+		 * @param segment: segment of the calling worker
+		 * @return the segment the worker goes on with
+		 */
+		IndexSegment checkpoint(IndexSegment segment)
+		{
+			if (mInterval <= 0 || System.nanoTime() - mLastPublished < mInterval)
+			{
+				return segment;
+			}
+			synchronized (this)
+			{
+				mSealedSegments.add(segment);
+				mSealedIndex = mSealedIndex.withSegment(segment.getIndex());
+				publish(mSealedIndex, mStopWords, null);
+				mLastPublished = System.nanoTime();
+			}
+			return newSegment();
+		}
+
+		/**
+		 * @param segments: the segments of the workers when they are done
+		 * @return all the segments of the run
+		 */
+		synchronized List<IndexSegment> getSegments(List<IndexSegment> segments)
+		{
+			List<IndexSegment> allSegments = new ArrayList<IndexSegment>(mSealedSegments);
+			allSegments.addAll(segments);
+			return allSegments;
+		}
+	}
+	
+	/**
+	 * File read by the read stage, its content is null when the file is large
+	 */
+	private static class RawDocument
+	{
+		private File mFile;
+		private byte[] mContent;
+		private long mSize;	//size and modification time, read before the content
+		private long mLastModified;
+		private volatile FileState mState;	//set by the read stage, or once the extraction stage hashed a large file
+		private volatile int mUnitCount;	//number of text units, known once the text is extracted
+		private volatile boolean[] mLanguages;	//languages the document is analyzed for, null for all
+		private MergeOrder[] mMergeOrders;	//one per language
+
+		RawDocument(File file, byte[] content, long size, long lastModified, int languageCount)
+		{
+			mFile = file;
+			mContent = content;
+			mSize = size;
+			mLastModified = lastModified;
+			if (content != null)
+			{
+				mState = FileState.of(size, lastModified, content);
+			}
+			mMergeOrders = new MergeOrder[languageCount];
+			for (int language = 0; language < languageCount; language++)
+			{
+				mMergeOrders[language] = new MergeOrder();
+			}
+		}
+
+		String getName()
+		{
+			return mFile.getName();
+		}
+
+		File getFile()
+		{
+			return mFile;
+		}
+
+		byte[] getContent()
+		{
+			return mContent;
+		}
+
+		long getSize()
+		{
+			return mSize;
+		}
+
+		/**
+		 * @return the state of the file, null for a large file that is not hashed yet
+		 */
+		FileState getState()
+		{
+			return mState;
+		}
+
+		/**
+		 * @param contentHash: hash of the content of a large file, computed while it was read
+		 */
+		void setContentHash(byte[] contentHash)
+		{
+			mState = new FileState(mSize, mLastModified, contentHash);
+		}
+
+		/**
+		 * @return the state of the file, a large file is read to hash its content if it was not
+		 * hashed yet. A file that cannot be read anymore gets an empty hash, so it is indexed again
+		 * once it changes.
+		 */
+		FileState hashContent()
+		{
+			FileState state = mState;
+			if (state == null)
+			{
+				try
+				{
+					state = new FileState(mSize, mLastModified, FileState.hash(mFile));
+				}
+				catch (IOException e)
+				{
+					e.printStackTrace();
+					state = new FileState(mSize, mLastModified, new byte[0]);
+				}
+				mState = state;
+			}
+			return state;
+		}
+
+		InputStream openContent() throws IOException
+		{
+			return (mContent != null) ? new ByteArrayInputStream(mContent) : new BufferedInputStream(new FileInputStream(mFile));
+		}
+
+		void setUnitCount(int unitCount)
+		{
+			mUnitCount = unitCount;
+		}
+
+		/**
+		 * @param languages: languages the document is analyzed for, set before its first text unit is emitted
+		 */
+		void setLanguages(boolean[] languages)
+		{
+			mLanguages = languages;
+		}
+
+		boolean isAnalyzedFor(int language)
+		{
+			boolean[] languages = mLanguages;
+			return languages == null || languages[language];
+		}
+
+		/**
+		 * @param unit: analyzed text unit of the document
+		 * @return the units that can be merged now, in the order of the text, with the position of
+		 * their text in the document. A unit analyzed before the units preceding it waits for them,
+		 * so the positions of a word are added in ascending order.
+		 */
+		List<TermCounts> release(TermCounts unit)
+		{
+			return mMergeOrders[unit.getLanguage()].release(unit);
+		}
+
+		/**
+		 * @param language
+		 * @return true if all the text units of the document are merged for the language
+		 */
+		boolean unitMerged(int language)
+		{
+			return mMergeOrders[language].unitMerged() == mUnitCount;
+		}
+	}
+
+	/**
+	 * Order in which the analyzed text units of a document are merged, for one language
+	 */
+	private static class MergeOrder
+	{
+		private AtomicInteger mMergedUnits;
+		private Map<Integer, TermCounts> mPendingUnits;	//analyzed before the units preceding them
+		private int mNextUnit;
+		private int mPositionBase;	//position of the text of the next unit in the document
+
+		MergeOrder()
+		{
+			mMergedUnits = new AtomicInteger();
+			mPendingUnits = new HashMap<Integer, TermCounts>();
+		}
+
+		synchronized List<TermCounts> release(TermCounts unit)
+		{
+			mPendingUnits.put(unit.getIndex(), unit);
+			List<TermCounts> units = new ArrayList<TermCounts>();
+			TermCounts next;
+			while ((next = mPendingUnits.remove(mNextUnit)) != null)
+			{
+				next.setPositionBase(mPositionBase);
+				mPositionBase += next.getPositionCount();
+				units.add(next);
+				mNextUnit++;
+			}
+			return units;
+		}
+
+		/**
+		 * @return the number of units merged so far
+		 */
+		int unitMerged()
+		{
+			return mMergedUnits.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Part of the text of a document, emitted by the extraction stage
+	 */
+	private static class TextUnit
+	{
+		private RawDocument mDocument;
+		private int mIndex;	//index of the unit in the document
+		private CharSequence mText;
+
+		TextUnit(RawDocument document, int index, CharSequence text)
+		{
+			mDocument = document;
+			mIndex = index;
+			mText = text;
+		}
+
+		RawDocument getDocument()
+		{
+			return mDocument;
+		}
+
+		int getIndex()
+		{
+			return mIndex;
+		}
+
+		CharSequence getText()
+		{
+			return mText;
+		}
+	}
+
+	/**
+	 * Occurrences of the analyzed words of a text unit, emitted by the analysis stage
+	 */
+	private static class TermCounts
+	{
+		private RawDocument mDocument;
+		private int mIndex;
+		private int mLanguage;	//index of the run of the language the unit is analyzed for
+		private CharArrayMap<int[]> mCounts;
+		private int mPositionCount;	//number of words of the text unit
+		private int mPositionBase;
+
+		TermCounts(TextUnit unit, int language, CharArrayMap<int[]> counts, int positionCount)
+		{
+			mDocument = unit.getDocument();
+			mIndex = unit.getIndex();
+			mLanguage = language;
+			mCounts = counts;
+			mPositionCount = positionCount;
+		}
+
+		RawDocument getDocument()
+		{
+			return mDocument;
+		}
+
+		int getIndex()
+		{
+			return mIndex;
+		}
+
+		int getLanguage()
+		{
+			return mLanguage;
+		}
+
+		/**
+		 * @return the number of occurrences of every analyzed word, followed by their positions in the unit
+		 */
+		CharArrayMap<int[]> getCounts()
+		{
+			return mCounts;
+		}
+
+		int getPositionCount()
+		{
+			return mPositionCount;
+		}
+
+		/**
+		 * @return the position of the text of the unit in the document
+		 */
+		int getPositionBase()
+		{
+			return mPositionBase;
+		}
+
+		void setPositionBase(int positionBase)
+		{
+			mPositionBase = positionBase;
+		}
+	}
+
+	/**
+	 * Merge stage: the single writer of the segments of an indexing run. A snapshot is only taken
+	 * when no document is partially merged, so a published document is always complete.
+	 */
+	private static class MergeWorker implements StageWorker<TermCounts, Void>
+	{
+		private IndexRun mRun;
+		private IndexSegment mSegment;
+		private Set<RawDocument> mOpenDocuments;
+
+		MergeWorker(IndexRun run)
+		{
+			mRun = run;
+			mSegment = run.newSegment();
+			mOpenDocuments = new HashSet<RawDocument>();
+		}
+
+		IndexSegment getSegment()
+		{
+			return mSegment;
+		}
+
+		@Override
+		public void process(TermCounts termCounts, Emitter<Void> output)
+		{
+			RawDocument document = termCounts.getDocument();
+			for (TermCounts unit : document.release(termCounts))
+			{
+				CharArrayMap<int[]> counts = unit.getCounts();
+				if (counts.size() > 0)
+				{
+					int docId = mSegment.addDocument(document.getName());
+					for (String term : counts.keys())
+					{
+						mSegment.addWord(term, docId, counts.get(term), unit.getPositionBase());
+					}
+				}
+				
+				if (!document.unitMerged(unit.getLanguage()))
+				{
+					mOpenDocuments.add(document);
+					continue;
+				}
+				mOpenDocuments.remove(document);
+				mSegment.addFileState(document.getName(), document.getState());	//needed by incremental indexing
+				if (mOpenDocuments.isEmpty())
+				{
+					mSegment = mRun.checkpoint(mSegment);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Statistics of a snapshot that go through the whole index, computed once per snapshot
+	 */
+	private static class IndexStatistics
+	{
+		private IndexSnapshot mSnapshot;
+		private long mPostingCount;
+		private long mHeapBytes;
+
+		IndexStatistics(IndexSnapshot snapshot)
+		{
+			mSnapshot = snapshot;
+			mPostingCount = snapshot.getIndex().getPostingCount();
+			mHeapBytes = snapshot.getIndex().estimateHeapBytes();
+		}
+
+		IndexSnapshot getSnapshot()
+		{
+			return mSnapshot;
+		}
+
+		long getPostingCount()
+		{
+			return mPostingCount;
+		}
+
+		long getHeapBytes()
+		{
+			return mHeapBytes;
+		}
+	}
+
+	/**
+	 * Extraction of the text of a type of documents
+	 */
+	private interface TextExtractor
+	{
+		/**
+		 * @param document
+		 * @param output: receives the parts of the text
+		 * @return true if the whole text was extracted, false if the extraction failed
+		 * @throws InterruptedException
+		 */
+		boolean extract(RawDocument document, Emitter<CharSequence> output) throws InterruptedException;
+	}
+
+	private static boolean isSupported(File file)
+	{
+		switch (FilenameUtils.getExtension(file.getName()))
+		{
+		case EXTENSION_TXT:
+		case EXTENSION_PDF:
+		case EXTENSION_DOC:
+		case EXTENSION_DOCX:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * @param document
+	 * @param extractor: name and version of the extractor, see TextCache
+	 * @param output
+	 * @param extraction
+	 * Extracts the text of the document from the text cache, if there is one and the content of the
+	 * file was already extracted, so the file is not parsed again. Otherwise the text is extracted
+	 * and written to the cache at the same time, unless the extraction fails or is cancelled.
+	 */
+	private void extractTextCached(RawDocument document, String extractor, Emitter<CharSequence> output,
+			TextExtractor extraction) throws InterruptedException
+	{
+		TextCache cache = mTextCache;
+		if (cache == null)
+		{
+			extraction.extract(document, output);
+			return;
+		}
+		
+		String key = TextCache.key(document.hashContent().getContentHash(), extractor);
+		List<String> parts = cache.get(key);
+		if (parts != null)
+		{
+			for (String part : parts)
+			{
+				output.emit(part);
+			}
+			return;
+		}
+		
+		try (TextCache.EntryWriter entry = cache.newEntry(key))
+		{
+			boolean[] isWritten = {true};
+			boolean isExtracted = extraction.extract(document, part ->
+			{
+				if (isWritten[0])
+				{
+					try
+					{
+						entry.write(part);
+					}
+					catch (IOException e)
+					{
+						e.printStackTrace();
+						isWritten[0] = false;
+					}
+				}
+				output.emit(part);
+			});
+			if (isExtracted && isWritten[0] && !mIsCancelled)
+			{
+				entry.commit();
+			}
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * @param document
+	 * @param output
+	 * Method that extracts the text of simple txt files.
+	 * Large files are memory-mapped by chunks, which are analyzed on all the threads of the analysis stage.
+	 */
+	private void extractTextTxt(RawDocument document, Emitter<CharSequence> output) throws InterruptedException
+	{
+		if (document.getContent() != null)
+		{
+			output.emit(new String(document.getContent(), mTextCharset));
+			return;
+		}
+		
+		try
+		{
+			//the file is hashed while it is read, instead of being read once more
+			MessageDigest digest = FileState.createDigest();
+			if (TextChunker.supports(mTextCharset))
+			{
+				new TextChunker(mTextCharset, TEXT_CHUNK_SIZE).split(document.getFile(), digest, () -> mIsCancelled, output);
+				document.setContentHash(digest.digest());
+				return;
+			}
+			
+			CharsetDecoder decoder = mTextCharset.newDecoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			try (BufferedReader br = new BufferedReader(new InputStreamReader(new DigestInputStream(document.openContent(), digest), decoder)))
+			{
+				StringBuilder chunk = new StringBuilder();
+				String currentLine = null;
+				while ((currentLine = br.readLine()) != null && !mIsCancelled)
+				{
+					chunk.append(currentLine).append('\n');
+					if (chunk.length() >= TEXT_CHUNK_SIZE)
+					{
+						output.emit(chunk.toString());
+						chunk.setLength(0);
+					}
+				}
+				output.emit(chunk.toString());
+				document.setContentHash(digest.digest());
+			}
+		}
+		catch (IOException e1)
+		{
+			e1.printStackTrace();
+		}
+	}
+
+	
+	/**
+	 * @param document
+	 * @param output
+	 * Method that extracts the text of PDF files.
+	 * The text is extracted a window of pages at a time, and the parsed streams are kept in a
+	 * scratch file, so the memory used does not grow with the number of pages.
+	 */
+	private boolean extractTextPdf(RawDocument document, Emitter<CharSequence> output) throws InterruptedException
+	{
+		PDFParser parser = null;
+		PDDocument pdDoc = null;
+		COSDocument cosDoc = null;
+		PDFTextStripper pdfStripper;
+		File scratchFile = null;
+		RandomAccessFile scratch = null;
+
+		try (InputStream input = document.openContent())
+		{
+			scratchFile = File.createTempFile("pdf", ".tmp");
+			scratch = new RandomAccessFile(scratchFile, "rw");
+			parser = new PDFParser(input, scratch);
+			parser.parse();
+			cosDoc = parser.getDocument();
+			pdfStripper = new PDFTextStripper();
+			pdDoc = new PDDocument(cosDoc);
+			
+			int pageCount = pdDoc.getNumberOfPages();
+			int startPage = 1;
+			while (startPage <= pageCount && !mIsCancelled)
+			{
+				int endPage = startPage + Math.min(mPdfPageWindow, pageCount - startPage + 1) - 1;
+				pdfStripper.setStartPage(startPage);
+				pdfStripper.setEndPage(endPage);
+				output.emit(pdfStripper.getText(pdDoc));
+				startPage = endPage + 1;
+			}
+			return true;
+		}
+		catch (InterruptedException e)
+		{
+			throw e;
+		}
+		catch (Exception e)
+		{
+			e.printStackTrace();
+			return false;
+		}
+		finally
+		{
+			try
+			{
+				if (pdDoc != null)
+				{
+					pdDoc.close();
+				}
+			}
+			catch (IOException e)
+			{
+				e.printStackTrace();
+			}
+			
+			try
+			{
+				if (cosDoc != null)
+				{
+					cosDoc.close();
+				}
+			}
+			catch (IOException e)
+			{
+				e.printStackTrace();
+			}
+			
+			if (parser != null)
+			{
+				parser.clearResources();
+			}
+			
+			try
+			{
+				if (scratch != null)
+				{
+					scratch.close();
+				}
+			}
+			catch (IOException e)
+			{
+				e.printStackTrace();
+			}
+			
+			if (scratchFile != null)
+			{
+				scratchFile.delete();
+			}
+		}
+	}
+
+	/**
+	 * @param document
+	 * @param output
+	 * Method that extracts the text of Word docs (see WordTextExtractor). Large files are read from
+	 * disk, only their main part is decompressed.
+	 */
+	private boolean extractTextDocx(RawDocument document, Emitter<CharSequence> output) throws InterruptedException
+	{
+		WordTextExtractor extractor = new WordTextExtractor(TEXT_CHUNK_SIZE, () -> mIsCancelled);
+		try
+		{
+			if (document.getContent() != null)
+			{
+				extractor.extractDocx(new ByteArrayInputStream(document.getContent()), output);
+			}
+			else
+			{
+				extractor.extractDocx(document.getFile(), output);
+			}
+			return true;
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	/**
+	 * @param document
+	 * @param output
+	 * Method that extracts the text of Word 97-2003 docs (see WordTextExtractor). A docx file named
+	 * .doc is extracted as a docx.
+	 */
+	private boolean extractTextDoc(RawDocument document, Emitter<CharSequence> output) throws InterruptedException
+	{
+		byte[] signature = new byte[2];
+		try (InputStream input = document.openContent())
+		{
+			signature = Arrays.copyOf(signature, Math.max(0, input.read(signature)));
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			return false;
+		}
+		if (WordTextExtractor.isZip(signature))
+		{
+			return extractTextDocx(document, output);
+		}
+		
+		WordTextExtractor extractor = new WordTextExtractor(TEXT_CHUNK_SIZE, () -> mIsCancelled);
+		try (NPOIFSFileSystem fileSystem = (document.getContent() != null)
+				? new NPOIFSFileSystem(new ByteArrayInputStream(document.getContent()))
+				: new NPOIFSFileSystem(document.getFile(), true))
+		{
+			extractor.extractDoc(fileSystem, output);
+			return true;
+		}
+		catch (IOException | RuntimeException e)
+		{
+			//HWPF fails with runtime exceptions on some corrupted documents
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	/**
+	 * @param text
+	 * @param docKey
+	 * This is core method for text indexing, called from the methods specialized for different file types
+	 * The text is added to the document with the given key, after the text it already has, or as a
+	 * new document if there is none. See replaceText() to replace the text of a document.
+	 */
+	public void indexText(String text, String docKey)
+	{
+		synchronized (mIndexingLock)
+		{
+			IndexSnapshot snapshot = mSnapshot;
+			
+			//the document is copied into the new segment, followed by the new text
+			Map<String, int[]> occurrences = new LinkedHashMap<String, int[]>();
+			boolean[] hasPositions = {mIsPositionsIndexed};
+			int[] positionBase = {0};
+			snapshot.getIndex().forEachTermOf(docKey, (term, cursor) ->
+			{
+				int[] positions = cursor.positions();
+				int[] termOccurrences = new int[1 + ((positions != null) ? cursor.frequency() : 0)];
+				termOccurrences[0] = cursor.frequency();
+				if (positions != null)
+				{
+					System.arraycopy(positions, 0, termOccurrences, 1, cursor.frequency());
+					positionBase[0] = Math.max(positionBase[0], positions[cursor.frequency() - 1] + 1);
+				}
+				else
+				{
+					hasPositions[0] = false;	//the positions of the document are unknown
+				}
+				occurrences.put(term, termOccurrences);
+			});
+			
+			IndexSegment segment = new IndexSegment(() -> createAnalyzer(snapshot.getStopWords()), hasPositions[0]);
+			int docId = segment.addDocument(docKey);
+			for (Map.Entry<String, int[]> entry : occurrences.entrySet())
+			{
+				segment.addWord(entry.getKey(), docId, entry.getValue(), 0);
+			}
+			indexText(text, docId, segment, positionBase[0]);
+			SegmentedIndex index = snapshot.getIndex().withoutDocuments(Collections.singleton(docKey));
+			publish(addSegment(index, segment.getIndex()), snapshot.getStopWords(), snapshot.getManifest());
+		}
+	}
+	
+	/**
+	 * @param text
+	 * @param docKey
+	 * The text is added as a new document, replacing the document with the same key if there is one.
+	 */
+	public void replaceText(String text, String docKey)
+	{
+		synchronized (mIndexingLock)
+		{
+			IndexSnapshot snapshot = mSnapshot;
+			IndexSegment segment = new IndexSegment(() -> createAnalyzer(snapshot.getStopWords()), mIsPositionsIndexed);
+			indexText(text, segment.addDocument(docKey), segment, 0);
+			SegmentedIndex index = snapshot.getIndex().withoutDocuments(Collections.singleton(docKey));
+			publish(addSegment(index, segment.getIndex()), snapshot.getStopWords(), snapshot.getManifest());
+		}
+	}
+
+	private void indexText(String text, int docId, IndexSegment segment, int positionBase)
+	{
+		CharArrayMap<int[]> counts = new CharArrayMap<int[]>();
+		countTerms(segment.getAnalyzer(), text, segment.hasPositions(), counts);
+		for (String term : counts.keys())
+		{
+			segment.addWord(term, docId, counts.get(term), positionBase);
+		}
+	}
+	
+	/**
+	 * @param stopWords
+	 * Sets the stop words of the searches and of the documents indexed from now on
+	 */
+	public void setStopWordsList(List<String> stopWords)
+	{
+		synchronized (mIndexingLock)
+		{
+			IndexSnapshot snapshot = mSnapshot;
+			publish(snapshot.getIndex(), toStopWordsSet(stopWords), snapshot.getManifest());
+		}
+	}
+	
+	private static CharArraySet toStopWordsSet(List<String> stopWords)
+	{
+		CharArraySet stopWordsSet = new CharArraySet();
+		for(String stopWord: stopWords)
+		{
+			stopWordsSet.add(stopWord.toLowerCase());
+		}
+		return stopWordsSet;
+	}
+	
+	/**
+	 * @param file
+	 * @throws IOException
+	 * Saves the index, along with its stop words, so it can be opened later without indexing again
+	 */
+	public void save(File file) throws IOException
+	{
+		IndexSnapshot snapshot = mSnapshot;
+		IndexMetadata metadata = new IndexMetadata(mLanguage.name(), snapshot.getStopWordsList(), getManifest(snapshot));
+		IndexFileWriter.write(snapshot.getIndex(), metadata, file);
+	}
+	
+	/**
+	 * @param file
+	 * @throws IOException if the file is not a valid index file or was built for another language
+	 * Opens an index saved with save(). The file is memory-mapped, so opening it takes constant
+	 * time and the postings are read from disk only when searched.
+	 */
+	public void open(File file) throws IOException
+	{
+		MappedIndex index = MappedIndex.open(file);
+		if (!mLanguage.name().equals(index.getLanguage()))
+		{
+			throw new IOException("The index was built for " + index.getLanguage() + ", not for " + mLanguage);
+		}
+		synchronized (mIndexingLock)
+		{
+			publish(SegmentedIndex.of(index), toStopWordsSet(index.getStopWords()), null);
+		}
+	}
+	
+	/**
+	 * @return the name of the last file whose text extraction started, null before any indexing
+	 */
+	public String getCurrentlyIndexedFile()
+	{
+		return mCurrentlyIndexedFile;
+	}
+	
+	/**
+	 * @param listener: receives the name of every file whose text extraction starts. It is called
+	 * from the indexing threads, UI listeners hand the name over to their own thread.
+	 */
+	public void addIndexedFileListener(Consumer<String> listener)
+	{
+		mIndexedFileListeners.add(listener);
+	}
+	
+	public void removeIndexedFileListener(Consumer<String> listener)
+	{
+		mIndexedFileListeners.remove(listener);
+	}
+	
+	private static List<String> getStopWords(File filepath) throws Exception
+	{
+		List<String> stopWords = new ArrayList<String>();
+		try (BufferedReader br = new BufferedReader(new FileReader(filepath)))
+		{
+			String currentLine = null;
+			while ((currentLine = br.readLine()) != null)
+			{
+				if (!currentLine.isEmpty())
+				{
+					Matcher m = STOP_WORDS.matcher(currentLine);
+					if (m.matches())
+					{
+						stopWords.add(m.group(1));
+					}
+				}
+			}
+		}
+		return stopWords;
+	}
+	
+	public void cancelIndex()
+	{
+		mIsCancelled = true;
+		Pipeline pipeline = mPipeline;
+		if (pipeline != null)
+		{
+			pipeline.cancel();
+		}
+	}
+	
+	public boolean isCancelled()
+	{
+		return mIsCancelled;
+	}
+}
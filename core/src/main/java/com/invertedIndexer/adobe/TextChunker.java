@@ -0,0 +1,132 @@
+package com.invertedIndexer.adobe;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+import com.invertedIndexer.adobe.pipeline.Emitter;
+
+/**
+ * @author Cotkaria
+ * Splits a large text file into chunks ending right after a whitespace byte, so no word spans
+ * two chunks. Every chunk is memory-mapped and decoded on its own, and the chunks are analyzed in
+ * parallel by the indexing pipeline. The pipeline queues hold a few chunks at a time, so the
+ * memory used does not depend on the file size.
+ */
+class TextChunker
+{
+	private static final int BOUNDARY_SCAN_SIZE = 4096;
+	private static final byte[] WHITESPACES = {' ', '\t', '\n', '\r', '\f'};
+
+	private Charset mCharset;
+	private int mChunkSize;
+
+	/**
+	 * @param charset: encoding of the text files, see supports()
+	 * @param chunkSize: approximate size of a chunk, in bytes
+	 */
+	TextChunker(Charset charset, int chunkSize)
+	{
+		mCharset = charset;
+		mChunkSize = chunkSize;
+	}
+
+	/**
+	 * @param charset
+	 * @return true if the files encoded with the charset can be split on whitespace bytes: the
+	 * charset encodes whitespaces as ASCII and no multi-byte sequence contains an ASCII byte
+	 */
+	static boolean supports(Charset charset)
+	{
+		boolean isAsciiCompatible = Arrays.equals(new String(WHITESPACES, StandardCharsets.US_ASCII).getBytes(charset), WHITESPACES);
+		return isAsciiCompatible && (charset.equals(StandardCharsets.UTF_8) || charset.newEncoder().maxBytesPerChar() == 1);
+	}
+
+	/**
+	 * @param file
+	 * @param digest: updated with the bytes of every chunk, so the content is hashed while it is
+	 * split, null for none
+	 * @param isCancelled: checked before every chunk
+	 * @param output: receives the decoded text of every chunk, in file order
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	void split(File file, MessageDigest digest, BooleanSupplier isCancelled, Emitter<CharSequence> output) throws IOException, InterruptedException
+	{
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			long size = channel.size();
+			long start = 0;
+			while (start < size && !isCancelled.getAsBoolean())
+			{
+				long end = findChunkEnd(channel, start, size);
+				MappedByteBuffer bytes = channel.map(MapMode.READ_ONLY, start, end - start);
+				if (digest != null)
+				{
+					digest.update(bytes.duplicate());
+				}
+				output.emit(decode(bytes));
+				start = end;
+			}
+		}
+	}
+
+	/**
+	 * @return the end of the chunk starting at the given position: the position following the first
+	 * whitespace byte after chunkSize bytes, the end of the file if there is none
+	 */
+	private long findChunkEnd(FileChannel channel, long start, long size) throws IOException
+	{
+		long position = start + mChunkSize;
+		ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+		while (position < size)
+		{
+			buffer.clear();
+			int read = channel.read(buffer, position);
+			if (read <= 0)
+			{
+				break;
+			}
+			for (int i = 0; i < read; i++)
+			{
+				if (isWhitespace(buffer.get(i)))
+				{
+					return position + i + 1;
+				}
+			}
+			position += read;
+		}
+		return size;
+	}
+
+	private static boolean isWhitespace(byte value)
+	{
+		for (byte whitespace : WHITESPACES)
+		{
+			if (value == whitespace)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private CharSequence decode(ByteBuffer bytes) throws IOException
+	{
+		CharsetDecoder decoder = mCharset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		return decoder.decode(bytes);
+	}
+}
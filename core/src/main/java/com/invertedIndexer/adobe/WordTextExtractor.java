@@ -0,0 +1,221 @@
+package com.invertedIndexer.adobe;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.BooleanSupplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.hwpf.extractor.WordExtractor;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
+
+import com.invertedIndexer.adobe.pipeline.Emitter;
+
+/**
+ * @author Cotkaria
+ * Extracts the text of Word documents without loading them in memory:
+ * -docx: only the main part, word/document.xml, is read from the zip, with a StAX parser. The text
+ * runs of the paragraphs are emitted in chunks ending with a paragraph, so the memory used does not
+ * depend on the size of the document nor on its embedded media, which are never read.
+ * -doc (Word 97-2003): the paragraphs of the binary document are read with HWPF. The whole
+ * document is parsed, but files on disk are not copied in memory.
+ */
+class WordTextExtractor
+{
+	private static final String DOCUMENT_ENTRY = "word/document.xml";
+	private static final String WORD_NAMESPACE = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+	private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+	private int mChunkSize;
+	private BooleanSupplier mIsCancelled;
+
+	/**
+	 * @param chunkSize: approximate number of characters of the emitted chunks of text
+	 * @param isCancelled: checked before every paragraph
+	 */
+	WordTextExtractor(int chunkSize, BooleanSupplier isCancelled)
+	{
+		mChunkSize = chunkSize;
+		mIsCancelled = isCancelled;
+	}
+
+	/**
+	 * @param content: first bytes of a file
+	 * @return true if the file is a zip, e.g. a docx file even if it is named .doc
+	 */
+	static boolean isZip(byte[] content)
+	{
+		return content.length >= 2 && content[0] == 'P' && content[1] == 'K';
+	}
+
+	/**
+	 * @param input: content of a docx file, read once. The entries preceding word/document.xml are
+	 * skipped as they are read.
+	 * @param output: receives the chunks of text
+	 * @throws IOException if the document is not a valid docx file
+	 * @throws InterruptedException
+	 */
+	void extractDocx(InputStream input, Emitter<CharSequence> output) throws IOException, InterruptedException
+	{
+		ZipInputStream zip = new ZipInputStream(input);
+		ZipEntry entry;
+		while ((entry = zip.getNextEntry()) != null)
+		{
+			if (DOCUMENT_ENTRY.equals(entry.getName()))
+			{
+				extractDocumentXml(zip, output);
+				return;
+			}
+		}
+		throw new IOException("Not a Word document, " + DOCUMENT_ENTRY + " is missing");
+	}
+
+	/**
+	 * @param file: docx file, whose word/document.xml entry is read directly
+	 * @param output: receives the chunks of text
+	 * @throws IOException if the document is not a valid docx file
+	 * @throws InterruptedException
+	 */
+	void extractDocx(File file, Emitter<CharSequence> output) throws IOException, InterruptedException
+	{
+		try (ZipFile zip = new ZipFile(file))
+		{
+			ZipEntry entry = zip.getEntry(DOCUMENT_ENTRY);
+			if (entry == null)
+			{
+				throw new IOException("Not a Word document, " + DOCUMENT_ENTRY + " is missing");
+			}
+			try (InputStream input = zip.getInputStream(entry))
+			{
+				extractDocumentXml(input, output);
+			}
+		}
+	}
+
+	/**
+	 * @param fileSystem: OLE2 file system of a doc file
+	 * @param output: receives the chunks of text
+	 * @throws IOException if the document is not a valid doc file
+	 * @throws InterruptedException
+	 */
+	void extractDoc(NPOIFSFileSystem fileSystem, Emitter<CharSequence> output) throws IOException, InterruptedException
+	{
+		StringBuilder text = new StringBuilder();
+		for (String paragraph : new WordExtractor(fileSystem.getRoot()).getParagraphText())
+		{
+			if (mIsCancelled.getAsBoolean())
+			{
+				return;
+			}
+			text.append(WordExtractor.stripFields(paragraph));
+			emitChunk(text, output);
+		}
+		output.emit(text.toString());
+	}
+
+	/**
+	 * @param input: word/document.xml
+	 * @param output
+	 * The text is in the w:t elements of the runs, the tabs and breaks of the runs are kept as
+	 * whitespaces so the words around them are not joined. Deleted text (w:delText) and field codes
+	 * (w:instrText) are not document text.
+	 */
+	private void extractDocumentXml(InputStream input, Emitter<CharSequence> output) throws IOException, InterruptedException
+	{
+		StringBuilder text = new StringBuilder();
+		try
+		{
+			XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(input);
+			try
+			{
+				boolean isText = false;
+				while (reader.hasNext())
+				{
+					switch (reader.next())
+					{
+					case XMLStreamConstants.START_ELEMENT:
+						if (WORD_NAMESPACE.equals(reader.getNamespaceURI()))
+						{
+							switch (reader.getLocalName())
+							{
+							case "t":
+								isText = true;
+								break;
+							case "tab":
+								text.append('\t');
+								break;
+							case "br":
+							case "cr":
+								text.append('\n');
+								break;
+							}
+						}
+						break;
+					case XMLStreamConstants.CHARACTERS:
+					case XMLStreamConstants.CDATA:
+						if (isText)
+						{
+							text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+						}
+						break;
+					case XMLStreamConstants.END_ELEMENT:
+						if (WORD_NAMESPACE.equals(reader.getNamespaceURI()))
+						{
+							if ("t".equals(reader.getLocalName()))
+							{
+								isText = false;
+							}
+							else if ("p".equals(reader.getLocalName()))
+							{
+								text.append('\n');
+								if (mIsCancelled.getAsBoolean())
+								{
+									return;
+								}
+								emitChunk(text, output);
+							}
+						}
+						break;
+					}
+				}
+			}
+			finally
+			{
+				reader.close();
+			}
+		}
+		catch (XMLStreamException e)
+		{
+			throw new IOException("Invalid " + DOCUMENT_ENTRY, e);
+		}
+		output.emit(text.toString());
+	}
+
+	/**
+	 * Emits the text once it reaches the chunk size
+	 */
+	private void emitChunk(StringBuilder text, Emitter<CharSequence> output) throws InterruptedException
+	{
+		if (text.length() >= mChunkSize)
+		{
+			output.emit(text.toString());
+			text.setLength(0);
+		}
+	}
+
+	private static XMLInputFactory createXmlInputFactory()
+	{
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);	//no external entities
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return factory;
+	}
+}
@@ -0,0 +1,56 @@
+package com.invertedIndexer.adobe.analysis;
+
+/**
+ * @author Cotkaria
+ * Analysis chain: the tokenizer splits the text into words and every word goes through the
+ * filters, in order, before being handed to the consumer. Indexing and searching use the same
+ * chain, so the words of the documents and of the queries are normalized the same way.
+ * The tokenizer and the token are reused, so an analyzer must be used by one thread at a time.
+ */
+public class Analyzer
+{
+	private Tokenizer mTokenizer;
+	private TokenFilter[] mFilters;
+	private Token mToken;
+
+	public Analyzer(TokenFilter... filters)
+	{
+		mTokenizer = new Tokenizer();
+		mFilters = filters;
+		mToken = new Token();
+	}
+
+	/**
+	 * @param text
+	 * @param consumer: receives the tokens that passed all filters
+	 * @return the number of words of the text, i.e. the position following its last word
+	 */
+	public int analyze(CharSequence text, TokenConsumer consumer)
+	{
+		Token token = mToken;
+		int position = 0;
+		mTokenizer.reset(text);
+		while (mTokenizer.next(token))
+		{
+			token.setPosition(position++);
+			if (filter(token))
+			{
+				consumer.accept(token);
+			}
+		}
+		mTokenizer.reset("");
+		return position;
+	}
+
+	private boolean filter(Token token)
+	{
+		for (TokenFilter filter : mFilters)
+		{
+			if (!filter.process(token))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+}
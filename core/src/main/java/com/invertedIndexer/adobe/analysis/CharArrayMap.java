@@ -0,0 +1,193 @@
+package com.invertedIndexer.adobe.analysis;
+
+/**
+ * @author Cotkaria
+ * Open addressing hash map with String keys that can be looked up directly with a char buffer,
+ * so looking up a token does not create a String. Not thread-safe for concurrent updates.
+ */
+public class CharArrayMap<V>
+{
+	private static final int INITIAL_CAPACITY = 16;
+
+	private char[][] mKeys;
+	private String[] mKeyStrings;
+	private Object[] mValues;
+	private int mSize;
+
+	public CharArrayMap()
+	{
+		clear();
+	}
+
+	public void clear()
+	{
+		mKeys = new char[INITIAL_CAPACITY][];
+		mKeyStrings = new String[INITIAL_CAPACITY];
+		mValues = new Object[INITIAL_CAPACITY];
+		mSize = 0;
+	}
+
+	public V get(CharSequence key)
+	{
+		int slot = findSlot(key);
+		return (mKeys[slot] != null) ? value(slot) : null;
+	}
+
+	public V get(char[] buffer, int offset, int length)
+	{
+		int slot = findSlot(buffer, offset, length);
+		return (mKeys[slot] != null) ? value(slot) : null;
+	}
+
+	public boolean containsKey(CharSequence key)
+	{
+		return mKeys[findSlot(key)] != null;
+	}
+
+	public boolean containsKey(char[] buffer, int offset, int length)
+	{
+		return mKeys[findSlot(buffer, offset, length)] != null;
+	}
+
+	public V put(String key, V value)
+	{
+		int slot = findSlot(key);
+		V oldValue = null;
+		if (mKeys[slot] != null)
+		{
+			oldValue = value(slot);
+		}
+		else
+		{
+			mKeys[slot] = key.toCharArray();
+			mKeyStrings[slot] = key;
+			mSize++;
+		}
+		mValues[slot] = value;
+		if (mSize * 4 > mKeys.length * 3)
+		{
+			rehash();
+		}
+		return oldValue;
+	}
+
+	public int size()
+	{
+		return mSize;
+	}
+
+	/**
+	 * @return the keys of the map, in no particular order
+	 */
+	public String[] keys()
+	{
+		String[] keys = new String[mSize];
+		int index = 0;
+		for (String key : mKeyStrings)
+		{
+			if (key != null)
+			{
+				keys[index++] = key;
+			}
+		}
+		return keys;
+	}
+
+	@SuppressWarnings("unchecked")
+	private V value(int slot)
+	{
+		return (V) mValues[slot];
+	}
+
+	private int findSlot(CharSequence key)
+	{
+		int length = key.length();
+		int hash = 0;
+		for (int i = 0; i < length; i++)
+		{
+			hash = 31 * hash + key.charAt(i);
+		}
+		int mask = mKeys.length - 1;
+		int slot = mix(hash) & mask;
+		char[] current;
+		while ((current = mKeys[slot]) != null && !equals(current, key))
+		{
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private int findSlot(char[] buffer, int offset, int length)
+	{
+		int hash = 0;
+		for (int i = offset; i < offset + length; i++)
+		{
+			hash = 31 * hash + buffer[i];
+		}
+		int mask = mKeys.length - 1;
+		int slot = mix(hash) & mask;
+		char[] current;
+		while ((current = mKeys[slot]) != null && !equals(current, buffer, offset, length))
+		{
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void rehash()
+	{
+		char[][] keys = mKeys;
+		String[] keyStrings = mKeyStrings;
+		Object[] values = mValues;
+		mKeys = new char[keys.length * 2][];
+		mKeyStrings = new String[keys.length * 2];
+		mValues = new Object[keys.length * 2];
+		for (int i = 0; i < keys.length; i++)
+		{
+			if (keys[i] != null)
+			{
+				int slot = findSlot(keys[i], 0, keys[i].length);
+				mKeys[slot] = keys[i];
+				mKeyStrings[slot] = keyStrings[i];
+				mValues[slot] = values[i];
+			}
+		}
+	}
+
+	private static int mix(int hash)
+	{
+		return hash ^ (hash >>> 16);
+	}
+
+	private static boolean equals(char[] key, CharSequence other)
+	{
+		if (key.length != other.length())
+		{
+			return false;
+		}
+		for (int i = 0; i < key.length; i++)
+		{
+			if (key[i] != other.charAt(i))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean equals(char[] key, char[] buffer, int offset, int length)
+	{
+		if (key.length != length)
+		{
+			return false;
+		}
+		for (int i = 0; i < length; i++)
+		{
+			if (key[i] != buffer[offset + i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+}
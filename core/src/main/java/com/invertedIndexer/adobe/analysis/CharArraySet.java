@@ -0,0 +1,48 @@
+package com.invertedIndexer.adobe.analysis;
+
+/**
+ * @author Cotkaria
+ * Hashed set of words that can be checked directly against a token buffer (e.g. stop words)
+ */
+public class CharArraySet
+{
+	private CharArrayMap<Boolean> mMap;
+
+	public CharArraySet()
+	{
+		mMap = new CharArrayMap<Boolean>();
+	}
+
+	public void add(String word)
+	{
+		mMap.put(word, Boolean.TRUE);
+	}
+
+	public boolean contains(CharSequence word)
+	{
+		return mMap.containsKey(word);
+	}
+
+	public boolean contains(char[] buffer, int offset, int length)
+	{
+		return mMap.containsKey(buffer, offset, length);
+	}
+
+	public void clear()
+	{
+		mMap.clear();
+	}
+
+	public int size()
+	{
+		return mMap.size();
+	}
+
+	/**
+	 * @return the words of the set, in no particular order
+	 */
+	public String[] toArray()
+	{
+		return mMap.keys();
+	}
+}
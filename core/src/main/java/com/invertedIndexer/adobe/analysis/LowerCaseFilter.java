@@ -0,0 +1,19 @@
+package com.invertedIndexer.adobe.analysis;
+
+/**
+ * @author Cotkaria
+ * Lower-cases the token in place
+ */
+public class LowerCaseFilter implements TokenFilter
+{
+	@Override
+	public boolean process(Token token)
+	{
+		char[] buffer = token.buffer();
+		for (int i = 0; i < token.length(); i++)
+		{
+			buffer[i] = Character.toLowerCase(buffer[i]);
+		}
+		return true;
+	}
+}
@@ -0,0 +1,21 @@
+package com.invertedIndexer.adobe.analysis;
+
+/**
+ * @author Cotkaria
+ * Drops the tokens shorter than the given length (one-letter words are definitely stop words)
+ */
+public class MinLengthFilter implements TokenFilter
+{
+	private int mMinLength;
+
+	public MinLengthFilter(int minLength)
+	{
+		mMinLength = minLength;
+	}
+
+	@Override
+	public boolean process(Token token)
+	{
+		return token.length() >= mMinLength;
+	}
+}
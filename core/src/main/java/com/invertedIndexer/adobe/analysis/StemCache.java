@@ -0,0 +1,222 @@
+package com.invertedIndexer.adobe.analysis;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import opennlp.tools.stemmer.snowball.SnowballStemmer;
+import opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM;
+
+/**
+ * @author Cotkaria
+ * Bounded cache from surface form to stem, shared by all the threads indexing or searching with
+ * the same language. Natural language text is heavily Zipfian, so a few thousand words make up
+ * most of the tokens and the stemming algorithm runs only for the rare ones.
+ * The cache is split into segments, each one a small LRU map guarded by its own lock. The
+ * SnowballStemmer instances are not thread-safe, so every thread gets its own stemmer.
+ */
+public class StemCache
+{
+	private static final int SEGMENTS = 16;
+
+	private Segment[] mSegments;
+	private ThreadLocal<SnowballStemmer> mStemmers;
+	private ThreadLocal<CacheKey> mLookupKeys;
+	private LongAdder mHits;
+	private LongAdder mMisses;
+	private LongAdder mEvictions;
+
+	/**
+	 * @param language
+	 * @param maxEntries: maximum number of words kept in the cache, the least recently used ones
+	 * are evicted first
+	 */
+	public StemCache(ALGORITHM language, int maxEntries)
+	{
+		mHits = new LongAdder();
+		mMisses = new LongAdder();
+		mEvictions = new LongAdder();
+		mSegments = new Segment[SEGMENTS];
+		int segmentSize = Math.max(1, maxEntries / SEGMENTS);
+		for (int i = 0; i < SEGMENTS; i++)
+		{
+			mSegments[i] = new Segment(segmentSize);
+		}
+		mStemmers = ThreadLocal.withInitial(() -> new SnowballStemmer(language));
+		mLookupKeys = ThreadLocal.withInitial(CacheKey::new);
+	}
+
+	/**
+	 * @param token
+	 * Replaces the word in the token buffer with its stem
+	 */
+	public void stem(Token token)
+	{
+		CacheKey lookupKey = mLookupKeys.get();
+		lookupKey.set(token.buffer(), token.length());
+		Segment segment = mSegments[lookupKey.hashCode() & (SEGMENTS - 1)];
+		
+		char[] stem;
+		synchronized (segment)
+		{
+			stem = segment.get(lookupKey);
+		}
+		if (stem != null)
+		{
+			mHits.increment();
+		}
+		else
+		{
+			mMisses.increment();
+			CacheKey key = new CacheKey();
+			key.set(Arrays.copyOf(token.buffer(), token.length()), token.length());
+			stem = mStemmers.get().stem(token).toString().toCharArray();
+			synchronized (segment)
+			{
+				segment.put(key, stem);
+			}
+		}
+		System.arraycopy(stem, 0, token.resizeBuffer(stem.length), 0, stem.length);
+		token.setLength(stem.length);
+	}
+
+	/**
+	 * @param word
+	 * @return the stem of the word
+	 */
+	public String stem(String word)
+	{
+		Token token = new Token();
+		token.copy(word);
+		stem(token);
+		return token.toString();
+	}
+
+	public long getHitCount()
+	{
+		return mHits.sum();
+	}
+
+	public long getMissCount()
+	{
+		return mMisses.sum();
+	}
+
+	public long getEvictionCount()
+	{
+		return mEvictions.sum();
+	}
+
+	/**
+	 * @return the ratio of lookups answered from the cache, 0 if there was no lookup
+	 */
+	public double getHitRate()
+	{
+		long hits = mHits.sum();
+		long total = hits + mMisses.sum();
+		return (total == 0) ? 0 : (double) hits / total;
+	}
+
+	public int size()
+	{
+		int size = 0;
+		for (Segment segment : mSegments)
+		{
+			synchronized (segment)
+			{
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	public void clear()
+	{
+		for (Segment segment : mSegments)
+		{
+			synchronized (segment)
+			{
+				segment.clear();
+			}
+		}
+		mHits.reset();
+		mMisses.reset();
+		mEvictions.reset();
+	}
+
+	private class Segment extends LinkedHashMap<CacheKey, char[]>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private int mMaxEntries;
+
+		Segment(int maxEntries)
+		{
+			super(16, 0.75f, true);
+			mMaxEntries = maxEntries;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<CacheKey, char[]> eldest)
+		{
+			if (size() > mMaxEntries)
+			{
+				mEvictions.increment();
+				return true;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Word used as cache key; the lookup key of each thread wraps the token buffer, so a lookup
+	 * does not copy the word
+	 */
+	private static class CacheKey
+	{
+		private char[] mChars;
+		private int mLength;
+		private int mHash;
+
+		void set(char[] chars, int length)
+		{
+			mChars = chars;
+			mLength = length;
+			int hash = 0;
+			for (int i = 0; i < length; i++)
+			{
+				hash = 31 * hash + chars[i];
+			}
+			mHash = hash ^ (hash >>> 16);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return mHash;
+		}
+
+		@Override
+		public boolean equals(Object other)
+		{
+			if (!(other instanceof CacheKey))
+			{
+				return false;
+			}
+			CacheKey key = (CacheKey) other;
+			if (key.mLength != mLength || key.mHash != mHash)
+			{
+				return false;
+			}
+			for (int i = 0; i < mLength; i++)
+			{
+				if (key.mChars[i] != mChars[i])
+				{
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
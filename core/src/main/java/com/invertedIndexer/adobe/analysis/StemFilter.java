@@ -0,0 +1,40 @@
+package com.invertedIndexer.adobe.analysis;
+
+import opennlp.tools.stemmer.Stemmer;
+
+/**
+ * @author Cotkaria
+ * Applies the stemming algorithm to the token, keeping the word before stemming as the surface
+ * form of the token. The stems come either from a shared {@link StemCache} or from a stemmer
+ * owned by the filter; stemmers are not thread-safe, so in the latter case neither is the filter.
+ */
+public class StemFilter implements TokenFilter
+{
+	private Stemmer mStemmer;
+	private StemCache mStemCache;
+
+	public StemFilter(Stemmer stemmer)
+	{
+		mStemmer = stemmer;
+	}
+
+	public StemFilter(StemCache stemCache)
+	{
+		mStemCache = stemCache;
+	}
+
+	@Override
+	public boolean process(Token token)
+	{
+		token.markSurface();
+		if (mStemCache != null)
+		{
+			mStemCache.stem(token);
+		}
+		else
+		{
+			token.copy(mStemmer.stem(token));
+		}
+		return true;
+	}
+}
@@ -0,0 +1,21 @@
+package com.invertedIndexer.adobe.analysis;
+
+/**
+ * @author Cotkaria
+ * Drops the stop words. The set is referenced, not copied, so changes to it are seen by the filter.
+ */
+public class StopFilter implements TokenFilter
+{
+	private CharArraySet mStopWords;
+
+	public StopFilter(CharArraySet stopWords)
+	{
+		mStopWords = stopWords;
+	}
+
+	@Override
+	public boolean process(Token token)
+	{
+		return !mStopWords.contains(token.buffer(), 0, token.length());
+	}
+}
@@ -0,0 +1,129 @@
+package com.invertedIndexer.adobe.analysis;
+
+import java.util.Arrays;
+
+/**
+ * @author Cotkaria
+ * Reusable term buffer passed through the analysis chain. Filters change the term in place,
+ * so no String is created while a text is analyzed.
+ * Besides the current term, the token can keep its surface form: the normalized word as it
+ * was before stemming (see {@link #markSurface()}), and its position: the number of words before
+ * it in the text, the words dropped by the filters included, so a phrase keeps its gaps.
+ */
+public class Token implements CharSequence
+{
+	private static final int INITIAL_CAPACITY = 32;
+
+	private char[] mBuffer;
+	private int mLength;
+	private char[] mSurface;
+	private int mSurfaceLength;
+	private int mPosition;
+
+	public Token()
+	{
+		mBuffer = new char[INITIAL_CAPACITY];
+		mSurface = new char[INITIAL_CAPACITY];
+		clear();
+	}
+
+	public void clear()
+	{
+		mLength = 0;
+		mSurfaceLength = -1;
+	}
+
+	public char[] buffer()
+	{
+		return mBuffer;
+	}
+
+	/**
+	 * @param capacity
+	 * @return the term buffer, grown to hold at least the given number of chars
+	 */
+	public char[] resizeBuffer(int capacity)
+	{
+		if (capacity > mBuffer.length)
+		{
+			mBuffer = Arrays.copyOf(mBuffer, Math.max(capacity, mBuffer.length * 2));
+		}
+		return mBuffer;
+	}
+
+	public void setLength(int length)
+	{
+		mLength = length;
+	}
+
+	public void append(char c)
+	{
+		resizeBuffer(mLength + 1)[mLength++] = c;
+	}
+
+	public void copy(CharSequence text)
+	{
+		int length = text.length();
+		resizeBuffer(length);
+		for (int i = 0; i < length; i++)
+		{
+			mBuffer[i] = text.charAt(i);
+		}
+		mLength = length;
+	}
+
+	public int getPosition()
+	{
+		return mPosition;
+	}
+
+	public void setPosition(int position)
+	{
+		mPosition = position;
+	}
+
+	/**
+	 * Keeps the current term as the surface form of the token
+	 */
+	public void markSurface()
+	{
+		if (mSurface.length < mLength)
+		{
+			mSurface = new char[mBuffer.length];
+		}
+		System.arraycopy(mBuffer, 0, mSurface, 0, mLength);
+		mSurfaceLength = mLength;
+	}
+
+	/**
+	 * @return the surface form of the token, the current term if no surface form was kept
+	 */
+	public String surfaceToString()
+	{
+		return (mSurfaceLength < 0) ? toString() : new String(mSurface, 0, mSurfaceLength);
+	}
+
+	@Override
+	public int length()
+	{
+		return mLength;
+	}
+
+	@Override
+	public char charAt(int index)
+	{
+		return mBuffer[index];
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end)
+	{
+		return new String(mBuffer, start, end - start);
+	}
+
+	@Override
+	public String toString()
+	{
+		return new String(mBuffer, 0, mLength);
+	}
+}
@@ -0,0 +1,11 @@
+package com.invertedIndexer.adobe.analysis;
+
+/**
+ * @author Cotkaria
+ * Receives the tokens that went through the whole analysis chain. The token is reused for the
+ * next word, so it must be copied if it is kept.
+ */
+public interface TokenConsumer
+{
+	void accept(Token token);
+}
@@ -0,0 +1,14 @@
+package com.invertedIndexer.adobe.analysis;
+
+/**
+ * @author Cotkaria
+ * Step of the analysis chain: normalizes the token in place or drops it
+ */
+public interface TokenFilter
+{
+	/**
+	 * @param token
+	 * @return false if the token must be dropped
+	 */
+	boolean process(Token token);
+}
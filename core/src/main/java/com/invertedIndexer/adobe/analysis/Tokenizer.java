@@ -0,0 +1,78 @@
+package com.invertedIndexer.adobe.analysis;
+
+/**
+ * @author Cotkaria
+ * Splits a text into words: runs of Unicode letters (combining marks and apostrophes included,
+ * so words with diacritics are kept whole), separated by whitespace, digits and punctuation marks.
+ * The char classes are looked up in a table built once, and the words are copied into the
+ * reusable token buffer.
+ */
+public class Tokenizer
+{
+	private static final boolean[] WORD_CHARS = buildWordChars();
+
+	private CharSequence mText;
+	private int mPosition;
+
+	public void reset(CharSequence text)
+	{
+		mText = text;
+		mPosition = 0;
+	}
+
+	/**
+	 * @param token
+	 * @return false when there are no more words in the text
+	 */
+	public boolean next(Token token)
+	{
+		CharSequence text = mText;
+		int length = text.length();
+		int position = mPosition;
+		while (position < length && !WORD_CHARS[text.charAt(position)])
+		{
+			position++;
+		}
+		if (position == length)
+		{
+			mPosition = position;
+			return false;
+		}
+		
+		token.clear();
+		char[] buffer = token.buffer();
+		int tokenLength = 0;
+		char c;
+		while (position < length && WORD_CHARS[c = text.charAt(position)])
+		{
+			if (tokenLength == buffer.length)
+			{
+				buffer = token.resizeBuffer(tokenLength + 1);
+			}
+			buffer[tokenLength++] = c;
+			position++;
+		}
+		token.setLength(tokenLength);
+		mPosition = position;
+		return true;
+	}
+
+	public static boolean isWordChar(char c)
+	{
+		return WORD_CHARS[c];
+	}
+
+	private static boolean[] buildWordChars()
+	{
+		boolean[] wordChars = new boolean[Character.MAX_VALUE + 1];
+		for (int c = 0; c <= Character.MAX_VALUE; c++)
+		{
+			int type = Character.getType(c);
+			wordChars[c] = Character.isLetter(c)
+					|| type == Character.NON_SPACING_MARK
+					|| type == Character.COMBINING_SPACING_MARK;
+		}
+		wordChars['\''] = true;
+		return wordChars;
+	}
+}
@@ -0,0 +1,178 @@
+package com.invertedIndexer.adobe.incremental;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author Cotkaria
+ * States of the files of an indexed folder, as they were when they were indexed
+ */
+public class FileManifest
+{
+	private String mFolder;
+	private Map<String, FileState> mStates;
+
+	public FileManifest(File folder)
+	{
+		this(folder.getAbsolutePath());
+	}
+
+	private FileManifest(String folder)
+	{
+		mFolder = folder;
+		mStates = new LinkedHashMap<String, FileState>();
+	}
+
+	/**
+	 * @param manifest
+	 * Copies the given manifest, e.g. to update it while the original one is still in use
+	 */
+	public FileManifest(FileManifest manifest)
+	{
+		mFolder = manifest.mFolder;
+		mStates = new LinkedHashMap<String, FileState>(manifest.mStates);
+	}
+
+	/**
+	 * @param folder
+	 * @return true if the manifest describes the given folder
+	 */
+	public boolean isFor(File folder)
+	{
+		return mFolder.equals(folder.getAbsolutePath());
+	}
+
+	public void put(String fileName, FileState state)
+	{
+		mStates.put(fileName, state);
+	}
+
+	public void remove(String fileName)
+	{
+		mStates.remove(fileName);
+	}
+
+	public FileState get(String fileName)
+	{
+		return mStates.get(fileName);
+	}
+
+	public int size()
+	{
+		return mStates.size();
+	}
+
+	/**
+	 * @param files: the files currently in the folder that can be indexed
+	 * @return the files added, modified and deleted since the manifest was recorded, and the new
+	 * states of the files modified without changing their content
+	 * @throws IOException
+	 */
+	public Changes getChanges(List<File> files) throws IOException
+	{
+		Changes changes = new Changes();
+		Set<String> currentFiles = new HashSet<String>();
+		for (File file : files)
+		{
+			currentFiles.add(file.getName());
+			FileState state = mStates.get(file.getName());
+			if (state == null)
+			{
+				changes.mAdded.add(file);
+				continue;
+			}
+			FileState currentState = state.refresh(file);
+			if (currentState == null)
+			{
+				changes.mModified.add(file);
+			}
+			else if (currentState != state)
+			{
+				changes.mTouched.put(file.getName(), currentState);
+			}
+		}
+		for (String fileName : mStates.keySet())
+		{
+			if (!currentFiles.contains(fileName))
+			{
+				changes.mDeleted.add(fileName);
+			}
+		}
+		return changes;
+	}
+
+	public void write(DataOutput out) throws IOException
+	{
+		out.writeUTF(mFolder);
+		out.writeInt(mStates.size());
+		for (Map.Entry<String, FileState> entry : mStates.entrySet())
+		{
+			out.writeUTF(entry.getKey());
+			entry.getValue().write(out);
+		}
+	}
+
+	public static FileManifest read(DataInput in) throws IOException
+	{
+		FileManifest manifest = new FileManifest(in.readUTF());
+		int size = in.readInt();
+		for (int i = 0; i < size; i++)
+		{
+			String fileName = in.readUTF();
+			manifest.put(fileName, FileState.read(in));
+		}
+		return manifest;
+	}
+
+	/**
+	 * Files that changed in the folder since the manifest was recorded
+	 */
+	public static class Changes
+	{
+		private List<File> mAdded = new ArrayList<File>();
+		private List<File> mModified = new ArrayList<File>();
+		private List<String> mDeleted = new ArrayList<String>();
+		private Map<String, FileState> mTouched = new LinkedHashMap<String, FileState>();
+
+		public List<File> getAdded()
+		{
+			return mAdded;
+		}
+
+		public List<File> getModified()
+		{
+			return mModified;
+		}
+
+		public List<String> getDeleted()
+		{
+			return mDeleted;
+		}
+
+		/**
+		 * @return the new states of the files modified without changing their content, recorded so
+		 * the files are not hashed again on every update
+		 */
+		public Map<String, FileState> getTouched()
+		{
+			return mTouched;
+		}
+
+		/**
+		 * @return true if no file was added, modified or deleted (files touched without changing
+		 * their content do not count)
+		 */
+		public boolean isEmpty()
+		{
+			return mAdded.isEmpty() && mModified.isEmpty() && mDeleted.isEmpty();
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package com.invertedIndexer.adobe.incremental;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * @author Cotkaria
+ * State of an indexed file, used to find out whether it changed since it was indexed:
+ * size and modification time are checked first, the content hash only when they differ
+ * (e.g. a file copied over with the same content is not indexed again)
+ */
+public class FileState
+{
+	private static final String HASH_ALGORITHM = "SHA-256";
+
+	private long mSize;
+	private long mLastModified;
+	private byte[] mContentHash;
+
+	public FileState(long size, long lastModified, byte[] contentHash)
+	{
+		mSize = size;
+		mLastModified = lastModified;
+		mContentHash = contentHash;
+	}
+
+	/**
+	 * @param file
+	 * @return the current state of the file, its content is read to compute the hash
+	 * @throws IOException
+	 */
+	public static FileState of(File file) throws IOException
+	{
+		//size and modification time are read first, so a write while the content is read is seen as a change next time
+		long size = file.length();
+		long lastModified = file.lastModified();
+		return new FileState(size, lastModified, hash(file));
+	}
+
+	/**
+	 * @param size: size of the file, read before its content
+	 * @param lastModified: modification time of the file, read before its content
+	 * @param content: the content of the file, already read
+	 * @return the state of the file, without reading it again
+	 */
+	public static FileState of(long size, long lastModified, byte[] content)
+	{
+		return new FileState(size, lastModified, createDigest().digest(content));
+	}
+
+	public long getSize()
+	{
+		return mSize;
+	}
+
+	public long getLastModified()
+	{
+		return mLastModified;
+	}
+
+	public byte[] getContentHash()
+	{
+		return mContentHash;
+	}
+
+	/**
+	 * @param file
+	 * @return true if the file still has the content it had when this state was recorded
+	 * @throws IOException
+	 */
+	public boolean matches(File file) throws IOException
+	{
+		return refresh(file) != null;
+	}
+
+	/**
+	 * @param file
+	 * @return this state if the file was not modified since it was recorded, a state with the new
+	 * modification time if the file was modified but still has the same content (e.g. touched),
+	 * null if its content changed
+	 * @throws IOException
+	 */
+	public FileState refresh(File file) throws IOException
+	{
+		long size = file.length();
+		long lastModified = file.lastModified();
+		if (size != mSize)
+		{
+			return null;
+		}
+		if (lastModified == mLastModified)
+		{
+			return this;
+		}
+		return Arrays.equals(hash(file), mContentHash) ? new FileState(size, lastModified, mContentHash) : null;
+	}
+
+	public void write(DataOutput out) throws IOException
+	{
+		out.writeLong(mSize);
+		out.writeLong(mLastModified);
+		out.writeShort(mContentHash.length);
+		out.write(mContentHash);
+	}
+
+	public static FileState read(DataInput in) throws IOException
+	{
+		long size = in.readLong();
+		long lastModified = in.readLong();
+		byte[] contentHash = new byte[in.readUnsignedShort()];
+		in.readFully(contentHash);
+		return new FileState(size, lastModified, contentHash);
+	}
+
+	/**
+	 * @param file
+	 * @return the SHA-256 hash of the content of the file
+	 * @throws IOException
+	 */
+	public static byte[] hash(File file) throws IOException
+	{
+		MessageDigest digest = createDigest();
+		byte[] buffer = new byte[1 << 16];
+		try (InputStream in = new FileInputStream(file))
+		{
+			int read;
+			while ((read = in.read(buffer)) > 0)
+			{
+				digest.update(buffer, 0, read);
+			}
+		}
+		return digest.digest();
+	}
+
+	/**
+	 * @return a new digest computing content hashes, e.g. to hash a file while it is read
+	 */
+	public static MessageDigest createDigest()
+	{
+		try
+		{
+			return MessageDigest.getInstance(HASH_ALGORITHM);
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+}
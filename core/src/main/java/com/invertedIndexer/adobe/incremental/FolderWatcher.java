@@ -0,0 +1,111 @@
+package com.invertedIndexer.adobe.incremental;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Cotkaria
+ * Watches a folder in the background and reports its changes. Events are batched: the listener
+ * is called once the folder has been quiet for a short while, so copying a bunch of files (or a
+ * big file written in many steps) triggers a single update.
+ */
+public class FolderWatcher
+{
+	private static final long QUIET_PERIOD_MS = 500;
+
+	/**
+	 * Called on the watcher thread when files of the folder changed
+	 */
+	public interface Listener
+	{
+		void onFolderChanged(File folder);
+	}
+
+	private File mFolder;
+	private Listener mListener;
+	private WatchService mWatchService;
+	private Thread mThread;
+
+	public FolderWatcher(File folder, Listener listener)
+	{
+		mFolder = folder;
+		mListener = listener;
+	}
+
+	public synchronized void start() throws IOException
+	{
+		if (mThread != null)
+		{
+			return;
+		}
+		mWatchService = FileSystems.getDefault().newWatchService();
+		mFolder.toPath().register(mWatchService,
+				StandardWatchEventKinds.ENTRY_CREATE,
+				StandardWatchEventKinds.ENTRY_MODIFY,
+				StandardWatchEventKinds.ENTRY_DELETE);
+		mThread = new Thread(this::watch, "FolderWatcher-" + mFolder.getName());
+		mThread.setDaemon(true);
+		mThread.start();
+	}
+
+	public synchronized void stop()
+	{
+		if (mThread != null)
+		{
+			try
+			{
+				mWatchService.close();
+			}
+			catch (IOException e)
+			{
+				e.printStackTrace();
+			}
+			mThread.interrupt();
+			mThread = null;
+		}
+	}
+
+	public File getFolder()
+	{
+		return mFolder;
+	}
+
+	private void watch()
+	{
+		try
+		{
+			while (true)
+			{
+				WatchKey key = mWatchService.take();
+				//wait until the folder is quiet before reporting the changes
+				while (key != null)
+				{
+					key.pollEvents();
+					if (!key.reset())
+					{
+						return;	//the folder is no longer accessible
+					}
+					key = mWatchService.poll(QUIET_PERIOD_MS, TimeUnit.MILLISECONDS);
+				}
+				try
+				{
+					mListener.onFolderChanged(mFolder);
+				}
+				catch (RuntimeException e)
+				{
+					e.printStackTrace();
+				}
+			}
+		}
+		catch (InterruptedException | ClosedWatchServiceException e)
+		{
+			//the watcher was stopped
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package com.invertedIndexer.adobe.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Cotkaria
+ * Distribution of durations in nanoseconds, recorded by any number of threads without locks.
+ * Values are counted in log-linear buckets: every power of two is split into SUB_BUCKETS
+ * buckets, so a percentile is known within 1/SUB_BUCKETS of its value whatever the range
+ * (nanoseconds to minutes) and recording a value is a few arithmetic operations and one
+ * atomic increment.
+ */
+public final class LatencyHistogram
+{
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray mCounts;
+	private final LongAdder mSum;
+	private final LongAccumulator mMax;
+
+	public LatencyHistogram()
+	{
+		mCounts = new AtomicLongArray(BUCKETS);
+		mSum = new LongAdder();
+		mMax = new LongAccumulator(Math::max, 0);
+	}
+
+	/**
+	 * @param nanos: duration, negative values are counted as 0
+	 */
+	public void record(long nanos)
+	{
+		long value = Math.max(0, nanos);
+		mCounts.incrementAndGet(getBucket(value));
+		mSum.add(value);
+		mMax.accumulate(value);
+	}
+
+	/**
+	 * @param startNanos: System.nanoTime() at the start of the measured operation
+	 * Records the time elapsed since startNanos
+	 */
+	public void recordSince(long startNanos)
+	{
+		record(System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * @return the distribution of the values recorded so far. Values recorded while the snapshot
+	 * is taken may be partially counted (e.g. in the count but not in the sum).
+	 */
+	public LatencySnapshot snapshot()
+	{
+		long[] counts = new long[BUCKETS];
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++)
+		{
+			counts[i] = mCounts.get(i);
+			count += counts[i];
+		}
+		return new LatencySnapshot(count, mSum.sum(), mMax.get(),
+				getPercentile(counts, count, 0.5),
+				getPercentile(counts, count, 0.99),
+				getPercentile(counts, count, 0.999));
+	}
+
+	/**
+	 * @param value
+	 * @return the bucket of the value: values below SUB_BUCKETS have their own bucket, the others
+	 * share a bucket with the values having the same highest SUB_BUCKET_BITS + 1 bits
+	 */
+	static int getBucket(long value)
+	{
+		if (value < SUB_BUCKETS)
+		{
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * @param bucket
+	 * @return the highest value counted in the bucket
+	 */
+	static long getBucketLimit(int bucket)
+	{
+		if (bucket < SUB_BUCKETS)
+		{
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+	/**
+	 * @return the upper limit of the bucket holding the value of the given rank, 0 if empty
+	 */
+	private long getPercentile(long[] counts, long count, double quantile)
+	{
+		if (count == 0)
+		{
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(quantile * count));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++)
+		{
+			seen += counts[i];
+			if (seen >= rank)
+			{
+				return Math.min(getBucketLimit(i), mMax.get());
+			}
+		}
+		return mMax.get();
+	}
+}
@@ -0,0 +1,83 @@
+package com.invertedIndexer.adobe.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Cotkaria
+ * Distribution of the durations recorded by a LatencyHistogram at a point in time, in nanoseconds.
+ * Percentiles are rounded up to the limit of their bucket, so they are never under-estimated.
+ */
+public final class LatencySnapshot
+{
+	public static final LatencySnapshot EMPTY = new LatencySnapshot(0, 0, 0, 0, 0, 0);
+
+	private final long mCount;
+	private final long mSum;
+	private final long mMax;
+	private final long mP50;
+	private final long mP99;
+	private final long mP999;
+
+	LatencySnapshot(long count, long sum, long max, long p50, long p99, long p999)
+	{
+		mCount = count;
+		mSum = sum;
+		mMax = max;
+		mP50 = p50;
+		mP99 = p99;
+		mP999 = p999;
+	}
+
+	public long getCount()
+	{
+		return mCount;
+	}
+
+	/**
+	 * @return the sum of the recorded durations
+	 */
+	public long getSum()
+	{
+		return mSum;
+	}
+
+	public long getMean()
+	{
+		return (mCount > 0) ? mSum / mCount : 0;
+	}
+
+	public long getMax()
+	{
+		return mMax;
+	}
+
+	public long getP50()
+	{
+		return mP50;
+	}
+
+	public long getP99()
+	{
+		return mP99;
+	}
+
+	public long getP999()
+	{
+		return mP999;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "count=" + mCount
+				+ " p50=" + toMicros(mP50) + "us"
+				+ " p99=" + toMicros(mP99) + "us"
+				+ " p999=" + toMicros(mP999) + "us"
+				+ " max=" + toMicros(mMax) + "us";
+	}
+
+	static long toMicros(long nanos)
+	{
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+}
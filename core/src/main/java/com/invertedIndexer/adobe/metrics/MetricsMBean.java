@@ -0,0 +1,112 @@
+package com.invertedIndexer.adobe.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanException;
+import javax.management.ReflectionException;
+
+/**
+ * @author Cotkaria
+ * Read-only JMX view of a MetricsRegistry, e.g. for JConsole. Every counter and gauge is an
+ * attribute of the same name; every histogram gives the attributes <name>.count, .p50Micros,
+ * .p99Micros, .p999Micros and .maxMicros. Metrics created after the MBean was registered show
+ * up the next time the MBean info is read.
+ */
+class MetricsMBean implements DynamicMBean
+{
+	private static final String[] LATENCY_ATTRIBUTES = {"count", "p50Micros", "p99Micros", "p999Micros", "maxMicros"};
+
+	private final MetricsRegistry mRegistry;
+
+	MetricsMBean(MetricsRegistry registry)
+	{
+		mRegistry = registry;
+	}
+
+	@Override
+	public Object getAttribute(String attribute) throws AttributeNotFoundException
+	{
+		Long value = getAttributes(mRegistry.snapshot()).get(attribute);
+		if (value == null)
+		{
+			throw new AttributeNotFoundException(attribute);
+		}
+		return value;
+	}
+
+	@Override
+	public AttributeList getAttributes(String[] attributes)
+	{
+		Map<String, Long> values = getAttributes(mRegistry.snapshot());
+		AttributeList list = new AttributeList();
+		for (String attribute : attributes)
+		{
+			if (values.containsKey(attribute))
+			{
+				list.add(new Attribute(attribute, values.get(attribute)));
+			}
+		}
+		return list;
+	}
+
+	@Override
+	public MBeanInfo getMBeanInfo()
+	{
+		List<MBeanAttributeInfo> attributes = new ArrayList<MBeanAttributeInfo>();
+		for (String name : getAttributes(mRegistry.snapshot()).keySet())
+		{
+			attributes.add(new MBeanAttributeInfo(name, Long.class.getName(), name, true, false, false));
+		}
+		return new MBeanInfo(getClass().getName(), "Indexing and search metrics",
+				attributes.toArray(new MBeanAttributeInfo[attributes.size()]), null, new MBeanOperationInfo[0], null);
+	}
+
+	@Override
+	public void setAttribute(Attribute attribute) throws AttributeNotFoundException
+	{
+		throw new AttributeNotFoundException("The metrics are read-only: " + attribute.getName());
+	}
+
+	@Override
+	public AttributeList setAttributes(AttributeList attributes)
+	{
+		return new AttributeList();
+	}
+
+	@Override
+	public Object invoke(String actionName, Object[] params, String[] signature) throws MBeanException, ReflectionException
+	{
+		throw new ReflectionException(new NoSuchMethodException(actionName));
+	}
+
+	/**
+	 * @param snapshot
+	 * @return the values of all the attributes, by attribute name
+	 */
+	static Map<String, Long> getAttributes(MetricsSnapshot snapshot)
+	{
+		Map<String, Long> values = new TreeMap<String, Long>(snapshot.getCounters());
+		values.putAll(snapshot.getGauges());
+		snapshot.getLatencies().forEach((name, latency) ->
+		{
+			long[] latencyValues = {latency.getCount(), LatencySnapshot.toMicros(latency.getP50()),
+					LatencySnapshot.toMicros(latency.getP99()), LatencySnapshot.toMicros(latency.getP999()),
+					LatencySnapshot.toMicros(latency.getMax())};
+			for (int i = 0; i < LATENCY_ATTRIBUTES.length; i++)
+			{
+				values.put(name + "." + LATENCY_ATTRIBUTES[i], latencyValues[i]);
+			}
+		});
+		return values;
+	}
+}
@@ -0,0 +1,115 @@
+package com.invertedIndexer.adobe.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * @author Cotkaria
+ * Named counters, latency histograms and gauges of a component. Counters and histograms are
+ * created on first use and updated without locks, so they can be left on in production; gauges
+ * are only computed when a snapshot is taken.
+ * Callers recording on a hot path keep a reference to their counter or histogram instead of
+ * looking it up by name every time.
+ */
+public class MetricsRegistry
+{
+	public static final String JMX_DOMAIN = "com.invertedIndexer.adobe";
+
+	private final ConcurrentHashMap<String, LongAdder> mCounters;
+	private final ConcurrentHashMap<String, LatencyHistogram> mHistograms;
+	private final ConcurrentHashMap<String, LongSupplier> mGauges;
+
+	public MetricsRegistry()
+	{
+		mCounters = new ConcurrentHashMap<String, LongAdder>();
+		mHistograms = new ConcurrentHashMap<String, LatencyHistogram>();
+		mGauges = new ConcurrentHashMap<String, LongSupplier>();
+	}
+
+	/**
+	 * @param name
+	 * @return the counter of the given name, created if needed
+	 */
+	public LongAdder counter(String name)
+	{
+		LongAdder counter = mCounters.get(name);
+		return (counter != null) ? counter : mCounters.computeIfAbsent(name, key -> new LongAdder());
+	}
+
+	/**
+	 * @param name
+	 * @return the histogram of the given name, created if needed
+	 */
+	public LatencyHistogram histogram(String name)
+	{
+		LatencyHistogram histogram = mHistograms.get(name);
+		return (histogram != null) ? histogram : mHistograms.computeIfAbsent(name, key -> new LatencyHistogram());
+	}
+
+	/**
+	 * @param name
+	 * @param value: computes the current value of the gauge, called from the thread taking the snapshot
+	 */
+	public void gauge(String name, LongSupplier value)
+	{
+		mGauges.put(name, value);
+	}
+
+	/**
+	 * @return the current value of all the metrics, sorted by name
+	 */
+	public MetricsSnapshot snapshot()
+	{
+		Map<String, Long> counters = new TreeMap<String, Long>();
+		mCounters.forEach((name, counter) -> counters.put(name, counter.sum()));
+		Map<String, LatencySnapshot> histograms = new TreeMap<String, LatencySnapshot>();
+		mHistograms.forEach((name, histogram) -> histograms.put(name, histogram.snapshot()));
+		Map<String, Long> gauges = new TreeMap<String, Long>();
+		mGauges.forEach((name, gauge) -> gauges.put(name, gauge.getAsLong()));
+		return new MetricsSnapshot(System.currentTimeMillis(), counters, histograms, gauges);
+	}
+
+	/**
+	 * @param name: name of the MBean, e.g. "InverseIndexer-english"
+	 * @return the name under which the metrics are registered in the platform MBean server
+	 * @throws JMException
+	 */
+	public ObjectName registerMBean(String name) throws JMException
+	{
+		ObjectName objectName = getObjectName(name);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		if (server.isRegistered(objectName))
+		{
+			server.unregisterMBean(objectName);
+		}
+		server.registerMBean(new MetricsMBean(this), objectName);
+		return objectName;
+	}
+
+	/**
+	 * @param name: name given to registerMBean()
+	 * @throws JMException
+	 */
+	public void unregisterMBean(String name) throws JMException
+	{
+		ObjectName objectName = getObjectName(name);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		if (server.isRegistered(objectName))
+		{
+			server.unregisterMBean(objectName);
+		}
+	}
+
+	private static ObjectName getObjectName(String name) throws JMException
+	{
+		return new ObjectName(JMX_DOMAIN + ":type=Metrics,name=" + ObjectName.quote(name));
+	}
+}
@@ -0,0 +1,100 @@
+package com.invertedIndexer.adobe.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * @author Cotkaria
+ * Values of the metrics of a MetricsRegistry at a point in time. Counters only grow, so rates
+ * (e.g. tokens per second) are computed from two snapshots, see getRate().
+ */
+public final class MetricsSnapshot
+{
+	private final long mTimeMillis;
+	private final Map<String, Long> mCounters;
+	private final Map<String, LatencySnapshot> mHistograms;
+	private final Map<String, Long> mGauges;
+
+	MetricsSnapshot(long timeMillis, Map<String, Long> counters, Map<String, LatencySnapshot> histograms,
+			Map<String, Long> gauges)
+	{
+		mTimeMillis = timeMillis;
+		mCounters = Collections.unmodifiableMap(counters);
+		mHistograms = Collections.unmodifiableMap(histograms);
+		mGauges = Collections.unmodifiableMap(gauges);
+	}
+
+	/**
+	 * @return the time the snapshot was taken, as System.currentTimeMillis()
+	 */
+	public long getTimeMillis()
+	{
+		return mTimeMillis;
+	}
+
+	/**
+	 * @param name
+	 * @return the value of the counter, 0 if nothing was counted yet
+	 */
+	public long getCounter(String name)
+	{
+		Long value = mCounters.get(name);
+		return (value != null) ? value : 0;
+	}
+
+	/**
+	 * @param name
+	 * @return the recorded durations, empty if nothing was recorded yet
+	 */
+	public LatencySnapshot getLatency(String name)
+	{
+		LatencySnapshot latency = mHistograms.get(name);
+		return (latency != null) ? latency : LatencySnapshot.EMPTY;
+	}
+
+	/**
+	 * @param name
+	 * @return the value of the gauge, 0 if there is no such gauge
+	 */
+	public long getGauge(String name)
+	{
+		Long value = mGauges.get(name);
+		return (value != null) ? value : 0;
+	}
+
+	public Map<String, Long> getCounters()
+	{
+		return mCounters;
+	}
+
+	public Map<String, LatencySnapshot> getLatencies()
+	{
+		return mHistograms;
+	}
+
+	public Map<String, Long> getGauges()
+	{
+		return mGauges;
+	}
+
+	/**
+	 * @param earlier: snapshot of the same registry taken before this one
+	 * @param counter
+	 * @return the increase of the counter per second between the two snapshots
+	 */
+	public double getRate(MetricsSnapshot earlier, String counter)
+	{
+		long millis = mTimeMillis - earlier.mTimeMillis;
+		return (millis > 0) ? (getCounter(counter) - earlier.getCounter(counter)) * 1000.0 / millis : 0;
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder text = new StringBuilder();
+		mCounters.forEach((name, value) -> text.append(name).append(" = ").append(value).append('\n'));
+		mGauges.forEach((name, value) -> text.append(name).append(" = ").append(value).append('\n'));
+		mHistograms.forEach((name, latency) -> text.append(name).append(": ").append(latency).append('\n'));
+		return text.toString();
+	}
+}
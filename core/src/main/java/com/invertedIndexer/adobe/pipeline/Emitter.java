@@ -0,0 +1,11 @@
+package com.invertedIndexer.adobe.pipeline;
+
+/**
+ * @author Cotkaria
+ * Passes the items produced by a stage worker to the next stage. Emitting waits while the
+ * queue of the next stage is full, which slows the producers down to the pace of the consumers.
+ */
+public interface Emitter<O>
+{
+	void emit(O item) throws InterruptedException;
+}
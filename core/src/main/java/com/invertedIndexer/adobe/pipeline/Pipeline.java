@@ -0,0 +1,218 @@
+package com.invertedIndexer.adobe.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * @author Cotkaria
+ * Chain of stages connected by bounded queues. Every stage runs on its own threads, so a slow
+ * disk does not stall the CPUs and a slow item does not stall the other stages. A full queue
+ * blocks the stage feeding it (backpressure), so the memory used does not depend on the input size.
+ * Once cancelled, or after a failure, the stages drop the items left in their queues and stop.
+ */
+public class Pipeline
+{
+	private static final Object END = new Object();	//end of the items of a queue, one per worker
+
+	private List<Stage<?, ?>> mStages;
+	private AtomicReference<Throwable> mFailure;
+	private volatile boolean mIsCancelled;
+
+	public Pipeline()
+	{
+		mStages = new ArrayList<Stage<?, ?>>();
+		mFailure = new AtomicReference<Throwable>();
+	}
+
+	/**
+	 * @param name
+	 * @param parallelism: number of threads of the stage
+	 * @param capacity: number of items the queue of the stage can hold
+	 * @param workers: creates the worker of every thread of the stage
+	 * @return the stage, processing the results of the stage added before it
+	 */
+	public <I, O> Stage<I, O> addStage(String name, int parallelism, int capacity, Supplier<StageWorker<I, O>> workers)
+	{
+		Stage<I, O> stage = new Stage<I, O>(name, parallelism, capacity, workers);
+		mStages.add(stage);
+		return stage;
+	}
+
+	public List<Stage<?, ?>> getStages()
+	{
+		return Collections.unmodifiableList(mStages);
+	}
+
+	/**
+	 * @param inputs: items of the first stage
+	 * @throws Exception: the first failure of a worker
+	 * Runs the stages until all the inputs went through the whole pipeline or it was cancelled.
+	 * The inputs are queued from the calling thread, which waits while the first queue is full.
+	 */
+	public void run(Collection<?> inputs) throws Exception
+	{
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < mStages.size(); i++)
+		{
+			Stage<?, ?> stage = mStages.get(i);
+			Stage<?, ?> next = (i + 1 < mStages.size()) ? mStages.get(i + 1) : null;
+			AtomicInteger runningWorkers = new AtomicInteger(stage.getParallelism());
+			for (int worker = 0; worker < stage.getParallelism(); worker++)
+			{
+				Thread thread = new Thread(() -> work(stage, next, runningWorkers), "Pipeline-" + stage.getName() + "-" + worker);
+				thread.setDaemon(true);
+				threads.add(thread);
+				thread.start();
+			}
+		}
+		
+		Stage<?, ?> first = mStages.get(0);
+		try
+		{
+			for (Object input : inputs)
+			{
+				if (mIsCancelled)
+				{
+					break;
+				}
+				first.put(input);
+			}
+		}
+		catch (InterruptedException e)
+		{
+			cancel();
+			throw e;
+		}
+		finally
+		{
+			end(first);
+		}
+		
+		for (Thread thread : threads)
+		{
+			thread.join();
+		}
+		Throwable failure = mFailure.get();
+		if (failure instanceof Exception)
+		{
+			throw (Exception) failure;
+		}
+		else if (failure instanceof Error)
+		{
+			throw (Error) failure;
+		}
+	}
+
+	/**
+	 * Stops the pipeline: the items not processed yet are dropped
+	 */
+	public void cancel()
+	{
+		mIsCancelled = true;
+	}
+
+	public boolean isCancelled()
+	{
+		return mIsCancelled;
+	}
+
+	/**
+	 * Loop of a thread of the stage. The last worker of a stage to finish ends the next stage.
+	 */
+	@SuppressWarnings("unchecked")
+	private <I, O> void work(Stage<I, O> stage, Stage<?, ?> next, AtomicInteger runningWorkers)
+	{
+		try
+		{
+			StageWorker<I, O> worker = null;
+			try
+			{
+				worker = stage.createWorker();
+			}
+			catch (RuntimeException e)
+			{
+				fail(e);
+			}
+			Emitter<O> output = item ->
+			{
+				if (next != null && !mIsCancelled)
+				{
+					next.put(item);
+				}
+			};
+			
+			Object item;
+			while ((item = stage.take()) != END)
+			{
+				if (mIsCancelled || worker == null)
+				{
+					continue;	//drain the queue, so the stages feeding it do not block
+				}
+				try
+				{
+					worker.process((I) item, output);
+					stage.processed();
+				}
+				catch (Throwable e)
+				{
+					fail(e);
+				}
+			}
+		}
+		catch (InterruptedException e)
+		{
+			fail(e);
+		}
+		finally
+		{
+			if (runningWorkers.decrementAndGet() == 0 && next != null)
+			{
+				end(next);
+			}
+		}
+	}
+
+	private void end(Stage<?, ?> stage)
+	{
+		try
+		{
+			for (int i = 0; i < stage.getParallelism(); i++)
+			{
+				stage.put(END);
+			}
+		}
+		catch (InterruptedException e)
+		{
+			fail(e);
+		}
+	}
+
+	private void fail(Throwable failure)
+	{
+		mFailure.compareAndSet(null, failure);
+		cancel();
+	}
+
+	/**
+	 * @return the depth of the queue of every stage, e.g. "read 0/8, extract 8/8, analyze 1/16"
+	 */
+	@Override
+	public String toString()
+	{
+		StringBuilder status = new StringBuilder();
+		for (Stage<?, ?> stage : mStages)
+		{
+			if (status.length() > 0)
+			{
+				status.append(", ");
+			}
+			status.append(stage);
+		}
+		return status.toString();
+	}
+}
@@ -0,0 +1,87 @@
+package com.invertedIndexer.adobe.pipeline;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * @author Cotkaria
+ * Step of a Pipeline: a fixed number of threads take the items waiting in the bounded queue of
+ * the stage and emit their results to the queue of the next stage. The depth of the queues shows
+ * where the bottleneck is: items pile up in front of the slowest stage.
+ */
+public final class Stage<I, O>
+{
+	private final String mName;
+	private final int mParallelism;
+	private final BlockingQueue<Object> mQueue;
+	private final Supplier<StageWorker<I, O>> mWorkers;
+	private final AtomicLong mProcessedCount;
+
+	Stage(String name, int parallelism, int capacity, Supplier<StageWorker<I, O>> workers)
+	{
+		mName = name;
+		mParallelism = Math.max(1, parallelism);
+		mQueue = new ArrayBlockingQueue<Object>(Math.max(1, capacity));
+		mWorkers = workers;
+		mProcessedCount = new AtomicLong();
+	}
+
+	public String getName()
+	{
+		return mName;
+	}
+
+	public int getParallelism()
+	{
+		return mParallelism;
+	}
+
+	/**
+	 * @return the number of items waiting to be processed by the stage
+	 */
+	public int getQueueDepth()
+	{
+		return mQueue.size();
+	}
+
+	public int getQueueCapacity()
+	{
+		return mQueue.size() + mQueue.remainingCapacity();
+	}
+
+	/**
+	 * @return the number of items processed so far
+	 */
+	public long getProcessedCount()
+	{
+		return mProcessedCount.get();
+	}
+
+	StageWorker<I, O> createWorker()
+	{
+		return mWorkers.get();
+	}
+
+	void put(Object item) throws InterruptedException
+	{
+		mQueue.put(item);
+	}
+
+	Object take() throws InterruptedException
+	{
+		return mQueue.take();
+	}
+
+	void processed()
+	{
+		mProcessedCount.incrementAndGet();
+	}
+
+	@Override
+	public String toString()
+	{
+		return mName + " " + getQueueDepth() + "/" + getQueueCapacity();
+	}
+}
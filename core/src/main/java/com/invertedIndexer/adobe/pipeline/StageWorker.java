@@ -0,0 +1,16 @@
+package com.invertedIndexer.adobe.pipeline;
+
+/**
+ * @author Cotkaria
+ * Processes the items of a stage. Every thread of the stage has its own worker, so a worker
+ * can keep state that is not thread-safe (e.g. an analyzer or a partial index).
+ */
+public interface StageWorker<I, O>
+{
+	/**
+	 * @param item
+	 * @param output: receives any number of results for the next stage
+	 * @throws Exception: fails the whole pipeline
+	 */
+	void process(I item, Emitter<O> output) throws Exception;
+}
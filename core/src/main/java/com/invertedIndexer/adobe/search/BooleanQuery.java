@@ -0,0 +1,198 @@
+package com.invertedIndexer.adobe.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import com.invertedIndexer.adobe.types.Postings;
+import com.invertedIndexer.adobe.types.PostingsCursor;
+import com.invertedIndexer.adobe.types.PostingsList;
+
+/**
+ * @author Cotkaria
+ * Group of query nodes, each one required, optional or excluded:
+ * -a document matches if it matches all the required nodes and none of the excluded ones
+ * -without required nodes, it has to match at least one of the optional nodes
+ * -optional nodes next to required ones only add to the score
+ * -a group of excluded nodes only matches no document
+ * The required nodes are intersected from the rarest one (see ConjunctionCursor), so a group of
+ * common terms costs the size of its smallest postings, not the number of indexed files.
+ */
+public class BooleanQuery implements QueryNode
+{
+	public enum Occur
+	{
+		MUST("+"), SHOULD(""), MUST_NOT("-");
+
+		private String mPrefix;
+
+		Occur(String prefix)
+		{
+			mPrefix = prefix;
+		}
+	}
+
+	private List<Occur> mOccurs = new ArrayList<Occur>();
+	private List<QueryNode> mNodes = new ArrayList<QueryNode>();
+
+	/**
+	 * @param occur
+	 * @param node: clause or group. The nodes of an optional group of optional nodes are added to
+	 * this group, (a OR b) OR c being a OR b OR c.
+	 */
+	public void add(Occur occur, QueryNode node)
+	{
+		if (occur == Occur.SHOULD && node instanceof BooleanQuery && ((BooleanQuery) node).isDisjunction())
+		{
+			for (QueryNode child : ((BooleanQuery) node).mNodes)
+			{
+				add(Occur.SHOULD, child);
+			}
+		}
+		else
+		{
+			mOccurs.add(occur);
+			mNodes.add(node);
+		}
+	}
+
+	/**
+	 * @return true if the group is made of optional clauses only, any document matching one of
+	 * them matches the group
+	 */
+	public boolean isDisjunction()
+	{
+		for (int i = 0; i < mNodes.size(); i++)
+		{
+			if (mOccurs.get(i) != Occur.SHOULD || !(mNodes.get(i) instanceof QueryParser.Clause))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the node matching the same documents: null for an empty group, its node for a group
+	 * of a single node that is not excluded, this group otherwise
+	 */
+	public QueryNode simplify()
+	{
+		if (mNodes.isEmpty())
+		{
+			return null;
+		}
+		return (mNodes.size() == 1 && mOccurs.get(0) != Occur.MUST_NOT) ? mNodes.get(0) : this;
+	}
+
+	@Override
+	public String getKey()
+	{
+		StringBuilder key = new StringBuilder("(");
+		for (int i = 0; i < mNodes.size(); i++)
+		{
+			key.append((i > 0) ? " " : "").append(mOccurs.get(i).mPrefix).append(mNodes.get(i).getKey());
+		}
+		return key.append(')').toString();
+	}
+
+	@Override
+	public List<QueryParser.Clause> getClauses()
+	{
+		List<QueryParser.Clause> clauses = new ArrayList<QueryParser.Clause>();
+		for (int i = 0; i < mNodes.size(); i++)
+		{
+			if (mOccurs.get(i) != Occur.MUST_NOT)
+			{
+				clauses.addAll(mNodes.get(i).getClauses());
+			}
+		}
+		return clauses;
+	}
+
+	/**
+	 * @return the matching documents, with a frequency of 1
+	 */
+	@Override
+	public PostingsList evaluate(Function<String, Postings> postings)
+	{
+		boolean hasRequired = mOccurs.contains(Occur.MUST);
+		List<Postings> matching = new ArrayList<Postings>();
+		List<Postings> excluded = new ArrayList<Postings>();
+		for (int i = 0; i < mNodes.size(); i++)
+		{
+			Occur occur = mOccurs.get(i);
+			if (occur == Occur.SHOULD && hasRequired)
+			{
+				continue;	//scoring only, see getClauses
+			}
+			Postings nodePostings = mNodes.get(i).evaluate(postings);
+			boolean isEmpty = nodePostings == null || nodePostings.size() == 0;
+			if (occur == Occur.MUST && isEmpty)
+			{
+				return null;
+			}
+			if (!isEmpty)
+			{
+				((occur == Occur.MUST_NOT) ? excluded : matching).add(nodePostings);
+			}
+		}
+		if (matching.isEmpty())
+		{
+			return null;
+		}
+
+		Postings[] matchingPostings = matching.toArray(new Postings[matching.size()]);
+		PostingsCursor cursor = hasRequired ? new ConjunctionCursor(matchingPostings) : new DisjunctionCursor(matchingPostings);
+		PostingsCursor[] excludedCursors = new PostingsCursor[excluded.size()];
+		for (int i = 0; i < excludedCursors.length; i++)
+		{
+			excludedCursors[i] = excluded.get(i).cursor();
+		}
+		PostingsList matches = new PostingsList();
+		for (int docId = cursor.nextDoc(); docId != PostingsCursor.NO_MORE_DOCS; docId = cursor.nextDoc())
+		{
+			boolean isExcluded = false;
+			for (int i = 0; i < excludedCursors.length && !isExcluded; i++)
+			{
+				PostingsCursor excludedCursor = excludedCursors[i];
+				isExcluded = ((excludedCursor.docId() < docId) ? excludedCursor.advance(docId) : excludedCursor.docId()) == docId;
+			}
+			if (!isExcluded)
+			{
+				matches.add(docId, 1);
+			}
+		}
+		return (matches.size() > 0) ? matches : null;
+	}
+
+	/**
+	 * @param postings: postings of a clause, may be null
+	 * @param matches: documents matching a query, may be null
+	 * @return the postings of the clause in the matching documents, with their frequencies; null if
+	 * the clause has no postings, empty if it is in no matching document
+	 */
+	public static PostingsList filter(Postings postings, Postings matches)
+	{
+		if (postings == null)
+		{
+			return null;
+		}
+		PostingsList filtered = new PostingsList();
+		if (matches != null)
+		{
+			ConjunctionCursor cursor = new ConjunctionCursor(matches, postings);
+			for (int docId = cursor.nextDoc(); docId != PostingsCursor.NO_MORE_DOCS; docId = cursor.nextDoc())
+			{
+				filtered.add(docId, cursor.getCursor(1).frequency());
+			}
+		}
+		return filtered;
+	}
+
+	@Override
+	public String toString()
+	{
+		return getKey();
+	}
+}
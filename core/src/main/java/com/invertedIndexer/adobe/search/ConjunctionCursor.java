@@ -0,0 +1,94 @@
+package com.invertedIndexer.adobe.search;
+
+import java.util.Arrays;
+
+import com.invertedIndexer.adobe.types.Postings;
+import com.invertedIndexer.adobe.types.PostingsCursor;
+
+/**
+ * @author Cotkaria
+ * Documents found in all of several postings. The postings are walked from the rarest one, which
+ * proposes the candidates, and the other cursors are advanced to them (galloping in the heap
+ * postings, skipping blocks in the compressed ones). A cursor ahead of the candidate makes the
+ * rarest cursor leap to it, so the work done follows the rarest postings, not the longest ones.
+ */
+class ConjunctionCursor implements PostingsCursor
+{
+	private PostingsCursor[] mCursors;	//in the order of the postings given to the constructor
+	private PostingsCursor[] mSortedCursors;	//by ascending postings size
+	private int mDocId = -1;
+
+	/**
+	 * @param postings: at least one
+	 */
+	ConjunctionCursor(Postings... postings)
+	{
+		mCursors = new PostingsCursor[postings.length];
+		Integer[] order = new Integer[postings.length];
+		for (int i = 0; i < postings.length; i++)
+		{
+			mCursors[i] = postings[i].cursor();
+			order[i] = i;
+		}
+		Arrays.sort(order, (p1, p2) -> Integer.compare(postings[p1].size(), postings[p2].size()));
+		mSortedCursors = new PostingsCursor[postings.length];
+		for (int i = 0; i < postings.length; i++)
+		{
+			mSortedCursors[i] = mCursors[order[i]];
+		}
+	}
+
+	/**
+	 * @param index: index of the postings, in the order given to the constructor
+	 * @return the cursor of the postings, positioned on the current document
+	 */
+	PostingsCursor getCursor(int index)
+	{
+		return mCursors[index];
+	}
+
+	@Override
+	public int nextDoc()
+	{
+		return (mDocId == NO_MORE_DOCS) ? mDocId : advance(mDocId + 1);
+	}
+
+	@Override
+	public int advance(int target)
+	{
+		PostingsCursor lead = mSortedCursors[0];
+		int docId = (lead.docId() < target) ? lead.advance(target) : lead.docId();
+		int i = 1;
+		while (i < mSortedCursors.length && docId != NO_MORE_DOCS)
+		{
+			PostingsCursor cursor = mSortedCursors[i];
+			int other = (cursor.docId() < docId) ? cursor.advance(docId) : cursor.docId();
+			if (other == docId)
+			{
+				i++;
+			}
+			else
+			{
+				docId = (other == NO_MORE_DOCS) ? other : lead.advance(other);
+				i = 1;
+			}
+		}
+		mDocId = docId;
+		return mDocId;
+	}
+
+	@Override
+	public int docId()
+	{
+		return mDocId;
+	}
+
+	/**
+	 * @return 1, a document matches or not
+	 */
+	@Override
+	public int frequency()
+	{
+		return 1;
+	}
+}
@@ -0,0 +1,58 @@
+package com.invertedIndexer.adobe.search;
+
+import com.invertedIndexer.adobe.types.Postings;
+import com.invertedIndexer.adobe.types.PostingsCursor;
+
+/**
+ * @author Cotkaria
+ * Documents found in any of several postings, in ascending id order. The current document is the
+ * smallest one of the cursors; the groups of a query have few clauses, so they are simply scanned.
+ */
+class DisjunctionCursor implements PostingsCursor
+{
+	private PostingsCursor[] mCursors;
+	private int mDocId = -1;
+
+	DisjunctionCursor(Postings... postings)
+	{
+		mCursors = new PostingsCursor[postings.length];
+		for (int i = 0; i < postings.length; i++)
+		{
+			mCursors[i] = postings[i].cursor();
+		}
+	}
+
+	@Override
+	public int nextDoc()
+	{
+		return (mDocId == NO_MORE_DOCS) ? mDocId : advance(mDocId + 1);
+	}
+
+	@Override
+	public int advance(int target)
+	{
+		int docId = NO_MORE_DOCS;
+		for (PostingsCursor cursor : mCursors)
+		{
+			int cursorDocId = (cursor.docId() < target) ? cursor.advance(target) : cursor.docId();
+			docId = Math.min(docId, cursorDocId);
+		}
+		mDocId = docId;
+		return mDocId;
+	}
+
+	@Override
+	public int docId()
+	{
+		return mDocId;
+	}
+
+	/**
+	 * @return 1, a document matches or not
+	 */
+	@Override
+	public int frequency()
+	{
+		return 1;
+	}
+}
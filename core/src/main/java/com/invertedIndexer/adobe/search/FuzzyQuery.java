@@ -0,0 +1,62 @@
+package com.invertedIndexer.adobe.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.invertedIndexer.adobe.types.TermDictionary;
+
+/**
+ * @author Cotkaria
+ * Terms at most one or two edits (inserted, deleted or replaced characters) away from a term, to
+ * find the words of the documents despite typos: "invoise~1" matches "invoic", and "recieved~2"
+ * matches "receiv". The term is analyzed like the other words of the query, so the misspelled
+ * stem (invois, reciev) is compared to the indexed stems.
+ */
+public class FuzzyQuery extends MultiTermQuery
+{
+	public static final int MAX_EDITS = 2;
+
+	private String mTerm;
+	private int mMaxEdits;
+
+	/**
+	 * @param term: analyzed term
+	 * @param maxEdits: 1 or 2
+	 */
+	public FuzzyQuery(String term, int maxEdits)
+	{
+		mTerm = term;
+		mMaxEdits = maxEdits;
+	}
+
+	public int getMaxEdits()
+	{
+		return mMaxEdits;
+	}
+
+	/**
+	 * @return the term followed by ~ and the number of edits, never equal to a term
+	 */
+	@Override
+	public String getKey()
+	{
+		return mTerm + "~" + mMaxEdits;
+	}
+
+	/**
+	 * @return the terms close to the term
+	 * @throws IllegalArgumentException if more than maxTerms terms are close to the term, like a
+	 * pattern matching too many terms (see WildcardQuery), instead of keeping some of them only
+	 */
+	@Override
+	public List<String> expand(TermDictionary dictionary, int maxTerms)
+	{
+		Map<String, Integer> similar = dictionary.findSimilar(mTerm, mMaxEdits);
+		if (similar.size() > maxTerms)
+		{
+			throw new IllegalArgumentException("The fuzzy word " + getKey() + " matches more than " + maxTerms + " terms");
+		}
+		return new ArrayList<String>(similar.keySet());
+	}
+}
@@ -0,0 +1,108 @@
+package com.invertedIndexer.adobe.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+import com.invertedIndexer.adobe.types.Postings;
+import com.invertedIndexer.adobe.types.PostingsCursor;
+import com.invertedIndexer.adobe.types.PostingsList;
+import com.invertedIndexer.adobe.types.TermDictionary;
+
+/**
+ * @author Cotkaria
+ * Query expanded to several indexed terms (wildcards, typos), searched like a single term: the
+ * frequency of a document is the sum of the frequencies of the terms
+ */
+public abstract class MultiTermQuery
+{
+	/**
+	 * @return a key identifying the query among the terms and the other queries, e.g. in a cache
+	 */
+	public abstract String getKey();
+
+	/**
+	 * @param dictionary: terms of the index
+	 * @param maxTerms: maximum number of terms of the expansion
+	 * @return the terms matching the query, sorted
+	 * @throws IllegalArgumentException if the query cannot be expanded to maxTerms terms
+	 */
+	public abstract List<String> expand(TermDictionary dictionary, int maxTerms);
+
+	/**
+	 * @param dictionary: terms of the index
+	 * @param maxTerms: maximum number of terms of the expansion
+	 * @param postings: looks up the postings of a term
+	 * @return the documents containing any of the matching terms, merged in a single pass over
+	 * their postings; null if no document matches
+	 * @throws IllegalArgumentException if the query cannot be expanded to maxTerms terms
+	 */
+	public PostingsList evaluate(TermDictionary dictionary, int maxTerms, Function<String, Postings> postings)
+	{
+		return evaluate(expand(dictionary, maxTerms), postings);
+	}
+
+	/**
+	 * @param terms: terms of the query, see expand()
+	 * @param postings: looks up the postings of a term
+	 * @return the documents containing any of the terms, merged in a single pass over their
+	 * postings; null if no document matches
+	 */
+	public static PostingsList evaluate(List<String> terms, Function<String, Postings> postings)
+	{
+		List<Postings> termPostings = new ArrayList<Postings>();
+		for (String term : terms)
+		{
+			Postings found = postings.apply(term);
+			if (found != null)
+			{
+				termPostings.add(found);
+			}
+		}
+		return union(termPostings);
+	}
+
+	/**
+	 * @param postings
+	 * @return the documents of all the postings with the sum of their frequencies, null if there are
+	 * none. The cursors are kept in a heap by document, each posting is read once.
+	 */
+	private static PostingsList union(List<Postings> postings)
+	{
+		PriorityQueue<PostingsCursor> cursors = new PriorityQueue<PostingsCursor>(Math.max(1, postings.size()),
+				Comparator.comparingInt(PostingsCursor::docId));
+		for (Postings termPostings : postings)
+		{
+			PostingsCursor cursor = termPostings.cursor();
+			if (cursor.nextDoc() != PostingsCursor.NO_MORE_DOCS)
+			{
+				cursors.add(cursor);
+			}
+		}
+		PostingsList merged = new PostingsList();
+		while (!cursors.isEmpty())
+		{
+			int docId = cursors.peek().docId();
+			int frequency = 0;
+			while (!cursors.isEmpty() && cursors.peek().docId() == docId)
+			{
+				PostingsCursor cursor = cursors.poll();
+				frequency += cursor.frequency();
+				if (cursor.nextDoc() != PostingsCursor.NO_MORE_DOCS)
+				{
+					cursors.add(cursor);
+				}
+			}
+			merged.add(docId, frequency);
+		}
+		return (merged.size() > 0) ? merged : null;
+	}
+
+	@Override
+	public String toString()
+	{
+		return getKey();
+	}
+}
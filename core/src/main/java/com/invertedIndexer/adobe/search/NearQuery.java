@@ -0,0 +1,58 @@
+package com.invertedIndexer.adobe.search;
+
+/**
+ * @author Cotkaria
+ * Two terms at most a given number of positions apart, in any order: "purchase NEAR/3 order"
+ * matches "purchase order", "order for purchase" and "purchase of a new order". A match is an
+ * occurrence of the first term with an occurrence of the second one close enough.
+ */
+public class NearQuery extends PositionalQuery
+{
+	private int mDistance;
+
+	/**
+	 * @param term1
+	 * @param term2
+	 * @param distance: maximum difference between the positions of the terms, 1 for adjacent terms
+	 */
+	public NearQuery(String term1, String term2, int distance)
+	{
+		super(term1, term2);
+		mDistance = distance;
+	}
+
+	public int getDistance()
+	{
+		return mDistance;
+	}
+
+	@Override
+	public String getKey()
+	{
+		return getTerms()[0] + " NEAR/" + mDistance + " " + getTerms()[1];
+	}
+
+	@Override
+	protected int countMatches(int[][] positions, int[] frequencies)
+	{
+		int[] positions1 = positions[0];
+		int[] positions2 = positions[1];
+		int matches = 0;
+		int j = 0;
+		for (int i = 0; i < frequencies[0]; i++)
+		{
+			int position = positions1[i];
+			while (j < frequencies[1] && positions2[j] < position - mDistance)
+			{
+				j++;
+			}
+			//the occurrence at the same position, if the terms are the same, does not count
+			int k = (j < frequencies[1] && positions2[j] == position) ? j + 1 : j;
+			if (k < frequencies[1] && positions2[k] <= position + mDistance)
+			{
+				matches++;
+			}
+		}
+		return matches;
+	}
+}
@@ -0,0 +1,70 @@
+package com.invertedIndexer.adobe.search;
+
+/**
+ * @author Cotkaria
+ * Terms at given offsets from each other, e.g. "purchase order". The offsets keep the gaps left
+ * by the words dropped by the analysis (stop words...), so "bank of england" does not match
+ * "bank england".
+ */
+public class PhraseQuery extends PositionalQuery
+{
+	private int[] mOffsets;
+
+	/**
+	 * @param terms: analyzed terms of the phrase
+	 * @param offsets: position of each term in the phrase, ascending
+	 */
+	public PhraseQuery(String[] terms, int[] offsets)
+	{
+		super(terms);
+		mOffsets = offsets;
+	}
+
+	@Override
+	public String getKey()
+	{
+		StringBuilder key = new StringBuilder("\"");
+		for (int i = 0; i < mOffsets.length; i++)
+		{
+			key.append((i > 0) ? " " : "").append(getTerms()[i]).append('@').append(mOffsets[i]);
+		}
+		return key.append('"').toString();
+	}
+
+	/**
+	 * Walks the positions of the term occurring the least in the document, and looks the other
+	 * terms up at their offset from it. The lookups move forward only, so a document is checked
+	 * in a single pass over the positions.
+	 */
+	@Override
+	protected int countMatches(int[][] positions, int[] frequencies)
+	{
+		int driver = 0;
+		for (int i = 1; i < frequencies.length; i++)
+		{
+			driver = (frequencies[i] < frequencies[driver]) ? i : driver;
+		}
+		int[] indexes = new int[frequencies.length];
+		int matches = 0;
+		for (int d = 0; d < frequencies[driver]; d++)
+		{
+			int start = positions[driver][d] - mOffsets[driver];
+			boolean isMatch = true;
+			for (int i = 0; i < frequencies.length && isMatch; i++)
+			{
+				int target = start + mOffsets[i];
+				while (indexes[i] < frequencies[i] && positions[i][indexes[i]] < target)
+				{
+					indexes[i]++;
+				}
+				if (indexes[i] == frequencies[i])
+				{
+					return matches;	//no more occurrences of the term after this one
+				}
+				isMatch = positions[i][indexes[i]] == target;
+			}
+			matches += isMatch ? 1 : 0;
+		}
+		return matches;
+	}
+}
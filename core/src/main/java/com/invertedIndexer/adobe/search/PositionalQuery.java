@@ -0,0 +1,92 @@
+package com.invertedIndexer.adobe.search;
+
+import java.util.function.Function;
+
+import com.invertedIndexer.adobe.types.Postings;
+import com.invertedIndexer.adobe.types.PostingsCursor;
+import com.invertedIndexer.adobe.types.PostingsList;
+
+/**
+ * @author Cotkaria
+ * Query on the positions of several terms in a document (phrase, proximity). The postings of the
+ * terms are intersected first (see ConjunctionCursor), the positions are only decoded for the
+ * documents containing all the terms.
+ */
+public abstract class PositionalQuery
+{
+	private String[] mTerms;
+
+	/**
+	 * @param terms: analyzed (stemmed) terms, a term may be repeated
+	 */
+	protected PositionalQuery(String... terms)
+	{
+		mTerms = terms;
+	}
+
+	public String[] getTerms()
+	{
+		return mTerms;
+	}
+
+	/**
+	 * @return a key identifying the query among the terms and the other queries, e.g. in a cache
+	 */
+	public abstract String getKey();
+
+	/**
+	 * @param positions: positions of each term in the document, in terms order
+	 * @param frequencies: number of positions of each term
+	 * @return the number of matches of the query in the document
+	 */
+	protected abstract int countMatches(int[][] positions, int[] frequencies);
+
+	/**
+	 * @param postings: looks up the postings of a term
+	 * @return the documents matching the query, with their number of matches as frequency; null
+	 * if no document matches
+	 * @throws IllegalArgumentException if the positions of a term are not indexed
+	 */
+	public PostingsList evaluate(Function<String, Postings> postings)
+	{
+		int count = mTerms.length;
+		Postings[] termPostings = new Postings[count];
+		for (int i = 0; i < count; i++)
+		{
+			termPostings[i] = postings.apply(mTerms[i]);
+			if (termPostings[i] == null)
+			{
+				return null;
+			}
+			if (!termPostings[i].hasPositions())
+			{
+				throw new IllegalArgumentException("Phrase and proximity queries need an index with positions");
+			}
+		}
+
+		PostingsList matches = new PostingsList();
+		ConjunctionCursor cursor = new ConjunctionCursor(termPostings);
+		int[][] positions = new int[count][];
+		int[] frequencies = new int[count];
+		for (int docId = cursor.nextDoc(); docId != PostingsCursor.NO_MORE_DOCS; docId = cursor.nextDoc())
+		{
+			for (int i = 0; i < count; i++)
+			{
+				positions[i] = cursor.getCursor(i).positions();
+				frequencies[i] = cursor.getCursor(i).frequency();
+			}
+			int matchCount = countMatches(positions, frequencies);
+			if (matchCount > 0)
+			{
+				matches.add(docId, matchCount);
+			}
+		}
+		return (matches.size() > 0) ? matches : null;
+	}
+
+	@Override
+	public String toString()
+	{
+		return getKey();
+	}
+}
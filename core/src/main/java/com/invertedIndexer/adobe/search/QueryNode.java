@@ -0,0 +1,30 @@
+package com.invertedIndexer.adobe.search;
+
+import java.util.List;
+import java.util.function.Function;
+
+import com.invertedIndexer.adobe.types.Postings;
+
+/**
+ * @author Cotkaria
+ * Node of a parsed query: a clause (term or positional query) or a Boolean group of nodes
+ */
+public interface QueryNode
+{
+	/**
+	 * @return a key identifying the node, e.g. in a cache
+	 */
+	String getKey();
+
+	/**
+	 * @return the clauses scoring the documents matched by the node, in the order of the query:
+	 * the clauses of the node and of its groups, except the excluded ones
+	 */
+	List<QueryParser.Clause> getClauses();
+
+	/**
+	 * @param postings: looks up the postings of a clause by its key (term or positional query)
+	 * @return the documents matching the node, null if none matches
+	 */
+	Postings evaluate(Function<String, Postings> postings);
+}
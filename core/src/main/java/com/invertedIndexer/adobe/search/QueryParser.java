@@ -0,0 +1,444 @@
+package com.invertedIndexer.adobe.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.invertedIndexer.adobe.analysis.Analyzer;
+import com.invertedIndexer.adobe.types.Postings;
+import com.invertedIndexer.adobe.types.TermDictionary;
+
+/**
+ * @author Cotkaria
+ * Parses a query into a Boolean query of clauses, each clause being scored on its own:
+ * -words, separated by white spaces
+ * -phrases in double quotes: "purchase order" matches the words in this order, next to each other
+ * -two words joined by NEAR/k: purchase NEAR/3 order matches the words at most k positions apart,
+ * in any order. A word can be in two NEAR clauses, e.g. a NEAR/2 b NEAR/2 c.
+ * -words with wildcards: invoic* or *order match the indexed terms, '*' standing for any
+ * characters and '?' for a single one (see WildcardQuery). A '?' ending a word is punctuation,
+ * not a wildcard, so "What is earth?" searches earth. The start of a word ending with its only
+ * wildcard, a '*', is analyzed like a word: invoices* matches the terms starting with invoic.
+ * -words followed by ~ or ~k: invoise~1 matches the indexed terms at most k edits away, 2 by
+ * default and at most (see FuzzyQuery)
+ * The clauses are combined with the operators (see BooleanQuery):
+ * -juxtaposition or OR: any of the clauses, e.g. purchase order
+ * -AND, binding tighter than OR: all the clauses, e.g. purchase AND order OR invoice
+ * -a +prefix makes a clause required, a -prefix or NOT excludes it: +order -invoice
+ * -parentheses group clauses: (purchase OR sale) AND NOT (invoice OR receipt)
+ * The words are analyzed with the analysis chain of the index, so the clauses are made of the
+ * analyzed terms, while their text keeps the words as written (see Clause).
+ */
+public class QueryParser
+{
+	private static final Set<String> OPERATORS = new HashSet<String>(Arrays.asList("(", ")", "AND", "OR", "NOT"));
+	private static final Pattern TRAILING_QUESTION_MARKS = Pattern.compile("\\?+$");
+	private static final Pattern FUZZY = Pattern.compile("(.*[^~])~(\\d?)");
+	private static final Pattern PARTS = Pattern.compile("\"([^\"]*)\"?|NEAR/(\\d+)(?![^\\s\"()])|[()]|[^\\s\"()]+");
+
+	private Analyzer mAnalyzer;
+	private List<Part> mParts;
+	private int mIndex;
+
+	/**
+	 * @param analyzer: analysis chain of the index, used by this parser only
+	 */
+	public QueryParser(Analyzer analyzer)
+	{
+		mAnalyzer = analyzer;
+	}
+
+	/**
+	 * @param text
+	 * @return the query, its clauses in the order of the text. Words dropped by the analysis (stop
+	 * words...) give no clause, a phrase of a single term is a word clause. A query without
+	 * operators is a disjunction of its clauses.
+	 */
+	public BooleanQuery parse(String text)
+	{
+		mParts = new ArrayList<Part>();
+		Matcher matcher = PARTS.matcher(text);
+		while (matcher.find())
+		{
+			Part part = new Part();
+			if (matcher.group(1) != null)
+			{
+				part.mPhrase = matcher.group(1).trim().replaceAll("\\s+", " ").toLowerCase();
+				part.mWords = analyze(matcher.group(1));
+			}
+			else if (matcher.group(2) != null)
+			{
+				part.mDistance = Integer.parseInt(matcher.group(2));
+			}
+			else if (OPERATORS.contains(matcher.group()))
+			{
+				part.mOperator = matcher.group();
+			}
+			else
+			{
+				String word = matcher.group();
+				int start = 0;
+				while (start < word.length() && (word.charAt(start) == '+' || word.charAt(start) == '-'))
+				{
+					Part prefix = new Part();
+					prefix.mOperator = word.substring(start, start + 1);
+					mParts.add(prefix);
+					start++;
+				}
+				if (start == word.length())
+				{
+					continue;
+				}
+				word = TRAILING_QUESTION_MARKS.matcher(word.substring(start)).replaceFirst("");
+				Matcher fuzzy = FUZZY.matcher(word);
+				if (TermDictionary.isPattern(word) && word.chars().anyMatch(Character::isLetterOrDigit))
+				{
+					part.mPatternText = word.toLowerCase();
+					part.mPattern = analyzePattern(part.mPatternText);
+					part.mWords = Collections.emptyList();
+				}
+				else if (fuzzy.matches())
+				{
+					part.mMaxEdits = fuzzy.group(2).isEmpty() ? FuzzyQuery.MAX_EDITS : Math.min(Integer.parseInt(fuzzy.group(2)), FuzzyQuery.MAX_EDITS);
+					part.mWords = analyze(fuzzy.group(1));
+				}
+				else
+				{
+					part.mWords = analyze(word);
+				}
+			}
+			mParts.add(part);
+		}
+
+		mIndex = 0;
+		BooleanQuery query = new BooleanQuery();
+		while (mIndex < mParts.size())
+		{
+			parseDisjunction(query);
+			mIndex++;	//unbalanced closing parenthesis
+		}
+		mParts = null;
+		return query;
+	}
+
+	/**
+	 * Adds the nodes up to the end of the query or of the group to a query
+	 */
+	private void parseDisjunction(BooleanQuery query)
+	{
+		while (mIndex < mParts.size() && !mParts.get(mIndex).isOperator(")"))
+		{
+			if (mParts.get(mIndex).isOperator("OR"))
+			{
+				mIndex++;
+				continue;
+			}
+			Operand operand = parseConjunction();
+			if (operand.mNode != null)
+			{
+				query.add(operand.mOccur, operand.mNode);
+			}
+		}
+	}
+
+	private Operand parseConjunction()
+	{
+		Operand operand = parseUnary();
+		if (mIndex >= mParts.size() || !mParts.get(mIndex).isOperator("AND"))
+		{
+			return operand;
+		}
+		BooleanQuery group = new BooleanQuery();
+		addRequired(group, operand);
+		while (mIndex < mParts.size() && mParts.get(mIndex).isOperator("AND"))
+		{
+			mIndex++;
+			addRequired(group, parseUnary());
+		}
+		operand = new Operand();
+		operand.mOccur = BooleanQuery.Occur.SHOULD;
+		operand.mNode = group.simplify();
+		return operand;
+	}
+
+	private static void addRequired(BooleanQuery group, Operand operand)
+	{
+		if (operand.mNode != null)
+		{
+			group.add((operand.mOccur == BooleanQuery.Occur.MUST_NOT) ? operand.mOccur : BooleanQuery.Occur.MUST, operand.mNode);
+		}
+	}
+
+	private Operand parseUnary()
+	{
+		Part part = (mIndex < mParts.size()) ? mParts.get(mIndex) : null;
+		if (part != null && (part.isOperator("+") || part.isOperator("-") || part.isOperator("NOT")))
+		{
+			mIndex++;
+			Operand operand = parseUnary();
+			operand.mOccur = part.isOperator("+") ? BooleanQuery.Occur.MUST : BooleanQuery.Occur.MUST_NOT;
+			return operand;
+		}
+		Operand operand = new Operand();
+		operand.mOccur = BooleanQuery.Occur.SHOULD;
+		operand.mNode = parsePrimary();
+		return operand;
+	}
+
+	/**
+	 * @return a group, a phrase or words joined by NEAR operators; null if there is none or if
+	 * the analysis drops all the words
+	 */
+	private QueryNode parsePrimary()
+	{
+		if (mIndex >= mParts.size())
+		{
+			return null;
+		}
+		Part part = mParts.get(mIndex++);
+		if (part.isOperator("("))
+		{
+			BooleanQuery group = new BooleanQuery();
+			parseDisjunction(group);
+			mIndex++;	//closing parenthesis, if any
+			return group.simplify();
+		}
+		if (part.mPhrase != null)
+		{
+			BooleanQuery group = new BooleanQuery();
+			if (part.mWords.size() > 1)
+			{
+				String[] terms = new String[part.mWords.size()];
+				int[] offsets = new int[terms.length];
+				for (int i = 0; i < terms.length; i++)
+				{
+					terms[i] = part.mWords.get(i).mTerm;
+					offsets[i] = part.mWords.get(i).mPosition - part.mWords.get(0).mPosition;
+				}
+				group.add(BooleanQuery.Occur.SHOULD, new Clause("\"" + part.mPhrase + "\"", new PhraseQuery(terms, offsets)));
+			}
+			addWords(group, part);
+			return group.simplify();
+		}
+		if (part.mPattern != null)
+		{
+			return new Clause(part.mPatternText, new WildcardQuery(part.mPattern));
+		}
+		if (part.mMaxEdits > 0)
+		{
+			BooleanQuery group = new BooleanQuery();
+			for (Word word : part.mWords)
+			{
+				group.add(BooleanQuery.Occur.SHOULD, new Clause(word.mSurface + "~" + part.mMaxEdits, new FuzzyQuery(word.mTerm, part.mMaxEdits)));
+			}
+			return group.simplify();
+		}
+		if (part.mWords == null)
+		{
+			return null;	//operator out of place
+		}
+
+		//words joined by NEAR operators: the last word before and the first word after
+		List<Part> parts = new ArrayList<Part>();
+		parts.add(part);
+		while (mIndex + 1 < mParts.size() && mParts.get(mIndex).mDistance >= 0 && mParts.get(mIndex + 1).isWords())
+		{
+			Part near = mParts.get(mIndex);
+			Part right = mParts.get(mIndex + 1);
+			List<Word> leftWords = parts.get(parts.size() - 1).mWords;
+			if (!leftWords.isEmpty() && !right.mWords.isEmpty())
+			{
+				near.mLeft = leftWords.get(leftWords.size() - 1);
+				near.mRight = right.mWords.get(0);
+				near.mLeft.mIsOperand = true;
+				near.mRight.mIsOperand = true;
+			}
+			parts.add(near);
+			parts.add(right);
+			mIndex += 2;
+		}
+		BooleanQuery group = new BooleanQuery();
+		for (Part nearPart : parts)
+		{
+			if (nearPart.mLeft != null)
+			{
+				NearQuery query = new NearQuery(nearPart.mLeft.mTerm, nearPart.mRight.mTerm, nearPart.mDistance);
+				group.add(BooleanQuery.Occur.SHOULD, new Clause(nearPart.mLeft.mSurface + " NEAR/" + nearPart.mDistance + " " + nearPart.mRight.mSurface, query));
+			}
+			addWords(group, nearPart);
+		}
+		return group.simplify();
+	}
+
+	/**
+	 * Adds the words of a part, except the operands of NEAR operators, as optional clauses. A phrase
+	 * of a single term is a word.
+	 */
+	private static void addWords(BooleanQuery group, Part part)
+	{
+		if (part.mWords != null && (part.mPhrase == null || part.mWords.size() == 1))
+		{
+			for (Word word : part.mWords)
+			{
+				if (!word.mIsOperand)
+				{
+					group.add(BooleanQuery.Occur.SHOULD, new Clause(word.mSurface, word.mTerm));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param pattern: lower case word with wildcards
+	 * @return the pattern matched against the indexed terms: the start of a word ending with a
+	 * '*' is analyzed, as it is usually a whole word (invoices*), so it is compared to terms analyzed
+	 * the same way. The other patterns are kept as written.
+	 */
+	private String analyzePattern(String pattern)
+	{
+		int last = pattern.length() - 1;
+		if (last == 0 || pattern.indexOf('*') != last || pattern.indexOf('?') >= 0)
+		{
+			return pattern;
+		}
+		List<Word> words = analyze(pattern.substring(0, last));
+		return (words.size() == 1) ? words.get(0).mTerm + "*" : pattern;
+	}
+
+	private List<Word> analyze(String text)
+	{
+		List<Word> words = new ArrayList<Word>();
+		mAnalyzer.analyze(text, token -> words.add(new Word(token.toString(), token.surfaceToString(), token.getPosition())));
+		return words;
+	}
+
+	/**
+	 * Clause of a query: a term or a positional query
+	 */
+	public static class Clause implements QueryNode
+	{
+		private String mText;
+		private String mKey;
+		private PositionalQuery mQuery;
+		private MultiTermQuery mMultiTermQuery;
+
+		Clause(String text, String term)
+		{
+			mText = text;
+			mKey = term;
+		}
+
+		Clause(String text, PositionalQuery query)
+		{
+			mText = text;
+			mKey = query.getKey();
+			mQuery = query;
+		}
+
+		Clause(String text, MultiTermQuery query)
+		{
+			mText = text;
+			mKey = query.getKey();
+			mMultiTermQuery = query;
+		}
+
+		/**
+		 * @return the clause as written in the query (normalized words, not stemmed)
+		 */
+		public String getText()
+		{
+			return mText;
+		}
+
+		/**
+		 * @return the analyzed term, or the key of the positional or multi-term query. The keys of
+		 * these queries contain spaces, wildcards or ~, so they are never equal to a term.
+		 */
+		@Override
+		public String getKey()
+		{
+			return mKey;
+		}
+
+		/**
+		 * @return the positional query, null if the clause is a term or a multi-term query
+		 */
+		public PositionalQuery getQuery()
+		{
+			return mQuery;
+		}
+
+		/**
+		 * @return the wildcard or fuzzy query, null if the clause is a term or a positional query
+		 */
+		public MultiTermQuery getMultiTermQuery()
+		{
+			return mMultiTermQuery;
+		}
+
+		@Override
+		public List<Clause> getClauses()
+		{
+			return Collections.singletonList(this);
+		}
+
+		@Override
+		public Postings evaluate(Function<String, Postings> postings)
+		{
+			return postings.apply(mKey);
+		}
+	}
+
+	private static class Part
+	{
+		private String mOperator;	//AND, OR, NOT, +, -, or a parenthesis
+		private List<Word> mWords;	//null for an operator
+		private String mPhrase;	//normalized text of a phrase, null if the part is not a phrase
+		private String mPatternText;	//lower case word with wildcards, null if the part is not a pattern
+		private String mPattern;	//the pattern matched against the terms, see analyzePattern()
+		private int mMaxEdits = -1;	//edits of a fuzzy word, -1 if the part is not fuzzy
+		private int mDistance = -1;	//distance of a NEAR operator
+		private Word mLeft;	//operands of a NEAR operator, null if it has none
+		private Word mRight;
+
+		boolean isOperator(String operator)
+		{
+			return operator.equals(mOperator);
+		}
+
+		boolean isWords()
+		{
+			return mWords != null && mPhrase == null && mMaxEdits < 0 && !mWords.isEmpty();
+		}
+	}
+
+	/**
+	 * Node of the query with its occurrence in the enclosing group
+	 */
+	private static class Operand
+	{
+		private BooleanQuery.Occur mOccur;
+		private QueryNode mNode;	//null if the analysis drops all the words
+	}
+
+	private static class Word
+	{
+		private String mTerm;
+		private String mSurface;
+		private int mPosition;
+		private boolean mIsOperand;	//the word is an operand of a NEAR operator
+
+		Word(String term, String surface, int position)
+		{
+			mTerm = term;
+			mSurface = surface;
+			mPosition = position;
+		}
+	}
+}
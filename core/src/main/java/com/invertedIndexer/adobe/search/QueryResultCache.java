@@ -0,0 +1,201 @@
+package com.invertedIndexer.adobe.search;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Cotkaria
+ * Bounded cache of the best hits of the recent queries. Queries are identified by their analyzed
+ * terms, so different surface forms of the same words (e.g. "Blackmail" and "blackmailing") share
+ * an entry, and by the generation of the searched snapshot: once a newer snapshot is searched,
+ * the entries of the older ones are dropped, so a result is never served from a previous index.
+ * The cache is bounded by the total number of cached hits, the least recently used queries are
+ * evicted first. Lookups are cheap compared to a search, a single lock is enough.
+ */
+public class QueryResultCache
+{
+	private final long mMaxHits;
+	private final LinkedHashMap<List<String>, Result> mEntries;
+	private long mCachedHits;
+	private long mGeneration;
+	private LongAdder mHits;
+	private LongAdder mMisses;
+	private LongAdder mEvictions;
+	private LongAdder mInvalidations;
+
+	/**
+	 * @param maxHits: maximum number of hits kept for all the queries, 0 disables the cache
+	 */
+	public QueryResultCache(long maxHits)
+	{
+		mMaxHits = Math.max(0, maxHits);
+		mEntries = new LinkedHashMap<List<String>, Result>(16, 0.75f, true);
+		mHits = new LongAdder();
+		mMisses = new LongAdder();
+		mEvictions = new LongAdder();
+		mInvalidations = new LongAdder();
+	}
+
+	/**
+	 * @param generation: generation of the searched snapshot
+	 * @param terms: analyzed terms of the query, sorted
+	 * @param k: number of results wanted
+	 * @return the cached result, null if the query is not cached with at least k results
+	 */
+	public synchronized Result get(long generation, List<String> terms, int k)
+	{
+		advance(generation);
+		Result result = (generation == mGeneration) ? mEntries.get(terms) : null;
+		if (result == null || !result.isComplete(k))
+		{
+			mMisses.increment();
+			return null;
+		}
+		mHits.increment();
+		return result;
+	}
+
+	/**
+	 * @param generation: generation of the searched snapshot
+	 * @param terms: analyzed terms of the query, sorted
+	 * @param k: number of results searched for
+	 * @param hits: the best hits, at most k
+	 * @param isIndexed: for every term, whether the snapshot has postings for it
+	 * @return the result, cached unless it comes from an older snapshot or is larger than the cache
+	 */
+	public synchronized Result put(long generation, List<String> terms, int k, List<SearchHit> hits, boolean[] isIndexed)
+	{
+		Result result = new Result(k, hits, isIndexed);
+		advance(generation);
+		if (generation != mGeneration || result.getWeight() > mMaxHits)
+		{
+			return result;
+		}
+		Result previous = mEntries.put(terms, result);
+		mCachedHits += result.getWeight() - ((previous != null) ? previous.getWeight() : 0);
+		Iterator<Result> eldest = mEntries.values().iterator();
+		while (mCachedHits > mMaxHits)
+		{
+			mCachedHits -= eldest.next().getWeight();
+			eldest.remove();
+			mEvictions.increment();
+		}
+		return result;
+	}
+
+	/**
+	 * Drops the entries of the older snapshots once a newer one is searched
+	 */
+	private void advance(long generation)
+	{
+		if (generation > mGeneration)
+		{
+			mInvalidations.add(mEntries.size());
+			mEntries.clear();
+			mCachedHits = 0;
+			mGeneration = generation;
+		}
+	}
+
+	public long getHitCount()
+	{
+		return mHits.sum();
+	}
+
+	public long getMissCount()
+	{
+		return mMisses.sum();
+	}
+
+	/**
+	 * @return the number of entries evicted to make room for newer ones
+	 */
+	public long getEvictionCount()
+	{
+		return mEvictions.sum();
+	}
+
+	/**
+	 * @return the number of entries dropped because a newer snapshot was published
+	 */
+	public long getInvalidationCount()
+	{
+		return mInvalidations.sum();
+	}
+
+	/**
+	 * @return the ratio of lookups answered from the cache, 0 if there was no lookup
+	 */
+	public double getHitRate()
+	{
+		long hits = mHits.sum();
+		long total = hits + mMisses.sum();
+		return (total == 0) ? 0 : (double) hits / total;
+	}
+
+	public synchronized int size()
+	{
+		return mEntries.size();
+	}
+
+	public synchronized void clear()
+	{
+		mEntries.clear();
+		mCachedHits = 0;
+		mHits.reset();
+		mMisses.reset();
+		mEvictions.reset();
+		mInvalidations.reset();
+	}
+
+	/**
+	 * Best hits of a query, the frequencies of a hit are given in the order of the sorted terms
+	 */
+	public static final class Result
+	{
+		private final int mK;
+		private final List<SearchHit> mHits;
+		private final boolean[] mIsIndexed;
+
+		Result(int k, List<SearchHit> hits, boolean[] isIndexed)
+		{
+			mK = k;
+			mHits = Collections.unmodifiableList(hits);
+			mIsIndexed = isIndexed;
+		}
+
+		/**
+		 * @param k
+		 * @return the k best hits, fewer if fewer documents match
+		 */
+		public List<SearchHit> getHits(int k)
+		{
+			return (k >= mHits.size()) ? mHits : mHits.subList(0, k);
+		}
+
+		/**
+		 * @param term: index of the term in the sorted terms
+		 * @return true if the index has postings for the term
+		 */
+		public boolean isIndexed(int term)
+		{
+			return mIsIndexed[term];
+		}
+
+		/**
+		 * @return true if the k best hits are known: k hits were searched for, or all the matching documents were found
+		 */
+		boolean isComplete(int k)
+		{
+			return mK >= k || mHits.size() < mK;
+		}
+
+		long getWeight()
+		{
+			return mHits.size() + 1;
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package com.invertedIndexer.adobe.search;
+
+/**
+ * @author Cotkaria
+ * Document found by a search, along with the number of occurrences of each query term
+ */
+public class SearchHit
+{
+	private final int mDocId;
+	private final String mDocumentName;
+	private final int mScore;
+	private final int[] mFrequencies;
+
+	SearchHit(int docId, String documentName, int score, int[] frequencies)
+	{
+		mDocId = docId;
+		mDocumentName = documentName;
+		mScore = score;
+		mFrequencies = frequencies;
+	}
+
+	public int getDocId()
+	{
+		return mDocId;
+	}
+
+	public String getDocumentName()
+	{
+		return mDocumentName;
+	}
+
+	/**
+	 * @return the total number of occurrences of the query terms in the document
+	 */
+	public int getScore()
+	{
+		return mScore;
+	}
+
+	/**
+	 * @param term: index of the term in the query
+	 * @return the number of occurrences of the term in the document
+	 */
+	public int getFrequency(int term)
+	{
+		return mFrequencies[term];
+	}
+
+	/**
+	 * @param other
+	 * @return true if this hit ranks before the other one: higher score first, then document name
+	 * in reverse order. The name only breaks ties, so results with equal counts come in the same
+	 * order from every search (the searches before top-k left it undefined).
+	 */
+	boolean ranksBefore(SearchHit other)
+	{
+		if (mScore != other.mScore)
+		{
+			return mScore > other.mScore;
+		}
+		return mDocumentName.compareTo(other.mDocumentName) > 0;
+	}
+}
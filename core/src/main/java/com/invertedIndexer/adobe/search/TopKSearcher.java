@@ -0,0 +1,188 @@
+package com.invertedIndexer.adobe.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import com.invertedIndexer.adobe.types.IndexView;
+import com.invertedIndexer.adobe.types.Postings;
+import com.invertedIndexer.adobe.types.PostingsCursor;
+
+/**
+ * @author Cotkaria
+ * Finds the k best documents for a query, a document scoring the total number of occurrences of
+ * the query terms. Only the postings of the query terms are walked (document at a time), the best
+ * documents are kept in a bounded heap.
+ * Once the heap is full, the MaxScore algorithm skips the documents that cannot enter it anymore:
+ * the terms are sorted by their highest frequency, and the terms whose bounds add up to less than
+ * the k-th score become non-essential. Documents are only taken from the essential terms, the
+ * non-essential postings are advanced to them and the document is dropped as soon as its bound
+ * falls under the k-th score.
+ * Equal scores are ranked by document name, so the results do not depend on document ids
+ * (see SearchHit.ranksBefore()).
+ */
+public class TopKSearcher
+{
+	private static final int CANCELLATION_CHECK_INTERVAL = 1024;	//documents walked between two checks
+
+	private IndexView mIndex;
+	private Function<String, Postings> mPostings;
+	private BooleanSupplier mIsCancelled;
+
+	public TopKSearcher(IndexView index)
+	{
+		this(index, index::getPostings);
+	}
+
+	/**
+	 * @param index
+	 * @param postings: looks up the postings of a term in the index, e.g. among the postings
+	 * already looked up by the other queries of a batch
+	 */
+	public TopKSearcher(IndexView index, Function<String, Postings> postings)
+	{
+		mIndex = index;
+		mPostings = postings;
+		mIsCancelled = () -> false;
+	}
+
+	/**
+	 * @param isCancelled: checked every few documents walked, e.g. once the deadline of a request is past
+	 */
+	public void setCancellation(BooleanSupplier isCancelled)
+	{
+		mIsCancelled = isCancelled;
+	}
+
+	/**
+	 * @param terms: analyzed (stemmed) query terms
+	 * @param k: maximum number of results
+	 * @return the k best documents, best first. The frequencies of a hit are given in terms order.
+	 * @throws CancellationException if cancelled before the postings are walked
+	 */
+	public List<SearchHit> search(List<String> terms, int k)
+	{
+		List<Integer> order = new ArrayList<Integer>();
+		List<Postings> postings = new ArrayList<Postings>();
+		for (int i = 0; i < terms.size(); i++)
+		{
+			Postings termPostings = mPostings.apply(terms.get(i));
+			if (termPostings != null && termPostings.size() > 0)
+			{
+				order.add(i);
+				postings.add(termPostings);
+			}
+		}
+		if (postings.isEmpty() || k <= 0)
+		{
+			return new ArrayList<SearchHit>();
+		}
+		
+		//terms sorted by their highest frequency, upperBounds[i] bounds the score of terms 0..i
+		Integer[] sorted = new Integer[postings.size()];
+		for (int i = 0; i < sorted.length; i++)
+		{
+			sorted[i] = i;
+		}
+		Arrays.sort(sorted, (t1, t2) -> Integer.compare(postings.get(t1).getMaxFrequency(), postings.get(t2).getMaxFrequency()));
+		int count = sorted.length;
+		PostingsCursor[] cursors = new PostingsCursor[count];
+		int[] queryTerms = new int[count];
+		long[] upperBounds = new long[count];
+		for (int i = 0; i < count; i++)
+		{
+			Postings termPostings = postings.get(sorted[i]);
+			cursors[i] = termPostings.cursor();
+			cursors[i].nextDoc();
+			queryTerms[i] = order.get(sorted[i]);
+			upperBounds[i] = (i > 0 ? upperBounds[i - 1] : 0) + termPostings.getMaxFrequency();
+		}
+		
+		int capacity = Math.min(k, mIndex.getDocumentCount());
+		PriorityQueue<SearchHit> heap = new PriorityQueue<SearchHit>(capacity + 1,
+				(h1, h2) -> h1.ranksBefore(h2) ? 1 : (h2.ranksBefore(h1) ? -1 : 0));	//worst hit first
+		long threshold = 0;	//k-th score, documents scoring less are skipped once the heap is full
+		int firstEssential = 0;
+		int[] frequencies = new int[terms.size()];
+		int walkedDocuments = 0;
+		
+		while (true)
+		{
+			if (++walkedDocuments % CANCELLATION_CHECK_INTERVAL == 0 && mIsCancelled.getAsBoolean())
+			{
+				throw new CancellationException("Search cancelled after " + walkedDocuments + " documents");
+			}
+			int docId = PostingsCursor.NO_MORE_DOCS;
+			for (int i = firstEssential; i < count; i++)
+			{
+				docId = Math.min(docId, cursors[i].docId());
+			}
+			if (docId == PostingsCursor.NO_MORE_DOCS)
+			{
+				break;
+			}
+			
+			Arrays.fill(frequencies, 0);
+			long score = 0;
+			for (int i = firstEssential; i < count; i++)
+			{
+				if (cursors[i].docId() == docId)
+				{
+					frequencies[queryTerms[i]] = cursors[i].frequency();
+					score += frequencies[queryTerms[i]];
+					cursors[i].nextDoc();
+				}
+			}
+			boolean isCandidate = true;
+			for (int i = firstEssential - 1; i >= 0; i--)
+			{
+				if (score + upperBounds[i] < threshold)
+				{
+					isCandidate = false;
+					break;
+				}
+				if (cursors[i].docId() < docId)
+				{
+					cursors[i].advance(docId);
+				}
+				if (cursors[i].docId() == docId)
+				{
+					frequencies[queryTerms[i]] = cursors[i].frequency();
+					score += frequencies[queryTerms[i]];
+				}
+			}
+			if (!isCandidate || score < threshold)
+			{
+				continue;
+			}
+			String documentName = mIndex.getDocumentName(docId);
+			if (documentName == null)
+			{
+				continue;	//removed document
+			}
+			
+			heap.add(new SearchHit(docId, documentName, (int) score, frequencies.clone()));
+			if (heap.size() > capacity)
+			{
+				heap.poll();
+			}
+			if (heap.size() == capacity)
+			{
+				threshold = heap.peek().getScore();
+				while (firstEssential < count && upperBounds[firstEssential] < threshold)
+				{
+					firstEssential++;
+				}
+			}
+		}
+		
+		List<SearchHit> hits = new ArrayList<SearchHit>(heap);
+		Collections.sort(hits, (h1, h2) -> h1.ranksBefore(h2) ? -1 : (h2.ranksBefore(h1) ? 1 : 0));
+		return hits;
+	}
+}
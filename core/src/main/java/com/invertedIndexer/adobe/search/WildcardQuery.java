@@ -0,0 +1,41 @@
+package com.invertedIndexer.adobe.search;
+
+import java.util.List;
+
+import com.invertedIndexer.adobe.types.TermDictionary;
+
+/**
+ * @author Cotkaria
+ * Terms matching a pattern, e.g. "invoic*" or "*order" (see TermDictionary). The pattern is
+ * matched against the indexed terms, which are stemmed, so it is lower cased but not analyzed.
+ */
+public class WildcardQuery extends MultiTermQuery
+{
+	private String mPattern;
+
+	/**
+	 * @param pattern: lower case pattern, see TermDictionary
+	 */
+	public WildcardQuery(String pattern)
+	{
+		mPattern = pattern;
+	}
+
+	/**
+	 * @return the pattern, never equal to a term as terms have no wildcards
+	 */
+	@Override
+	public String getKey()
+	{
+		return mPattern;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the pattern matches more than maxTerms terms
+	 */
+	@Override
+	public List<String> expand(TermDictionary dictionary, int maxTerms)
+	{
+		return dictionary.expand(mPattern, maxTerms);
+	}
+}
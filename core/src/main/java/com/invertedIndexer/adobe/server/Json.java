@@ -0,0 +1,281 @@
+package com.invertedIndexer.adobe.server;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Cotkaria
+ * Minimal JSON reader and string quoting, enough for the requests and responses of the search
+ * server without a JSON library. Objects are read as maps, arrays as lists, numbers as doubles.
+ */
+final class Json
+{
+	private final String mText;
+	private int mPosition;
+
+	private Json(String text)
+	{
+		mText = text;
+	}
+
+	/**
+	 * @param text
+	 * @return the value of the JSON text
+	 * @throws IllegalArgumentException if the text is not valid JSON
+	 */
+	static Object parse(String text)
+	{
+		Json json = new Json(text);
+		Object value = json.readValue();
+		json.skipWhitespace();
+		if (json.mPosition < text.length())
+		{
+			throw json.error("unexpected content");
+		}
+		return value;
+	}
+
+	/**
+	 * @param text
+	 * @param out: receives the text as a JSON string, quotes included
+	 */
+	static void quote(String text, StringBuilder out)
+	{
+		out.append('"');
+		for (int i = 0; i < text.length(); i++)
+		{
+			char c = text.charAt(i);
+			switch (c)
+			{
+			case '"':
+				out.append("\\\"");
+				break;
+			case '\\':
+				out.append("\\\\");
+				break;
+			case '\n':
+				out.append("\\n");
+				break;
+			case '\r':
+				out.append("\\r");
+				break;
+			case '\t':
+				out.append("\\t");
+				break;
+			default:
+				if (c < 0x20)
+				{
+					out.append(String.format("\\u%04x", (int) c));
+				}
+				else
+				{
+					out.append(c);
+				}
+			}
+		}
+		out.append('"');
+	}
+
+	private Object readValue()
+	{
+		skipWhitespace();
+		if (mPosition >= mText.length())
+		{
+			throw error("value expected");
+		}
+		char c = mText.charAt(mPosition);
+		switch (c)
+		{
+		case '{':
+			return readObject();
+		case '[':
+			return readArray();
+		case '"':
+			return readString();
+		case 't':
+			return readLiteral("true", Boolean.TRUE);
+		case 'f':
+			return readLiteral("false", Boolean.FALSE);
+		case 'n':
+			return readLiteral("null", null);
+		default:
+			return readNumber();
+		}
+	}
+
+	private Map<String, Object> readObject()
+	{
+		Map<String, Object> object = new LinkedHashMap<String, Object>();
+		mPosition++;
+		skipWhitespace();
+		if (peek() == '}')
+		{
+			mPosition++;
+			return object;
+		}
+		while (true)
+		{
+			skipWhitespace();
+			if (peek() != '"')
+			{
+				throw error("member name expected");
+			}
+			String name = readString();
+			skipWhitespace();
+			expect(':');
+			object.put(name, readValue());
+			skipWhitespace();
+			if (peek() == ',')
+			{
+				mPosition++;
+				continue;
+			}
+			expect('}');
+			return object;
+		}
+	}
+
+	private List<Object> readArray()
+	{
+		List<Object> array = new ArrayList<Object>();
+		mPosition++;
+		skipWhitespace();
+		if (peek() == ']')
+		{
+			mPosition++;
+			return array;
+		}
+		while (true)
+		{
+			array.add(readValue());
+			skipWhitespace();
+			if (peek() == ',')
+			{
+				mPosition++;
+				continue;
+			}
+			expect(']');
+			return array;
+		}
+	}
+
+	private String readString()
+	{
+		StringBuilder string = new StringBuilder();
+		mPosition++;
+		while (true)
+		{
+			if (mPosition >= mText.length())
+			{
+				throw error("unterminated string");
+			}
+			char c = mText.charAt(mPosition++);
+			if (c == '"')
+			{
+				return string.toString();
+			}
+			if (c != '\\')
+			{
+				string.append(c);
+				continue;
+			}
+			char escaped = (mPosition < mText.length()) ? mText.charAt(mPosition++) : 0;
+			switch (escaped)
+			{
+			case '"':
+			case '\\':
+			case '/':
+				string.append(escaped);
+				break;
+			case 'b':
+				string.append('\b');
+				break;
+			case 'f':
+				string.append('\f');
+				break;
+			case 'n':
+				string.append('\n');
+				break;
+			case 'r':
+				string.append('\r');
+				break;
+			case 't':
+				string.append('\t');
+				break;
+			case 'u':
+				if (mPosition + 4 > mText.length())
+				{
+					throw error("invalid escape");
+				}
+				try
+				{
+					string.append((char) Integer.parseInt(mText.substring(mPosition, mPosition + 4), 16));
+				}
+				catch (NumberFormatException e)
+				{
+					throw error("invalid escape");
+				}
+				mPosition += 4;
+				break;
+			default:
+				throw error("invalid escape");
+			}
+		}
+	}
+
+	private Object readLiteral(String literal, Object value)
+	{
+		if (!mText.startsWith(literal, mPosition))
+		{
+			throw error("invalid literal");
+		}
+		mPosition += literal.length();
+		return value;
+	}
+
+	private Double readNumber()
+	{
+		int start = mPosition;
+		while (mPosition < mText.length() && "+-0123456789.eE".indexOf(mText.charAt(mPosition)) >= 0)
+		{
+			mPosition++;
+		}
+		try
+		{
+			return Double.valueOf(mText.substring(start, mPosition));
+		}
+		catch (NumberFormatException e)
+		{
+			throw error("invalid value");
+		}
+	}
+
+	private char peek()
+	{
+		return (mPosition < mText.length()) ? mText.charAt(mPosition) : 0;
+	}
+
+	private void expect(char c)
+	{
+		if (peek() != c)
+		{
+			throw error("'" + c + "' expected");
+		}
+		mPosition++;
+	}
+
+	private void skipWhitespace()
+	{
+		while (mPosition < mText.length() && Character.isWhitespace(mText.charAt(mPosition)))
+		{
+			mPosition++;
+		}
+	}
+
+	private IllegalArgumentException error(String message)
+	{
+		return new IllegalArgumentException("Invalid JSON at " + mPosition + ": " + message);
+	}
+}
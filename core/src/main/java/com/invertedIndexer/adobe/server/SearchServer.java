@@ -0,0 +1,533 @@
+package com.invertedIndexer.adobe.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.invertedIndexer.adobe.InverseIndexer;
+import com.invertedIndexer.adobe.metrics.LatencyHistogram;
+import com.invertedIndexer.adobe.metrics.MetricsRegistry;
+import com.invertedIndexer.adobe.types.MapFileToWordOccurencesEntry;
+import com.invertedIndexer.adobe.types.MapWordToOccurences;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * @author Cotkaria
+ * HTTP/JSON search endpoint of an InverseIndexer, built on the HTTP server of the JDK and bound
+ * to the loopback interface by default, for the other tools running on the machine.
+ * 
+ * GET /search?q=computer+science&k=10 runs one query, POST /search with
+ * {"queries": ["computer science", "electric car"], "k": 10, "timeoutMillis": 200} runs a batch
+ * of queries, evaluated together so the terms shared by several queries are looked up once.
+ * Both answer {"results": [{"query": ..., "hits": [{"file": ..., "score": ..., "occurrences": {word: count}}]}]};
+ * a hit of a query with wildcard or fuzzy words also has "variants": {word: {term: count}}.
+ * 
+ * Requests are handled by a dedicated pool of threads. A request is admitted when it arrives:
+ * beyond getMaxPendingRequests() requests waiting or running, it is answered 503 right away instead
+ * of queuing up. Its deadline starts when it arrives too, so time spent waiting for a thread
+ * counts; a request past its deadline is answered 504. The deadline is checked between the queries
+ * of a batch and while a query walks its postings (see InverseIndexer.findTop(List, int, BooleanSupplier)).
+ * 
+ * The JDK server leaves Nagle's algorithm on, then every small response waits for the delayed
+ * acknowledgement of the client (about 40ms). Processes serving searches should be started with
+ * -Dsun.net.httpserver.nodelay=true, as SearchService does; the property is read by the JDK once,
+ * for all the HTTP servers of the process, so this class does not set it.
+ */
+public class SearchServer
+{
+	public final static String METRIC_REQUESTS = "server.requests";
+	public final static String METRIC_QUERIES = "server.queries";
+	public final static String METRIC_REJECTED = "server.rejected";	//over the limit of pending requests
+	public final static String METRIC_TIMEOUTS = "server.timeouts";
+	public final static String METRIC_LATENCY = "server.latency";	//from arrival to response
+
+	private static final String CONTEXT = "/search";
+	private static final int DEFAULT_K = 10;
+	private static final int MAX_REQUEST_BYTES = 1024 * 1024;
+
+	private InverseIndexer mIndexer;
+	private InetSocketAddress mAddress;
+	private int mThreads;
+	private int mMaxPendingRequests;
+	private int mMaxQueriesPerRequest;
+	private long mTimeoutMillis;
+	private HttpServer mServer;
+	private ExecutorService mWorkers;
+	private ExecutorService mRejecter;	//answers the requests over the limit without waiting for the workers
+	private AtomicInteger mPendingRequests;
+	private ThreadLocal<Admission> mAdmissions;	//admission of the request handled by the thread
+
+	private LongAdder mRequests;
+	private LongAdder mQueries;
+	private LongAdder mRejected;
+	private LongAdder mTimeouts;
+	private LatencyHistogram mLatency;
+
+	/**
+	 * @param indexer
+	 * @param port: port on the loopback interface, 0 for any free port (see getPort())
+	 */
+	public SearchServer(InverseIndexer indexer, int port)
+	{
+		this(indexer, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+	}
+
+	public SearchServer(InverseIndexer indexer, InetSocketAddress address)
+	{
+		mIndexer = indexer;
+		mAddress = address;
+		mThreads = Runtime.getRuntime().availableProcessors();
+		mMaxPendingRequests = 4 * mThreads;
+		mMaxQueriesPerRequest = 100;
+		mTimeoutMillis = 1000;
+		mPendingRequests = new AtomicInteger();
+		mAdmissions = new ThreadLocal<Admission>();
+
+		MetricsRegistry metrics = indexer.getMetrics();
+		mRequests = metrics.counter(METRIC_REQUESTS);
+		mQueries = metrics.counter(METRIC_QUERIES);
+		mRejected = metrics.counter(METRIC_REJECTED);
+		mTimeouts = metrics.counter(METRIC_TIMEOUTS);
+		mLatency = metrics.histogram(METRIC_LATENCY);
+	}
+
+	/**
+	 * @param threads: threads evaluating the requests, the number of cores by default
+	 */
+	public void setThreads(int threads)
+	{
+		mThreads = Math.max(1, threads);
+	}
+
+	public int getThreads()
+	{
+		return mThreads;
+	}
+
+	/**
+	 * @param requests: maximum number of requests waiting or running, 4 per thread by default
+	 */
+	public void setMaxPendingRequests(int requests)
+	{
+		mMaxPendingRequests = Math.max(1, requests);
+	}
+
+	public int getMaxPendingRequests()
+	{
+		return mMaxPendingRequests;
+	}
+
+	/**
+	 * @param queries: maximum number of queries of a batch, 100 by default
+	 */
+	public void setMaxQueriesPerRequest(int queries)
+	{
+		mMaxQueriesPerRequest = Math.max(1, queries);
+	}
+
+	public int getMaxQueriesPerRequest()
+	{
+		return mMaxQueriesPerRequest;
+	}
+
+	/**
+	 * @param millis: deadline of a request from its arrival, 1 second by default. Requests may ask
+	 * for a shorter deadline with timeoutMillis.
+	 */
+	public void setTimeoutMillis(long millis)
+	{
+		mTimeoutMillis = Math.max(1, millis);
+	}
+
+	public long getTimeoutMillis()
+	{
+		return mTimeoutMillis;
+	}
+
+	/**
+	 * @throws IOException if the address cannot be bound
+	 */
+	public synchronized void start() throws IOException
+	{
+		if (mServer != null)
+		{
+			return;
+		}
+		AtomicInteger threadCount = new AtomicInteger();
+		mWorkers = Executors.newFixedThreadPool(mThreads, runnable ->
+		{
+			Thread thread = new Thread(runnable, "search-server-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		mRejecter = Executors.newSingleThreadExecutor(runnable ->
+		{
+			Thread thread = new Thread(runnable, "search-server-rejecter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		mServer = HttpServer.create(mAddress, mMaxPendingRequests);
+		mServer.createContext(CONTEXT, this::handle);
+		mServer.setExecutor(new AdmissionExecutor());
+		mServer.start();
+	}
+
+	/**
+	 * Stops accepting requests, the requests in progress are given up to a second to complete
+	 */
+	public synchronized void stop()
+	{
+		if (mServer == null)
+		{
+			return;
+		}
+		mServer.stop(1);
+		mWorkers.shutdownNow();
+		mRejecter.shutdownNow();
+		mServer = null;
+	}
+
+	/**
+	 * @return the port the server listens to, once started
+	 */
+	public synchronized int getPort()
+	{
+		return (mServer != null) ? mServer.getAddress().getPort() : mAddress.getPort();
+	}
+
+	/**
+	 * Arrival time of a request and whether it was admitted
+	 */
+	private static class Admission
+	{
+		private final long mArrival;
+		private final boolean mIsAdmitted;
+
+		Admission(long arrival, boolean isAdmitted)
+		{
+			mArrival = arrival;
+			mIsAdmitted = isAdmitted;
+		}
+	}
+
+	/**
+	 * Admits the requests when they arrive: admitted requests go to the worker threads, the others
+	 * to the rejecter thread. The HTTP server calls execute() once per request, from its dispatcher thread.
+	 */
+	private class AdmissionExecutor implements Executor
+	{
+		@Override
+		public void execute(Runnable exchange)
+		{
+			long arrival = System.nanoTime();
+			if (mPendingRequests.incrementAndGet() > mMaxPendingRequests)
+			{
+				mPendingRequests.decrementAndGet();
+				mRejecter.execute(() -> run(exchange, new Admission(arrival, false)));
+				return;
+			}
+			mWorkers.execute(() ->
+			{
+				try
+				{
+					run(exchange, new Admission(arrival, true));
+				}
+				finally
+				{
+					mPendingRequests.decrementAndGet();
+				}
+			});
+		}
+
+		private void run(Runnable exchange, Admission admission)
+		{
+			mAdmissions.set(admission);
+			try
+			{
+				exchange.run();
+			}
+			finally
+			{
+				mAdmissions.remove();
+			}
+		}
+	}
+
+	private void handle(HttpExchange exchange) throws IOException
+	{
+		Admission admission = mAdmissions.get();
+		long start = (admission != null) ? admission.mArrival : System.nanoTime();
+		mRequests.increment();
+		try
+		{
+			if (admission != null && !admission.mIsAdmitted)
+			{
+				mRejected.increment();
+				exchange.getResponseHeaders().set("Retry-After", "1");
+				sendError(exchange, 503, "Too many pending requests");
+				return;
+			}
+
+			Request request;
+			try
+			{
+				request = readRequest(exchange);
+			}
+			catch (IllegalArgumentException e)
+			{
+				sendError(exchange, 400, e.getMessage());
+				return;
+			}
+			if (request == null)
+			{
+				exchange.getResponseHeaders().set("Allow", "GET, POST");
+				sendError(exchange, 405, "Use GET or POST");
+				return;
+			}
+			if (request.mQueries.size() > mMaxQueriesPerRequest)
+			{
+				sendError(exchange, 413, "At most " + mMaxQueriesPerRequest + " queries per request");
+				return;
+			}
+
+			long deadline = start + TimeUnit.MILLISECONDS.toNanos(Math.min(request.mTimeoutMillis, mTimeoutMillis));
+			List<List<MapFileToWordOccurencesEntry>> results;
+			try
+			{
+				results = mIndexer.findTop(request.mQueries, request.mK, () -> System.nanoTime() - deadline > 0);
+			}
+			catch (CancellationException e)
+			{
+				mTimeouts.increment();
+				sendError(exchange, 504, "Deadline exceeded");
+				return;
+			}
+			catch (IllegalArgumentException e)
+			{
+				//a query the index cannot answer, e.g. a phrase without indexed positions
+				sendError(exchange, 400, e.getMessage());
+				return;
+			}
+			mQueries.add(request.mQueries.size());
+			send(exchange, 200, toJson(request.mQueries, results));
+		}
+		finally
+		{
+			exchange.close();
+			mLatency.recordSince(start);
+		}
+	}
+
+	/**
+	 * @return the request, null if the HTTP method is not supported
+	 * @throws IllegalArgumentException if the request is invalid
+	 */
+	private static Request readRequest(HttpExchange exchange) throws IOException
+	{
+		Request request = new Request();
+		if ("GET".equals(exchange.getRequestMethod()))
+		{
+			Map<String, String> parameters = parseQueryString(exchange.getRequestURI().getRawQuery());
+			if (!parameters.containsKey("q"))
+			{
+				throw new IllegalArgumentException("Missing parameter q");
+			}
+			request.mQueries = Collections.singletonList(parameters.get("q"));
+			request.mK = parseInt(parameters.get("k"), DEFAULT_K);
+			request.mTimeoutMillis = parseInt(parameters.get("timeoutMillis"), Integer.MAX_VALUE);
+			return request;
+		}
+		if (!"POST".equals(exchange.getRequestMethod()))
+		{
+			return null;
+		}
+
+		Object body = Json.parse(readBody(exchange.getRequestBody()));
+		Object queries = (body instanceof Map) ? ((Map<?, ?>) body).get("queries") : null;
+		if (!(queries instanceof List))
+		{
+			throw new IllegalArgumentException("Expected {\"queries\": [...]}");
+		}
+		request.mQueries = new ArrayList<String>();
+		for (Object query : (List<?>) queries)
+		{
+			if (!(query instanceof String))
+			{
+				throw new IllegalArgumentException("Queries must be strings");
+			}
+			request.mQueries.add((String) query);
+		}
+		request.mK = getInt((Map<?, ?>) body, "k", DEFAULT_K);
+		request.mTimeoutMillis = getInt((Map<?, ?>) body, "timeoutMillis", Integer.MAX_VALUE);
+		return request;
+	}
+
+	private static String readBody(InputStream in) throws IOException
+	{
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) > 0)
+		{
+			body.write(buffer, 0, read);
+			if (body.size() > MAX_REQUEST_BYTES)
+			{
+				throw new IllegalArgumentException("Request larger than " + MAX_REQUEST_BYTES + " bytes");
+			}
+		}
+		return new String(body.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static Map<String, String> parseQueryString(String query) throws IOException
+	{
+		Map<String, String> parameters = new HashMap<String, String>();
+		if (query == null)
+		{
+			return parameters;
+		}
+		for (String parameter : query.split("&"))
+		{
+			int equals = parameter.indexOf('=');
+			String name = (equals >= 0) ? parameter.substring(0, equals) : parameter;
+			String value = (equals >= 0) ? parameter.substring(equals + 1) : "";
+			parameters.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+		}
+		return parameters;
+	}
+
+	private static int parseInt(String value, int defaultValue)
+	{
+		if (value == null)
+		{
+			return defaultValue;
+		}
+		try
+		{
+			return Integer.parseInt(value);
+		}
+		catch (NumberFormatException e)
+		{
+			throw new IllegalArgumentException("Invalid number: " + value);
+		}
+	}
+
+	private static int getInt(Map<?, ?> object, String name, int defaultValue)
+	{
+		Object value = object.get(name);
+		if (value == null)
+		{
+			return defaultValue;
+		}
+		if (!(value instanceof Double))
+		{
+			throw new IllegalArgumentException(name + " must be a number");
+		}
+		return (int) Math.min(Integer.MAX_VALUE, ((Double) value).longValue());
+	}
+
+	private static String toJson(List<String> queries, List<List<MapFileToWordOccurencesEntry>> results)
+	{
+		StringBuilder json = new StringBuilder("{\"results\":[");
+		for (int i = 0; i < queries.size(); i++)
+		{
+			json.append((i > 0) ? ",{\"query\":" : "{\"query\":");
+			Json.quote(queries.get(i), json);
+			json.append(",\"hits\":[");
+			List<MapFileToWordOccurencesEntry> hits = results.get(i);
+			for (int j = 0; j < hits.size(); j++)
+			{
+				json.append((j > 0) ? ",{\"file\":" : "{\"file\":");
+				Json.quote(hits.get(j).getKey(), json);
+				StringBuilder occurrences = new StringBuilder();
+				int score = 0;
+				for (Map.Entry<String, Integer> occurrence : hits.get(j).getValue().entrySet())
+				{
+					occurrences.append((occurrences.length() > 0) ? "," : "");
+					Json.quote(occurrence.getKey(), occurrences);
+					occurrences.append(':').append(occurrence.getValue());
+					score += occurrence.getValue();
+				}
+				json.append(",\"score\":").append(score).append(",\"occurrences\":{").append(occurrences).append('}');
+				if (!hits.get(j).getVariants().isEmpty())
+				{
+					appendVariants(hits.get(j).getVariants(), json);
+				}
+				json.append('}');
+			}
+			json.append("]}");
+		}
+		return json.append("]}").toString();
+	}
+
+	/**
+	 * Appends "variants":{word:{term:count,...},...}, the terms matched by the wildcard and fuzzy words
+	 */
+	private static void appendVariants(Map<String, MapWordToOccurences> variants, StringBuilder json)
+	{
+		json.append(",\"variants\":{");
+		boolean isFirstWord = true;
+		for (Map.Entry<String, MapWordToOccurences> word : variants.entrySet())
+		{
+			json.append(isFirstWord ? "" : ",");
+			Json.quote(word.getKey(), json);
+			json.append(":{");
+			boolean isFirstTerm = true;
+			for (Map.Entry<String, Integer> term : word.getValue().entrySet())
+			{
+				json.append(isFirstTerm ? "" : ",");
+				Json.quote(term.getKey(), json);
+				json.append(':').append(term.getValue());
+				isFirstTerm = false;
+			}
+			json.append('}');
+			isFirstWord = false;
+		}
+		json.append('}');
+	}
+
+	private static void sendError(HttpExchange exchange, int status, String message) throws IOException
+	{
+		StringBuilder json = new StringBuilder("{\"error\":");
+		Json.quote(message, json);
+		send(exchange, status, json.append('}').toString());
+	}
+
+	private static void send(HttpExchange exchange, int status, String json) throws IOException
+	{
+		byte[] body = json.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody())
+		{
+			out.write(body);
+		}
+	}
+
+	/**
+	 * Queries of a request
+	 */
+	private static class Request
+	{
+		private List<String> mQueries;
+		private int mK;
+		private int mTimeoutMillis;
+	}
+}
@@ -0,0 +1,471 @@
+package com.invertedIndexer.adobe.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.invertedIndexer.adobe.types.MapFileToWordOccurencesEntry;
+import com.invertedIndexer.adobe.types.MapWordToOccurences;
+
+/**
+ * @author Cotkaria
+ * Searches an index partitioned over shards: every shard is a SearchServer, usually in its own
+ * process, serving the documents of one partition (see InverseIndexer.setPartition()).
+ * -scatter: the queries are sent to all the shards at once, as a batch request
+ * -gather: every shard answers the top k hits of every query with the occurrences of its words
+ * -merge: the hits are ranked like the hits of a single index, more occurrences first, then
+ * document name in reverse order, and the first k are kept. Occurrences are counted per document,
+ * so the hits of different shards compare the same way as the hits of a single index (the words
+ * a shard did not count are counted 0, see addMissingWords()).
+ * A slow shard cannot hold the search past its deadline: a shard may have replicas, serving the
+ * same partition, the request is then sent to the next replica if the previous one has not
+ * answered after the hedge delay (or failed). A shard without any answer by the deadline is
+ * left out and the results are partial (see Results.getMissingShards()).
+ */
+public class ShardCoordinator implements AutoCloseable
+{
+	private static final String CONTEXT = "/search";
+
+	private List<List<InetSocketAddress>> mShards;
+	private long mTimeoutMillis;
+	private long mHedgeDelayMillis;
+	private ExecutorService mRequests;
+	private ScheduledExecutorService mHedges;
+
+	/**
+	 * @param shards: addresses of the replicas of every shard, in the order they are tried
+	 */
+	public ShardCoordinator(List<List<InetSocketAddress>> shards)
+	{
+		mShards = new ArrayList<List<InetSocketAddress>>();
+		for (List<InetSocketAddress> replicas : shards)
+		{
+			if (replicas.isEmpty())
+			{
+				throw new IllegalArgumentException("Every shard needs at least one address");
+			}
+			mShards.add(new ArrayList<InetSocketAddress>(replicas));
+		}
+		mTimeoutMillis = 1000;
+		mHedgeDelayMillis = 100;
+		AtomicInteger threadCount = new AtomicInteger();
+		mRequests = Executors.newCachedThreadPool(runnable ->
+		{
+			Thread thread = new Thread(runnable, "shard-request-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		mHedges = Executors.newSingleThreadScheduledExecutor(runnable ->
+		{
+			Thread thread = new Thread(runnable, "shard-hedges");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * @param millis: deadline of a search, 1 second by default. The shards stop evaluating the
+	 * queries at the deadline too.
+	 */
+	public void setTimeoutMillis(long millis)
+	{
+		mTimeoutMillis = Math.max(1, millis);
+	}
+
+	public long getTimeoutMillis()
+	{
+		return mTimeoutMillis;
+	}
+
+	/**
+	 * @param millis: time after which a request not answered yet is sent to the next replica of the
+	 * shard too, 100ms by default (e.g. above the usual 99th percentile of the shards). 0 sends it
+	 * to the next replica only when the previous one fails.
+	 */
+	public void setHedgeDelayMillis(long millis)
+	{
+		mHedgeDelayMillis = Math.max(0, millis);
+	}
+
+	public long getHedgeDelayMillis()
+	{
+		return mHedgeDelayMillis;
+	}
+
+	public int getShardCount()
+	{
+		return mShards.size();
+	}
+
+	/**
+	 * @param text: query, see InverseIndexer.findTop(String, int)
+	 * @param k: maximum number of results
+	 * @return the k files of all the shards containing the most occurrences of the words
+	 */
+	public Results findTop(String text, int k)
+	{
+		return findTop(Collections.singletonList(text), k);
+	}
+
+	/**
+	 * @param texts: queries, see InverseIndexer.findTop(String, int)
+	 * @param k: maximum number of results of every query
+	 * @return the results of every query, in the order of the queries, merged from the shards
+	 * that answered by the deadline
+	 */
+	public Results findTop(List<String> texts, int k)
+	{
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(mTimeoutMillis);
+		List<ShardRequest> requests = new ArrayList<ShardRequest>();
+		for (List<InetSocketAddress> replicas : mShards)
+		{
+			ShardRequest request = new ShardRequest(replicas, texts, k, deadline);
+			request.start();
+			requests.add(request);
+		}
+
+		List<List<MapFileToWordOccurencesEntry>> hits = new ArrayList<List<MapFileToWordOccurencesEntry>>();
+		for (int i = 0; i < texts.size(); i++)
+		{
+			hits.add(new ArrayList<MapFileToWordOccurencesEntry>());
+		}
+		List<Integer> missingShards = new ArrayList<Integer>();
+		for (int shard = 0; shard < requests.size(); shard++)
+		{
+			List<List<MapFileToWordOccurencesEntry>> shardHits = requests.get(shard).await(deadline);
+			if (shardHits == null)
+			{
+				missingShards.add(shard);
+				continue;
+			}
+			for (int i = 0; i < texts.size(); i++)
+			{
+				hits.get(i).addAll(shardHits.get(i));
+			}
+		}
+
+		for (int i = 0; i < hits.size(); i++)
+		{
+			List<MapFileToWordOccurencesEntry> queryHits = hits.get(i);
+			addMissingWords(queryHits);
+			Collections.sort(queryHits, (h1, h2) -> ranksBefore(h1, h2) ? -1 : (ranksBefore(h2, h1) ? 1 : 0));
+			hits.set(i, new ArrayList<MapFileToWordOccurencesEntry>(queryHits.subList(0, Math.min(k, queryHits.size()))));
+		}
+		return new Results(hits, missingShards);
+	}
+
+	/**
+	 * Stops the threads sending the requests
+	 */
+	@Override
+	public void close()
+	{
+		mRequests.shutdownNow();
+		mHedges.shutdownNow();
+	}
+
+	/**
+	 * @param hits: hits of a query, from all the shards
+	 * A shard whose index does not contain a word of the query does not count it, while a single
+	 * index counts 0 occurrences of it in every hit: the words counted by any shard are added.
+	 * The hits missing a word are replaced by copies, the occurrences of a hit may be shared (a
+	 * cached result).
+	 */
+	private static void addMissingWords(List<MapFileToWordOccurencesEntry> hits)
+	{
+		Set<String> words = new HashSet<String>();
+		for (MapFileToWordOccurencesEntry hit : hits)
+		{
+			words.addAll(hit.getValue().keySet());
+		}
+		for (int i = 0; i < hits.size(); i++)
+		{
+			MapFileToWordOccurencesEntry hit = hits.get(i);
+			if (hit.getValue().keySet().containsAll(words))
+			{
+				continue;
+			}
+			MapWordToOccurences occurrences = new MapWordToOccurences();
+			occurrences.putAll(hit.getValue());
+			for (String word : words)
+			{
+				occurrences.putIfAbsent(word, 0);
+			}
+			hits.set(i, new MapFileToWordOccurencesEntry(hit.getKey(), occurrences, hit.getVariants()));
+		}
+	}
+
+	/**
+	 * @return true if the first hit ranks before the second one, as SearchHit.ranksBefore()
+	 */
+	private static boolean ranksBefore(MapFileToWordOccurencesEntry hit1, MapFileToWordOccurencesEntry hit2)
+	{
+		int score1 = getScore(hit1);
+		int score2 = getScore(hit2);
+		if (score1 != score2)
+		{
+			return score1 > score2;
+		}
+		return hit1.getKey().compareTo(hit2.getKey()) > 0;
+	}
+
+	private static int getScore(MapFileToWordOccurencesEntry hit)
+	{
+		int score = 0;
+		for (int occurrences : hit.getValue().values())
+		{
+			score += occurrences;
+		}
+		return score;
+	}
+
+	/**
+	 * Results of a search, partial if some shards did not answer
+	 */
+	public static class Results
+	{
+		private List<List<MapFileToWordOccurencesEntry>> mHits;
+		private List<Integer> mMissingShards;
+
+		Results(List<List<MapFileToWordOccurencesEntry>> hits, List<Integer> missingShards)
+		{
+			mHits = hits;
+			mMissingShards = missingShards;
+		}
+
+		/**
+		 * @return the hits of every query, in the order of the queries
+		 */
+		public List<List<MapFileToWordOccurencesEntry>> getHits()
+		{
+			return mHits;
+		}
+
+		/**
+		 * @return the shards left out as none of their replicas answered by the deadline
+		 */
+		public List<Integer> getMissingShards()
+		{
+			return mMissingShards;
+		}
+
+		public boolean isComplete()
+		{
+			return mMissingShards.isEmpty();
+		}
+	}
+
+	/**
+	 * Request of a shard: sent to its first replica, then to the next ones after every hedge delay
+	 * or failure, until one of them answers
+	 */
+	private class ShardRequest
+	{
+		private List<InetSocketAddress> mReplicas;
+		private List<String> mTexts;
+		private int mK;
+		private long mDeadline;
+		private CompletableFuture<List<List<MapFileToWordOccurencesEntry>>> mResult;
+		private int mSentCount;	//replicas the request was sent to
+		private int mFailedCount;
+
+		ShardRequest(List<InetSocketAddress> replicas, List<String> texts, int k, long deadline)
+		{
+			mReplicas = replicas;
+			mTexts = texts;
+			mK = k;
+			mDeadline = deadline;
+			mResult = new CompletableFuture<List<List<MapFileToWordOccurencesEntry>>>();
+		}
+
+		void start()
+		{
+			sendNext();
+		}
+
+		/**
+		 * @return the hits of the shard, null if it did not answer by the deadline
+		 */
+		List<List<MapFileToWordOccurencesEntry>> await(long deadline)
+		{
+			try
+			{
+				return mResult.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return null;
+			}
+			catch (ExecutionException | TimeoutException e)
+			{
+				return null;
+			}
+		}
+
+		/**
+		 * Sends the request to the next replica, and plans the next hedge
+		 */
+		private synchronized void sendNext()
+		{
+			if (mResult.isDone() || mSentCount == mReplicas.size())
+			{
+				return;
+			}
+			InetSocketAddress replica = mReplicas.get(mSentCount++);
+			mRequests.execute(() -> send(replica));
+			if (mSentCount < mReplicas.size() && mHedgeDelayMillis > 0)
+			{
+				mHedges.schedule(this::sendNext, mHedgeDelayMillis, TimeUnit.MILLISECONDS);
+			}
+		}
+
+		private void send(InetSocketAddress replica)
+		{
+			try
+			{
+				mResult.complete(post(replica, mTexts, mK, mDeadline));
+			}
+			catch (IOException | RuntimeException e)
+			{
+				synchronized (this)
+				{
+					mFailedCount++;
+					if (mFailedCount == mReplicas.size())
+					{
+						mResult.completeExceptionally(e);
+					}
+				}
+				sendNext();
+			}
+		}
+	}
+
+	/**
+	 * @return the hits of every query, answered by the shard
+	 * @throws IOException if the shard cannot be reached, fails or does not answer by the deadline
+	 */
+	private static List<List<MapFileToWordOccurencesEntry>> post(InetSocketAddress address, List<String> texts, int k,
+			long deadline) throws IOException
+	{
+		long timeoutMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+		StringBuilder body = new StringBuilder("{\"queries\":[");
+		for (int i = 0; i < texts.size(); i++)
+		{
+			body.append((i > 0) ? "," : "");
+			Json.quote(texts.get(i), body);
+		}
+		body.append("],\"k\":").append(k).append(",\"timeoutMillis\":").append(timeoutMillis).append('}');
+
+		URL url = new URL("http", address.getHostString(), address.getPort(), CONTEXT);
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection(Proxy.NO_PROXY);
+		connection.setConnectTimeout((int) Math.min(Integer.MAX_VALUE, timeoutMillis));
+		connection.setReadTimeout((int) Math.min(Integer.MAX_VALUE, timeoutMillis));
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+		try (OutputStream out = connection.getOutputStream())
+		{
+			out.write(body.toString().getBytes(StandardCharsets.UTF_8));
+		}
+		int status = connection.getResponseCode();
+		if (status != 200)
+		{
+			connection.disconnect();
+			throw new IOException("Shard " + address + " answered " + status);
+		}
+		String json;
+		try (InputStream in = connection.getInputStream())
+		{
+			json = readAll(in);
+		}
+		return parseResults(json, texts.size());
+	}
+
+	/**
+	 * @param json: answer of a SearchServer
+	 * @param queryCount
+	 * @return the hits of every query
+	 * @throws IOException if the answer is not valid
+	 */
+	static List<List<MapFileToWordOccurencesEntry>> parseResults(String json, int queryCount) throws IOException
+	{
+		try
+		{
+			List<?> results = (List<?>) ((Map<?, ?>) Json.parse(json)).get("results");
+			if (results == null || results.size() != queryCount)
+			{
+				throw new IOException("Expected the results of " + queryCount + " queries");
+			}
+			List<List<MapFileToWordOccurencesEntry>> hits = new ArrayList<List<MapFileToWordOccurencesEntry>>();
+			for (Object result : results)
+			{
+				List<MapFileToWordOccurencesEntry> queryHits = new ArrayList<MapFileToWordOccurencesEntry>();
+				for (Object hit : (List<?>) ((Map<?, ?>) result).get("hits"))
+				{
+					Map<?, ?> fields = (Map<?, ?>) hit;
+					Map<String, MapWordToOccurences> variants = new LinkedHashMap<String, MapWordToOccurences>();
+					Map<?, ?> words = (Map<?, ?>) fields.get("variants");
+					if (words != null)
+					{
+						for (Map.Entry<?, ?> word : words.entrySet())
+						{
+							variants.put((String) word.getKey(), toOccurrences((Map<?, ?>) word.getValue()));
+						}
+					}
+					queryHits.add(new MapFileToWordOccurencesEntry((String) fields.get("file"),
+							toOccurrences((Map<?, ?>) fields.get("occurrences")), variants));
+				}
+				hits.add(queryHits);
+			}
+			return hits;
+		}
+		catch (IllegalArgumentException | ClassCastException | NullPointerException e)
+		{
+			throw new IOException("Invalid answer: " + e.getMessage(), e);
+		}
+	}
+
+	private static MapWordToOccurences toOccurrences(Map<?, ?> counts)
+	{
+		MapWordToOccurences occurrences = new MapWordToOccurences();
+		for (Map.Entry<?, ?> count : counts.entrySet())
+		{
+			occurrences.put((String) count.getKey(), ((Double) count.getValue()).intValue());
+		}
+		return occurrences;
+	}
+
+	private static String readAll(InputStream in) throws IOException
+	{
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) > 0)
+		{
+			body.write(buffer, 0, read);
+		}
+		return new String(body.toByteArray(), StandardCharsets.UTF_8);
+	}
+}
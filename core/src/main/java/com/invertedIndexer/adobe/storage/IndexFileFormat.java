@@ -0,0 +1,49 @@
+package com.invertedIndexer.adobe.storage;
+
+import com.invertedIndexer.adobe.types.CompressedPostings;
+
+/**
+ * @author Cotkaria
+ * Layout of the index files (all numbers are big-endian):
+ * -header: magic, version, counts, the offsets of the sections, the checksum of the data
+ * sections and the checksum of the header itself
+ * -metadata: language of the index and its stop words (the ones needed to analyze queries), then
+ * the size of the chunks of the postings
+ * -manifest: states of the indexed files, read only when the folder is indexed incrementally
+ * -document table: int offsets of the names, then the UTF-8 names
+ * -postings: for each term its compressed postings, see {@link CompressedPostings}. The section
+ * is made of chunks of 1GB (POSTINGS_CHUNK_SIZE), mapped one by one: the postings of a term never
+ * cross the end of a chunk, the end of a chunk is padded with zeros instead. The offsets of the postings in the
+ * dictionary are 64-bit offsets from the start of the section.
+ * -term dictionary: fixed size entries sorted by term bytes, so a term is found with a binary
+ * search directly in the mapped file. The flags of an entry tell whether the positions of the
+ * term were written with its postings.
+ * -term bytes: UTF-8 terms referenced by the dictionary
+ */
+final class IndexFileFormat
+{
+	static final int MAGIC = 0x49494458;	//"IIDX"
+	static final int VERSION = 5;
+
+	static final int HEADER_SIZE = 96;
+	static final int SECTIONS_POSITION = 16;
+	static final int SECTIONS_COUNT = 8;
+	static final int DATA_CHECKSUM_POSITION = 80;
+	static final int HEADER_CHECKSUM_POSITION = 88;
+
+	static final int DICTIONARY_ENTRY_SIZE = 28;
+	static final int ENTRY_TERM_OFFSET = 0;
+	static final int ENTRY_TERM_LENGTH = 4;
+	static final int ENTRY_DOC_FREQUENCY = 8;
+	static final int ENTRY_MAX_FREQUENCY = 12;
+	static final int ENTRY_POSTINGS_OFFSET = 16;
+	static final int ENTRY_FLAGS = 24;
+
+	static final int FLAG_POSITIONS = 1;
+
+	static final int POSTINGS_CHUNK_SIZE = 1 << 30;
+
+	private IndexFileFormat()
+	{
+	}
+}
@@ -0,0 +1,259 @@
+package com.invertedIndexer.adobe.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import com.invertedIndexer.adobe.types.CompressedPostings;
+import com.invertedIndexer.adobe.types.IndexView;
+import com.invertedIndexer.adobe.types.Postings;
+
+/**
+ * @author Cotkaria
+ * Writes an index to disk in the format described by {@link IndexFileFormat}.
+ * The file is written next to the destination and renamed once complete, so an existing index
+ * file is never left half-written. Removed documents are left out and the document ids compacted.
+ */
+public class IndexFileWriter
+{
+	private IndexFileWriter()
+	{
+	}
+
+	/**
+	 * @param index
+	 * @param metadata
+	 * @param file
+	 * @throws IOException
+	 */
+	public static void write(IndexView index, IndexMetadata metadata, File file) throws IOException
+	{
+		write(index, metadata, file, IndexFileFormat.POSTINGS_CHUNK_SIZE);
+	}
+
+	/**
+	 * @param index
+	 * @param metadata
+	 * @param file
+	 * @param postingsChunkSize: maximum size of the chunks of the postings section, smaller than
+	 * the default only in tests
+	 * @throws IOException if the postings of a term are larger than a chunk
+	 */
+	static void write(IndexView index, IndexMetadata metadata, File file, int postingsChunkSize) throws IOException
+	{
+		List<TermEntry> terms = getSortedTerms(index);
+		int[] docIdMap = new int[index.getDocumentCount()];
+		List<byte[]> documentNames = new ArrayList<byte[]>(docIdMap.length);
+		for (int docId = 0; docId < docIdMap.length; docId++)
+		{
+			String name = index.getDocumentName(docId);
+			docIdMap[docId] = (name != null) ? documentNames.size() : -1;
+			if (name != null)
+			{
+				documentNames.add(name.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		
+		File tempFile = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+		CRC32 dataChecksum = new CRC32();
+		long[] sections = new long[IndexFileFormat.SECTIONS_COUNT];
+		try (FileOutputStream fileStream = new FileOutputStream(tempFile))
+		{
+			fileStream.write(new byte[IndexFileFormat.HEADER_SIZE]);
+			
+			CountingOutputStream counter = new CountingOutputStream(
+					new CheckedOutputStream(new BufferedOutputStream(fileStream, 1 << 16), dataChecksum));
+			DataOutputStream out = new DataOutputStream(counter);
+			
+			sections[0] = IndexFileFormat.HEADER_SIZE + counter.mCount;
+			out.writeUTF(metadata.getLanguage());
+			out.writeInt(metadata.getStopWords().size());
+			for (String stopWord : metadata.getStopWords())
+			{
+				out.writeUTF(stopWord);
+			}
+			out.writeInt(postingsChunkSize);
+			
+			sections[1] = IndexFileFormat.HEADER_SIZE + counter.mCount;
+			out.writeBoolean(metadata.getManifest() != null);
+			if (metadata.getManifest() != null)
+			{
+				metadata.getManifest().write(out);
+			}
+			
+			sections[2] = IndexFileFormat.HEADER_SIZE + counter.mCount;
+			int nameOffset = 0;
+			for (byte[] name : documentNames)
+			{
+				out.writeInt(nameOffset);
+				nameOffset += name.length;
+			}
+			out.writeInt(nameOffset);
+			
+			sections[3] = IndexFileFormat.HEADER_SIZE + counter.mCount;
+			for (byte[] name : documentNames)
+			{
+				out.write(name);
+			}
+			
+			sections[4] = IndexFileFormat.HEADER_SIZE + counter.mCount;
+			long[] postingsOffsets = new long[terms.size()];
+			long postingsOffset = 0;
+			ByteArrayOutputStream postings = new ByteArrayOutputStream();
+			DataOutputStream postingsOut = new DataOutputStream(postings);
+			for (int i = 0; i < terms.size(); i++)
+			{
+				postings.reset();
+				int size = CompressedPostings.write(terms.get(i).mPostings, docIdMap, postingsOut);
+				if (size > postingsChunkSize)
+				{
+					throw new IOException("Postings of a term larger than " + postingsChunkSize + " bytes");
+				}
+				long chunkRemaining = postingsChunkSize - postingsOffset % postingsChunkSize;
+				if (size > chunkRemaining)
+				{
+					//the postings start the next chunk
+					out.write(new byte[(int) chunkRemaining]);
+					postingsOffset += chunkRemaining;
+				}
+				postingsOffsets[i] = postingsOffset;
+				postings.writeTo(out);
+				postingsOffset += size;
+			}
+			
+			sections[5] = IndexFileFormat.HEADER_SIZE + counter.mCount;
+			int termOffset = 0;
+			for (int i = 0; i < terms.size(); i++)
+			{
+				TermEntry term = terms.get(i);
+				out.writeInt(termOffset);
+				out.writeInt(term.mBytes.length);
+				out.writeInt(term.mPostings.size());
+				out.writeInt(term.mPostings.getMaxFrequency());
+				out.writeLong(postingsOffsets[i]);
+				out.writeInt(term.mPostings.hasPositions() ? IndexFileFormat.FLAG_POSITIONS : 0);
+				termOffset += term.mBytes.length;
+			}
+			
+			sections[6] = IndexFileFormat.HEADER_SIZE + counter.mCount;
+			for (TermEntry term : terms)
+			{
+				out.write(term.mBytes);
+			}
+			out.flush();
+			sections[7] = IndexFileFormat.HEADER_SIZE + counter.mCount;
+		}
+		
+		try (RandomAccessFile output = new RandomAccessFile(tempFile, "rw"))
+		{
+			ByteBuffer header = ByteBuffer.allocate(IndexFileFormat.HEADER_SIZE);
+			header.putInt(IndexFileFormat.MAGIC);
+			header.putInt(IndexFileFormat.VERSION);
+			header.putInt(documentNames.size());
+			header.putInt(terms.size());
+			for (long section : sections)
+			{
+				header.putLong(section);
+			}
+			header.putLong(dataChecksum.getValue());
+			CRC32 headerChecksum = new CRC32();
+			headerChecksum.update(header.array(), 0, IndexFileFormat.HEADER_CHECKSUM_POSITION);
+			header.putInt((int) headerChecksum.getValue());
+			output.write(header.array());
+		}
+		
+		Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * @return the terms sorted by their UTF-8 bytes, which is the order of the dictionary
+	 */
+	private static List<TermEntry> getSortedTerms(IndexView index)
+	{
+		List<TermEntry> terms = new ArrayList<TermEntry>(index.getTermCount());
+		Iterator<String> iterator = index.terms();
+		while (iterator.hasNext())
+		{
+			String term = iterator.next();
+			Postings postings = index.getPostings(term);
+			if (postings != null && postings.size() > 0)
+			{
+				terms.add(new TermEntry(term.getBytes(StandardCharsets.UTF_8), postings));
+			}
+		}
+		Collections.sort(terms, (t1, t2) -> compareBytes(t1.mBytes, t2.mBytes));
+		return terms;
+	}
+
+	static int compareBytes(byte[] bytes1, byte[] bytes2)
+	{
+		int length = Math.min(bytes1.length, bytes2.length);
+		for (int i = 0; i < length; i++)
+		{
+			int difference = (bytes1[i] & 0xff) - (bytes2[i] & 0xff);
+			if (difference != 0)
+			{
+				return difference;
+			}
+		}
+		return bytes1.length - bytes2.length;
+	}
+
+	private static class TermEntry
+	{
+		private byte[] mBytes;
+		private Postings mPostings;
+
+		TermEntry(byte[] bytes, Postings postings)
+		{
+			mBytes = bytes;
+			mPostings = postings;
+		}
+	}
+
+	private static class CountingOutputStream extends OutputStream
+	{
+		private OutputStream mOut;
+		private long mCount;
+
+		CountingOutputStream(OutputStream out)
+		{
+			mOut = out;
+		}
+
+		@Override
+		public void write(int b) throws IOException
+		{
+			mOut.write(b);
+			mCount++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			mOut.write(b, off, len);
+			mCount += len;
+		}
+
+		@Override
+		public void flush() throws IOException
+		{
+			mOut.flush();
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package com.invertedIndexer.adobe.storage;
+
+import java.util.List;
+
+import com.invertedIndexer.adobe.incremental.FileManifest;
+
+/**
+ * @author Cotkaria
+ * What is saved with an index besides the postings: the language and stop words needed to
+ * analyze the queries the same way the documents were analyzed, and the states of the indexed
+ * files needed to index the folder again incrementally
+ */
+public class IndexMetadata
+{
+	private String mLanguage;
+	private List<String> mStopWords;
+	private FileManifest mManifest;
+
+	/**
+	 * @param language: name of the stemming algorithm used to build the index
+	 * @param stopWords
+	 * @param manifest: may be null if the index was not built from a folder
+	 */
+	public IndexMetadata(String language, List<String> stopWords, FileManifest manifest)
+	{
+		mLanguage = language;
+		mStopWords = stopWords;
+		mManifest = manifest;
+	}
+
+	public String getLanguage()
+	{
+		return mLanguage;
+	}
+
+	public List<String> getStopWords()
+	{
+		return mStopWords;
+	}
+
+	public FileManifest getManifest()
+	{
+		return mManifest;
+	}
+}
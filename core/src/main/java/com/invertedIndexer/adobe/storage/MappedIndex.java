@@ -0,0 +1,347 @@
+package com.invertedIndexer.adobe.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+
+import com.invertedIndexer.adobe.incremental.FileManifest;
+import com.invertedIndexer.adobe.types.CompressedPostings;
+import com.invertedIndexer.adobe.types.IndexView;
+import com.invertedIndexer.adobe.types.Postings;
+
+/**
+ * @author Cotkaria
+ * Index opened from a file written by {@link IndexFileWriter}. The sections of the file are
+ * memory-mapped and nothing but the header and the stop words is read when the index is opened:
+ * terms are looked up with a binary search in the mapped dictionary and the compressed postings
+ * are paged in by the OS the first time a query reads them, then decoded a block at a time.
+ * Only absolute reads are done on the mapped buffers, so the index can be searched by several
+ * threads at the same time. The postings section is mapped in chunks of at most 2GB, so the size
+ * of an index is only limited by the address space.
+ * The postings are only compressed in the files: an index built in memory keeps uncompressed
+ * postings until it is saved and opened as a MappedIndex.
+ */
+public class MappedIndex implements IndexView
+{
+	private File mFile;
+	private int mDocumentCount;
+	private int mTermCount;
+	private long mDataChecksum;
+	private String mLanguage;
+	private List<String> mStopWords;
+	private int mPostingsChunkSize;
+
+	private ByteBuffer mManifest;
+	private ByteBuffer mDocumentOffsets;
+	private ByteBuffer mDocumentNames;
+	private ByteBuffer mDictionary;
+	private ByteBuffer mTermBytes;
+	private ByteBuffer[] mPostingsChunks;
+
+	private MappedIndex(File file)
+	{
+		mFile = file;
+	}
+
+	/**
+	 * @param file
+	 * @return the opened index
+	 * @throws IOException if the file is not an index file, has an unsupported version or a corrupted header
+	 */
+	public static MappedIndex open(File file) throws IOException
+	{
+		MappedIndex index = new MappedIndex(file);
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			index.map(channel);
+		}
+		return index;
+	}
+
+	private void map(FileChannel channel) throws IOException
+	{
+		if (channel.size() < IndexFileFormat.HEADER_SIZE)
+		{
+			throw new IOException("Not an index file: " + mFile);
+		}
+		ByteBuffer header = ByteBuffer.allocate(IndexFileFormat.HEADER_SIZE);
+		while (header.hasRemaining() && channel.read(header, header.position()) > 0)
+		{
+		}
+		header.flip();
+		
+		if (header.getInt(0) != IndexFileFormat.MAGIC)
+		{
+			throw new IOException("Not an index file: " + mFile);
+		}
+		CRC32 headerChecksum = new CRC32();
+		headerChecksum.update(header.array(), 0, IndexFileFormat.HEADER_CHECKSUM_POSITION);
+		if ((int) headerChecksum.getValue() != header.getInt(IndexFileFormat.HEADER_CHECKSUM_POSITION))
+		{
+			throw new IOException("Corrupted index file header: " + mFile);
+		}
+		int version = header.getInt(4);
+		if (version != IndexFileFormat.VERSION)
+		{
+			throw new IOException("Unsupported index file version " + version + " (expected "
+					+ IndexFileFormat.VERSION + "), the folder must be indexed again: " + mFile);
+		}
+		
+		mDocumentCount = header.getInt(8);
+		mTermCount = header.getInt(12);
+		long[] sections = new long[IndexFileFormat.SECTIONS_COUNT];
+		for (int i = 0; i < sections.length; i++)
+		{
+			sections[i] = header.getLong(IndexFileFormat.SECTIONS_POSITION + 8 * i);
+		}
+		mDataChecksum = header.getLong(IndexFileFormat.DATA_CHECKSUM_POSITION);
+		if (sections[sections.length - 1] != channel.size())
+		{
+			throw new IOException("Truncated index file: " + mFile);
+		}
+		
+		readMetadata(map(channel, sections[0], sections[1]));
+		mManifest = map(channel, sections[1], sections[2]);
+		mDocumentOffsets = map(channel, sections[2], sections[3]);
+		mDocumentNames = map(channel, sections[3], sections[4]);
+		mPostingsChunks = new ByteBuffer[(int) ((sections[5] - sections[4] + mPostingsChunkSize - 1) / mPostingsChunkSize)];
+		for (int i = 0; i < mPostingsChunks.length; i++)
+		{
+			long start = sections[4] + (long) i * mPostingsChunkSize;
+			mPostingsChunks[i] = map(channel, start, Math.min(start + mPostingsChunkSize, sections[5]));
+		}
+		mDictionary = map(channel, sections[5], sections[6]);
+		mTermBytes = map(channel, sections[6], sections[7]);
+	}
+
+	private static MappedByteBuffer map(FileChannel channel, long start, long end) throws IOException
+	{
+		if (end - start > Integer.MAX_VALUE)
+		{
+			throw new IOException("Index file section larger than 2GB");
+		}
+		return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+	}
+
+	private void readMetadata(ByteBuffer metadata) throws IOException
+	{
+		try (DataInputStream in = openSection(metadata))
+		{
+			mLanguage = in.readUTF();
+			int stopWordsCount = in.readInt();
+			mStopWords = new ArrayList<String>(stopWordsCount);
+			for (int i = 0; i < stopWordsCount; i++)
+			{
+				mStopWords.add(in.readUTF());
+			}
+			mPostingsChunkSize = in.readInt();
+			if (mPostingsChunkSize <= 0)
+			{
+				throw new IOException("Corrupted index file metadata: " + mFile);
+			}
+		}
+	}
+
+	/**
+	 * @return the states of the indexed files, null if the index was not built from a folder
+	 * @throws IOException
+	 */
+	public FileManifest readManifest() throws IOException
+	{
+		try (DataInputStream in = openSection(mManifest))
+		{
+			return in.readBoolean() ? FileManifest.read(in) : null;
+		}
+	}
+
+	private static DataInputStream openSection(ByteBuffer section)
+	{
+		byte[] bytes = new byte[section.limit()];
+		for (int i = 0; i < bytes.length; i++)
+		{
+			bytes[i] = section.get(i);
+		}
+		return new DataInputStream(new ByteArrayInputStream(bytes));
+	}
+
+	/**
+	 * Reads the whole file and compares its checksum with the one stored in the header
+	 * @throws IOException if the file is corrupted
+	 */
+	public void verify() throws IOException
+	{
+		CRC32 checksum = new CRC32();
+		try (FileChannel channel = FileChannel.open(mFile.toPath(), StandardOpenOption.READ))
+		{
+			ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+			long position = IndexFileFormat.HEADER_SIZE;
+			int read;
+			while ((read = channel.read(buffer, position)) > 0)
+			{
+				checksum.update(buffer.array(), 0, read);
+				position += read;
+				buffer.clear();
+			}
+		}
+		if (checksum.getValue() != mDataChecksum)
+		{
+			throw new IOException("Corrupted index file: " + mFile);
+		}
+	}
+
+	public String getLanguage()
+	{
+		return mLanguage;
+	}
+
+	public List<String> getStopWords()
+	{
+		return mStopWords;
+	}
+
+	public File getFile()
+	{
+		return mFile;
+	}
+
+	int getPostingsChunkCount()
+	{
+		return mPostingsChunks.length;
+	}
+
+	@Override
+	public int getDocumentCount()
+	{
+		return mDocumentCount;
+	}
+
+	@Override
+	public String getDocumentName(int docId)
+	{
+		int start = mDocumentOffsets.getInt(4 * docId);
+		int end = mDocumentOffsets.getInt(4 * (docId + 1));
+		return decode(mDocumentNames, start, end - start);
+	}
+
+	@Override
+	public int getTermCount()
+	{
+		return mTermCount;
+	}
+
+	@Override
+	public Postings getPostings(String term)
+	{
+		int entry = findTerm(term.getBytes(StandardCharsets.UTF_8));
+		return (entry >= 0) ? getPostings(entry) : null;
+	}
+
+	@Override
+	public Iterator<String> terms()
+	{
+		return new Iterator<String>()
+		{
+			private int mEntry = 0;
+
+			@Override
+			public boolean hasNext()
+			{
+				return mEntry < mTermCount;
+			}
+
+			@Override
+			public String next()
+			{
+				if (mEntry >= mTermCount)
+				{
+					throw new NoSuchElementException();
+				}
+				return getTerm(mEntry++);
+			}
+		};
+	}
+
+	private String getTerm(int entry)
+	{
+		int position = entry * IndexFileFormat.DICTIONARY_ENTRY_SIZE;
+		return decode(mTermBytes,
+				mDictionary.getInt(position + IndexFileFormat.ENTRY_TERM_OFFSET),
+				mDictionary.getInt(position + IndexFileFormat.ENTRY_TERM_LENGTH));
+	}
+
+	private Postings getPostings(int entry)
+	{
+		int position = entry * IndexFileFormat.DICTIONARY_ENTRY_SIZE;
+		long offset = mDictionary.getLong(position + IndexFileFormat.ENTRY_POSTINGS_OFFSET);
+		return new CompressedPostings(mPostingsChunks[(int) (offset / mPostingsChunkSize)], (int) (offset % mPostingsChunkSize),
+				mDictionary.getInt(position + IndexFileFormat.ENTRY_DOC_FREQUENCY),
+				mDictionary.getInt(position + IndexFileFormat.ENTRY_MAX_FREQUENCY),
+				(mDictionary.getInt(position + IndexFileFormat.ENTRY_FLAGS) & IndexFileFormat.FLAG_POSITIONS) != 0);
+	}
+
+	/**
+	 * @param term: UTF-8 bytes of the term
+	 * @return the index of the dictionary entry of the term, -1 if the term is not in the dictionary
+	 */
+	private int findTerm(byte[] term)
+	{
+		int low = 0;
+		int high = mTermCount - 1;
+		while (low <= high)
+		{
+			int middle = (low + high) >>> 1;
+			int comparison = compareTerm(middle, term);
+			if (comparison < 0)
+			{
+				low = middle + 1;
+			}
+			else if (comparison > 0)
+			{
+				high = middle - 1;
+			}
+			else
+			{
+				return middle;
+			}
+		}
+		return -1;
+	}
+
+	private int compareTerm(int entry, byte[] term)
+	{
+		int position = entry * IndexFileFormat.DICTIONARY_ENTRY_SIZE;
+		int offset = mDictionary.getInt(position + IndexFileFormat.ENTRY_TERM_OFFSET);
+		int length = mDictionary.getInt(position + IndexFileFormat.ENTRY_TERM_LENGTH);
+		int common = Math.min(length, term.length);
+		for (int i = 0; i < common; i++)
+		{
+			int difference = (mTermBytes.get(offset + i) & 0xff) - (term[i] & 0xff);
+			if (difference != 0)
+			{
+				return difference;
+			}
+		}
+		return length - term.length;
+	}
+
+	private static String decode(ByteBuffer buffer, int offset, int length)
+	{
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++)
+		{
+			bytes[i] = buffer.get(offset + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,285 @@
+package com.invertedIndexer.adobe.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * @author Cotkaria
+ * On-disk cache of the text extracted from documents, so files whose content did not change are
+ * not parsed again (e.g. when a folder is indexed again, or for another language).
+ * -an entry is keyed by the hash of the content of the file and the version of the extractor:
+ * a renamed or copied file hits the cache, and a new version of an extractor misses it
+ * -an entry is a gzip file holding the parts of the text, each one as its UTF-8 length and bytes,
+ * followed by -1, so a truncated entry is detected
+ * -the entries are evicted, least recently used first, once their total size exceeds the budget.
+ * The last use of an entry is its modification time, so the order survives a restart.
+ * Entries are written to a temporary file and renamed once complete.
+ */
+public class TextCache
+{
+	private static final String EXTENSION = ".gz";
+	private static final String TEMP_EXTENSION = ".tmp";
+	private static final int END_OF_PARTS = -1;
+
+	private final File mDirectory;
+	private final long mMaxBytes;
+	private final LinkedHashMap<String, Long> mEntries;	//key -> size on disk, least recently used first
+	private long mBytes;
+	private final LongAdder mHits;
+	private final LongAdder mMisses;
+	private final LongAdder mEvictions;
+	private final LongAdder mCorruptions;	//entries dropped as they could not be read
+
+	/**
+	 * @param directory: directory of the entries, created if needed. The entries already there
+	 * are reused.
+	 * @param maxBytes: maximum size of the entries on disk
+	 * @throws IOException
+	 */
+	public TextCache(File directory, long maxBytes) throws IOException
+	{
+		mDirectory = directory;
+		mMaxBytes = maxBytes;
+		mEntries = new LinkedHashMap<String, Long>(16, 0.75f, true);
+		mHits = new LongAdder();
+		mMisses = new LongAdder();
+		mEvictions = new LongAdder();
+		mCorruptions = new LongAdder();
+
+		Files.createDirectories(directory.toPath());
+		File[] files = directory.listFiles();
+		Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+		for (File file : files)
+		{
+			if (file.getName().endsWith(EXTENSION))
+			{
+				String key = file.getName().substring(0, file.getName().length() - EXTENSION.length());
+				mEntries.put(key, file.length());
+				mBytes += file.length();
+			}
+			else if (file.getName().endsWith(TEMP_EXTENSION))
+			{
+				file.delete();	//left over by an interrupted run
+			}
+		}
+		synchronized (this)
+		{
+			evict();
+		}
+	}
+
+	/**
+	 * @param contentHash: hash of the content of the file, see FileState
+	 * @param extractor: name and version of the extractor, e.g. "pdf.1"
+	 * @return the key of the text extracted from the file
+	 */
+	public static String key(byte[] contentHash, String extractor)
+	{
+		StringBuilder key = new StringBuilder(2 * contentHash.length + extractor.length() + 1);
+		for (byte b : contentHash)
+		{
+			key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return key.append('-').append(extractor).toString();
+	}
+
+	/**
+	 * @param key
+	 * @return the parts of the cached text, null if it is not cached (or the entry cannot be read,
+	 * it is then dropped and counted, see getCorruptionCount())
+	 */
+	public List<String> get(String key)
+	{
+		synchronized (this)
+		{
+			if (mEntries.get(key) == null)
+			{
+				mMisses.increment();
+				return null;
+			}
+		}
+
+		File file = getFile(key);
+		List<String> parts = new ArrayList<String>();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file)))))
+		{
+			int length;
+			while ((length = in.readInt()) != END_OF_PARTS)
+			{
+				byte[] bytes = new byte[length];
+				in.readFully(bytes);
+				parts.add(new String(bytes, StandardCharsets.UTF_8));
+			}
+		}
+		catch (FileNotFoundException e)
+		{
+			//evicted since it was looked up, the entry is read outside the lock
+			mMisses.increment();
+			return null;
+		}
+		catch (IOException e)
+		{
+			mCorruptions.increment();
+			remove(key);
+			mMisses.increment();
+			return null;
+		}
+		file.setLastModified(System.currentTimeMillis());
+		mHits.increment();
+		return parts;
+	}
+
+	/**
+	 * @param key
+	 * @return a writer of the text of a new entry, added to the cache once committed
+	 * @throws IOException
+	 */
+	public EntryWriter newEntry(String key) throws IOException
+	{
+		return new EntryWriter(key);
+	}
+
+	public long getHitCount()
+	{
+		return mHits.sum();
+	}
+
+	public long getMissCount()
+	{
+		return mMisses.sum();
+	}
+
+	public long getEvictionCount()
+	{
+		return mEvictions.sum();
+	}
+
+	/**
+	 * @return the number of entries dropped as they could not be read, e.g. truncated files
+	 */
+	public long getCorruptionCount()
+	{
+		return mCorruptions.sum();
+	}
+
+	/**
+	 * @return the size of the entries on disk
+	 */
+	public synchronized long getSize()
+	{
+		return mBytes;
+	}
+
+	public synchronized int getEntryCount()
+	{
+		return mEntries.size();
+	}
+
+	private File getFile(String key)
+	{
+		return new File(mDirectory, key + EXTENSION);
+	}
+
+	private synchronized void add(String key, long size)
+	{
+		Long previous = mEntries.put(key, size);
+		mBytes += size - ((previous != null) ? previous : 0);
+		evict();
+	}
+
+	private synchronized void remove(String key)
+	{
+		Long size = mEntries.remove(key);
+		if (size != null)
+		{
+			mBytes -= size;
+			getFile(key).delete();
+		}
+	}
+
+	private void evict()
+	{
+		Iterator<Map.Entry<String, Long>> entries = mEntries.entrySet().iterator();
+		while (mBytes > mMaxBytes && entries.hasNext())
+		{
+			Map.Entry<String, Long> entry = entries.next();
+			entries.remove();
+			mBytes -= entry.getValue();
+			getFile(entry.getKey()).delete();
+			mEvictions.increment();
+		}
+	}
+
+	/**
+	 * Writes the parts of a text as they are extracted. Nothing is cached if the writer is closed
+	 * without being committed, e.g. when the extraction fails.
+	 */
+	public class EntryWriter implements AutoCloseable
+	{
+		private String mKey;
+		private File mTempFile;
+		private DataOutputStream mOutput;
+
+		EntryWriter(String key) throws IOException
+		{
+			mKey = key;
+			mTempFile = File.createTempFile("entry", TEMP_EXTENSION, mDirectory);
+			mOutput = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(mTempFile))));
+		}
+
+		/**
+		 * @param part: next part of the text
+		 * @throws IOException
+		 */
+		public void write(CharSequence part) throws IOException
+		{
+			byte[] bytes = part.toString().getBytes(StandardCharsets.UTF_8);
+			mOutput.writeInt(bytes.length);
+			mOutput.write(bytes);
+		}
+
+		/**
+		 * @throws IOException
+		 * Adds the entry to the cache
+		 */
+		public void commit() throws IOException
+		{
+			mOutput.writeInt(END_OF_PARTS);
+			mOutput.close();
+			mOutput = null;
+			File file = getFile(mKey);
+			Files.move(mTempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			add(mKey, file.length());
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			if (mOutput != null)
+			{
+				mOutput.close();
+				mTempFile.delete();
+			}
+		}
+	}
+}
@@ -0,0 +1,342 @@
+package com.invertedIndexer.adobe.types;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * @author Cotkaria
+ * Postings compressed in blocks of BLOCK_SIZE documents, read in place from a buffer (a heap
+ * buffer or a mapped index file). Layout:
+ * -skip data, only when there is more than one block: for each block the last document id of the
+ * block and the offset of the block after the skip data (ints)
+ * -blocks: the gaps between the document ids, then the frequencies, as variable-byte integers
+ * (7 bits per byte, the high bit set on all bytes but the last one). The first gap of a block is
+ * relative to the last document id of the previous block, so a block is decoded on its own.
+ * With positions, the frequencies of a block are followed by the positions of its documents:
+ * for each document the gaps between its positions, the first one relative to 0.
+ * A cursor decodes one block at a time and skips the blocks that cannot contain its target.
+ * Positions are only decoded for the documents they are asked for.
+ */
+public class CompressedPostings implements Postings
+{
+	public static final int BLOCK_SIZE = 128;
+
+	private ByteBuffer mBuffer;
+	private int mOffset;
+	private int mSize;
+	private int mMaxFrequency;
+	private int mBlockCount;
+	private int mBlocksOffset;
+	private boolean mHasPositions;
+
+	/**
+	 * @param buffer: read with absolute gets only, it can be shared by several threads
+	 * @param offset: position of the encoded postings in the buffer
+	 * @param size: number of documents
+	 * @param maxFrequency
+	 * @param hasPositions: true if the postings were written with their positions
+	 */
+	public CompressedPostings(ByteBuffer buffer, int offset, int size, int maxFrequency, boolean hasPositions)
+	{
+		mBuffer = buffer;
+		mHasPositions = hasPositions;
+		mOffset = offset;
+		mSize = size;
+		mMaxFrequency = maxFrequency;
+		mBlockCount = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		mBlocksOffset = offset + ((mBlockCount > 1) ? 8 * mBlockCount : 0);
+	}
+
+	/**
+	 * @param postings
+	 * @return the postings compressed in a heap buffer
+	 */
+	public static CompressedPostings encode(Postings postings)
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try
+		{
+			write(postings, null, new DataOutputStream(bytes));
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException(e);	//not thrown by a ByteArrayOutputStream
+		}
+		return new CompressedPostings(ByteBuffer.wrap(bytes.toByteArray()), 0, postings.size(),
+				postings.getMaxFrequency(), postings.hasPositions());
+	}
+
+	/**
+	 * @param postings
+	 * @param docIdMap: new ids of the documents, null to keep the ids. It must preserve their order.
+	 * @param out
+	 * @return the number of bytes written. The positions are written if the postings have them.
+	 * @throws IOException
+	 */
+	public static int write(Postings postings, int[] docIdMap, DataOutputStream out) throws IOException
+	{
+		int blockCount = (postings.size() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		int[] lastDocIds = new int[blockCount];
+		int[] blockOffsets = new int[blockCount];
+		int[] frequencies = new int[BLOCK_SIZE];
+		ByteArrayOutputStream blocks = new ByteArrayOutputStream();
+		ByteArrayOutputStream blockPositions = postings.hasPositions() ? new ByteArrayOutputStream() : null;
+		PostingsCursor cursor = postings.cursor();
+		int previousDocId = 0;
+		for (int block = 0; block < blockCount; block++)
+		{
+			blockOffsets[block] = blocks.size();
+			int length = Math.min(BLOCK_SIZE, postings.size() - block * BLOCK_SIZE);
+			for (int i = 0; i < length; i++)
+			{
+				cursor.nextDoc();
+				int docId = (docIdMap != null) ? docIdMap[cursor.docId()] : cursor.docId();
+				writeVInt(blocks, docId - previousDocId);
+				previousDocId = docId;
+				frequencies[i] = cursor.frequency();
+				if (blockPositions != null)
+				{
+					int[] positions = cursor.positions();
+					for (int j = 0, previous = 0; j < frequencies[i]; previous = positions[j++])
+					{
+						writeVInt(blockPositions, positions[j] - previous);
+					}
+				}
+			}
+			for (int i = 0; i < length; i++)
+			{
+				writeVInt(blocks, frequencies[i]);
+			}
+			if (blockPositions != null)
+			{
+				blockPositions.writeTo(blocks);
+				blockPositions.reset();
+			}
+			lastDocIds[block] = previousDocId;
+		}
+		
+		int skipDataSize = 0;
+		if (blockCount > 1)
+		{
+			for (int block = 0; block < blockCount; block++)
+			{
+				out.writeInt(lastDocIds[block]);
+				out.writeInt(blockOffsets[block]);
+			}
+			skipDataSize = 8 * blockCount;
+		}
+		blocks.writeTo(out);
+		return skipDataSize + blocks.size();
+	}
+
+	private static void writeVInt(OutputStream out, int value) throws IOException
+	{
+		while ((value & ~0x7f) != 0)
+		{
+			out.write((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	@Override
+	public int size()
+	{
+		return mSize;
+	}
+
+	@Override
+	public int getMaxFrequency()
+	{
+		return mMaxFrequency;
+	}
+
+	@Override
+	public boolean hasPositions()
+	{
+		return mHasPositions;
+	}
+
+	@Override
+	public PostingsCursor cursor()
+	{
+		return new BlockCursor();
+	}
+
+	/**
+	 * @return the last document id of the block, Integer.MAX_VALUE if there is no skip data
+	 */
+	private int getLastDocId(int block)
+	{
+		return (mBlockCount > 1) ? mBuffer.getInt(mOffset + 8 * block) : Integer.MAX_VALUE;
+	}
+
+	private int getBlockOffset(int block)
+	{
+		return mBlocksOffset + ((mBlockCount > 1) ? mBuffer.getInt(mOffset + 8 * block + 4) : 0);
+	}
+
+	private class BlockCursor implements PostingsCursor
+	{
+		private int[] mDocIds = new int[Math.min(BLOCK_SIZE, mSize)];
+		private int[] mFrequencies = new int[mDocIds.length];
+		private int mBlock = -1;
+		private int mBlockLength = 0;
+		private int mIndex = -1;	//position in the current block
+		private int mDocId = -1;
+		private int mPosition;	//read position in the buffer while a block is decoded
+		private int mPositionsIndex;	//document of the current block whose positions start at mPositionsOffset
+		private int mPositionsOffset;
+		private int[] mPositions;
+
+		@Override
+		public int nextDoc()
+		{
+			if (mDocId == NO_MORE_DOCS)
+			{
+				return mDocId;
+			}
+			mIndex++;
+			if (mIndex >= mBlockLength)
+			{
+				if (mBlock + 1 >= mBlockCount)
+				{
+					mDocId = NO_MORE_DOCS;
+					return mDocId;
+				}
+				decodeBlock(mBlock + 1);
+			}
+			mDocId = mDocIds[mIndex];
+			return mDocId;
+		}
+
+		@Override
+		public int advance(int target)
+		{
+			if (target <= mDocId || mDocId == NO_MORE_DOCS)
+			{
+				return nextDoc();
+			}
+			if (mBlock < 0 || getLastDocId(mBlock) < target)
+			{
+				//binary search of the first block ending at or after the target, in the skip data
+				int low = mBlock + 1;
+				int high = mBlockCount - 1;
+				while (low <= high)
+				{
+					int middle = (low + high) >>> 1;
+					if (getLastDocId(middle) < target)
+					{
+						low = middle + 1;
+					}
+					else
+					{
+						high = middle - 1;
+					}
+				}
+				if (low >= mBlockCount)
+				{
+					mDocId = NO_MORE_DOCS;
+					return mDocId;
+				}
+				decodeBlock(low);
+			}
+			else
+			{
+				mIndex++;
+			}
+			
+			while (mIndex < mBlockLength && mDocIds[mIndex] < target)
+			{
+				mIndex++;
+			}
+			mDocId = (mIndex < mBlockLength) ? mDocIds[mIndex] : NO_MORE_DOCS;	//past the end of a list without skip data
+			return mDocId;
+		}
+
+		@Override
+		public int docId()
+		{
+			return mDocId;
+		}
+
+		@Override
+		public int frequency()
+		{
+			return mFrequencies[mIndex];
+		}
+
+		@Override
+		public int[] positions()
+		{
+			if (!mHasPositions)
+			{
+				return null;
+			}
+			//skip the positions of the documents passed over since the last call, the cursor only moves forward
+			mPosition = mPositionsOffset;
+			for (; mPositionsIndex < mIndex; mPositionsIndex++)
+			{
+				for (int count = mFrequencies[mPositionsIndex]; count > 0; )
+				{
+					if (mBuffer.get(mPosition++) >= 0)
+					{
+						count--;
+					}
+				}
+			}
+			mPositionsOffset = mPosition;
+			
+			int frequency = mFrequencies[mIndex];
+			if (mPositions == null || mPositions.length < frequency)
+			{
+				mPositions = new int[Math.max(frequency, 2 * ((mPositions != null) ? mPositions.length : 8))];
+			}
+			int position = 0;
+			for (int i = 0; i < frequency; i++)
+			{
+				position += readVInt();
+				mPositions[i] = position;
+			}
+			return mPositions;
+		}
+
+		private void decodeBlock(int block)
+		{
+			mBlock = block;
+			mBlockLength = Math.min(BLOCK_SIZE, mSize - block * BLOCK_SIZE);
+			mIndex = 0;
+			mPosition = getBlockOffset(block);
+			int docId = (block > 0) ? getLastDocId(block - 1) : 0;
+			for (int i = 0; i < mBlockLength; i++)
+			{
+				docId += readVInt();
+				mDocIds[i] = docId;
+			}
+			for (int i = 0; i < mBlockLength; i++)
+			{
+				mFrequencies[i] = readVInt();
+			}
+			mPositionsIndex = 0;
+			mPositionsOffset = mPosition;
+		}
+
+		private int readVInt()
+		{
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do
+			{
+				b = mBuffer.get(mPosition++);
+				value |= (b & 0x7f) << shift;
+				shift += 7;
+			}
+			while (b < 0);
+			return value;
+		}
+	}
+}
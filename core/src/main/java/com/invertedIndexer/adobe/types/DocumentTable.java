@@ -0,0 +1,94 @@
+package com.invertedIndexer.adobe.types;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * @author Cotkaria
+ * Dense table of indexed documents: every file name is stored once and gets an int id,
+ * in the order in which the documents were added. The postings refer to documents only by id.
+ * Removed documents leave an empty slot, ids are never reused.
+ */
+public class DocumentTable
+{
+	private List<String> mNames;
+	private HashMap<String, Integer> mIds;
+
+	public DocumentTable()
+	{
+		mNames = new ArrayList<String>();
+		mIds = new HashMap<String, Integer>();
+	}
+
+	/**
+	 * @param name
+	 * @return the id of the document, a new id is assigned if the document is not in the table yet
+	 */
+	public int getOrAdd(String name)
+	{
+		Integer id = mIds.get(name);
+		if (id == null)
+		{
+			id = mNames.size();
+			mNames.add(name);
+			mIds.put(name, id);
+		}
+		return id;
+	}
+
+	/**
+	 * @param name
+	 * @return the id of the document or -1 if the document is not in the table
+	 */
+	public int getId(String name)
+	{
+		Integer id = mIds.get(name);
+		return (id != null) ? id : -1;
+	}
+
+	/**
+	 * @param id
+	 * @return the name of the document, null if the document was removed
+	 */
+	public String getName(int id)
+	{
+		return mNames.get(id);
+	}
+
+	/**
+	 * @param name
+	 * @return the id the removed document had, -1 if the document is not in the table
+	 */
+	public int remove(String name)
+	{
+		Integer id = mIds.remove(name);
+		if (id == null)
+		{
+			return -1;
+		}
+		mNames.set(id, null);
+		return id;
+	}
+
+	public boolean contains(String name)
+	{
+		return mIds.containsKey(name);
+	}
+
+	/**
+	 * @return the number of ids handed out, removed documents included
+	 */
+	public int size()
+	{
+		return mNames.size();
+	}
+
+	/**
+	 * @return the number of documents in the table
+	 */
+	public int getLiveCount()
+	{
+		return mIds.size();
+	}
+}
@@ -0,0 +1,147 @@
+package com.invertedIndexer.adobe.types;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * @author Cotkaria
+ * Index kept on the heap while documents are added: terms mapped to growable postings lists
+ * and the table of the indexed documents
+ */
+public class InMemoryIndex implements IndexView
+{
+	private static final int ENTRY_BYTES = 32 + 40;	//hash map entry and String object, without the characters
+	private static final int DOCUMENT_BYTES = ENTRY_BYTES + 8 + 16;	//list slot and boxed id
+
+	private MapWordToFileOccurrences mTerms;
+	private DocumentTable mDocuments;
+
+	public InMemoryIndex()
+	{
+		mTerms = new MapWordToFileOccurrences();
+		mDocuments = new DocumentTable();
+	}
+
+	public MapWordToFileOccurrences getTermsMap()
+	{
+		return mTerms;
+	}
+
+	public DocumentTable getDocuments()
+	{
+		return mDocuments;
+	}
+
+	/**
+	 * @param name
+	 * @return true if the document was in the index
+	 * Removes the document and its postings; terms left without postings are removed as well
+	 */
+	public boolean removeDocument(String name)
+	{
+		int docId = mDocuments.remove(name);
+		if (docId < 0)
+		{
+			return false;
+		}
+		Iterator<PostingsList> iterator = mTerms.values().iterator();
+		while (iterator.hasNext())
+		{
+			PostingsList postings = iterator.next();
+			if (postings.remove(docId) && postings.size() == 0)
+			{
+				iterator.remove();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param index
+	 * @return a copy of the given index, e.g. to add documents to an index opened from disk
+	 * (removed documents are left out and the ids compacted). The positions of the terms are
+	 * copied when the index has them.
+	 */
+	public static InMemoryIndex copyOf(IndexView index)
+	{
+		InMemoryIndex copy = new InMemoryIndex();
+		int[] docIdMap = new int[index.getDocumentCount()];
+		for (int docId = 0; docId < docIdMap.length; docId++)
+		{
+			String name = index.getDocumentName(docId);
+			docIdMap[docId] = (name != null) ? copy.mDocuments.getOrAdd(name) : -1;
+		}
+		Iterator<String> terms = index.terms();
+		while (terms.hasNext())
+		{
+			String term = terms.next();
+			Postings postings = index.getPostings(term);
+			PostingsList postingsCopy = new PostingsList(postings.size(), postings.hasPositions());
+			PostingsCursor cursor = postings.cursor();
+			while (cursor.nextDoc() != PostingsCursor.NO_MORE_DOCS)
+			{
+				if (docIdMap[cursor.docId()] >= 0)
+				{
+					postingsCopy.add(docIdMap[cursor.docId()], cursor.positions(), 0, cursor.frequency());
+				}
+			}
+			if (postingsCopy.size() > 0)
+			{
+				copy.mTerms.put(term, postingsCopy);
+			}
+		}
+		return copy;
+	}
+
+	@Override
+	public int getDocumentCount()
+	{
+		return mDocuments.size();
+	}
+
+	@Override
+	public String getDocumentName(int docId)
+	{
+		return mDocuments.getName(docId);
+	}
+
+	@Override
+	public int getDocumentId(String name)
+	{
+		return mDocuments.getId(name);
+	}
+
+	@Override
+	public int getTermCount()
+	{
+		return mTerms.size();
+	}
+
+	@Override
+	public PostingsList getPostings(String term)
+	{
+		return mTerms.get(term);
+	}
+
+	@Override
+	public Iterator<String> terms()
+	{
+		return mTerms.keySet().iterator();
+	}
+
+	@Override
+	public long estimateHeapBytes()
+	{
+		long bytes = 0;
+		for (Map.Entry<String, PostingsList> entry : mTerms.entrySet())
+		{
+			bytes += ENTRY_BYTES + 2L * entry.getKey().length() + entry.getValue().estimateHeapBytes();
+		}
+		for (int docId = 0; docId < mDocuments.size(); docId++)
+		{
+			String name = mDocuments.getName(docId);
+			bytes += (name != null) ? DOCUMENT_BYTES + 2L * name.length() : 8;
+		}
+		return bytes;
+	}
+}
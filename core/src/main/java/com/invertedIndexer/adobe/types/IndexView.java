@@ -0,0 +1,77 @@
+package com.invertedIndexer.adobe.types;
+
+import java.util.Iterator;
+
+/**
+ * @author Cotkaria
+ * Read-only view of an inverted index: the document table and the postings of every term.
+ * Searches only go through this interface, so they run the same way on the index being built
+ * in memory and on an index opened from disk.
+ */
+public interface IndexView
+{
+	/**
+	 * @return the number of document ids, documents have the ids 0..getDocumentCount()-1
+	 */
+	int getDocumentCount();
+
+	/**
+	 * @param docId
+	 * @return the name of the document, null if the document was removed from the index
+	 */
+	String getDocumentName(int docId);
+
+	/**
+	 * @param name
+	 * @return the id of the document with the given name, -1 if there is none. The default
+	 * implementation goes through all the documents.
+	 */
+	default int getDocumentId(String name)
+	{
+		for (int docId = 0; docId < getDocumentCount(); docId++)
+		{
+			if (name.equals(getDocumentName(docId)))
+			{
+				return docId;
+			}
+		}
+		return -1;
+	}
+
+	int getTermCount();
+
+	/**
+	 * @param term: analyzed (stemmed) word
+	 * @return the postings of the term, null if the term is not indexed
+	 */
+	Postings getPostings(String term);
+
+	/**
+	 * @return all the indexed terms
+	 */
+	Iterator<String> terms();
+
+	/**
+	 * @return the number of (term, document) pairs of the index. The default implementation goes
+	 * through the postings of all the terms.
+	 */
+	default long getPostingCount()
+	{
+		long count = 0;
+		Iterator<String> terms = terms();
+		while (terms.hasNext())
+		{
+			count += getPostings(terms.next()).size();
+		}
+		return count;
+	}
+
+	/**
+	 * @return approximate number of heap bytes used by the index, 0 for an index that is not kept
+	 * on the heap (e.g. memory-mapped from disk)
+	 */
+	default long estimateHeapBytes()
+	{
+		return 0;
+	}
+}
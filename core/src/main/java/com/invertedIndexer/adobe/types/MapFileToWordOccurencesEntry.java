@@ -0,0 +1,81 @@
+package com.invertedIndexer.adobe.types;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * @author Cotkaria
+ * Search result: the name of a file and the occurrences of the searched words in it
+ */
+public class MapFileToWordOccurencesEntry
+{
+	private final String mKey;
+	private final MapWordToOccurences mValue;
+	private final Map<String, MapWordToOccurences> mVariants;
+
+	public MapFileToWordOccurencesEntry(String key, MapWordToOccurences value)
+	{
+		this(key, value, Collections.<String, MapWordToOccurences>emptyMap());
+	}
+
+	/**
+	 * @param key: name of the file
+	 * @param value: occurrences of the searched words
+	 * @param variants: occurrences of the terms matched by the wildcard and fuzzy words, see getVariants()
+	 */
+	public MapFileToWordOccurencesEntry(String key, MapWordToOccurences value, Map<String, MapWordToOccurences> variants)
+	{
+		mKey = key;
+		mValue = value;
+		mVariants = variants;
+	}
+
+	/**
+	 * @return the name of the file
+	 */
+	public String getKey()
+	{
+		return mKey;
+	}
+
+	/**
+	 * @return the number of occurrences of every searched word in the file
+	 */
+	public MapWordToOccurences getValue()
+	{
+		return mValue;
+	}
+
+	/**
+	 * @return for every searched word matching several terms (wildcards, typos), the number of
+	 * occurrences of each term found in the file; the searched word counts their sum
+	 */
+	public Map<String, MapWordToOccurences> getVariants()
+	{
+		return mVariants;
+	}
+
+	@Override
+	public boolean equals(Object other)
+	{
+		if (!(other instanceof MapFileToWordOccurencesEntry))
+		{
+			return false;
+		}
+		MapFileToWordOccurencesEntry entry = (MapFileToWordOccurencesEntry) other;
+		return Objects.equals(mKey, entry.mKey) && Objects.equals(mValue, entry.mValue) && Objects.equals(mVariants, entry.mVariants);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return (Objects.hashCode(mKey) * 13 + Objects.hashCode(mValue)) * 13 + Objects.hashCode(mVariants);
+	}
+
+	@Override
+	public String toString()
+	{
+		return mKey + "=" + mValue;
+	}
+}
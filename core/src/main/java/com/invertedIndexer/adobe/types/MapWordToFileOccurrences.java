@@ -0,0 +1,8 @@
+package com.invertedIndexer.adobe.types;
+
+import java.util.HashMap;
+
+public class MapWordToFileOccurrences extends HashMap<String, PostingsList>
+{
+
+}
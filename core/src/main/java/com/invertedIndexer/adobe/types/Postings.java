@@ -0,0 +1,28 @@
+package com.invertedIndexer.adobe.types;
+
+/**
+ * @author Cotkaria
+ * Read access to the postings of a term, whatever their storage (heap arrays, mapped file...)
+ */
+public interface Postings
+{
+	/**
+	 * @return the number of documents containing the term
+	 */
+	int size();
+
+	/**
+	 * @return the highest number of occurrences of the term in a single document
+	 */
+	int getMaxFrequency();
+
+	PostingsCursor cursor();
+
+	/**
+	 * @return true if the positions of the term in the documents are indexed, see PostingsCursor.positions()
+	 */
+	default boolean hasPositions()
+	{
+		return false;
+	}
+}
@@ -0,0 +1,41 @@
+package com.invertedIndexer.adobe.types;
+
+/**
+ * @author Cotkaria
+ * Forward-only iterator over the postings of a term, in ascending document id order
+ */
+public interface PostingsCursor
+{
+	int NO_MORE_DOCS = Integer.MAX_VALUE;
+
+	/**
+	 * @return the next document id, NO_MORE_DOCS when the postings are exhausted
+	 */
+	int nextDoc();
+
+	/**
+	 * @param target
+	 * @return the first document id greater than or equal to the target, NO_MORE_DOCS if there is none
+	 */
+	int advance(int target);
+
+	/**
+	 * @return the current document id, -1 before the first call to nextDoc() or advance()
+	 */
+	int docId();
+
+	/**
+	 * @return the number of occurrences of the term in the current document
+	 */
+	int frequency();
+
+	/**
+	 * @return the positions of the term in the current document, ascending, in the first frequency()
+	 * elements of the array. The array is reused by the cursor, it is only valid until the cursor
+	 * moves. Null if the positions are not indexed.
+	 */
+	default int[] positions()
+	{
+		return null;
+	}
+}
@@ -0,0 +1,560 @@
+package com.invertedIndexer.adobe.types;
+
+import java.util.Arrays;
+
+/**
+ * @author Cotkaria
+ * Postings of a single term: the ids of the documents containing the term, sorted ascending,
+ * and the number of occurrences in each of them. Both are kept in growable int arrays, so a
+ * posting costs two ints instead of a HashMap node, a boxed Integer and a file name reference.
+ * Optionally the positions of the term in each document are kept as well, in a single byte array:
+ * the gaps between the positions of a document as variable-byte integers (the first one relative
+ * to 0), and the end offset of the positions of each posting. A list without positions does not
+ * allocate them.
+ */
+public class PostingsList implements Postings
+{
+	private static final int INITIAL_CAPACITY = 2;
+
+	private int[] mDocIds;
+	private int[] mFrequencies;
+	private int mSize;
+	private int mMaxFrequency;
+	private byte[] mPositions;	//null when the positions are not indexed
+	private int[] mPositionEnds;	//end of the positions of each posting in mPositions
+
+	public PostingsList()
+	{
+		this(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * @param hasPositions: true to keep the positions of the term, see add(int, int[], int, int)
+	 */
+	public PostingsList(boolean hasPositions)
+	{
+		this(INITIAL_CAPACITY, hasPositions);
+	}
+
+	public PostingsList(int capacity)
+	{
+		this(capacity, false);
+	}
+
+	/**
+	 * @param capacity
+	 * @param hasPositions: true to keep the positions of the term, see add(int, int[], int, int)
+	 */
+	public PostingsList(int capacity, boolean hasPositions)
+	{
+		mDocIds = new int[Math.max(1, capacity)];
+		mFrequencies = new int[mDocIds.length];
+		mSize = 0;
+		if (hasPositions)
+		{
+			mPositions = new byte[mDocIds.length];
+			mPositionEnds = new int[mDocIds.length];
+		}
+	}
+
+	/**
+	 * @param docId
+	 * Adds one occurrence of the term in the given document
+	 */
+	public void add(int docId)
+	{
+		add(docId, 1);
+	}
+
+	/**
+	 * @param docId
+	 * @param frequency
+	 * Adds occurrences of the term in the given document. Documents are usually added in
+	 * ascending order, which is a simple append; an older document is inserted in place.
+	 * @throws IllegalStateException if the list keeps positions
+	 */
+	public void add(int docId, int frequency)
+	{
+		if (mPositions != null)
+		{
+			throw new IllegalStateException("The postings keep positions, they must be added with the occurrences");
+		}
+		addPosting(docId, frequency);
+	}
+
+	/**
+	 * @param docId
+	 * @param positions
+	 * @param from: index of the first position to be added
+	 * @param count: number of positions to be added, ascending and after the positions of the
+	 * document already in the list
+	 * Adds occurrences of the term at the given positions of the document
+	 */
+	public void add(int docId, int[] positions, int from, int count)
+	{
+		if (mPositions == null)
+		{
+			addPosting(docId, count);
+			return;
+		}
+		int index = addPosting(docId, count);
+		int start = (index > 0) ? mPositionEnds[index - 1] : 0;
+		int previousPosition = 0;
+		if (mFrequencies[index] > count)
+		{
+			for (int position = start; position < mPositionEnds[index]; )
+			{
+				int delta = 0;
+				int shift = 0;
+				byte b;
+				do
+				{
+					b = mPositions[position++];
+					delta |= (b & 0x7f) << shift;
+					shift += 7;
+				}
+				while (b < 0);
+				previousPosition += delta;
+			}
+		}
+
+		int length = 0;
+		for (int i = from, previous = previousPosition; i < from + count; previous = positions[i++])
+		{
+			length += vIntSize(positions[i] - previous);
+		}
+		int end = mPositionEnds[index];
+		int positionsLength = mPositionEnds[mSize - 1];
+		if (positionsLength + length > mPositions.length)
+		{
+			mPositions = Arrays.copyOf(mPositions, Math.max(positionsLength + length, mPositions.length + (mPositions.length >> 1) + 1));
+		}
+		System.arraycopy(mPositions, end, mPositions, end + length, positionsLength - end);
+		for (int i = from, previous = previousPosition; i < from + count; previous = positions[i++])
+		{
+			end = writeVInt(mPositions, end, positions[i] - previous);
+		}
+		for (int i = index; i < mSize; i++)
+		{
+			mPositionEnds[i] += length;
+		}
+	}
+
+	/**
+	 * @return the index of the posting of the document, which is added if needed
+	 */
+	private int addPosting(int docId, int frequency)
+	{
+		int index;
+		if (mSize > 0 && mDocIds[mSize - 1] == docId)
+		{
+			index = mSize - 1;
+			mFrequencies[index] += frequency;
+		}
+		else if (mSize == 0 || mDocIds[mSize - 1] < docId)
+		{
+			ensureCapacity(mSize + 1);
+			index = mSize;
+			mDocIds[index] = docId;
+			mFrequencies[index] = frequency;
+			if (mPositions != null)
+			{
+				mPositionEnds[index] = (index > 0) ? mPositionEnds[index - 1] : 0;
+			}
+			mSize++;
+		}
+		else
+		{
+			index = Arrays.binarySearch(mDocIds, 0, mSize, docId);
+			if (index >= 0)
+			{
+				mFrequencies[index] += frequency;
+			}
+			else
+			{
+				index = -index - 1;
+				ensureCapacity(mSize + 1);
+				System.arraycopy(mDocIds, index, mDocIds, index + 1, mSize - index);
+				System.arraycopy(mFrequencies, index, mFrequencies, index + 1, mSize - index);
+				mDocIds[index] = docId;
+				mFrequencies[index] = frequency;
+				if (mPositions != null)
+				{
+					System.arraycopy(mPositionEnds, index, mPositionEnds, index + 1, mSize - index);
+					mPositionEnds[index] = (index > 0) ? mPositionEnds[index - 1] : 0;
+				}
+				mSize++;
+			}
+		}
+		mMaxFrequency = Math.max(mMaxFrequency, mFrequencies[index]);
+		return index;
+	}
+
+	/**
+	 * @param other
+	 * @param docIdMap: maps the document ids of the other list to ids of this list
+	 * Merges the postings of another list into this one in a single pass. When the map does not
+	 * preserve the order of the documents, the mapped postings are sorted first. The positions
+	 * are kept if both lists have them; the positions of a document in both lists are merged.
+	 */
+	public void merge(PostingsList other, int[] docIdMap)
+	{
+		int[] otherDocIds = new int[other.mSize];
+		int[] order = new int[other.mSize];	//indexes of the postings of the other list, by mapped id
+		boolean isSorted = true;
+		for (int j = 0; j < other.mSize; j++)
+		{
+			otherDocIds[j] = docIdMap[other.mDocIds[j]];
+			order[j] = j;
+			isSorted &= (j == 0) || otherDocIds[j - 1] < otherDocIds[j];
+		}
+		if (!isSorted)
+		{
+			long[] postings = new long[other.mSize];
+			for (int j = 0; j < postings.length; j++)
+			{
+				postings[j] = ((long) otherDocIds[j] << 32) | j;
+			}
+			Arrays.sort(postings);
+			for (int j = 0; j < postings.length; j++)
+			{
+				otherDocIds[j] = (int) (postings[j] >>> 32);
+				order[j] = (int) postings[j];
+			}
+		}
+
+		boolean hasPositions = mPositions != null && other.mPositions != null;
+		int[] docIds = new int[mSize + other.mSize];
+		int[] frequencies = new int[docIds.length];
+		int[] positionEnds = hasPositions ? new int[docIds.length] : null;
+		byte[] positions = hasPositions ? new byte[getPositionsLength() + other.getPositionsLength()] : null;
+		int positionsLength = 0;
+		int size = 0;
+		int i = 0;
+		int j = 0;
+		while (i < mSize || j < other.mSize)
+		{
+			int otherDocId = (j < other.mSize) ? otherDocIds[j] : Integer.MAX_VALUE;
+			if (i < mSize && mDocIds[i] < otherDocId)
+			{
+				docIds[size] = mDocIds[i];
+				frequencies[size] = mFrequencies[i];
+				if (hasPositions)
+				{
+					positionsLength = copyPositions(i, positions, positionsLength);
+				}
+				i++;
+			}
+			else if (i < mSize && mDocIds[i] == otherDocId)
+			{
+				docIds[size] = mDocIds[i];
+				frequencies[size] = mFrequencies[i] + other.mFrequencies[order[j]];
+				if (hasPositions)
+				{
+					int[] merged = mergePositions(decodePositions(i), mFrequencies[i],
+							other.decodePositions(order[j]), other.mFrequencies[order[j]]);
+					if (positionsLength + 5 * merged.length > positions.length)
+					{
+						positions = Arrays.copyOf(positions, positions.length + 5 * merged.length);
+					}
+					for (int k = 0, previous = 0; k < merged.length; previous = merged[k++])
+					{
+						positionsLength = writeVInt(positions, positionsLength, merged[k] - previous);
+					}
+				}
+				i++;
+				j++;
+			}
+			else
+			{
+				docIds[size] = otherDocId;
+				frequencies[size] = other.mFrequencies[order[j]];
+				if (hasPositions)
+				{
+					positionsLength = other.copyPositions(order[j], positions, positionsLength);
+				}
+				j++;
+			}
+			if (hasPositions)
+			{
+				positionEnds[size] = positionsLength;
+			}
+			size++;
+		}
+		mDocIds = docIds;
+		mFrequencies = frequencies;
+		mPositions = positions;
+		mPositionEnds = positionEnds;
+		mSize = size;
+		mMaxFrequency = 0;
+		for (int k = 0; k < size; k++)
+		{
+			mMaxFrequency = Math.max(mMaxFrequency, frequencies[k]);
+		}
+	}
+
+	/**
+	 * @return the offset following the positions of the posting copied at the given offset
+	 */
+	private int copyPositions(int index, byte[] positions, int offset)
+	{
+		int start = (index > 0) ? mPositionEnds[index - 1] : 0;
+		int length = mPositionEnds[index] - start;
+		System.arraycopy(mPositions, start, positions, offset, length);
+		return offset + length;
+	}
+
+	private static int[] mergePositions(int[] positions1, int length1, int[] positions2, int length2)
+	{
+		int[] merged = new int[length1 + length2];
+		int i = 0;
+		int j = 0;
+		for (int k = 0; k < merged.length; k++)
+		{
+			merged[k] = (j >= length2 || (i < length1 && positions1[i] <= positions2[j])) ? positions1[i++] : positions2[j++];
+		}
+		return merged;
+	}
+
+	/**
+	 * @param docId
+	 * @return true if the document was in the postings
+	 */
+	public boolean remove(int docId)
+	{
+		int index = Arrays.binarySearch(mDocIds, 0, mSize, docId);
+		if (index < 0)
+		{
+			return false;
+		}
+		int frequency = mFrequencies[index];
+		if (mPositions != null)
+		{
+			int start = (index > 0) ? mPositionEnds[index - 1] : 0;
+			int length = mPositionEnds[index] - start;
+			System.arraycopy(mPositions, mPositionEnds[index], mPositions, start, getPositionsLength() - mPositionEnds[index]);
+			for (int i = index + 1; i < mSize; i++)
+			{
+				mPositionEnds[i - 1] = mPositionEnds[i] - length;
+			}
+		}
+		System.arraycopy(mDocIds, index + 1, mDocIds, index, mSize - index - 1);
+		System.arraycopy(mFrequencies, index + 1, mFrequencies, index, mSize - index - 1);
+		mSize--;
+		if (frequency == mMaxFrequency)
+		{
+			mMaxFrequency = 0;
+			for (int i = 0; i < mSize; i++)
+			{
+				mMaxFrequency = Math.max(mMaxFrequency, mFrequencies[i]);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param docId
+	 * @return the number of occurrences of the term in the given document, 0 if it does not occur
+	 */
+	public int getFrequencyOf(int docId)
+	{
+		int index = Arrays.binarySearch(mDocIds, 0, mSize, docId);
+		return (index >= 0) ? mFrequencies[index] : 0;
+	}
+
+	public int getDocId(int index)
+	{
+		return mDocIds[index];
+	}
+
+	public int getFrequency(int index)
+	{
+		return mFrequencies[index];
+	}
+
+	@Override
+	public int size()
+	{
+		return mSize;
+	}
+
+	@Override
+	public int getMaxFrequency()
+	{
+		return mMaxFrequency;
+	}
+
+	@Override
+	public boolean hasPositions()
+	{
+		return mPositions != null;
+	}
+
+	@Override
+	public PostingsCursor cursor()
+	{
+		return new ArrayCursor();
+	}
+
+	public void trimToSize()
+	{
+		if (mDocIds.length > mSize)
+		{
+			mDocIds = Arrays.copyOf(mDocIds, Math.max(1, mSize));
+			mFrequencies = Arrays.copyOf(mFrequencies, mDocIds.length);
+			if (mPositions != null)
+			{
+				mPositionEnds = Arrays.copyOf(mPositionEnds, mDocIds.length);
+			}
+		}
+		if (mPositions != null && mPositions.length > getPositionsLength())
+		{
+			mPositions = Arrays.copyOf(mPositions, getPositionsLength());
+		}
+	}
+
+	/**
+	 * @return approximate number of heap bytes used by this list (object and array headers included)
+	 */
+	public long estimateHeapBytes()
+	{
+		long bytes = 24 + 2 * (16 + 4L * mDocIds.length);
+		if (mPositions != null)
+		{
+			bytes += 16 + mPositions.length + 16 + 4L * mPositionEnds.length;
+		}
+		return bytes;
+	}
+
+	private int getPositionsLength()
+	{
+		return (mPositions != null && mSize > 0) ? mPositionEnds[mSize - 1] : 0;
+	}
+
+	/**
+	 * @return the positions of the posting, in a new array of its frequency
+	 */
+	private int[] decodePositions(int index)
+	{
+		return decodePositions(index, new int[mFrequencies[index]]);
+	}
+
+	private int[] decodePositions(int index, int[] positions)
+	{
+		int offset = (index > 0) ? mPositionEnds[index - 1] : 0;
+		int position = 0;
+		for (int i = 0; i < mFrequencies[index]; i++)
+		{
+			int shift = 0;
+			byte b;
+			do
+			{
+				b = mPositions[offset++];
+				position += (b & 0x7f) << shift;
+				shift += 7;
+			}
+			while (b < 0);
+			positions[i] = position;
+		}
+		return positions;
+	}
+
+	private static int vIntSize(int value)
+	{
+		int size = 1;
+		while ((value & ~0x7f) != 0)
+		{
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+	/**
+	 * @return the offset following the written value
+	 */
+	private static int writeVInt(byte[] bytes, int offset, int value)
+	{
+		while ((value & ~0x7f) != 0)
+		{
+			bytes[offset++] = (byte) ((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		bytes[offset++] = (byte) value;
+		return offset;
+	}
+
+	private class ArrayCursor implements PostingsCursor
+	{
+		private int mIndex = -1;
+		private int mDocId = -1;
+		private int[] mPositionsBuffer;
+
+		@Override
+		public int nextDoc()
+		{
+			mIndex++;
+			mDocId = (mIndex < mSize) ? mDocIds[mIndex] : NO_MORE_DOCS;
+			return mDocId;
+		}
+
+		@Override
+		public int advance(int target)
+		{
+			//galloping search from the current position, then binary search in the last step
+			int low = mIndex + 1;
+			int step = 1;
+			int high = low;
+			while (high < mSize && mDocIds[high] < target)
+			{
+				low = high + 1;
+				high += step;
+				step <<= 1;
+			}
+			int index = Arrays.binarySearch(mDocIds, low, Math.min(high + 1, mSize), target);
+			mIndex = (index >= 0) ? index : -index - 1;
+			mDocId = (mIndex < mSize) ? mDocIds[mIndex] : NO_MORE_DOCS;
+			return mDocId;
+		}
+
+		@Override
+		public int docId()
+		{
+			return mDocId;
+		}
+
+		@Override
+		public int frequency()
+		{
+			return mFrequencies[mIndex];
+		}
+
+		@Override
+		public int[] positions()
+		{
+			if (mPositions == null)
+			{
+				return null;
+			}
+			if (mPositionsBuffer == null || mPositionsBuffer.length < mFrequencies[mIndex])
+			{
+				mPositionsBuffer = new int[Math.max(mFrequencies[mIndex], 2 * ((mPositionsBuffer != null) ? mPositionsBuffer.length : 8))];
+			}
+			return decodePositions(mIndex, mPositionsBuffer);
+		}
+	}
+
+	private void ensureCapacity(int capacity)
+	{
+		if (capacity > mDocIds.length)
+		{
+			int newCapacity = Math.max(capacity, mDocIds.length + (mDocIds.length >> 1) + 1);
+			mDocIds = Arrays.copyOf(mDocIds, newCapacity);
+			mFrequencies = Arrays.copyOf(mFrequencies, newCapacity);
+			if (mPositions != null)
+			{
+				mPositionEnds = Arrays.copyOf(mPositionEnds, newCapacity);
+			}
+		}
+	}
+}
@@ -0,0 +1,460 @@
+package com.invertedIndexer.adobe.types;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * @author Cotkaria
+ * Immutable index made of segments, each one an index that is not modified anymore (a merged
+ * in-memory index or an index opened from disk), along with the documents removed from them.
+ * The documents of a segment follow those of the previous segments: a document id is the id in
+ * its segment plus the number of documents of the previous segments.
+ * Adding a segment or removing documents returns a new index, so an index can be searched by any
+ * number of threads while the next one is built. The term dictionaries of the segments are shared
+ * with the next indexes, so a dictionary is built once per segment, not once per index.
+ */
+public final class SegmentedIndex implements IndexView
+{
+	public static final SegmentedIndex EMPTY = new SegmentedIndex(new IndexView[0], new BitSet[0], new SegmentDictionary[0]);
+
+	private final IndexView[] mSegments;
+	private final BitSet[] mRemoved;	//removed documents of each segment, null if there are none
+	private final int[] mDocBases;
+	private final int mDocumentCount;
+	private volatile String[] mTerms;	//terms of all the segments, computed the first time they are needed
+	private final SegmentDictionary[] mDictionaries;	//dictionary of each segment
+
+	private SegmentedIndex(IndexView[] segments, BitSet[] removed, SegmentDictionary[] dictionaries)
+	{
+		mSegments = segments;
+		mRemoved = removed;
+		mDictionaries = dictionaries;
+		mDocBases = new int[segments.length];
+		int documentCount = 0;
+		for (int i = 0; i < segments.length; i++)
+		{
+			mDocBases[i] = documentCount;
+			documentCount += segments[i].getDocumentCount();
+		}
+		mDocumentCount = documentCount;
+	}
+
+	/**
+	 * @param segment: index that will not be modified anymore
+	 * @return an index made of the given segment only
+	 */
+	public static SegmentedIndex of(IndexView segment)
+	{
+		return EMPTY.withSegment(segment);
+	}
+
+	/**
+	 * @param segment: index that will not be modified anymore
+	 * @return a new index with the given segment after the segments of this one
+	 */
+	public SegmentedIndex withSegment(IndexView segment)
+	{
+		IndexView[] segments = Arrays.copyOf(mSegments, mSegments.length + 1);
+		BitSet[] removed = Arrays.copyOf(mRemoved, mRemoved.length + 1);
+		SegmentDictionary[] dictionaries = Arrays.copyOf(mDictionaries, mDictionaries.length + 1);
+		segments[mSegments.length] = segment;
+		dictionaries[mSegments.length] = new SegmentDictionary(segment);
+		return new SegmentedIndex(segments, removed, dictionaries);
+	}
+
+	/**
+	 * @param names
+	 * @return a new index without the documents with the given names
+	 */
+	public SegmentedIndex withoutDocuments(Collection<String> names)
+	{
+		BitSet[] removed = mRemoved.clone();
+		boolean isChanged = false;
+		for (int i = 0; i < mSegments.length; i++)
+		{
+			for (String name : names)
+			{
+				int docId = mSegments[i].getDocumentId(name);
+				if (docId >= 0 && !isRemoved(i, docId))
+				{
+					if (removed[i] == mRemoved[i])
+					{
+						removed[i] = (mRemoved[i] != null) ? (BitSet) mRemoved[i].clone() : new BitSet();
+					}
+					removed[i].set(docId);
+					isChanged = true;
+				}
+			}
+		}
+		return isChanged ? new SegmentedIndex(mSegments.clone(), removed, mDictionaries.clone()) : this;
+	}
+
+	/**
+	 * @param from: index of the first segment to be merged
+	 * @return a new index where the segments from the given one are merged into a single
+	 * in-memory segment, without their removed documents
+	 */
+	public SegmentedIndex withMergedSegments(int from)
+	{
+		if (from >= mSegments.length - 1)
+		{
+			return this;
+		}
+		SegmentedIndex merged = new SegmentedIndex(Arrays.copyOfRange(mSegments, from, mSegments.length),
+				Arrays.copyOfRange(mRemoved, from, mRemoved.length), Arrays.copyOfRange(mDictionaries, from, mDictionaries.length));
+		SegmentedIndex index = new SegmentedIndex(Arrays.copyOf(mSegments, from), Arrays.copyOf(mRemoved, from),
+				Arrays.copyOf(mDictionaries, from));
+		return index.withSegment(InMemoryIndex.copyOf(merged));
+	}
+
+	/**
+	 * @param name
+	 * @param consumer: receives every term of the document, with a cursor positioned on the document
+	 * Goes through the terms of the segment holding the document, e.g. to copy the document into a
+	 * new segment. Nothing is received if the index has no document with that name.
+	 */
+	public void forEachTermOf(String name, BiConsumer<String, PostingsCursor> consumer)
+	{
+		for (int i = mSegments.length - 1; i >= 0; i--)
+		{
+			int docId = mSegments[i].getDocumentId(name);
+			if (docId >= 0 && !isRemoved(i, docId))
+			{
+				Iterator<String> terms = mSegments[i].terms();
+				while (terms.hasNext())
+				{
+					String term = terms.next();
+					PostingsCursor cursor = mSegments[i].getPostings(term).cursor();
+					if (cursor.advance(docId) == docId)
+					{
+						consumer.accept(term, cursor);
+					}
+				}
+				return;
+			}
+		}
+	}
+
+	public int getSegmentCount()
+	{
+		return mSegments.length;
+	}
+
+	public IndexView getSegment(int segment)
+	{
+		return mSegments[segment];
+	}
+
+	private boolean isRemoved(int segment, int docId)
+	{
+		return mRemoved[segment] != null && mRemoved[segment].get(docId);
+	}
+
+	@Override
+	public int getDocumentCount()
+	{
+		return mDocumentCount;
+	}
+
+	@Override
+	public String getDocumentName(int docId)
+	{
+		int segment = Arrays.binarySearch(mDocBases, docId);
+		if (segment < 0)
+		{
+			segment = -segment - 2;
+		}
+		else
+		{
+			while (segment + 1 < mDocBases.length && mDocBases[segment + 1] == docId)
+			{
+				segment++;	//skip the empty segments
+			}
+		}
+		int segmentDocId = docId - mDocBases[segment];
+		return isRemoved(segment, segmentDocId) ? null : mSegments[segment].getDocumentName(segmentDocId);
+	}
+
+	@Override
+	public int getTermCount()
+	{
+		return (mSegments.length == 1) ? mSegments[0].getTermCount() : getTerms().length;
+	}
+
+	@Override
+	public Postings getPostings(String term)
+	{
+		List<Postings> postings = new ArrayList<Postings>(mSegments.length);
+		List<Integer> segments = new ArrayList<Integer>(mSegments.length);
+		for (int i = 0; i < mSegments.length; i++)
+		{
+			Postings segmentPostings = mSegments[i].getPostings(term);
+			if (segmentPostings != null)
+			{
+				postings.add(segmentPostings);
+				segments.add(i);
+			}
+		}
+		if (postings.isEmpty())
+		{
+			return null;
+		}
+		if (postings.size() == 1 && mRemoved[segments.get(0)] == null && mDocBases[segments.get(0)] == 0)
+		{
+			return postings.get(0);
+		}
+		return new SegmentedPostings(postings, segments);
+	}
+
+	/**
+	 * @return the number of (term, document) pairs of the segments, the postings of the removed
+	 * documents are counted until their segment is merged
+	 */
+	@Override
+	public long getPostingCount()
+	{
+		long count = 0;
+		for (IndexView segment : mSegments)
+		{
+			count += segment.getPostingCount();
+		}
+		return count;
+	}
+
+	@Override
+	public long estimateHeapBytes()
+	{
+		long bytes = 0;
+		for (IndexView segment : mSegments)
+		{
+			bytes += segment.estimateHeapBytes();
+		}
+		return bytes;
+	}
+
+	@Override
+	public Iterator<String> terms()
+	{
+		return (mSegments.length == 1) ? mSegments[0].terms() : Arrays.asList(getTerms()).iterator();
+	}
+
+	/**
+	 * @return the dictionary of the terms of all the segments. The dictionary of a segment is
+	 * built the first time a pattern is expanded in an index holding it, and kept by the next ones.
+	 */
+	public TermDictionary getTermDictionary()
+	{
+		List<TermDictionary> dictionaries = new ArrayList<TermDictionary>(mDictionaries.length);
+		for (SegmentDictionary dictionary : mDictionaries)
+		{
+			dictionaries.add(dictionary.get());
+		}
+		return dictionaries.isEmpty() ? new TermDictionary(Collections.<String>emptyList()) : TermDictionary.of(dictionaries);
+	}
+
+	private String[] getTerms()
+	{
+		String[] terms = mTerms;
+		if (terms == null)
+		{
+			Set<String> allTerms = new LinkedHashSet<String>();
+			for (IndexView segment : mSegments)
+			{
+				Iterator<String> iterator = segment.terms();
+				while (iterator.hasNext())
+				{
+					allTerms.add(iterator.next());
+				}
+			}
+			terms = allTerms.toArray(new String[allTerms.size()]);
+			mTerms = terms;
+		}
+		return terms;
+	}
+
+	/**
+	 * Term dictionary of a segment, built the first time it is needed
+	 */
+	private static class SegmentDictionary
+	{
+		private final IndexView mSegment;
+		private volatile TermDictionary mDictionary;
+
+		SegmentDictionary(IndexView segment)
+		{
+			mSegment = segment;
+		}
+
+		TermDictionary get()
+		{
+			TermDictionary dictionary = mDictionary;
+			if (dictionary == null)
+			{
+				List<String> terms = new ArrayList<String>(mSegment.getTermCount());
+				mSegment.terms().forEachRemaining(terms::add);
+				dictionary = new TermDictionary(terms);
+				mDictionary = dictionary;
+			}
+			return dictionary;
+		}
+	}
+
+	/**
+	 * Postings of a term in several segments, walked one segment after the other
+	 */
+	private class SegmentedPostings implements Postings
+	{
+		private List<Postings> mPostings;
+		private int[] mSegmentIds;
+		private int mSize = -1;
+
+		SegmentedPostings(List<Postings> postings, List<Integer> segments)
+		{
+			mPostings = postings;
+			mSegmentIds = new int[segments.size()];
+			for (int i = 0; i < mSegmentIds.length; i++)
+			{
+				mSegmentIds[i] = segments.get(i);
+			}
+		}
+
+		@Override
+		public int size()
+		{
+			if (mSize < 0)
+			{
+				int size = 0;
+				for (int i = 0; i < mSegmentIds.length; i++)
+				{
+					if (mRemoved[mSegmentIds[i]] == null)
+					{
+						size += mPostings.get(i).size();
+					}
+					else
+					{
+						PostingsCursor cursor = mPostings.get(i).cursor();
+						while (cursor.nextDoc() != PostingsCursor.NO_MORE_DOCS)
+						{
+							size += isRemoved(mSegmentIds[i], cursor.docId()) ? 0 : 1;
+						}
+					}
+				}
+				mSize = size;
+			}
+			return mSize;
+		}
+
+		/**
+		 * @return the highest frequency of the term in the segments, removed documents included
+		 */
+		@Override
+		public int getMaxFrequency()
+		{
+			int maxFrequency = 0;
+			for (Postings postings : mPostings)
+			{
+				maxFrequency = Math.max(maxFrequency, postings.getMaxFrequency());
+			}
+			return maxFrequency;
+		}
+
+		/**
+		 * @return true if the positions of the term are indexed in all the segments
+		 */
+		@Override
+		public boolean hasPositions()
+		{
+			for (Postings postings : mPostings)
+			{
+				if (!postings.hasPositions())
+				{
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public PostingsCursor cursor()
+		{
+			return new SegmentedCursor();
+		}
+
+		private class SegmentedCursor implements PostingsCursor
+		{
+			private int mPart = -1;	//index of the current segment in mPostings
+			private PostingsCursor mCursor;
+			private int mDocId = -1;
+
+			@Override
+			public int nextDoc()
+			{
+				return advance(mDocId + 1);
+			}
+
+			@Override
+			public int advance(int target)
+			{
+				if (mDocId == NO_MORE_DOCS)
+				{
+					return mDocId;
+				}
+				target = Math.max(target, mDocId + 1);
+				while (true)
+				{
+					//skip the segments ending before the target
+					while (mCursor == null || (mPart + 1 < mPostings.size() && mDocBases[mSegmentIds[mPart + 1]] <= target))
+					{
+						mPart++;
+						if (mPart >= mPostings.size())
+						{
+							mDocId = NO_MORE_DOCS;
+							return mDocId;
+						}
+						mCursor = mPostings.get(mPart).cursor();
+					}
+					
+					int segment = mSegmentIds[mPart];
+					int docBase = mDocBases[segment];
+					int segmentDocId = (mCursor.docId() < target - docBase) ? mCursor.advance(target - docBase) : mCursor.nextDoc();
+					while (segmentDocId != NO_MORE_DOCS && isRemoved(segment, segmentDocId))
+					{
+						segmentDocId = mCursor.nextDoc();
+					}
+					if (segmentDocId != NO_MORE_DOCS)
+					{
+						mDocId = docBase + segmentDocId;
+						return mDocId;
+					}
+					mCursor = null;	//segment exhausted, go on with the next one
+				}
+			}
+
+			@Override
+			public int docId()
+			{
+				return mDocId;
+			}
+
+			@Override
+			public int frequency()
+			{
+				return mCursor.frequency();
+			}
+
+			@Override
+			public int[] positions()
+			{
+				return mCursor.positions();
+			}
+		}
+	}
+}
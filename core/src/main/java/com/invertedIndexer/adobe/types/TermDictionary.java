@@ -0,0 +1,379 @@
+package com.invertedIndexer.adobe.types;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * @author Cotkaria
+ * Sorted dictionary of the terms of an index, next to the hash lookup of their postings, to expand
+ * the patterns of wildcard queries: '*' matches any characters, '?' a single one.
+ * -a pattern with a literal prefix ("invoic*") only checks the sorted range of the prefix
+ * -a pattern starting with a wildcard ("*order", "*voic*") checks the terms sharing its k-grams:
+ * the k-gram index maps every sequence of GRAM_LENGTH characters of "$term$" to the terms holding
+ * it, and is built the first time it is needed
+ * It also finds the terms close to a misspelled word, see findSimilar().
+ * The dictionary of an index made of segments is made of the dictionaries of the segments (see
+ * of()): a segment does not change, so its dictionary is built once and the patterns are
+ * expanded in every segment, then their terms merged.
+ */
+public final class TermDictionary
+{
+	private static final int GRAM_LENGTH = 3;
+	private static final char BOUNDARY = '$';	//marks the start and the end of a term in its k-grams
+
+	private final String[] mTerms;	//null for the dictionary of several segments
+	private final TermDictionary[] mSegments;	//null for the dictionary of a single segment
+	private volatile Map<String, int[]> mGrams;	//k-gram -> ids of the terms, in ascending order
+
+	/**
+	 * @param terms: distinct terms, in any order. Terms already sorted (e.g. read from the sorted
+	 * dictionary of an index file) are not sorted again.
+	 */
+	public TermDictionary(Collection<String> terms)
+	{
+		mTerms = terms.toArray(new String[terms.size()]);
+		mSegments = null;
+		for (int i = 1; i < mTerms.length; i++)
+		{
+			if (mTerms[i - 1].compareTo(mTerms[i]) > 0)
+			{
+				Arrays.sort(mTerms);
+				break;
+			}
+		}
+	}
+
+	private TermDictionary(TermDictionary[] segments)
+	{
+		mTerms = null;
+		mSegments = segments;
+	}
+
+	/**
+	 * @param segments: dictionaries of the segments of an index
+	 * @return the dictionary of the terms of all the segments, a term may be in several ones
+	 */
+	public static TermDictionary of(List<TermDictionary> segments)
+	{
+		return (segments.size() == 1) ? segments.get(0) : new TermDictionary(segments.toArray(new TermDictionary[segments.size()]));
+	}
+
+	/**
+	 * @return the number of distinct terms, counted through the terms of all the segments for the
+	 * dictionary of several segments
+	 */
+	public int size()
+	{
+		if (mSegments == null)
+		{
+			return mTerms.length;
+		}
+		Set<String> terms = new HashSet<String>();
+		for (TermDictionary segment : mSegments)
+		{
+			terms.addAll(Arrays.asList(segment.mTerms));
+		}
+		return terms.size();
+	}
+
+	/**
+	 * @param word
+	 * @return true if the word contains wildcards
+	 */
+	public static boolean isPattern(String word)
+	{
+		return indexOfWildcard(word, 0) >= 0;
+	}
+
+	/**
+	 * @param pattern: lower case pattern, see the class comment
+	 * @param maxTerms: maximum number of terms the pattern may match
+	 * @return the terms matching the pattern, sorted
+	 * @throws IllegalArgumentException if the pattern matches more than maxTerms terms
+	 */
+	public List<String> expand(String pattern, int maxTerms)
+	{
+		if (mSegments != null)
+		{
+			Set<String> terms = new TreeSet<String>();
+			for (TermDictionary segment : mSegments)
+			{
+				terms.addAll(segment.expand(pattern, maxTerms));
+				if (terms.size() > maxTerms)
+				{
+					throw new IllegalArgumentException("The pattern " + pattern + " matches more than " + maxTerms + " terms");
+				}
+			}
+			return new ArrayList<String>(terms);
+		}
+
+		int wildcard = indexOfWildcard(pattern, 0);
+		if (wildcard < 0)
+		{
+			return (Arrays.binarySearch(mTerms, pattern) >= 0) ? Collections.singletonList(pattern) : Collections.emptyList();
+		}
+
+		List<String> terms = new ArrayList<String>();
+		if (wildcard > 0)
+		{
+			String prefix = pattern.substring(0, wildcard);
+			int from = Arrays.binarySearch(mTerms, prefix);
+			for (int id = (from >= 0) ? from : -from - 1; id < mTerms.length && mTerms[id].startsWith(prefix); id++)
+			{
+				addMatch(terms, pattern, mTerms[id], maxTerms);
+			}
+		}
+		else
+		{
+			int[] candidates = findCandidates(pattern);
+			int count = (candidates != null) ? candidates.length : mTerms.length;
+			for (int i = 0; i < count; i++)
+			{
+				addMatch(terms, pattern, mTerms[(candidates != null) ? candidates[i] : i], maxTerms);
+			}
+		}
+		return terms;
+	}
+
+	/**
+	 * @param word: lower case analyzed term
+	 * @param maxEdits: maximum number of inserted, deleted or replaced characters
+	 * @return the terms at most maxEdits edits away from the word, sorted, with their distance.
+	 * The sorted terms are walked like a trie with a Levenshtein automaton: the distances from the
+	 * word to the first characters of a term are computed one row per character, the rows of the
+	 * prefix shared with the previous term are kept, and once all the distances of a row exceed
+	 * maxEdits (a dead state) the terms starting with this prefix are skipped.
+	 */
+	public Map<String, Integer> findSimilar(String word, int maxEdits)
+	{
+		if (mSegments != null)
+		{
+			Map<String, Integer> similar = new TreeMap<String, Integer>();
+			for (TermDictionary segment : mSegments)
+			{
+				similar.putAll(segment.findSimilar(word, maxEdits));
+			}
+			return new LinkedHashMap<String, Integer>(similar);
+		}
+
+		Map<String, Integer> similar = new LinkedHashMap<String, Integer>();
+		int length = word.length();
+		int[][] rows = new int[16][];	//rows[d][j]: distance between the first d characters of the term and the first j of the word
+		rows[0] = new int[length + 1];
+		for (int j = 0; j <= length; j++)
+		{
+			rows[0][j] = j;
+		}
+		String previous = "";
+		int depth = 0;	//number of rows computed for the previous term
+		int id = 0;
+		while (id < mTerms.length)
+		{
+			String term = mTerms[id];
+			int limit = Math.min(depth, term.length());
+			depth = 0;
+			while (depth < limit && term.charAt(depth) == previous.charAt(depth))
+			{
+				depth++;
+			}
+
+			boolean isDead = false;
+			while (depth < term.length() && !isDead)
+			{
+				if (depth + 1 == rows.length)
+				{
+					rows = Arrays.copyOf(rows, rows.length * 2);
+				}
+				if (rows[depth + 1] == null)
+				{
+					rows[depth + 1] = new int[length + 1];
+				}
+				int[] row = rows[depth];
+				int[] next = rows[depth + 1];
+				char c = term.charAt(depth);
+				next[0] = row[0] + 1;
+				int min = next[0];
+				for (int j = 1; j <= length; j++)
+				{
+					int replace = row[j - 1] + ((word.charAt(j - 1) == c) ? 0 : 1);
+					next[j] = Math.min(replace, Math.min(row[j], next[j - 1]) + 1);
+					min = Math.min(min, next[j]);
+				}
+				depth++;
+				isDead = min > maxEdits;
+			}
+			previous = term;
+
+			if (isDead)
+			{
+				//no term starting with the same characters matches
+				int next = Arrays.binarySearch(mTerms, id + 1, mTerms.length, term.substring(0, depth) + Character.MAX_VALUE);
+				id = (next >= 0) ? next + 1 : -next - 1;
+			}
+			else
+			{
+				if (rows[depth][length] <= maxEdits)
+				{
+					similar.put(term, rows[depth][length]);
+				}
+				id++;
+			}
+		}
+		return similar;
+	}
+
+	private static void addMatch(List<String> terms, String pattern, String term, int maxTerms)
+	{
+		if (matches(pattern, term))
+		{
+			if (terms.size() == maxTerms)
+			{
+				throw new IllegalArgumentException("The pattern " + pattern + " matches more than " + maxTerms + " terms");
+			}
+			terms.add(term);
+		}
+	}
+
+	/**
+	 * @return the ids of the terms holding all the k-grams of the literal parts of the pattern, in
+	 * ascending order; null if the literal parts are too short to have k-grams
+	 */
+	private int[] findCandidates(String pattern)
+	{
+		String padded = BOUNDARY + pattern + BOUNDARY;
+		int[] candidates = null;
+		int start = 0;
+		while (start < padded.length())
+		{
+			int end = indexOfWildcard(padded, start);
+			end = (end < 0) ? padded.length() : end;
+			for (int i = start; i + GRAM_LENGTH <= end; i++)
+			{
+				int[] ids = getGrams().get(padded.substring(i, i + GRAM_LENGTH));
+				if (ids == null)
+				{
+					return new int[0];
+				}
+				candidates = (candidates == null) ? ids : intersect(candidates, ids);
+			}
+			start = end + 1;
+		}
+		return candidates;
+	}
+
+	private static int[] intersect(int[] ids1, int[] ids2)
+	{
+		int[] ids = new int[Math.min(ids1.length, ids2.length)];
+		int count = 0;
+		int j = 0;
+		for (int i = 0; i < ids1.length && j < ids2.length; i++)
+		{
+			while (j < ids2.length && ids2[j] < ids1[i])
+			{
+				j++;
+			}
+			if (j < ids2.length && ids2[j] == ids1[i])
+			{
+				ids[count++] = ids1[i];
+			}
+		}
+		return Arrays.copyOf(ids, count);
+	}
+
+	private Map<String, int[]> getGrams()
+	{
+		Map<String, int[]> grams = mGrams;
+		if (grams == null)
+		{
+			//ids[0] is the number of ids, the ids follow
+			grams = new HashMap<String, int[]>();
+			for (int id = 0; id < mTerms.length; id++)
+			{
+				String padded = BOUNDARY + mTerms[id] + BOUNDARY;
+				for (int i = 0; i + GRAM_LENGTH <= padded.length(); i++)
+				{
+					String gram = padded.substring(i, i + GRAM_LENGTH);
+					int[] ids = grams.get(gram);
+					if (ids == null)
+					{
+						ids = new int[4];
+					}
+					else if (ids[ids[0]] == id)
+					{
+						continue;	//k-gram repeated in the term
+					}
+					else if (ids[0] + 1 == ids.length)
+					{
+						ids = Arrays.copyOf(ids, ids.length * 2);
+					}
+					ids[++ids[0]] = id;
+					grams.put(gram, ids);
+				}
+			}
+			grams.replaceAll((gram, ids) -> Arrays.copyOfRange(ids, 1, ids[0] + 1));
+			mGrams = grams;
+		}
+		return grams;
+	}
+
+	private static int indexOfWildcard(String text, int from)
+	{
+		for (int i = from; i < text.length(); i++)
+		{
+			if (text.charAt(i) == '*' || text.charAt(i) == '?')
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return true if the term matches the pattern
+	 */
+	private static boolean matches(String pattern, String term)
+	{
+		//the last '*' first matches nothing, then one more character every time the rest does not match
+		int star = -1;
+		int starTermIndex = 0;
+		int p = 0;
+		int t = 0;
+		while (t < term.length())
+		{
+			if (p < pattern.length() && (pattern.charAt(p) == '?' || pattern.charAt(p) == term.charAt(t)))
+			{
+				p++;
+				t++;
+			}
+			else if (p < pattern.length() && pattern.charAt(p) == '*')
+			{
+				star = p++;
+				starTermIndex = t;
+			}
+			else if (star >= 0)
+			{
+				p = star + 1;
+				t = ++starTermIndex;
+			}
+			else
+			{
+				return false;
+			}
+		}
+		while (p < pattern.length() && pattern.charAt(p) == '*')
+		{
+			p++;
+		}
+		return p == pattern.length();
+	}
+}
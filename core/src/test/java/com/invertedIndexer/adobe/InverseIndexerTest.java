@@ -0,0 +1,701 @@
+package com.invertedIndexer.adobe;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+import com.invertedIndexer.adobe.metrics.MetricsSnapshot;
+import com.invertedIndexer.adobe.types.MapFileToWordOccurencesEntry;
+import com.invertedIndexer.adobe.types.MapWordToOccurences;
+
+import opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class InverseIndexerTest extends TestCase
+{
+	public InverseIndexerTest(String testName)
+	{
+		super(testName);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(InverseIndexerTest.class);
+	}
+	
+	public void testWithSimpleWords()
+	{
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		
+		String textA = "Ana are mere";
+		String docA = "DocA.txt";
+		indexer.indexText(textA, docA);
+		
+		String textB = "Ana are ana";
+		String docB = "DocB.txt";
+		indexer.indexText(textB, docB);
+		
+		String word = "ana";
+		List<String> results = indexer.find(word);
+		assertEquals(2, results.size());
+		if(results.size() == 2)
+		{
+			assertEquals(results.get(0), docB);
+			assertEquals(results.get(1), docA);
+		}
+	}
+	
+	public void testWithStemmedWords()
+	{
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		
+		String textA = "Myself was being blackmailed by thyself";
+		String docA = "DocA.txt";
+		indexer.indexText(textA, docA);
+		
+		String textB = "Eurepides, the blackmailer, himself was blackmailing thyself himself myself";
+		String docB = "DocB.txt";
+		indexer.indexText(textB, docB);
+		
+		String word = "BLACKmail";
+		List<String> results = indexer.find(word);
+		assertEquals(2, results.size());
+		if(results.size() == 2)
+		{
+			assertEquals(results.get(0), docB);
+			assertEquals(results.get(1), docA);
+		}
+	}
+	
+	public void testWithComposedWords()
+	{
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		
+		String textA = "Myself was being auto-asphyxiated by thyself";
+		String docA = "DocA.txt";
+		indexer.indexText(textA, docA);
+		
+		String textB = "Eurepides, the blackmailer, dies from asphyxiation";
+		String docB = "DocB.txt";
+		indexer.indexText(textB, docB);
+		
+		String word = "asphyxi";
+		List<String> results = indexer.find(word);
+		assertEquals(2, results.size());
+		if(results.size() == 2)
+		{
+			assertEquals(results.get(0), docB);
+			assertEquals(results.get(1), docA);
+		}
+	}
+	
+	public void testWithStopWords()
+	{
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		
+		List<String> stopWords = new ArrayList<String>();
+		stopWords.add("by");
+		stopWords.add("was");
+		indexer.setStopWordsList(stopWords);
+		
+		String textA = "Myself was being auto-asphyxiated by thyself";
+		String docA = "DocA.txt";
+		indexer.indexText(textA, docA);
+		
+		List<String> results1 = indexer.find("by");
+		assertTrue(results1.isEmpty());
+		
+		List<String> results2 = indexer.find("was");
+		assertTrue(results2.isEmpty());
+		
+		List<String> results3 = indexer.find("be");
+		assertTrue(results3.size() == 1);
+		if(results3.size() == 1)
+		{
+			assertEquals(results3.get(0), docA);
+		}
+	}
+	
+	public void testWithStemmedSearchWords()
+	{
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		
+		String textA = "Myself was being auto-asphyxiated by thyself through blackmailing, blackmailed";
+		String docA = "DocA.txt";
+		indexer.indexText(textA, docA);
+		
+		String textB = "Eurepides, the blackmailer, dies from asphyxiation";
+		String docB = "DocB.txt";
+		indexer.indexText(textB, docB);
+		
+		String word = "blackmailers";
+		List<String> results = indexer.find(word);
+		assertEquals(2, results.size());
+		if(results.size() == 2)
+		{
+			assertEquals(results.get(0), docA);
+			assertEquals(results.get(1), docB);
+		}
+	}
+	
+	public void testWithMultipleSearchWords()
+	{
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		
+		String textA = "Myself was being auto-asphyxiated by thyself through blackmailing, blackmailed";
+		String docA = "DocA.txt";
+		indexer.indexText(textA, docA);
+		
+		String textB = "Eurepides, the blackmailer, dies from asphyxiation";
+		String docB = "DocB.txt";
+		indexer.indexText(textB, docB);
+		
+		String word = "blackmailers asphyxiations";
+		List<String> results = indexer.find(word);
+		assertEquals(2, results.size());
+		if(results.size() == 2)
+		{
+			assertEquals(results.get(0), docA);
+			assertEquals(results.get(1), docB);
+		}
+	}
+	
+	public void testWithCountForMultipleSearchWords()
+	{
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		
+		String textA = "Myself was being auto-asphyxiated by thyself through blackmailing, blackmailed";
+		String docA = "DocA.txt";
+		indexer.indexText(textA, docA);
+		
+		String textB = "Eurepides, the blackmailer, dies from asphyxiation";
+		String docB = "DocB.txt";
+		indexer.indexText(textB, docB);
+		
+		String word1 = "blackmailers";
+		String word2 = "asphyxiations";
+		String composedWord = word1 + " " + word2;
+		List<MapFileToWordOccurencesEntry> results = indexer.findWithCount(composedWord);
+		assertEquals(2, results.size());
+		if(results.size() == 2)
+		{
+			String fileName0 = results.get(0).getKey();
+			String fileName1 = results.get(1).getKey();
+			
+			assertEquals(fileName0, docA);
+			assertEquals(fileName1, docB);
+			
+			MapWordToOccurences wordToOccurrences0 = results.get(0).getValue();
+			assertEquals(wordToOccurrences0.get(word1).intValue(), 2);
+			assertEquals(wordToOccurrences0.get(word2).intValue(), 1);
+			
+			MapWordToOccurences wordToOccurrences1 = results.get(1).getValue();
+			assertEquals(wordToOccurrences1.get(word1).intValue(), 1);
+			assertEquals(wordToOccurrences1.get(word2).intValue(), 1);
+		}
+	}
+	
+	public void testParallelIndexingMatchesSingleThreaded() throws Exception
+	{
+		File docsFolder = TestHelpers.getDocumentsFolder();
+		File stopWordsFile = new File(docsFolder.getParentFile(), "stopwords_en.txt");
+		
+		InverseIndexer singleThreaded = new InverseIndexer(ALGORITHM.ENGLISH);
+		singleThreaded.index(docsFolder, stopWordsFile);
+		
+		InverseIndexer parallel = new InverseIndexer(ALGORITHM.ENGLISH);
+		parallel.setIndexingThreads(4);
+		parallel.index(docsFolder, stopWordsFile);
+		
+		String[] queries = {"earth", "computer science", "electric car battery", "planet orbit sun"};
+		for(String query: queries)
+		{
+			List<MapFileToWordOccurencesEntry> expected = singleThreaded.findWithCount(query);
+			List<MapFileToWordOccurencesEntry> actual = parallel.findWithCount(query);
+			assertFalse(expected.isEmpty());
+			assertEquals(expected.size(), actual.size());
+			for(int i = 0; i < expected.size(); i++)
+			{
+				assertEquals(expected.get(i).getKey(), actual.get(i).getKey());
+				assertEquals(expected.get(i).getValue(), actual.get(i).getValue());
+			}
+		}
+	}
+	
+	public void testPdfPageWindowDoesNotChangeResults() throws Exception
+	{
+		File docsFolder = TestHelpers.getDocumentsFolder();
+		File stopWordsFile = new File(docsFolder.getParentFile(), "stopwords_en.txt");
+		
+		InverseIndexer wholeDocument = new InverseIndexer(ALGORITHM.ENGLISH);
+		wholeDocument.setPdfPageWindow(Integer.MAX_VALUE);
+		wholeDocument.index(docsFolder, stopWordsFile);
+		
+		InverseIndexer pageByPage = new InverseIndexer(ALGORITHM.ENGLISH);
+		pageByPage.setPdfPageWindow(1);
+		pageByPage.index(docsFolder, stopWordsFile);
+		
+		String[] queries = {"computer science", "electric car battery", "algorithm"};
+		for(String query: queries)
+		{
+			List<MapFileToWordOccurencesEntry> expected = wholeDocument.findWithCount(query);
+			List<MapFileToWordOccurencesEntry> actual = pageByPage.findWithCount(query);
+			assertFalse(expected.isEmpty());
+			assertEquals(expected.size(), actual.size());
+			for(int i = 0; i < expected.size(); i++)
+			{
+				assertEquals(expected.get(i).getKey(), actual.get(i).getKey());
+				assertEquals(expected.get(i).getValue(), actual.get(i).getValue());
+			}
+		}
+	}
+	
+	public void testSearchesRunOnPublishedSnapshots() throws Exception
+	{
+		File docsFolder = TestHelpers.getDocumentsFolder();
+		File stopWordsFile = new File(docsFolder.getParentFile(), "stopwords_en.txt");
+		
+		InverseIndexer reference = new InverseIndexer(ALGORITHM.ENGLISH);
+		reference.index(docsFolder, stopWordsFile);
+		
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		indexer.indexText("Computer science is the science of computers", "notes");
+		IndexSnapshot before = indexer.getSnapshot();
+		indexer.setSnapshotInterval(1);
+		indexer.index(docsFolder, stopWordsFile);
+		IndexSnapshot after = indexer.getSnapshot();
+		
+		//the snapshot taken before indexing is not modified by it
+		assertEquals(1, before.getIndex().getDocumentCount());
+		assertEquals("notes", before.getIndex().getDocumentName(0));
+		assertTrue(after.getGeneration() > before.getGeneration());
+		
+		String[] queries = {"computer science", "electric car battery", "algorithm"};
+		for(String query: queries)
+		{
+			List<MapFileToWordOccurencesEntry> expected = reference.findWithCount(query);
+			List<MapFileToWordOccurencesEntry> actual = indexer.findWithCount(query);
+			assertEquals(expected.size(), actual.size());
+			for(int i = 0; i < expected.size(); i++)
+			{
+				assertEquals(expected.get(i).getKey(), actual.get(i).getKey());
+				assertEquals(expected.get(i).getValue(), actual.get(i).getValue());
+			}
+		}
+	}
+	
+	public void testIndexTextAppendsToDocument()
+	{
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		indexer.indexText("red apple", "fruit");
+		indexer.indexText("green apple", "fruit");
+		indexer.indexText("yellow pear", "other");
+		indexer.indexText("ripe cherry", "fruit");
+		
+		List<MapFileToWordOccurencesEntry> results = indexer.findWithCount("apple");
+		assertEquals(1, results.size());
+		assertEquals("fruit", results.get(0).getKey());
+		assertEquals(Integer.valueOf(2), results.get(0).getValue().get("apple"));
+		assertEquals(Arrays.asList("fruit"), indexer.find("cherry"));
+		assertEquals(Arrays.asList("other"), indexer.find("pear"));
+		
+		//the text follows the text already in the document
+		assertEquals(Arrays.asList("fruit"), indexer.find("\"apple green\""));
+		assertEquals(Arrays.asList("fruit"), indexer.find("\"apple ripe\""));
+		assertTrue(indexer.find("\"red green\"").isEmpty());
+		
+		InverseIndexer withoutPositions = new InverseIndexer(ALGORITHM.ENGLISH);
+		withoutPositions.setPositionsIndexed(false);
+		withoutPositions.indexText("red apple", "fruit");
+		withoutPositions.indexText("green apple", "fruit");
+		assertEquals(Integer.valueOf(2), withoutPositions.findWithCount("apple").get(0).getValue().get("apple"));
+	}
+	
+	public void testReplaceTextReplacesDocument()
+	{
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		indexer.indexText("red apple", "fruit");
+		indexer.replaceText("green pear", "fruit");
+		
+		assertTrue(indexer.find("apple").isEmpty());
+		List<String> results = indexer.find("pear");
+		assertEquals(1, results.size());
+		assertEquals("fruit", results.get(0));
+	}
+	
+	public void testMetrics() throws Exception
+	{
+		File docsFolder = TestHelpers.getDocumentsFolder();
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		indexer.index(docsFolder, new File(docsFolder.getParentFile(), "stopwords_en.txt"));
+		indexer.find("computer science");
+		indexer.find("earth");
+		
+		MetricsSnapshot metrics = indexer.getMetricsSnapshot();
+		assertEquals(3, metrics.getCounter(InverseIndexer.METRIC_FILES + "pdf"));
+		assertEquals(3, metrics.getLatency(InverseIndexer.METRIC_EXTRACT_LATENCY + "pdf").getCount());
+		assertEquals(new File(docsFolder, "Earth.txt").length(), metrics.getCounter(InverseIndexer.METRIC_BYTES + "txt"));
+		assertTrue(metrics.getCounter(InverseIndexer.METRIC_TOKENS) > 0);
+		assertEquals(2, metrics.getLatency(InverseIndexer.METRIC_SEARCH_LATENCY).getCount());
+		assertEquals(5, metrics.getGauge(InverseIndexer.METRIC_DOCUMENTS));
+		assertEquals(indexer.getSnapshot().getIndex().getTermCount(), metrics.getGauge(InverseIndexer.METRIC_TERMS));
+		assertTrue(metrics.getGauge(InverseIndexer.METRIC_POSTINGS) >= metrics.getGauge(InverseIndexer.METRIC_TERMS));
+		assertTrue(metrics.getGauge(InverseIndexer.METRIC_HEAP_BYTES) > 0);
+	}
+	
+	public void testBatchSearch()
+	{
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		indexer.indexText("red apple and green apple", "apples");
+		indexer.indexText("green pear", "pears");
+		List<String> queries = Arrays.asList("apple", "green", "green apple", "plum");
+		
+		List<List<MapFileToWordOccurencesEntry>> results = indexer.findTop(queries, 10, () -> false);
+		assertEquals(queries.size(), results.size());
+		for(int i = 0; i < queries.size(); i++)
+		{
+			assertEquals(indexer.findTop(queries.get(i), 10), results.get(i));
+		}
+		
+		int[] evaluated = {0};
+		try
+		{
+			indexer.findTop(queries, 10, () -> evaluated[0]++ == 2);
+			fail();
+		}
+		catch (CancellationException e)
+		{
+			//expected
+		}
+		
+		//a single query stops at the deadline too, not only between the queries of a batch
+		int[] checks = {0};
+		try
+		{
+			indexer.findTop(Arrays.asList("gr* apple"), 10, () -> checks[0]++ > 0);
+			fail();
+		}
+		catch (CancellationException e)
+		{
+			//expected
+		}
+	}
+	
+	public void testResultCache()
+	{
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		indexer.indexText("blackmail letters and more blackmail", "letters");
+		indexer.indexText("the blackmailer was caught", "news");
+		
+		List<MapFileToWordOccurencesEntry> first = indexer.findWithCount("Blackmail");
+		List<MapFileToWordOccurencesEntry> second = indexer.findWithCount("blackmailing");
+		assertEquals(1, indexer.getResultCache().getHitCount());
+		assertEquals(first.get(0).getKey(), second.get(0).getKey());
+		assertEquals(Integer.valueOf(2), second.get(0).getValue().get("blackmailing"));
+		
+		//indexing publishes a new generation, the cached results are not served anymore
+		indexer.indexText("blackmail blackmail blackmail", "novel");
+		List<MapFileToWordOccurencesEntry> third = indexer.findWithCount("blackmail");
+		assertEquals("novel", third.get(0).getKey());
+		assertEquals(1, indexer.getResultCache().getHitCount());
+		
+		indexer.setResultCacheSize(0);
+		indexer.findWithCount("blackmail");
+		indexer.findWithCount("blackmail");
+		assertEquals(0, indexer.getResultCache().getHitCount());
+	}
+	
+	public void testPhraseAndNearQueries()
+	{
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		indexer.setStopWordsList(Arrays.asList("the", "of"));
+		indexer.indexText("The purchase order was sent with a second purchase order", "orders");
+		indexer.indexText("Order a purchase of the house", "house");
+		indexer.indexText("Purchase the order", "gap");
+		
+		List<MapFileToWordOccurencesEntry> results = indexer.findWithCount("\"Purchase Orders\"");
+		assertEquals(1, results.size());
+		assertEquals("orders", results.get(0).getKey());
+		assertEquals(Integer.valueOf(2), results.get(0).getValue().get("\"purchase orders\""));
+		
+		//the stop words keep their positions
+		assertEquals(Arrays.asList("gap"), indexer.find("\"purchase the order\""));
+		assertEquals(Arrays.asList("orders"), indexer.find("purchase NEAR/1 order"));
+		assertEquals(Arrays.asList("orders", "house", "gap"), indexer.find("purchase NEAR/2 order"));
+		
+		//clauses are scored together
+		results = indexer.findWithCount("house \"purchase order\"");
+		assertEquals(2, results.size());
+		assertEquals(Integer.valueOf(1), results.get(1).getValue().get("house"));
+		assertEquals(Integer.valueOf(0), results.get(1).getValue().get("\"purchase order\""));
+		
+		InverseIndexer withoutPositions = new InverseIndexer(ALGORITHM.ENGLISH);
+		withoutPositions.setPositionsIndexed(false);
+		withoutPositions.indexText("The purchase order was sent", "orders");
+		assertEquals(Arrays.asList("orders"), withoutPositions.find("purchase order"));
+		try
+		{
+			withoutPositions.find("\"purchase order\"");
+			fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+			//expected, phrases need the positions
+		}
+	}
+	
+	public void testBooleanQueries()
+	{
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		indexer.setStopWordsList(Arrays.asList("the", "of"));
+		indexer.indexText("The purchase order was sent with a second purchase order", "orders");
+		indexer.indexText("Order a purchase of the house", "house");
+		indexer.indexText("Purchase the order form", "form");
+		indexer.indexText("Sale of the house", "sale");
+
+		assertEquals(Arrays.asList("orders", "house", "form", "sale"), indexer.find("purchase order house"));
+		assertEquals(Arrays.asList("orders", "house", "form"), indexer.find("purchase AND order"));
+		assertEquals(Arrays.asList("orders", "house"), indexer.find("purchase AND order -form"));
+		assertEquals(Arrays.asList("orders", "form", "sale"), indexer.find("(purchase AND form) OR sale OR \"purchase order\""));
+		assertEquals(Arrays.asList("orders", "house", "form"), indexer.find("+purchase house form"));
+		assertEquals(Arrays.asList("sale"), indexer.find("house NOT purchase"));
+		assertTrue(indexer.find("NOT purchase").isEmpty());
+
+		//the optional words score the matching files only, the excluded words do not score
+		List<MapFileToWordOccurencesEntry> results = indexer.findWithCount("+house purchase -form");
+		assertEquals(2, results.size());
+		assertEquals("house", results.get(0).getKey());
+		assertEquals(Integer.valueOf(1), results.get(0).getValue().get("purchase"));
+		assertEquals(Integer.valueOf(0), results.get(1).getValue().get("purchase"));
+		assertFalse(results.get(0).getValue().containsKey("form"));
+
+		//the operators are part of the cached query
+		assertEquals(Arrays.asList("orders", "house", "sale"), indexer.find("house purchase -form"));
+		assertEquals(Arrays.asList("house"), indexer.find("house AND purchase -form"));
+	}
+
+	public void testWildcardQueries()
+	{
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		indexer.indexText("Invoices and invoicing of the purchase orders", "invoices");
+		indexer.indexText("The border of the reorder form", "border");
+		indexer.indexText("Invoke the order", "invoke");
+
+		//the frequencies of the matching terms are summed
+		List<MapFileToWordOccurencesEntry> results = indexer.findWithCount("invoic*");
+		assertEquals(1, results.size());
+		assertEquals(Integer.valueOf(2), results.get(0).getValue().get("invoic*"));
+		assertEquals(Arrays.asList("invoices", "invoke"), indexer.find("Invo*"));
+		assertEquals(Arrays.asList("border", "invoke", "invoices"), indexer.find("*order"));
+		assertEquals(Arrays.asList("invoices", "border"), indexer.find("*order OR *voic* -invoke"));
+		assertEquals(Arrays.asList("invoke"), indexer.find("inv?k*"));
+		assertTrue(indexer.find("xyz*").isEmpty());
+
+		//a question mark ending a word is punctuation, the start of a prefix is stemmed
+		InverseIndexer questions = new InverseIndexer(ALGORITHM.ENGLISH);
+		questions.indexText("The earth orbits; invoices were shipped", "earth");
+		assertEquals(Arrays.asList("earth"), questions.find("earth?"));
+		assertEquals(Arrays.asList("earth"), questions.find("invoices?"));
+		assertEquals(Arrays.asList("earth"), questions.find("shipped?"));
+		assertEquals(Arrays.asList("earth"), questions.find("What is earth?"));
+		assertEquals(Integer.valueOf(1), questions.findWithCount("invoices*").get(0).getValue().get("invoices*"));
+		assertEquals(Arrays.asList("earth"), questions.find("ea?th"));
+
+		List<String> orResults = indexer.find("*or*");
+		assertEquals(3, orResults.size());
+		indexer.setMaxWildcardTerms(2);
+		try
+		{
+			indexer.find("*or*");	//not served from the results cached under the previous limit
+			fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+			//expected, the pattern matches order, border, reorder and form
+		}
+		indexer.setMaxWildcardTerms(100);
+		assertEquals(orResults, indexer.find("*or*"));
+	}
+
+	public void testFuzzyQueries()
+	{
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		indexer.indexText("Invoices received for the purchase orders", "invoices");
+		indexer.indexText("We received and recited the receipt", "receipt");
+		indexer.indexText("Invoke the order", "invoke");
+
+		//the misspelled word is stemmed too: recieved -> reciev, two edits from receiv
+		List<MapFileToWordOccurencesEntry> results = indexer.findWithCount("recieved~");
+		assertEquals(2, results.size());
+		assertEquals("receipt", results.get(0).getKey());
+		assertEquals(Integer.valueOf(2), results.get(0).getValue().get("recieved~2"));
+		Map<String, MapWordToOccurences> variants = results.get(0).getVariants();
+		assertEquals(Integer.valueOf(1), variants.get("recieved~2").get("receiv"));
+		assertEquals(Integer.valueOf(1), variants.get("recieved~2").get("recit"));
+		assertEquals(Integer.valueOf(1), results.get(1).getVariants().get("recieved~2").get("receiv"));
+
+		//rejected like a pattern matching too many terms, not answered from the results cached under the previous limit
+		indexer.setMaxWildcardTerms(1);
+		try
+		{
+			indexer.findWithCount("recieved~");
+			fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+			//expected, receiv and recit are close to reciev
+		}
+		indexer.setMaxWildcardTerms(2);
+		assertEquals(2, indexer.findWithCount("recieved~").get(0).getVariants().get("recieved~2").size());
+		indexer.setMaxWildcardTerms(100);
+
+		assertTrue(indexer.find("recieved~1").isEmpty());
+		assertEquals(Arrays.asList("invoices"), indexer.find("invoise~1"));
+		assertEquals(Arrays.asList("invoices"), indexer.find("invoise~1 AND ordr~1"));
+		assertTrue(indexer.findWithCount("invoices").get(0).getVariants().isEmpty());
+	}
+
+	public void testPositionsAcrossTextUnits() throws Exception
+	{
+		File docsFolder = TestHelpers.getDocumentsFolder();
+		File stopWordsFile = new File(docsFolder.getParentFile(), "stopwords_en.txt");
+		
+		InverseIndexer wholeDocument = new InverseIndexer(ALGORITHM.ENGLISH);
+		wholeDocument.setPdfPageWindow(Integer.MAX_VALUE);
+		wholeDocument.index(docsFolder, stopWordsFile);
+		
+		//pages analyzed in parallel, they are merged in the order of the text
+		InverseIndexer pageByPage = new InverseIndexer(ALGORITHM.ENGLISH);
+		pageByPage.setPdfPageWindow(1);
+		pageByPage.setStageThreads(InverseIndexer.STAGE_ANALYZE, 3);
+		pageByPage.index(docsFolder, stopWordsFile);
+		
+		String[] queries = {"\"computer science\"", "\"electric vehicles\"", "battery NEAR/5 energy"};
+		for(String query: queries)
+		{
+			List<MapFileToWordOccurencesEntry> expected = wholeDocument.findWithCount(query);
+			List<MapFileToWordOccurencesEntry> actual = pageByPage.findWithCount(query);
+			assertFalse(query, expected.isEmpty());
+			assertEquals(expected.size(), actual.size());
+			for(int i = 0; i < expected.size(); i++)
+			{
+				assertEquals(expected.get(i).getKey(), actual.get(i).getKey());
+				assertEquals(expected.get(i).getValue(), actual.get(i).getValue());
+			}
+		}
+	}
+
+	public void testMultiLanguageIndexingMatchesSeparateIndexes() throws Exception
+	{
+		File docsFolder = TestHelpers.getDocumentsFolder();
+		File englishStopWords = new File(docsFolder.getParentFile(), "stopwords_en.txt");
+		File romanianStopWords = new File(docsFolder.getParentFile(), "stopwords_ro.txt");
+		
+		InverseIndexer english = new InverseIndexer(ALGORITHM.ENGLISH);
+		english.index(docsFolder, englishStopWords);
+		InverseIndexer romanian = new InverseIndexer(ALGORITHM.ROMANIAN);
+		romanian.index(docsFolder, romanianStopWords);
+		
+		//the text of every file is extracted once and analyzed for both languages
+		InverseIndexer englishFirst = new InverseIndexer(ALGORITHM.ENGLISH);
+		InverseIndexer romanianSecond = new InverseIndexer(ALGORITHM.ROMANIAN);
+		englishFirst.setIndexingThreads(3);
+		englishFirst.index(docsFolder, englishStopWords, otherLanguage(romanianSecond, romanianStopWords));
+		
+		assertEquals(5, englishFirst.getMetricsSnapshot().getGauge(InverseIndexer.METRIC_DOCUMENTS));
+		assertEquals(5, romanianSecond.getMetricsSnapshot().getGauge(InverseIndexer.METRIC_DOCUMENTS));
+		String[] queries = {"earth", "computer science", "\"electric vehicles\"", "bucurești", "orașul", "capitala"};
+		for(String query: queries)
+		{
+			assertFalse(query, english.findWithCount(query).isEmpty() && romanian.findWithCount(query).isEmpty());
+			assertEquals(query, english.findWithCount(query), englishFirst.findWithCount(query));
+			assertEquals(query, romanian.findWithCount(query), romanianSecond.findWithCount(query));
+		}
+	}
+	
+	public void testLanguageDetection() throws Exception
+	{
+		File docsFolder = TestHelpers.getDocumentsFolder();
+		File englishStopWords = new File(docsFolder.getParentFile(), "stopwords_en.txt");
+		File romanianStopWords = new File(docsFolder.getParentFile(), "stopwords_ro.txt");
+		
+		InverseIndexer english = new InverseIndexer(ALGORITHM.ENGLISH);
+		InverseIndexer romanian = new InverseIndexer(ALGORITHM.ROMANIAN);
+		english.setLanguageDetection(true);
+		english.index(docsFolder, englishStopWords, otherLanguage(romanian, romanianStopWords));
+		
+		List<String> romanianFiles = romanian.find("bucurești");
+		assertEquals(1, romanianFiles.size());
+		assertTrue(romanianFiles.get(0).endsWith(".pdf"));
+		assertTrue(english.find("bucurești").isEmpty());
+		assertTrue(english.find("earth").contains("Earth.txt"));
+		assertFalse(romanian.find("earth").contains("Earth.txt"));
+		assertEquals(4, english.getMetricsSnapshot().getGauge(InverseIndexer.METRIC_DOCUMENTS));
+		assertEquals(1, romanian.getMetricsSnapshot().getGauge(InverseIndexer.METRIC_DOCUMENTS));
+	}
+	
+	public void testIndexersOfEachOtherDoNotDeadlock() throws Exception
+	{
+		File docsFolder = TestHelpers.getDocumentsFolder();
+		File englishStopWords = new File(docsFolder.getParentFile(), "stopwords_en.txt");
+		File romanianStopWords = new File(docsFolder.getParentFile(), "stopwords_ro.txt");
+		InverseIndexer english = new InverseIndexer(ALGORITHM.ENGLISH);
+		InverseIndexer romanian = new InverseIndexer(ALGORITHM.ROMANIAN);
+		
+		//each run locks both indexers, whatever indexer runs it
+		Exception[] failures = new Exception[2];
+		Thread englishRun = new Thread(() ->
+		{
+			try
+			{
+				english.index(docsFolder, englishStopWords, otherLanguage(romanian, romanianStopWords));
+			}
+			catch (Exception e)
+			{
+				failures[0] = e;
+			}
+		});
+		Thread romanianRun = new Thread(() ->
+		{
+			try
+			{
+				romanian.index(docsFolder, romanianStopWords, otherLanguage(english, englishStopWords));
+			}
+			catch (Exception e)
+			{
+				failures[1] = e;
+			}
+		});
+		englishRun.start();
+		romanianRun.start();
+		englishRun.join(120000);
+		romanianRun.join(120000);
+		assertFalse(englishRun.isAlive() || romanianRun.isAlive());
+		assertNull(failures[0]);
+		assertNull(failures[1]);
+		assertTrue(english.find("earth").contains("Earth.txt"));
+		
+		try
+		{
+			english.index(docsFolder, englishStopWords, otherLanguage(english, romanianStopWords));
+			fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+			//expected, an indexer cannot index two languages
+		}
+	}
+	
+	private static LinkedHashMap<InverseIndexer, File> otherLanguage(InverseIndexer indexer, File stopWordsFile)
+	{
+		LinkedHashMap<InverseIndexer, File> otherLanguages = new LinkedHashMap<InverseIndexer, File>();
+		otherLanguages.put(indexer, stopWordsFile);
+		return otherLanguages;
+	}
+}
@@ -0,0 +1,119 @@
+package com.invertedIndexer.adobe;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import com.invertedIndexer.adobe.analysis.Analyzer;
+import com.invertedIndexer.adobe.analysis.LowerCaseFilter;
+import com.invertedIndexer.adobe.analysis.MinLengthFilter;
+import com.invertedIndexer.adobe.incremental.FileState;
+import com.invertedIndexer.adobe.types.InMemoryIndex;
+import com.invertedIndexer.adobe.types.PostingsList;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class TextChunkerTest extends TestCase
+{
+	private File mFile;
+
+	public TextChunkerTest(String testName)
+	{
+		super(testName);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(TextChunkerTest.class);
+	}
+	
+	@Override
+	protected void setUp() throws Exception
+	{
+		mFile = File.createTempFile("chunks", ".txt");
+	}
+	
+	@Override
+	protected void tearDown() throws Exception
+	{
+		mFile.delete();
+	}
+	
+	public void testSameCountsAsWholeText() throws Exception
+	{
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 500; i++)
+		{
+			text.append("București e capitala României, iar Brașov\tnu e.\r\n");
+			text.append("word").append(i % 37).append(" l'été ").append(i % 2 == 0 ? "întâi " : "şi\n");
+		}
+		assertSameCounts(text.toString(), StandardCharsets.UTF_8);
+		assertSameCounts(text.toString(), StandardCharsets.ISO_8859_1);
+	}
+	
+	public void testLongWordAtChunkEnd() throws Exception
+	{
+		StringBuilder text = new StringBuilder("start ");
+		for (int i = 0; i < 200; i++)
+		{
+			text.append('a');
+		}
+		text.append(" end");
+		assertSameCounts(text.toString(), StandardCharsets.UTF_8);
+	}
+	
+	public void testSupportedCharsets()
+	{
+		assertTrue(TextChunker.supports(StandardCharsets.UTF_8));
+		assertTrue(TextChunker.supports(StandardCharsets.ISO_8859_1));
+		assertFalse(TextChunker.supports(StandardCharsets.UTF_16));
+		assertFalse(TextChunker.supports(StandardCharsets.UTF_16LE));
+	}
+	
+	private void assertSameCounts(String text, Charset charset) throws Exception
+	{
+		byte[] bytes = text.getBytes(charset);
+		Files.write(mFile.toPath(), bytes);
+		
+		IndexSegment expected = new IndexSegment(TextChunkerTest::createAnalyzer, false);
+		int docId = expected.addDocument("Doc.txt");
+		expected.getAnalyzer().analyze(new String(bytes, charset), token -> expected.addWord(token, docId));
+		InMemoryIndex expectedIndex = new InMemoryIndex();
+		expected.mergeInto(expectedIndex);
+		
+		for (int chunkSize : new int[] {1, 7, 64, 1000})
+		{
+			IndexSegment actual = new IndexSegment(TextChunkerTest::createAnalyzer, false);
+			int actualDocId = actual.addDocument("Doc.txt");
+			TextChunker chunker = new TextChunker(charset, chunkSize);
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			chunker.split(mFile, digest, () -> false, chunk ->
+			{
+				actual.getAnalyzer().analyze(chunk, token -> actual.addWord(token, actualDocId));
+			});
+			assertTrue(Arrays.equals(FileState.hash(mFile), digest.digest()));
+			InMemoryIndex actualIndex = new InMemoryIndex();
+			actual.mergeInto(actualIndex);
+			
+			assertEquals(expectedIndex.getTermCount(), actualIndex.getTermCount());
+			for (Iterator<String> terms = expectedIndex.terms(); terms.hasNext();)
+			{
+				String term = terms.next();
+				PostingsList postings = actualIndex.getPostings(term);
+				assertNotNull(term, postings);
+				assertEquals(term, expectedIndex.getPostings(term).getFrequencyOf(0), postings.getFrequencyOf(0));
+			}
+		}
+	}
+	
+	private static Analyzer createAnalyzer()
+	{
+		return new Analyzer(new MinLengthFilter(2), new LowerCaseFilter());
+	}
+}
@@ -0,0 +1,158 @@
+package com.invertedIndexer.adobe;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class WordTextExtractorTest extends TestCase
+{
+	private static final String DOCUMENT_START = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+			+ "<w:document xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\"><w:body>";
+	private static final String DOCUMENT_END = "</w:body></w:document>";
+
+	private File mFile;
+
+	public WordTextExtractorTest(String testName)
+	{
+		super(testName);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(WordTextExtractorTest.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		mFile = File.createTempFile("word", ".docx");
+	}
+
+	@Override
+	protected void tearDown() throws Exception
+	{
+		mFile.delete();
+	}
+
+	public void testParagraphsInDocumentOrder() throws Exception
+	{
+		File file = TestHelpers.getDocumentsFile("Earth.docx");
+		WordTextExtractor extractor = new WordTextExtractor(Integer.MAX_VALUE, () -> false);
+		List<CharSequence> fromFile = new ArrayList<CharSequence>();
+		extractor.extractDocx(file, fromFile::add);
+		List<CharSequence> fromStream = new ArrayList<CharSequence>();
+		extractor.extractDocx(new ByteArrayInputStream(Files.readAllBytes(file.toPath())), fromStream::add);
+		assertEquals(1, fromFile.size());
+		assertEquals(fromFile.toString(), fromStream.toString());
+
+		//the body paragraphs read by the DOM, the paragraphs of the tables are extracted too
+		String text = fromFile.get(0).toString();
+		int from = 0;
+		try (FileInputStream input = new FileInputStream(file);
+				XWPFDocument document = new XWPFDocument(input))
+		{
+			for (XWPFParagraph paragraph : document.getParagraphs())
+			{
+				int index = text.indexOf(paragraph.getText() + "\n", from);
+				assertTrue(paragraph.getText(), index >= 0);
+				from = index + paragraph.getText().length() + 1;
+			}
+		}
+		assertTrue(text.contains("\"The Blue Marble\" photograph of Earth"));
+	}
+
+	public void testRunsTabsAndBreaks() throws Exception
+	{
+		writeDocx("<w:p><w:r><w:t>Bucu</w:t></w:r><w:r><w:t>rești</w:t></w:r><w:r><w:tab/><w:t>e</w:t><w:br/><w:t>capitala</w:t></w:r></w:p>"
+				+ "<w:p><w:r><w:delText>deleted</w:delText><w:instrText>PAGE</w:instrText><w:t xml:space=\"preserve\"> României </w:t></w:r></w:p>", 0);
+
+		List<CharSequence> text = new ArrayList<CharSequence>();
+		new WordTextExtractor(Integer.MAX_VALUE, () -> false).extractDocx(mFile, text::add);
+		assertEquals("București\te\ncapitala\n României \n", text.get(0).toString());
+	}
+
+	public void testChunksEndWithParagraphs() throws Exception
+	{
+		StringBuilder paragraphs = new StringBuilder();
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 100; i++)
+		{
+			paragraphs.append("<w:p><w:r><w:t>paragraph ").append(i).append("</w:t></w:r></w:p>");
+			expected.append("paragraph ").append(i).append('\n');
+		}
+		//the media preceding the document are skipped, without being kept in memory
+		writeDocx(paragraphs.toString(), 64 * 1024 * 1024);
+
+		List<CharSequence> chunks = new ArrayList<CharSequence>();
+		try (FileInputStream input = new FileInputStream(mFile))
+		{
+			new WordTextExtractor(100, () -> false).extractDocx(input, chunks::add);
+		}
+		StringBuilder text = new StringBuilder();
+		for (CharSequence chunk : chunks)
+		{
+			assertTrue(chunk.length() < 100 + 20);
+			assertTrue(chunk.length() == 0 || chunk.charAt(chunk.length() - 1) == '\n');
+			text.append(chunk);
+		}
+		assertTrue(chunks.size() > 10);
+		assertEquals(expected.toString(), text.toString());
+	}
+
+	public void testInvalidDocuments() throws Exception
+	{
+		assertTrue(WordTextExtractor.isZip("PK\u0003\u0004".getBytes(StandardCharsets.US_ASCII)));
+		assertFalse(WordTextExtractor.isZip(new byte[] {(byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0}));
+
+		try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(mFile)))
+		{
+			zip.putNextEntry(new ZipEntry("content.xml"));
+		}
+		try
+		{
+			new WordTextExtractor(100, () -> false).extractDocx(mFile, text -> {});
+			fail();
+		}
+		catch (IOException e)
+		{
+			//expected, not a Word document
+		}
+	}
+
+	/**
+	 * @param body: paragraphs of the document
+	 * @param mediaSize: size of the media stored before the document, 0 for none
+	 */
+	private void writeDocx(String body, int mediaSize) throws IOException
+	{
+		try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(mFile)))
+		{
+			if (mediaSize > 0)
+			{
+				zip.putNextEntry(new ZipEntry("word/media/image1.png"));
+				byte[] block = new byte[1024 * 1024];
+				for (int written = 0; written < mediaSize; written += block.length)
+				{
+					zip.write(block);
+				}
+			}
+			zip.putNextEntry(new ZipEntry("word/document.xml"));
+			zip.write((DOCUMENT_START + body + DOCUMENT_END).getBytes(StandardCharsets.UTF_8));
+		}
+	}
+}
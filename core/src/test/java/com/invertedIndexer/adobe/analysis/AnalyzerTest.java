@@ -0,0 +1,82 @@
+package com.invertedIndexer.adobe.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import opennlp.tools.stemmer.snowball.SnowballStemmer;
+import opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class AnalyzerTest extends TestCase
+{
+	public AnalyzerTest(String testName)
+	{
+		super(testName);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(AnalyzerTest.class);
+	}
+	
+	public void testTokenizerKeepsDiacritics()
+	{
+		Analyzer analyzer = new Analyzer(new LowerCaseFilter());
+		
+		assertEquals(Arrays.asList("bucureşti", "este", "capitala", "româniei"),
+				analyze(analyzer, "Bucureşti este capitala României."));
+		//s followed by a combining comma below
+		assertEquals(Arrays.asList("bucurești", "auto", "asphyxiated", "o'neil"),
+				analyze(analyzer, "București, auto-asphyxiated 2016 O'Neil"));
+	}
+	
+	public void testStopWordsAndShortWords()
+	{
+		CharArraySet stopWords = new CharArraySet();
+		stopWords.add("was");
+		stopWords.add("by");
+		Analyzer analyzer = new Analyzer(new MinLengthFilter(2), new LowerCaseFilter(), new StopFilter(stopWords));
+		
+		assertEquals(Arrays.asList("myself", "being", "asphyxiated", "thyself"),
+				analyze(analyzer, "Myself WAS being a asphyxiated By thyself"));
+	}
+	
+	public void testStemmingKeepsSurfaceForm()
+	{
+		Analyzer analyzer = new Analyzer(new LowerCaseFilter(), new StemFilter(new SnowballStemmer(ALGORITHM.ENGLISH)));
+		
+		List<String> surfaces = new ArrayList<String>();
+		List<String> stems = new ArrayList<String>();
+		analyzer.analyze("Blackmailers requirements", token ->
+		{
+			surfaces.add(token.surfaceToString());
+			stems.add(token.toString());
+		});
+		assertEquals(Arrays.asList("blackmailers", "requirements"), surfaces);
+		assertEquals(Arrays.asList("blackmail", "requir"), stems);
+	}
+	
+	public void testCharArraySetLookupWithBuffer()
+	{
+		CharArraySet set = new CharArraySet();
+		for(int i = 0; i < 100; i++)
+		{
+			set.add("word" + i);
+		}
+		char[] buffer = "xxword42yy".toCharArray();
+		assertTrue(set.contains(buffer, 2, 6));
+		assertFalse(set.contains(buffer, 1, 6));
+		assertTrue(set.contains("word99"));
+		assertEquals(100, set.size());
+	}
+	
+	private static List<String> analyze(Analyzer analyzer, String text)
+	{
+		List<String> words = new ArrayList<String>();
+		analyzer.analyze(text, token -> words.add(token.toString()));
+		return words;
+	}
+}
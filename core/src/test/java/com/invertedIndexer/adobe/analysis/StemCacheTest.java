@@ -0,0 +1,84 @@
+package com.invertedIndexer.adobe.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import opennlp.tools.stemmer.snowball.SnowballStemmer;
+import opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class StemCacheTest extends TestCase
+{
+	private static final String[] WORDS = {"blackmailers", "blackmailing", "requirements",
+		"manipulating", "exceptionally", "algebraic", "asphyxiation", "documents"};
+
+	public StemCacheTest(String testName)
+	{
+		super(testName);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(StemCacheTest.class);
+	}
+	
+	public void testHitsAndMisses()
+	{
+		StemCache cache = new StemCache(ALGORITHM.ENGLISH, 1024);
+		assertEquals("blackmail", cache.stem("blackmailers"));
+		assertEquals("blackmail", cache.stem("blackmailers"));
+		assertEquals("blackmail", cache.stem("blackmailing"));
+		
+		assertEquals(1, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+		assertEquals(1.0 / 3, cache.getHitRate(), 1e-9);
+	}
+	
+	public void testCacheIsBounded()
+	{
+		StemCache cache = new StemCache(ALGORITHM.ENGLISH, 64);
+		for(int i = 0; i < 10000; i++)
+		{
+			cache.stem("word" + i);
+		}
+		assertTrue(cache.size() <= 64);
+		assertEquals(10000 - cache.size(), cache.getEvictionCount());
+	}
+	
+	public void testSharedAcrossThreads() throws Exception
+	{
+		StemCache cache = new StemCache(ALGORITHM.ENGLISH, 4);
+		SnowballStemmer stemmer = new SnowballStemmer(ALGORITHM.ENGLISH);
+		
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+		for(int t = 0; t < 4; t++)
+		{
+			results.add(executor.submit(() ->
+			{
+				boolean matches = true;
+				for(int i = 0; i < 5000; i++)
+				{
+					String word = WORDS[i % WORDS.length];
+					String expected;
+					synchronized (stemmer)
+					{
+						expected = stemmer.stem(word).toString();
+					}
+					matches &= expected.equals(cache.stem(word));
+				}
+				return matches;
+			}));
+		}
+		for(Future<Boolean> result: results)
+		{
+			assertTrue(result.get());
+		}
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,208 @@
+package com.invertedIndexer.adobe.incremental;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.invertedIndexer.adobe.InverseIndexer;
+import com.invertedIndexer.adobe.storage.MappedIndex;
+import com.invertedIndexer.adobe.types.MapFileToWordOccurencesEntry;
+
+import opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class IncrementalIndexingTest extends TestCase
+{
+	private File mFolder;
+	private File mStopWordsFile;
+	private File mIndexFile;
+
+	public IncrementalIndexingTest(String testName)
+	{
+		super(testName);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(IncrementalIndexingTest.class);
+	}
+	
+	@Override
+	protected void setUp() throws Exception
+	{
+		mFolder = Files.createTempDirectory("docs").toFile();
+		mStopWordsFile = File.createTempFile("stopwords", ".txt");
+		mIndexFile = File.createTempFile("index", ".idx");
+		write(mStopWordsFile, "the\nand\n");
+		write(new File(mFolder, "DocA.txt"), "the quick brown fox and the lazy dog");
+		write(new File(mFolder, "DocB.txt"), "brown bears eat berries");
+		write(new File(mFolder, "DocC.txt"), "foxes hunt at night");
+	}
+	
+	@Override
+	protected void tearDown() throws Exception
+	{
+		for (File file : mFolder.listFiles())
+		{
+			file.delete();
+		}
+		mFolder.delete();
+		mStopWordsFile.delete();
+		mIndexFile.delete();
+	}
+	
+	public void testChangesAfterOpen() throws Exception
+	{
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		indexer.index(mFolder, mStopWordsFile);
+		indexer.save(mIndexFile);
+		
+		File docB = new File(mFolder, "DocB.txt");
+		write(docB, "polar bears hunt seals");
+		docB.setLastModified(docB.lastModified() + 2000);
+		new File(mFolder, "DocC.txt").delete();
+		write(new File(mFolder, "DocD.txt"), "the fox hunts the hunter");
+		
+		InverseIndexer opened = new InverseIndexer(ALGORITHM.ENGLISH);
+		opened.open(mIndexFile);
+		opened.indexIncremental(mFolder, mStopWordsFile);
+		
+		InverseIndexer expected = new InverseIndexer(ALGORITHM.ENGLISH);
+		expected.index(mFolder, mStopWordsFile);
+		
+		assertSameResults(expected, opened, "fox");
+		assertSameResults(expected, opened, "hunt");
+		assertSameResults(expected, opened, "bears");
+		assertSameResults(expected, opened, "berries");
+		assertSameResults(expected, opened, "night");
+		assertTrue(opened.find("berries").isEmpty());
+		
+		//the saved index keeps the states of the files: nothing is left to be indexed again
+		opened.save(mIndexFile);
+		InverseIndexer reopened = new InverseIndexer(ALGORITHM.ENGLISH);
+		reopened.open(mIndexFile);
+		reopened.indexIncremental(mFolder, mStopWordsFile);
+		assertSameResults(expected, reopened, "hunt");
+	}
+	
+	public void testStopWordsChangeIndexesEverything() throws Exception
+	{
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		indexer.index(mFolder, mStopWordsFile);
+		assertTrue(indexer.find("brown").size() == 2);
+		
+		write(mStopWordsFile, "the\nand\nbrown\n");
+		indexer.indexIncremental(mFolder, mStopWordsFile);
+		assertTrue(indexer.find("brown").isEmpty());
+	}
+	
+	public void testWatcherAppliesChanges() throws Exception
+	{
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		indexer.index(mFolder, mStopWordsFile);
+		indexer.startWatching(mFolder);
+		try
+		{
+			write(new File(mFolder, "DocD.txt"), "penguins");
+			long deadline = System.currentTimeMillis() + 10000;
+			while (indexer.find("penguins").isEmpty() && System.currentTimeMillis() < deadline)
+			{
+				Thread.sleep(50);
+			}
+			assertEquals(1, indexer.find("penguins").size());
+		}
+		finally
+		{
+			indexer.stopWatching();
+		}
+	}
+	
+	public void testWatcherAfterCancel() throws Exception
+	{
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		indexer.index(mFolder, mStopWordsFile);
+		indexer.cancelIndex();
+		indexer.startWatching(mFolder);
+		try
+		{
+			write(new File(mFolder, "DocD.txt"), "penguins");
+			long deadline = System.currentTimeMillis() + 10000;
+			while (indexer.find("penguins").isEmpty() && System.currentTimeMillis() < deadline)
+			{
+				Thread.sleep(50);
+			}
+			assertEquals(1, indexer.find("penguins").size());
+		}
+		finally
+		{
+			indexer.stopWatching();
+		}
+	}
+	
+	public void testTouchedFileIsNotHashedAgain() throws Exception
+	{
+		File docA = new File(mFolder, "DocA.txt");
+		FileManifest manifest = new FileManifest(mFolder);
+		manifest.put(docA.getName(), FileState.of(docA));
+		docA.setLastModified(docA.lastModified() + 2000);
+		
+		FileManifest.Changes changes = manifest.getChanges(Collections.singletonList(docA));
+		assertTrue(changes.isEmpty());
+		FileState touched = changes.getTouched().get(docA.getName());
+		assertEquals(docA.lastModified(), touched.getLastModified());
+		assertTrue(Arrays.equals(manifest.get(docA.getName()).getContentHash(), touched.getContentHash()));
+		
+		manifest.put(docA.getName(), touched);
+		assertTrue(manifest.getChanges(Collections.singletonList(docA)).getTouched().isEmpty());
+		
+		write(docA, "the slow brown fox and the lazy dog");
+		docA.setLastModified(docA.lastModified() + 4000);
+		assertEquals(Collections.singletonList(docA), manifest.getChanges(Collections.singletonList(docA)).getModified());
+	}
+	
+	public void testTouchedFileAfterIndexing() throws Exception
+	{
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		indexer.index(mFolder, mStopWordsFile);
+		File docA = new File(mFolder, "DocA.txt");
+		docA.setLastModified(docA.lastModified() + 2000);
+		indexer.indexIncremental(mFolder, mStopWordsFile);
+		
+		//the saved states have the new modification time
+		indexer.save(mIndexFile);
+		FileState state = MappedIndex.open(mIndexFile).readManifest().get(docA.getName());
+		assertEquals(docA.lastModified(), state.getLastModified());
+		assertEquals(1, indexer.find("quick").size());
+	}
+	
+	private static void write(File file, String text) throws IOException
+	{
+		Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * Document ids differ between a full and an incremental index, so results with the
+	 * same count may come in a different order
+	 */
+	private static void assertSameResults(InverseIndexer expected, InverseIndexer actual, String query)
+	{
+		assertEquals(toMap(expected, query), toMap(actual, query));
+	}
+	
+	private static Map<String, String> toMap(InverseIndexer indexer, String query)
+	{
+		Map<String, String> results = new HashMap<String, String>();
+		for (MapFileToWordOccurencesEntry entry : indexer.findWithCount(query))
+		{
+			results.put(entry.getKey(), String.valueOf(entry.getValue()));
+		}
+		return results;
+	}
+}
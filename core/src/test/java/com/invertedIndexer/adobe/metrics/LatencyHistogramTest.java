@@ -0,0 +1,67 @@
+package com.invertedIndexer.adobe.metrics;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class LatencyHistogramTest extends TestCase
+{
+	public LatencyHistogramTest(String testName)
+	{
+		super(testName);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(LatencyHistogramTest.class);
+	}
+
+	public void testBuckets()
+	{
+		long previousLimit = -1;
+		for (int bucket = 0; bucket < 900; bucket++)
+		{
+			long limit = LatencyHistogram.getBucketLimit(bucket);
+			assertTrue(limit > previousLimit);
+			assertEquals(bucket, LatencyHistogram.getBucket(previousLimit + 1));
+			assertEquals(bucket, LatencyHistogram.getBucket(limit));
+			previousLimit = limit;
+		}
+	}
+
+	public void testPercentilesWithinBucketPrecision()
+	{
+		Random random = new Random(7);
+		LatencyHistogram histogram = new LatencyHistogram();
+		long[] values = new long[100000];
+		for (int i = 0; i < values.length; i++)
+		{
+			values[i] = (long) Math.exp(random.nextDouble() * 20);	//1ns to 0.5s
+			histogram.record(values[i]);
+		}
+		Arrays.sort(values);
+
+		LatencySnapshot snapshot = histogram.snapshot();
+		assertEquals(values.length, snapshot.getCount());
+		assertEquals(values[values.length - 1], snapshot.getMax());
+		assertPercentile(values[values.length / 2 - 1], snapshot.getP50());
+		assertPercentile(values[values.length * 99 / 100 - 1], snapshot.getP99());
+		assertPercentile(values[values.length * 999 / 1000 - 1], snapshot.getP999());
+	}
+
+	public void testEmpty()
+	{
+		LatencySnapshot snapshot = new LatencyHistogram().snapshot();
+		assertEquals(0, snapshot.getCount());
+		assertEquals(0, snapshot.getP99());
+		assertEquals(0, snapshot.getMean());
+	}
+
+	private static void assertPercentile(long expected, long actual)
+	{
+		assertTrue(expected + " " + actual, actual >= expected && actual <= expected + expected / 16 + 1);
+	}
+}
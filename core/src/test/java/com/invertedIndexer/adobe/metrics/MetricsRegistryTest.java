@@ -0,0 +1,79 @@
+package com.invertedIndexer.adobe.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class MetricsRegistryTest extends TestCase
+{
+	public MetricsRegistryTest(String testName)
+	{
+		super(testName);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(MetricsRegistryTest.class);
+	}
+
+	public void testSnapshot()
+	{
+		AtomicLong size = new AtomicLong(3);
+		MetricsRegistry metrics = new MetricsRegistry();
+		metrics.counter("files").add(2);
+		metrics.counter("files").increment();
+		metrics.histogram("search").record(1000);
+		metrics.gauge("size", size::get);
+
+		MetricsSnapshot before = metrics.snapshot();
+		size.set(5);
+		metrics.counter("files").add(10);
+
+		assertEquals(3, before.getCounter("files"));
+		assertEquals(3, before.getGauge("size"));
+		assertEquals(1, before.getLatency("search").getCount());
+		assertEquals(0, before.getCounter("unknown"));
+		assertEquals(0, before.getLatency("unknown").getCount());
+		MetricsSnapshot after = metrics.snapshot();
+		assertEquals(13, after.getCounter("files"));
+		assertEquals(5, after.getGauge("size"));
+	}
+
+	public void testRate()
+	{
+		MetricsRegistry metrics = new MetricsRegistry();
+		MetricsSnapshot before = new MetricsSnapshot(1000, new TreeMap<String, Long>(),
+				new TreeMap<String, LatencySnapshot>(), new TreeMap<String, Long>());
+		metrics.counter("tokens").add(500);
+		MetricsSnapshot after = metrics.snapshot();
+		double seconds = (after.getTimeMillis() - 1000) / 1000.0;
+		assertEquals(500 / seconds, after.getRate(before, "tokens"), 1e-6);
+	}
+
+	public void testMBean() throws Exception
+	{
+		MetricsRegistry metrics = new MetricsRegistry();
+		metrics.counter("files").add(4);
+		ObjectName name = metrics.registerMBean("MetricsRegistryTest");
+		try
+		{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			assertEquals(4L, server.getAttribute(name, "files"));
+			metrics.histogram("search").record(2000000);
+			assertEquals(1L, server.getAttribute(name, "search.count"));
+			assertEquals(2000L, ((Long) server.getAttribute(name, "search.maxMicros")).longValue());
+		}
+		finally
+		{
+			metrics.unregisterMBean("MetricsRegistryTest");
+		}
+		assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+	}
+}
@@ -0,0 +1,132 @@
+package com.invertedIndexer.adobe.pipeline;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class PipelineTest extends TestCase
+{
+	public PipelineTest(String testName)
+	{
+		super(testName);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(PipelineTest.class);
+	}
+
+	public void testAllItemsGoThroughAllStages() throws Exception
+	{
+		AtomicLong sum = new AtomicLong();
+		Pipeline pipeline = new Pipeline();
+		pipeline.<Integer, Integer>addStage("split", 1, 4, () -> (count, output) ->
+		{
+			for (int i = 1; i <= count; i++)
+			{
+				output.emit(i);
+			}
+		});
+		Stage<Integer, Long> square = pipeline.<Integer, Long>addStage("square", 3, 8, () -> (value, output) ->
+		{
+			output.emit((long) value * value);
+		});
+		pipeline.<Long, Void>addStage("sum", 2, 8, () -> (value, output) -> sum.addAndGet(value));
+
+		pipeline.run(Arrays.asList(1000, 10));
+
+		assertEquals(1000L * 1001 * 2001 / 6 + 10 * 11 * 21 / 6, sum.get());
+		assertEquals(1010, square.getProcessedCount());
+		assertEquals(0, square.getQueueDepth());
+		assertEquals(8, square.getQueueCapacity());
+	}
+
+	public void testBackpressure() throws Exception
+	{
+		int capacity = 4;
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		Pipeline pipeline = new Pipeline();
+		pipeline.<Integer, Integer>addStage("produce", 1, 1, () -> (count, output) ->
+		{
+			for (int i = 0; i < count; i++)
+			{
+				maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+				output.emit(i);
+			}
+		});
+		Stage<Integer, Void> consume = pipeline.<Integer, Void>addStage("consume", 1, capacity, () -> (value, output) ->
+		{
+			Thread.sleep(1);
+			inFlight.decrementAndGet();
+		});
+
+		pipeline.run(Arrays.asList(200));
+
+		assertEquals(200, consume.getProcessedCount());
+		//the queue, the item being processed and the item waiting to be queued
+		assertTrue(String.valueOf(maxInFlight.get()), maxInFlight.get() <= capacity + 2);
+	}
+
+	public void testCancel() throws Exception
+	{
+		Pipeline pipeline = new Pipeline();
+		pipeline.<Integer, Integer>addStage("produce", 1, 1, () -> (count, output) ->
+		{
+			for (int i = 0; i < count; i++)
+			{
+				output.emit(i);
+			}
+		});
+		Stage<Integer, Void> consume = pipeline.<Integer, Void>addStage("consume", 2, 4, () -> (value, output) ->
+		{
+			if (value == 100)
+			{
+				pipeline.cancel();
+			}
+		});
+
+		pipeline.run(Arrays.asList(1000000));
+
+		assertTrue(pipeline.isCancelled());
+		assertTrue(consume.getProcessedCount() < 1000000);
+	}
+
+	public void testFailureStopsThePipeline()
+	{
+		List<String> status = new ArrayList<String>();
+		Pipeline pipeline = new Pipeline();
+		pipeline.<Integer, Integer>addStage("produce", 2, 2, () -> (value, output) ->
+		{
+			if (value == 3)
+			{
+				throw new IOException("cannot read " + value);
+			}
+			output.emit(value);
+		});
+		pipeline.<Integer, Void>addStage("consume", 1, 2, () -> (value, output) -> status.add(pipeline.toString()));
+
+		try
+		{
+			pipeline.run(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8));
+			fail();
+		}
+		catch (Exception e)
+		{
+			assertTrue(e instanceof IOException);
+			assertEquals("cannot read 3", e.getMessage());
+		}
+		assertTrue(pipeline.isCancelled());
+		for (String stageStatus : status)
+		{
+			assertTrue(stageStatus, stageStatus.matches("produce \\d/2, consume \\d/2"));
+		}
+	}
+}
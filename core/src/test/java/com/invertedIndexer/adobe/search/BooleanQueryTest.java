@@ -0,0 +1,217 @@
+package com.invertedIndexer.adobe.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import com.invertedIndexer.adobe.analysis.Analyzer;
+import com.invertedIndexer.adobe.analysis.LowerCaseFilter;
+import com.invertedIndexer.adobe.types.CompressedPostings;
+import com.invertedIndexer.adobe.types.Postings;
+import com.invertedIndexer.adobe.types.PostingsCursor;
+import com.invertedIndexer.adobe.types.PostingsList;
+
+public class BooleanQueryTest extends TestCase
+{
+	private static final String[] WORDS = {"purchase", "order", "form", "new", "sale", "receipt"};
+
+	public BooleanQueryTest(String testName)
+	{
+		super(testName);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(BooleanQueryTest.class);
+	}
+
+	public void testParse()
+	{
+		QueryParser parser = new QueryParser(new Analyzer(new LowerCaseFilter()));
+
+		BooleanQuery query = parser.parse("Purchase order");
+		assertTrue(query.isDisjunction());
+		assertEquals("(purchase order)", query.getKey());
+		assertEquals("(+purchase order -form)", parser.parse("+purchase order -form").getKey());
+		assertEquals("((+purchase +order) form)", parser.parse("purchase AND order OR form").getKey());
+		assertEquals("((+purchase -form))", parser.parse("purchase AND NOT form").getKey());
+		assertEquals("((+(purchase sale) -(form receipt)))", parser.parse("(purchase OR sale) AND NOT (form OR receipt)").getKey());
+		assertEquals("(+(purchase sale order))", parser.parse("+(purchase sale order").getKey());	//unbalanced
+		assertEquals("(+\"purchase@0 order@1\" -form)", parser.parse("+\"purchase order\" -form").getKey());
+		assertEquals("(+purchase NEAR/2 order new)", parser.parse("+purchase NEAR/2 order new").getKey());
+		assertEquals("(auto mail)", parser.parse("auto-mail").getKey());
+
+		//the excluded clauses do not score
+		query = parser.parse("purchase -(order OR form) +new");
+		assertFalse(query.isDisjunction());
+		assertEquals(2, query.getClauses().size());
+		assertEquals("purchase", query.getClauses().get(0).getText());
+		assertEquals("new", query.getClauses().get(1).getText());
+	}
+
+	public void testEvaluate()
+	{
+		Map<String, Postings> index = createIndex(new String[][] {
+			{"purchase", "order", "form"},
+			{"order", "purchase"},
+			{"purchase", "new"},
+			{"form"}});
+		QueryParser parser = new QueryParser(new Analyzer(new LowerCaseFilter()));
+
+		assertEquals("0 1", toString(parser.parse("purchase AND order").evaluate(index::get)));
+		assertEquals("1 2", toString(parser.parse("purchase -form").evaluate(index::get)));
+		assertEquals("0 1 3", toString(parser.parse("order OR form").evaluate(index::get)));
+		assertEquals("0 1 2", toString(parser.parse("+purchase order").evaluate(index::get)));
+		assertEquals("2", toString(parser.parse("purchase AND NOT (order OR form)").evaluate(index::get)));
+		assertEquals("", toString(parser.parse("purchase AND missing").evaluate(index::get)));
+		assertEquals("", toString(parser.parse("-form").evaluate(index::get)));
+
+		PostingsList filtered = BooleanQuery.filter(index.get("order"), parser.parse("purchase -form").evaluate(index::get));
+		assertEquals(1, filtered.size());
+		assertNull(BooleanQuery.filter(null, index.get("order")));
+		assertEquals(0, BooleanQuery.filter(index.get("order"), null).size());
+	}
+
+	public void testMatchesBruteForce()
+	{
+		Random random = new Random(7);
+		List<Set<String>> documents = new ArrayList<Set<String>>();
+		String[][] texts = new String[2000][];
+		for (int docId = 0; docId < texts.length; docId++)
+		{
+			Set<String> words = new HashSet<String>();
+			for (int i = 0; i < WORDS.length; i++)
+			{
+				//the first words are common, the last ones rare
+				if (random.nextInt(WORDS.length * 2) < WORDS.length * 2 - i * 3)
+				{
+					words.add(WORDS[i]);
+				}
+			}
+			documents.add(words);
+			texts[docId] = words.toArray(new String[words.size()]);
+		}
+		Map<String, Postings> index = createIndex(texts);
+		Map<String, Postings> compressedIndex = new HashMap<String, Postings>();
+		index.forEach((term, postings) -> compressedIndex.put(term, CompressedPostings.encode(postings)));
+		QueryParser parser = new QueryParser(new Analyzer(new LowerCaseFilter()));
+
+		for (int i = 0; i < 200; i++)
+		{
+			String text = randomQuery(random, 2);
+			BooleanQuery query = parser.parse(text);
+			StringBuilder expected = new StringBuilder();
+			for (int docId = 0; docId < documents.size(); docId++)
+			{
+				if (matches(query.getKey(), documents.get(docId)))
+				{
+					expected.append((expected.length() > 0) ? " " : "").append(docId);
+				}
+			}
+			assertEquals(text, expected.toString(), toString(query.evaluate(index::get)));
+			assertEquals(text, expected.toString(), toString(query.evaluate(compressedIndex::get)));
+		}
+	}
+
+	private static String randomQuery(Random random, int depth)
+	{
+		StringBuilder text = new StringBuilder();
+		int count = 1 + random.nextInt(3);
+		for (int i = 0; i < count; i++)
+		{
+			text.append((i > 0) ? new String[] {" ", " OR ", " AND "}[random.nextInt(3)] : "");
+			text.append(new String[] {"", "", "+", "-", "NOT "}[random.nextInt(5)]);
+			if (depth > 0 && random.nextInt(3) == 0)
+			{
+				text.append('(').append(randomQuery(random, depth - 1)).append(')');
+			}
+			else
+			{
+				text.append(WORDS[random.nextInt(WORDS.length)]);
+			}
+		}
+		return text.toString();
+	}
+
+	/**
+	 * @param key: key of a query node, see BooleanQuery.getKey()
+	 * @param document: words of a document
+	 * @return true if the document matches the node, evaluated from the definition
+	 */
+	private static boolean matches(String key, Set<String> document)
+	{
+		if (!key.startsWith("("))
+		{
+			return document.contains(key);
+		}
+		boolean hasRequired = false;
+		boolean isRequiredMatch = true;
+		boolean isOptionalMatch = false;
+		boolean isExcluded = false;
+		int depth = 0;
+		int start = 1;
+		for (int i = 1; i < key.length(); i++)
+		{
+			char c = key.charAt(i);
+			depth += (c == '(') ? 1 : (c == ')') ? -1 : 0;
+			if (depth < 0 || depth == 0 && c == ' ')
+			{
+				String child = key.substring(start, i);
+				boolean isMatch = matches(child.replaceFirst("^[+-]", ""), document);
+				if (child.startsWith("+"))
+				{
+					hasRequired = true;
+					isRequiredMatch &= isMatch;
+				}
+				else if (child.startsWith("-"))
+				{
+					isExcluded |= isMatch;
+				}
+				else
+				{
+					isOptionalMatch |= isMatch;
+				}
+				start = i + 1;
+			}
+		}
+		return (hasRequired ? isRequiredMatch : isOptionalMatch) && !isExcluded;
+	}
+
+	private static Map<String, Postings> createIndex(String[][] documents)
+	{
+		Map<String, Postings> index = new HashMap<String, Postings>();
+		for (int docId = 0; docId < documents.length; docId++)
+		{
+			for (String word : documents[docId])
+			{
+				((PostingsList) index.computeIfAbsent(word, term -> new PostingsList())).add(docId, 1);
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * @return the matching documents, in id order
+	 */
+	private static String toString(Postings matches)
+	{
+		StringBuilder text = new StringBuilder();
+		if (matches != null)
+		{
+			PostingsCursor cursor = matches.cursor();
+			while (cursor.nextDoc() != PostingsCursor.NO_MORE_DOCS)
+			{
+				text.append((text.length() > 0) ? " " : "").append(cursor.docId());
+			}
+		}
+		return text.toString();
+	}
+}
@@ -0,0 +1,189 @@
+package com.invertedIndexer.adobe.search;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import com.invertedIndexer.adobe.types.CompressedPostings;
+import com.invertedIndexer.adobe.types.Postings;
+import com.invertedIndexer.adobe.types.PostingsCursor;
+import com.invertedIndexer.adobe.types.PostingsList;
+
+public class PositionalQueryTest extends TestCase
+{
+	private static final String[] WORDS = {"purchase", "order", "form", "new"};
+
+	public PositionalQueryTest(String testName)
+	{
+		super(testName);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(PositionalQueryTest.class);
+	}
+
+	public void testPhrase()
+	{
+		Map<String, Postings> index = createIndex(new String[][] {
+			{"purchase", "order", "form"},
+			{"order", "purchase"},
+			{"purchase", "new", "order", "purchase", "order"},
+			{"form"}});
+
+		assertEquals("0=1 2=1", toString(new PhraseQuery(new String[] {"purchase", "order"}, new int[] {0, 1}).evaluate(index::get)));
+		assertEquals("2=1", toString(new PhraseQuery(new String[] {"purchase", "order"}, new int[] {0, 2}).evaluate(index::get)));
+		assertEquals("0=1", toString(new PhraseQuery(new String[] {"purchase", "order", "form"}, new int[] {0, 1, 2}).evaluate(index::get)));
+		assertNull(new PhraseQuery(new String[] {"order", "form", "purchase"}, new int[] {0, 1, 2}).evaluate(index::get));
+		assertNull(new PhraseQuery(new String[] {"purchase", "missing"}, new int[] {0, 1}).evaluate(index::get));
+	}
+
+	public void testNear()
+	{
+		Map<String, Postings> index = createIndex(new String[][] {
+			{"purchase", "order", "form"},
+			{"order", "purchase"},
+			{"purchase", "new", "new", "order"},
+			{"order", "order"}});
+
+		assertEquals("0=1 1=1", toString(new NearQuery("purchase", "order", 1).evaluate(index::get)));
+		assertEquals("0=1 1=1 2=1", toString(new NearQuery("purchase", "order", 3).evaluate(index::get)));
+		assertEquals("3=2", toString(new NearQuery("order", "order", 1).evaluate(index::get)));	//not the same occurrence
+		assertEquals("purchase NEAR/3 order", new NearQuery("purchase", "order", 3).getKey());
+	}
+
+	public void testMatchesBruteForce()
+	{
+		Random random = new Random(5);
+		String[][] documents = new String[300][];
+		for (int docId = 0; docId < documents.length; docId++)
+		{
+			documents[docId] = new String[random.nextInt(40)];
+			for (int i = 0; i < documents[docId].length; i++)
+			{
+				documents[docId][i] = WORDS[random.nextInt(WORDS.length)];
+			}
+		}
+		Map<String, Postings> index = createIndex(documents);
+		Map<String, Postings> compressedIndex = new HashMap<String, Postings>();
+		index.forEach((term, postings) -> compressedIndex.put(term, CompressedPostings.encode(postings)));
+
+		for (int i = 0; i < 50; i++)
+		{
+			String[] terms = new String[2 + random.nextInt(2)];
+			int[] offsets = new int[terms.length];
+			for (int j = 0; j < terms.length; j++)
+			{
+				terms[j] = WORDS[random.nextInt(WORDS.length)];
+				offsets[j] = (j > 0) ? offsets[j - 1] + 1 + random.nextInt(2) : 0;
+			}
+			NearQuery near = new NearQuery(terms[0], terms[1], 1 + random.nextInt(4));
+			PhraseQuery phrase = new PhraseQuery(terms, offsets);
+
+			StringBuilder expectedPhrase = new StringBuilder();
+			StringBuilder expectedNear = new StringBuilder();
+			for (int docId = 0; docId < documents.length; docId++)
+			{
+				append(expectedPhrase, docId, countPhrase(documents[docId], terms, offsets));
+				append(expectedNear, docId, countNear(documents[docId], terms[0], terms[1], near.getDistance()));
+			}
+			assertEquals(phrase.getKey(), expectedPhrase.toString(), toString(phrase.evaluate(index::get)));
+			assertEquals(phrase.getKey(), expectedPhrase.toString(), toString(phrase.evaluate(compressedIndex::get)));
+			assertEquals(near.getKey(), expectedNear.toString(), toString(near.evaluate(index::get)));
+			assertEquals(near.getKey(), expectedNear.toString(), toString(near.evaluate(compressedIndex::get)));
+		}
+	}
+
+	public void testIndexWithoutPositions()
+	{
+		Map<String, Postings> index = new HashMap<String, Postings>();
+		for (String word : WORDS)
+		{
+			PostingsList postings = new PostingsList();
+			postings.add(0);
+			index.put(word, postings);
+		}
+		try
+		{
+			new NearQuery("purchase", "order", 2).evaluate(index::get);
+			fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+			//expected, the positions are not indexed
+		}
+	}
+
+	private static Map<String, Postings> createIndex(String[][] documents)
+	{
+		Map<String, Postings> index = new HashMap<String, Postings>();
+		for (int docId = 0; docId < documents.length; docId++)
+		{
+			for (int position = 0; position < documents[docId].length; position++)
+			{
+				PostingsList postings = (PostingsList) index.computeIfAbsent(documents[docId][position], term -> new PostingsList(true));
+				postings.add(docId, new int[] {position}, 0, 1);
+			}
+		}
+		return index;
+	}
+
+	private static int countPhrase(String[] document, String[] terms, int[] offsets)
+	{
+		int count = 0;
+		for (int start = 0; start < document.length; start++)
+		{
+			boolean isMatch = true;
+			for (int i = 0; i < terms.length && isMatch; i++)
+			{
+				isMatch = start + offsets[i] < document.length && document[start + offsets[i]].equals(terms[i]);
+			}
+			count += isMatch ? 1 : 0;
+		}
+		return count;
+	}
+
+	private static int countNear(String[] document, String term1, String term2, int distance)
+	{
+		int count = 0;
+		for (int i = 0; i < document.length; i++)
+		{
+			boolean isMatch = false;
+			for (int j = Math.max(0, i - distance); j <= Math.min(document.length - 1, i + distance) && document[i].equals(term1); j++)
+			{
+				isMatch |= j != i && document[j].equals(term2);
+			}
+			count += isMatch ? 1 : 0;
+		}
+		return count;
+	}
+
+	private static void append(StringBuilder text, int docId, int count)
+	{
+		if (count > 0)
+		{
+			text.append((text.length() > 0) ? " " : "").append(docId).append('=').append(count);
+		}
+	}
+
+	/**
+	 * @return the matching documents and their number of matches, in id order
+	 */
+	private static String toString(PostingsList matches)
+	{
+		StringBuilder text = new StringBuilder();
+		if (matches != null)
+		{
+			PostingsCursor cursor = matches.cursor();
+			while (cursor.nextDoc() != PostingsCursor.NO_MORE_DOCS)
+			{
+				append(text, cursor.docId(), cursor.frequency());
+			}
+		}
+		return text.toString();
+	}
+}
@@ -0,0 +1,82 @@
+package com.invertedIndexer.adobe.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class QueryResultCacheTest extends TestCase
+{
+	public QueryResultCacheTest(String testName)
+	{
+		super(testName);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(QueryResultCacheTest.class);
+	}
+
+	public void testSmallerKIsAnsweredFromLargerResult()
+	{
+		QueryResultCache cache = new QueryResultCache(100);
+		List<String> terms = Arrays.asList("appl");
+		cache.put(1, terms, 10, createHits(10), new boolean[] {true});
+
+		assertEquals(5, cache.get(1, terms, 5).getHits(5).size());
+		assertEquals("doc0", cache.get(1, terms, 5).getHits(5).get(0).getDocumentName());
+		assertNull(cache.get(1, terms, 20));	//more results may exist
+
+		cache.put(1, terms, 20, createHits(12), new boolean[] {true});	//all the matching documents
+		assertEquals(12, cache.get(1, terms, 1000).getHits(1000).size());
+		assertEquals(3, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	public void testNewGenerationInvalidates()
+	{
+		QueryResultCache cache = new QueryResultCache(100);
+		List<String> terms = Arrays.asList("appl", "pear");
+		cache.put(1, terms, 10, createHits(3), new boolean[] {true, false});
+		assertNotNull(cache.get(1, terms, 10));
+
+		assertNull(cache.get(2, terms, 10));
+		assertEquals(0, cache.size());
+		assertEquals(1, cache.getInvalidationCount());
+
+		//results of an older snapshot, e.g. of a search that started before the publication, are not cached
+		cache.put(1, terms, 10, createHits(3), new boolean[] {true, false});
+		assertNull(cache.get(2, terms, 10));
+	}
+
+	public void testEvictsLeastRecentlyUsed()
+	{
+		QueryResultCache cache = new QueryResultCache(30);
+		cache.put(1, Arrays.asList("a"), 10, createHits(9), new boolean[] {true});
+		cache.put(1, Arrays.asList("b"), 10, createHits(9), new boolean[] {true});
+		cache.put(1, Arrays.asList("c"), 10, createHits(9), new boolean[] {true});
+		assertNotNull(cache.get(1, Arrays.asList("a"), 10));
+
+		cache.put(1, Arrays.asList("d"), 10, createHits(9), new boolean[] {true});
+		assertNull(cache.get(1, Arrays.asList("b"), 10));
+		assertNotNull(cache.get(1, Arrays.asList("a"), 10));
+		assertEquals(1, cache.getEvictionCount());
+
+		cache.put(1, Arrays.asList("e"), 100, createHits(50), new boolean[] {true});	//larger than the cache
+		assertNull(cache.get(1, Arrays.asList("e"), 100));
+		assertEquals(3, cache.size());
+	}
+
+	private static List<SearchHit> createHits(int count)
+	{
+		List<SearchHit> hits = new ArrayList<SearchHit>();
+		for (int i = 0; i < count; i++)
+		{
+			hits.add(new SearchHit(i, "doc" + i, count - i, new int[] {count - i}));
+		}
+		return hits;
+	}
+}
@@ -0,0 +1,163 @@
+package com.invertedIndexer.adobe.search;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+
+import com.invertedIndexer.adobe.InverseIndexer;
+import com.invertedIndexer.adobe.TestHelpers;
+import com.invertedIndexer.adobe.types.InMemoryIndex;
+import com.invertedIndexer.adobe.types.MapFileToWordOccurencesEntry;
+import com.invertedIndexer.adobe.types.PostingsList;
+
+import opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class TopKSearcherTest extends TestCase
+{
+	private static final int DOCUMENTS = 2000;
+	private static final String[] TERMS = {"rare", "common", "skewed", "frequent"};
+
+	public TopKSearcherTest(String testName)
+	{
+		super(testName);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(TopKSearcherTest.class);
+	}
+	
+	/**
+	 * Compares the pruned search with scoring every document, on terms with very different
+	 * document and max frequencies
+	 */
+	public void testSameResultsAsExhaustiveSearch()
+	{
+		Random random = new Random(42);
+		InMemoryIndex index = new InMemoryIndex();
+		int[][] frequencies = new int[TERMS.length][DOCUMENTS];
+		for (int docId = 0; docId < DOCUMENTS; docId++)
+		{
+			index.getDocuments().getOrAdd("Doc" + random.nextInt(DOCUMENTS / 4) + "-" + docId + ".txt");
+			frequencies[0][docId] = (random.nextInt(100) == 0) ? 1 + random.nextInt(30) : 0;
+			frequencies[1][docId] = (random.nextInt(2) == 0) ? 1 + random.nextInt(3) : 0;
+			frequencies[2][docId] = (random.nextInt(10) == 0) ? 1 + random.nextInt(2) * random.nextInt(50) : 0;
+			frequencies[3][docId] = 1 + random.nextInt(5);
+		}
+		for (int term = 0; term < TERMS.length; term++)
+		{
+			PostingsList postings = new PostingsList();
+			for (int docId = 0; docId < DOCUMENTS; docId++)
+			{
+				if (frequencies[term][docId] > 0)
+				{
+					postings.add(docId, frequencies[term][docId]);
+				}
+			}
+			index.getTermsMap().put(TERMS[term], postings);
+		}
+		
+		List<List<String>> queries = new ArrayList<List<String>>();
+		queries.add(Arrays.asList("rare"));
+		queries.add(Arrays.asList("rare", "common"));
+		queries.add(Arrays.asList("skewed", "common", "unknown"));
+		queries.add(Arrays.asList(TERMS));
+		TopKSearcher searcher = new TopKSearcher(index);
+		for (List<String> query : queries)
+		{
+			List<SearchHit> all = searchAll(index, frequencies, query);
+			for (int k : new int[] {1, 3, 10, 100, DOCUMENTS})
+			{
+				List<SearchHit> hits = searcher.search(query, k);
+				assertEquals(Math.min(k, all.size()), hits.size());
+				for (int i = 0; i < hits.size(); i++)
+				{
+					assertEquals(all.get(i).getDocumentName(), hits.get(i).getDocumentName());
+					assertEquals(all.get(i).getScore(), hits.get(i).getScore());
+					for (int term = 0; term < query.size(); term++)
+					{
+						assertEquals(all.get(i).getFrequency(term), hits.get(i).getFrequency(term));
+					}
+				}
+			}
+		}
+	}
+	
+	public void testTopResultsOfIndexedFolder() throws Exception
+	{
+		File docsFolder = TestHelpers.getDocumentsFolder();
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		indexer.index(docsFolder, new File(docsFolder.getParentFile(), "stopwords_en.txt"));
+		
+		String[] queries = {"earth", "computer science", "electric car battery", "planet orbit sun"};
+		for (String query : queries)
+		{
+			List<MapFileToWordOccurencesEntry> all = indexer.findWithCount(query);
+			List<MapFileToWordOccurencesEntry> top = indexer.findTop(query, 2);
+			assertEquals(Math.min(2, all.size()), top.size());
+			for (int i = 0; i < top.size(); i++)
+			{
+				assertEquals(all.get(i).getKey(), top.get(i).getKey());
+				assertEquals(all.get(i).getValue(), top.get(i).getValue());
+			}
+		}
+	}
+	
+	public void testCancellationWhileWalkingPostings()
+	{
+		InMemoryIndex index = new InMemoryIndex();
+		PostingsList postings = new PostingsList();
+		for (int docId = 0; docId < DOCUMENTS; docId++)
+		{
+			index.getDocuments().getOrAdd("Doc" + docId + ".txt");
+			postings.add(docId, 1);
+		}
+		index.getTermsMap().put("common", postings);
+		
+		TopKSearcher searcher = new TopKSearcher(index);
+		int[] checks = {0};
+		searcher.setCancellation(() -> ++checks[0] > 0);
+		try
+		{
+			searcher.search(Arrays.asList("common"), 10);
+			fail();
+		}
+		catch (CancellationException e)
+		{
+			//expected, checked while the documents are walked
+		}
+		assertEquals(1, checks[0]);
+		
+		searcher.setCancellation(() -> false);
+		assertEquals(10, searcher.search(Arrays.asList("common"), 10).size());
+	}
+	
+	private static List<SearchHit> searchAll(InMemoryIndex index, int[][] frequencies, List<String> query)
+	{
+		List<SearchHit> hits = new ArrayList<SearchHit>();
+		for (int docId = 0; docId < DOCUMENTS; docId++)
+		{
+			int[] docFrequencies = new int[query.size()];
+			int score = 0;
+			for (int i = 0; i < query.size(); i++)
+			{
+				int term = Arrays.asList(TERMS).indexOf(query.get(i));
+				docFrequencies[i] = (term < 0) ? 0 : frequencies[term][docId];
+				score += docFrequencies[i];
+			}
+			if (score > 0)
+			{
+				hits.add(new SearchHit(docId, index.getDocumentName(docId), score, docFrequencies));
+			}
+		}
+		Collections.sort(hits, (h1, h2) -> h1.ranksBefore(h2) ? -1 : 1);
+		return hits;
+	}
+}
@@ -0,0 +1,246 @@
+package com.invertedIndexer.adobe.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM;
+
+import com.invertedIndexer.adobe.InverseIndexer;
+import com.invertedIndexer.adobe.types.MapFileToWordOccurencesEntry;
+
+public class SearchServerTest extends TestCase
+{
+	private InverseIndexer mIndexer;
+	private SearchServer mServer;
+
+	public SearchServerTest(String testName)
+	{
+		super(testName);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(SearchServerTest.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		mIndexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		mIndexer.indexText("Computer science studies computers and computation", "science.txt");
+		mIndexer.indexText("An electric car runs on a battery, the battery is charged at home", "car.txt");
+		mIndexer.indexText("The computer in the car manages the battery", "embedded.txt");
+		mServer = new SearchServer(mIndexer, 0);
+		mServer.setThreads(2);
+		mServer.start();
+	}
+
+	@Override
+	protected void tearDown()
+	{
+		mServer.stop();
+	}
+
+	public void testSingleQuery() throws Exception
+	{
+		Response response = request("GET", "/search?q=" + URLEncoder.encode("computer battery", "UTF-8") + "&k=2", null);
+		assertEquals(200, response.mStatus);
+
+		List<?> results = (List<?>) ((Map<?, ?>) Json.parse(response.mBody)).get("results");
+		assertEquals(1, results.size());
+		assertSameHits(mIndexer.findTop("computer battery", 2), results.get(0));
+
+		//the terms matched by a fuzzy word
+		response = request("GET", "/search?q=" + URLEncoder.encode("batery~1", "UTF-8"), null);
+		Map<?, ?> result = (Map<?, ?>) ((List<?>) ((Map<?, ?>) Json.parse(response.mBody)).get("results")).get(0);
+		Map<?, ?> hit = (Map<?, ?>) ((List<?>) result.get("hits")).get(0);
+		assertEquals("car.txt", hit.get("file"));
+		assertEquals(2.0, ((Map<?, ?>) ((Map<?, ?>) hit.get("variants")).get("batery~1")).get("batteri"));
+	}
+
+	public void testBatch() throws Exception
+	{
+		List<String> queries = Arrays.asList("battery", "computer science", "car battery", "unknown");
+		Response response = request("POST", "/search", "{\"queries\": [\"battery\", \"computer science\", \"car battery\", \"unknown\"], \"k\": 10}");
+		assertEquals(200, response.mStatus);
+
+		List<?> results = (List<?>) ((Map<?, ?>) Json.parse(response.mBody)).get("results");
+		assertEquals(queries.size(), results.size());
+		for (int i = 0; i < queries.size(); i++)
+		{
+			assertEquals(queries.get(i), ((Map<?, ?>) results.get(i)).get("query"));
+			assertSameHits(mIndexer.findTop(queries.get(i), 10), results.get(i));
+		}
+		assertEquals(4, mIndexer.getMetricsSnapshot().getCounter(SearchServer.METRIC_QUERIES));
+	}
+
+	public void testInvalidRequests() throws Exception
+	{
+		assertEquals(400, request("POST", "/search", "{\"queries\": [\"battery\"").mStatus);
+		assertEquals(400, request("POST", "/search", "{\"queries\": [1, 2]}").mStatus);
+		assertEquals(400, request("GET", "/search?k=3", null).mStatus);
+		assertEquals(405, request("PUT", "/search", "{}").mStatus);
+
+		mServer.setMaxQueriesPerRequest(2);
+		assertEquals(413, request("POST", "/search", "{\"queries\": [\"a\", \"b\", \"c\"]}").mStatus);
+	}
+
+	public void testPhraseWithoutPositions() throws Exception
+	{
+		mServer.stop();
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		indexer.setPositionsIndexed(false);
+		indexer.indexText("The purchase order of the electric car", "order.txt");
+		mServer = new SearchServer(indexer, 0);
+		mServer.start();
+
+		Response response = request("GET", "/search?q=" + URLEncoder.encode("\"purchase order\"", "UTF-8"), null);
+		assertEquals(400, response.mStatus);
+		assertEquals(200, request("GET", "/search?q=purchase+order", null).mStatus);
+	}
+
+	public void testWildcardOverTheLimit() throws Exception
+	{
+		mIndexer.setMaxWildcardTerms(1);
+		Response response = request("GET", "/search?q=" + URLEncoder.encode("c*", "UTF-8"), null);
+		assertEquals(400, response.mStatus);	//computer, computation, car, charged
+		assertEquals(200, request("GET", "/search?q=" + URLEncoder.encode("car*", "UTF-8"), null).mStatus);
+		assertEquals(400, request("GET", "/search?q=" + URLEncoder.encode("an~1", "UTF-8"), null).mStatus);	//an, on, in, at...
+		mIndexer.setMaxWildcardTerms(100);
+		assertEquals(200, request("GET", "/search?q=" + URLEncoder.encode("an~1", "UTF-8"), null).mStatus);
+	}
+
+	public void testDeadline() throws Exception
+	{
+		Response response = request("POST", "/search", "{\"queries\": [\"battery\"], \"timeoutMillis\": 0}");
+		assertEquals(504, response.mStatus);
+		assertEquals(1, mIndexer.getMetricsSnapshot().getCounter(SearchServer.METRIC_TIMEOUTS));
+	}
+
+	public void testRequestsOverTheLimitAreRejected() throws Exception
+	{
+		mServer.stop();
+		mServer = new SearchServer(mIndexer, 0);
+		mServer.setThreads(1);
+		mServer.setMaxPendingRequests(1);
+		mServer.start();
+
+		//a request whose body is not sent yet keeps the only worker busy
+		String body = "{\"queries\": [\"battery\"]}";
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), mServer.getPort()))
+		{
+			OutputStream out = socket.getOutputStream();
+			out.write(("POST /search HTTP/1.1\r\nHost: localhost\r\nContent-Length: " + body.length() + "\r\n\r\n")
+					.getBytes(StandardCharsets.UTF_8));
+			out.flush();
+			Thread.sleep(200);
+
+			Response rejected = request("GET", "/search?q=battery", null);
+			assertEquals(503, rejected.mStatus);
+
+			out.write(body.getBytes(StandardCharsets.UTF_8));
+			out.flush();
+			String response = new String(readAll(socket.getInputStream(), 12), StandardCharsets.UTF_8);
+			assertEquals("HTTP/1.1 200", response);
+		}
+		Thread.sleep(200);	//the worker is done with the request shortly after the response is sent
+		assertEquals(200, request("GET", "/search?q=battery", null).mStatus);
+		assertEquals(1, mIndexer.getMetricsSnapshot().getCounter(SearchServer.METRIC_REJECTED));
+	}
+
+	public void testJson()
+	{
+		Map<?, ?> object = (Map<?, ?>) Json.parse(" {\"a\": [1, -2.5e1, true, null], \"b\": \"x\\\"\\u0041\\n\", \"c\": {}} ");
+		assertEquals(Arrays.asList(1.0, -25.0, true, null), object.get("a"));
+		assertEquals("x\"A\n", object.get("b"));
+
+		StringBuilder quoted = new StringBuilder();
+		Json.quote("x\"A\n\u0001", quoted);
+		assertEquals("\"x\\\"A\\n\\u0001\"", quoted.toString());
+		assertEquals("x\"A\n\u0001", Json.parse(quoted.toString()));
+
+		String[] invalid = {"", "{", "[1,]", "{\"a\" 1}", "\"abc", "tru", "1 2"};
+		for (String text : invalid)
+		{
+			try
+			{
+				Json.parse(text);
+				fail(text);
+			}
+			catch (IllegalArgumentException e)
+			{
+				//expected
+			}
+		}
+	}
+
+	private static void assertSameHits(List<MapFileToWordOccurencesEntry> expected, Object result)
+	{
+		List<?> hits = (List<?>) ((Map<?, ?>) result).get("hits");
+		assertEquals(expected.size(), hits.size());
+		for (int i = 0; i < expected.size(); i++)
+		{
+			Map<?, ?> hit = (Map<?, ?>) hits.get(i);
+			assertEquals(expected.get(i).getKey(), hit.get("file"));
+			Map<?, ?> occurrences = (Map<?, ?>) hit.get("occurrences");
+			int score = 0;
+			assertEquals(expected.get(i).getValue().size(), occurrences.size());
+			for (Map.Entry<String, Integer> occurrence : expected.get(i).getValue().entrySet())
+			{
+				assertEquals(occurrence.getValue().doubleValue(), occurrences.get(occurrence.getKey()));
+				score += occurrence.getValue();
+			}
+			assertEquals((double) score, hit.get("score"));
+		}
+	}
+
+	private Response request(String method, String path, String body) throws IOException
+	{
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + mServer.getPort() + path).openConnection();
+		connection.setRequestMethod(method);
+		if (body != null)
+		{
+			connection.setDoOutput(true);
+			try (OutputStream out = connection.getOutputStream())
+			{
+				out.write(body.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		Response response = new Response();
+		response.mStatus = connection.getResponseCode();
+		InputStream in = (response.mStatus < 400) ? connection.getInputStream() : connection.getErrorStream();
+		response.mBody = new String(readAll(in, Integer.MAX_VALUE), StandardCharsets.UTF_8);
+		return response;
+	}
+
+	private static byte[] readAll(InputStream in, int maxBytes) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		int b;
+		while (bytes.size() < maxBytes && (b = in.read()) >= 0)
+		{
+			bytes.write(b);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static class Response
+	{
+		private int mStatus;
+		private String mBody;
+	}
+}
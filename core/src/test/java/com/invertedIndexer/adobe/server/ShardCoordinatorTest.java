@@ -0,0 +1,259 @@
+package com.invertedIndexer.adobe.server;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM;
+
+import com.invertedIndexer.adobe.InverseIndexer;
+import com.invertedIndexer.adobe.TestHelpers;
+import com.invertedIndexer.adobe.types.MapFileToWordOccurencesEntry;
+
+public class ShardCoordinatorTest extends TestCase
+{
+	private static final int SHARD_COUNT = 3;
+	private static final List<String> QUERIES = Arrays.asList("earth", "computer science", "\"electric vehicles\"",
+			"planet OR car", "comput*", "bucurești", "unknown");
+
+	private static InverseIndexer sIndexer;	//all the documents, shared by the tests as indexing is slow
+	private static List<InverseIndexer> sShards;
+
+	private InverseIndexer mIndexer;
+	private List<SearchServer> mServers;
+	private ServerSocket mSlowShard;	//accepts the connections but never answers
+
+	public ShardCoordinatorTest(String testName)
+	{
+		super(testName);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(ShardCoordinatorTest.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		if (sIndexer == null)
+		{
+			File docsFolder = TestHelpers.getDocumentsFolder();
+			File stopWordsFile = new File(docsFolder.getParentFile(), "stopwords_en.txt");
+			sIndexer = new InverseIndexer(ALGORITHM.ENGLISH);
+			sIndexer.index(docsFolder, stopWordsFile);
+			sShards = new ArrayList<InverseIndexer>();
+			for (int shard = 0; shard < SHARD_COUNT; shard++)
+			{
+				InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+				indexer.setPartition(shard, SHARD_COUNT);
+				indexer.index(docsFolder, stopWordsFile);
+				sShards.add(indexer);
+			}
+		}
+		mIndexer = sIndexer;
+
+		mServers = new ArrayList<SearchServer>();
+		for (InverseIndexer indexer : sShards)
+		{
+			SearchServer server = new SearchServer(indexer, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+			server.setThreads(2);
+			server.start();
+			mServers.add(server);
+		}
+		mSlowShard = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+	}
+
+	@Override
+	protected void tearDown() throws Exception
+	{
+		for (SearchServer server : mServers)
+		{
+			server.stop();
+		}
+		mSlowShard.close();
+	}
+
+	public void testPartitions() throws Exception
+	{
+		int documentCount = 0;
+		for (int shard = 0; shard < SHARD_COUNT; shard++)
+		{
+			for (String document : sShards.get(shard).find("earth computer car science"))
+			{
+				assertEquals(shard, InverseIndexer.getShard(document, SHARD_COUNT));
+				documentCount++;
+			}
+		}
+		assertEquals(mIndexer.find("earth computer car science").size(), documentCount);
+
+		try
+		{
+			new InverseIndexer(ALGORITHM.ENGLISH).setPartition(SHARD_COUNT, SHARD_COUNT);
+			fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+			//expected, the shards are numbered from 0
+		}
+	}
+
+	public void testMergedResultsMatchSingleIndex() throws Exception
+	{
+		try (ShardCoordinator coordinator = new ShardCoordinator(getShards()))
+		{
+			coordinator.setTimeoutMillis(10000);
+			for (int k : new int[] {1, 2, 100})
+			{
+				ShardCoordinator.Results results = coordinator.findTop(QUERIES, k);
+				assertTrue(results.isComplete());
+				for (int i = 0; i < QUERIES.size(); i++)
+				{
+					assertEquals(QUERIES.get(i) + " " + k, mIndexer.findTop(QUERIES.get(i), k), results.getHits().get(i));
+				}
+			}
+			assertFalse(coordinator.findTop("earth", 10).getHits().get(0).isEmpty());
+		}
+	}
+
+	public void testWordMissingFromShard() throws Exception
+	{
+		//a word found in a shard only: the other shards answer hits without it, counted 0 when merged
+		String query = null;
+		String missingWord = null;
+		for (String word : Arrays.asList("planet", "vehicle", "battery", "algorithm", "orbit"))
+		{
+			boolean isInShard = false;
+			boolean isMissingFromShard = false;
+			for (InverseIndexer shard : sShards)
+			{
+				if (shard.find(word).isEmpty())
+				{
+					isMissingFromShard |= !shard.find("earth computer").isEmpty();
+				}
+				else
+				{
+					isInShard = true;
+				}
+			}
+			if (isInShard && isMissingFromShard)
+			{
+				query = "earth computer " + word;
+				missingWord = word;
+				break;
+			}
+		}
+		assertNotNull(query);
+
+		try (ShardCoordinator coordinator = new ShardCoordinator(getShards()))
+		{
+			coordinator.setTimeoutMillis(10000);
+			List<MapFileToWordOccurencesEntry> expected = mIndexer.findWithCount(query);
+			assertEquals(query, expected, coordinator.findTop(query, Integer.MAX_VALUE).getHits().get(0));
+			//the shards answer the same hits again (cached), the merge has not changed them
+			assertEquals(query, expected, coordinator.findTop(query, Integer.MAX_VALUE).getHits().get(0));
+			int zeroCount = 0;
+			for (MapFileToWordOccurencesEntry hit : expected)
+			{
+				zeroCount += hit.getValue().get(missingWord) == 0 ? 1 : 0;
+			}
+			assertTrue(zeroCount > 0);
+		}
+	}
+
+	public void testSlowShardGivesPartialResults() throws Exception
+	{
+		List<List<InetSocketAddress>> shards = getShards();
+		shards.set(1, Collections.singletonList(getAddress(mSlowShard)));
+		try (ShardCoordinator coordinator = new ShardCoordinator(shards))
+		{
+			coordinator.setTimeoutMillis(300);
+			long start = System.nanoTime();
+			ShardCoordinator.Results results = coordinator.findTop(QUERIES, 100);
+			assertTrue((System.nanoTime() - start) / 1000000 < 5000);
+			assertFalse(results.isComplete());
+			assertEquals(Collections.singletonList(1), results.getMissingShards());
+
+			//the hits of the other shards
+			for (int i = 0; i < QUERIES.size(); i++)
+			{
+				List<MapFileToWordOccurencesEntry> expected = new ArrayList<MapFileToWordOccurencesEntry>();
+				for (MapFileToWordOccurencesEntry hit : mIndexer.findTop(QUERIES.get(i), 100))
+				{
+					if (InverseIndexer.getShard(hit.getKey(), SHARD_COUNT) != 1)
+					{
+						expected.add(hit);
+					}
+				}
+				assertEquals(QUERIES.get(i), expected, results.getHits().get(i));
+			}
+		}
+	}
+
+	public void testHedgedRequestToReplica() throws Exception
+	{
+		//the first replica of every shard never answers, the second one answers after the hedge delay
+		List<List<InetSocketAddress>> shards = new ArrayList<List<InetSocketAddress>>();
+		for (List<InetSocketAddress> replicas : getShards())
+		{
+			shards.add(Arrays.asList(getAddress(mSlowShard), replicas.get(0)));
+		}
+		try (ShardCoordinator coordinator = new ShardCoordinator(shards))
+		{
+			coordinator.setTimeoutMillis(10000);
+			coordinator.setHedgeDelayMillis(50);
+			long start = System.nanoTime();
+			ShardCoordinator.Results results = coordinator.findTop(QUERIES, 10);
+			assertTrue((System.nanoTime() - start) / 1000000 < 5000);
+			assertTrue(results.isComplete());
+			for (int i = 0; i < QUERIES.size(); i++)
+			{
+				assertEquals(QUERIES.get(i), mIndexer.findTop(QUERIES.get(i), 10), results.getHits().get(i));
+			}
+		}
+	}
+
+	public void testFailedReplica() throws Exception
+	{
+		//a closed port fails at once, the next replica is tried without waiting for the hedge delay
+		ServerSocket closed = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		InetSocketAddress closedAddress = getAddress(closed);
+		closed.close();
+		List<List<InetSocketAddress>> shards = new ArrayList<List<InetSocketAddress>>();
+		for (List<InetSocketAddress> replicas : getShards())
+		{
+			shards.add(Arrays.asList(closedAddress, replicas.get(0)));
+		}
+		try (ShardCoordinator coordinator = new ShardCoordinator(shards))
+		{
+			coordinator.setTimeoutMillis(10000);
+			coordinator.setHedgeDelayMillis(0);
+			ShardCoordinator.Results results = coordinator.findTop("earth", 10);
+			assertTrue(results.isComplete());
+			assertEquals(mIndexer.findTop("earth", 10), results.getHits().get(0));
+		}
+	}
+
+	private List<List<InetSocketAddress>> getShards()
+	{
+		List<List<InetSocketAddress>> shards = new ArrayList<List<InetSocketAddress>>();
+		for (SearchServer server : mServers)
+		{
+			shards.add(Collections.singletonList(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort())));
+		}
+		return shards;
+	}
+
+	private static InetSocketAddress getAddress(ServerSocket socket)
+	{
+		return new InetSocketAddress(InetAddress.getLoopbackAddress(), socket.getLocalPort());
+	}
+}
@@ -0,0 +1,182 @@
+package com.invertedIndexer.adobe.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.invertedIndexer.adobe.InverseIndexer;
+import com.invertedIndexer.adobe.types.MapFileToWordOccurencesEntry;
+
+import opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class MappedIndexTest extends TestCase
+{
+	private File mIndexFile;
+
+	public MappedIndexTest(String testName)
+	{
+		super(testName);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(MappedIndexTest.class);
+	}
+	
+	@Override
+	protected void setUp() throws Exception
+	{
+		mIndexFile = File.createTempFile("index", ".idx");
+	}
+	
+	@Override
+	protected void tearDown() throws Exception
+	{
+		mIndexFile.delete();
+	}
+	
+	public void testSaveAndOpen() throws Exception
+	{
+		InverseIndexer indexer = createIndexer();
+		indexer.save(mIndexFile);
+		
+		InverseIndexer opened = new InverseIndexer(ALGORITHM.ENGLISH);
+		opened.open(mIndexFile);
+		
+		assertSameResults(indexer, opened, "blackmailers asphyxiations");
+		assertSameResults(indexer, opened, "Eurepides");
+		assertTrue(opened.find("thyself").isEmpty());	//the stop words are saved with the index
+		assertTrue(opened.find("unknown").isEmpty());
+		assertSameResults(indexer, opened, "\"being auto-asphyxiated\" blackmailer NEAR/2 dies");	//positions are saved
+		assertEquals(2, opened.find("\"being auto-asphyxiated\" blackmailer NEAR/2 dies").size());
+		
+		MappedIndex index = MappedIndex.open(mIndexFile);
+		index.verify();
+		assertEquals(2, index.getDocumentCount());
+		assertEquals("DocB.txt", index.getDocumentName(1));
+	}
+	
+	public void testIndexTextAfterOpen() throws Exception
+	{
+		createIndexer().save(mIndexFile);
+		
+		InverseIndexer opened = new InverseIndexer(ALGORITHM.ENGLISH);
+		opened.open(mIndexFile);
+		opened.indexText("Blackmail, blackmail and blackmail", "DocC.txt");
+		
+		List<String> results = opened.find("blackmail");
+		assertEquals(3, results.size());
+		assertEquals("DocC.txt", results.get(0));
+	}
+	
+	public void testPostingsInSeveralChunks() throws Exception
+	{
+		InverseIndexer indexer = createIndexer();
+		for (int i = 0; i < 50; i++)
+		{
+			indexer.indexText("Blackmailers blackmail " + i + " times, asphyxiation " + (i % 7), "Doc" + i + ".txt");
+		}
+		IndexMetadata metadata = new IndexMetadata(ALGORITHM.ENGLISH.name(), new ArrayList<String>(), null);
+		IndexFileWriter.write(indexer.getSnapshot().getIndex(), metadata, mIndexFile, 256);
+		
+		InverseIndexer opened = new InverseIndexer(ALGORITHM.ENGLISH);
+		opened.open(mIndexFile);
+		assertSameResults(indexer, opened, "blackmail");
+		assertSameResults(indexer, opened, "asphyxiation 3");
+		assertSameResults(indexer, opened, "\"blackmail 42 times\"");
+		MappedIndex index = MappedIndex.open(mIndexFile);
+		index.verify();
+		assertTrue(index.getPostingsChunkCount() > 1);
+		
+		//the postings of "blackmail" do not fit in a chunk
+		try
+		{
+			IndexFileWriter.write(indexer.getSnapshot().getIndex(), metadata, mIndexFile, 16);
+			fail();
+		}
+		catch (IOException e)
+		{
+		}
+	}
+	
+	public void testCorruptedFileIsRejected() throws Exception
+	{
+		createIndexer().save(mIndexFile);
+		try (RandomAccessFile file = new RandomAccessFile(mIndexFile, "rw"))
+		{
+			file.seek(8);
+			file.writeInt(12345);
+		}
+		
+		try
+		{
+			new InverseIndexer(ALGORITHM.ENGLISH).open(mIndexFile);
+			fail();
+		}
+		catch (IOException e)
+		{
+		}
+	}
+	
+	public void testCorruptedDataIsDetected() throws Exception
+	{
+		createIndexer().save(mIndexFile);
+		try (RandomAccessFile file = new RandomAccessFile(mIndexFile, "rw"))
+		{
+			file.seek(file.length() - 1);
+			file.write(0x7f);
+		}
+		
+		MappedIndex index = MappedIndex.open(mIndexFile);
+		try
+		{
+			index.verify();
+			fail();
+		}
+		catch (IOException e)
+		{
+		}
+	}
+	
+	public void testOtherLanguageIsRejected() throws Exception
+	{
+		createIndexer().save(mIndexFile);
+		try
+		{
+			new InverseIndexer(ALGORITHM.ROMANIAN).open(mIndexFile);
+			fail();
+		}
+		catch (IOException e)
+		{
+		}
+	}
+	
+	private static InverseIndexer createIndexer()
+	{
+		InverseIndexer indexer = new InverseIndexer(ALGORITHM.ENGLISH);
+		List<String> stopWords = new ArrayList<String>();
+		stopWords.add("thyself");
+		indexer.setStopWordsList(stopWords);
+		indexer.indexText("Myself was being auto-asphyxiated by thyself through blackmailing, blackmailed", "DocA.txt");
+		indexer.indexText("Eurepides, the blackmailer, dies from asphyxiation", "DocB.txt");
+		return indexer;
+	}
+	
+	private static void assertSameResults(InverseIndexer expected, InverseIndexer actual, String query)
+	{
+		List<MapFileToWordOccurencesEntry> expectedResults = expected.findWithCount(query);
+		List<MapFileToWordOccurencesEntry> actualResults = actual.findWithCount(query);
+		assertFalse(expectedResults.isEmpty());
+		assertEquals(expectedResults.size(), actualResults.size());
+		for(int i = 0; i < expectedResults.size(); i++)
+		{
+			assertEquals(expectedResults.get(i).getKey(), actualResults.get(i).getKey());
+			assertEquals(expectedResults.get(i).getValue(), actualResults.get(i).getValue());
+		}
+	}
+}
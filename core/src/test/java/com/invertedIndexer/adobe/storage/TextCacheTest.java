@@ -0,0 +1,154 @@
+package com.invertedIndexer.adobe.storage;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import com.invertedIndexer.adobe.InverseIndexer;
+import com.invertedIndexer.adobe.TestHelpers;
+import com.invertedIndexer.adobe.types.MapFileToWordOccurencesEntry;
+
+import opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class TextCacheTest extends TestCase
+{
+	private File mDirectory;
+
+	public TextCacheTest(String testName)
+	{
+		super(testName);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(TextCacheTest.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		mDirectory = Files.createTempDirectory("textCache").toFile();
+	}
+
+	@Override
+	protected void tearDown() throws Exception
+	{
+		for (File file : mDirectory.listFiles())
+		{
+			file.delete();
+		}
+		mDirectory.delete();
+	}
+
+	public void testPutAndGet() throws Exception
+	{
+		TextCache cache = new TextCache(mDirectory, 1024 * 1024);
+		String key = TextCache.key(new byte[] {0x0f, (byte) 0xa0}, "pdf.1");
+		assertEquals("0fa0-pdf.1", key);
+		assertNull(cache.get(key));
+
+		try (TextCache.EntryWriter entry = cache.newEntry(key))
+		{
+			entry.write("first page, ");
+			entry.write("");
+			entry.write("București");
+			entry.commit();
+		}
+		assertEquals(Arrays.asList("first page, ", "", "București"), cache.get(key));
+		assertNull(cache.get(TextCache.key(new byte[] {0x0f, (byte) 0xa0}, "pdf.2")));
+
+		//not committed, e.g. the extraction failed
+		try (TextCache.EntryWriter entry = cache.newEntry("failed"))
+		{
+			entry.write("partial text");
+		}
+		assertNull(cache.get("failed"));
+		assertEquals(1, mDirectory.listFiles().length);
+
+		TextCache reopened = new TextCache(mDirectory, 1024 * 1024);
+		assertEquals(Arrays.asList("first page, ", "", "București"), reopened.get(key));
+		assertEquals(1, reopened.getHitCount());
+	}
+
+	public void testLeastRecentlyUsedEviction() throws Exception
+	{
+		TextCache cache = new TextCache(mDirectory, 1024 * 1024);
+		put(cache, "a");
+		put(cache, "b");
+		long entrySize = cache.getSize() / 2;
+
+		cache = new TextCache(mDirectory, 3 * entrySize);
+		assertNotNull(cache.get("a"));	//b is now the least recently used entry
+		put(cache, "c");
+		assertEquals(3, cache.getEntryCount());
+		put(cache, "d");
+		assertEquals(3, cache.getEntryCount());
+		assertEquals(1, cache.getEvictionCount());
+		assertNull(cache.get("b"));
+		assertNotNull(cache.get("a"));
+		assertNotNull(cache.get("c"));
+		assertNotNull(cache.get("d"));
+		assertTrue(cache.getSize() <= 3 * entrySize);
+	}
+
+	public void testUnreadableEntries() throws Exception
+	{
+		TextCache cache = new TextCache(mDirectory, 1024 * 1024);
+		put(cache, "a");
+		put(cache, "b");
+		
+		//a truncated entry is dropped and counted
+		File a = new File(mDirectory, "a.gz");
+		byte[] bytes = Files.readAllBytes(a.toPath());
+		Files.write(a.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+		assertNull(cache.get("a"));
+		assertFalse(a.exists());
+		assertEquals(1, cache.getEntryCount());
+		assertEquals(1, cache.getCorruptionCount());
+		
+		//an entry deleted since it was looked up (e.g. evicted) is only a miss
+		assertTrue(new File(mDirectory, "b.gz").delete());
+		assertNull(cache.get("b"));
+		assertEquals(1, cache.getCorruptionCount());
+		assertEquals(2, cache.getMissCount());
+	}
+	
+	public void testIndexingAgainHitsTheCache() throws Exception
+	{
+		File docsFolder = TestHelpers.getDocumentsFolder();
+		File stopWordsFile = new File(docsFolder.getParentFile(), "stopwords_en.txt");
+		TextCache cache = new TextCache(mDirectory, 64 * 1024 * 1024);
+
+		InverseIndexer parsed = new InverseIndexer(ALGORITHM.ENGLISH);
+		parsed.setTextCache(cache);
+		parsed.index(docsFolder, stopWordsFile);
+		assertEquals(0, cache.getHitCount());
+		assertEquals(4, cache.getEntryCount());	//the PDF and Word documents
+
+		InverseIndexer cached = new InverseIndexer(ALGORITHM.ENGLISH);
+		cached.setTextCache(cache);
+		cached.index(docsFolder, stopWordsFile);
+		assertEquals(4, cache.getHitCount());
+
+		String[] queries = {"earth", "computer science", "\"electric vehicles\"", "bucurești"};
+		for (String query : queries)
+		{
+			List<MapFileToWordOccurencesEntry> expected = parsed.findWithCount(query);
+			assertFalse(query, expected.isEmpty());
+			assertEquals(query, expected, cached.findWithCount(query));
+		}
+	}
+
+	private static void put(TextCache cache, String key) throws Exception
+	{
+		try (TextCache.EntryWriter entry = cache.newEntry(key))
+		{
+			entry.write("text of " + key);
+			entry.commit();
+		}
+	}
+}
@@ -0,0 +1,234 @@
+package com.invertedIndexer.adobe.types;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class CompressedPostingsTest extends TestCase
+{
+	//HashMap<String, Integer> entry of the former file -> count maps: node, boxed count and table slot
+	private static final int HASHMAP_BYTES_PER_POSTING = 32 + 16 + 8;
+
+	public CompressedPostingsTest(String testName)
+	{
+		super(testName);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(CompressedPostingsTest.class);
+	}
+	
+	public void testRoundTrip()
+	{
+		Random random = new Random(7);
+		int[] sizes = {0, 1, 2, 127, 128, 129, 256, 1000, 5000};
+		int[] maxGaps = {1, 3, 200, 100000, Integer.MAX_VALUE / 6000};
+		for (int size : sizes)
+		{
+			for (int maxGap : maxGaps)
+			{
+				PostingsList expected = new PostingsList();
+				int docId = random.nextInt(maxGap);
+				for (int i = 0; i < size; i++)
+				{
+					expected.add(docId, 1 + ((random.nextInt(20) == 0) ? random.nextInt(100000) : random.nextInt(4)));
+					docId += 1 + random.nextInt(maxGap);
+				}
+				CompressedPostings actual = CompressedPostings.encode(expected);
+				assertEquals(expected.size(), actual.size());
+				assertEquals(expected.getMaxFrequency(), actual.getMaxFrequency());
+				
+				PostingsCursor cursor = actual.cursor();
+				for (int i = 0; i < expected.size(); i++)
+				{
+					assertEquals(expected.getDocId(i), cursor.nextDoc());
+					assertEquals(expected.getFrequency(i), cursor.frequency());
+				}
+				assertEquals(PostingsCursor.NO_MORE_DOCS, cursor.nextDoc());
+				assertEquals(PostingsCursor.NO_MORE_DOCS, cursor.nextDoc());
+			}
+		}
+	}
+	
+	public void testAdvanceMatchesArrayCursor()
+	{
+		Random random = new Random(11);
+		PostingsList expected = new PostingsList();
+		for (int docId = 0; docId < 100000; docId += 1 + random.nextInt(40))
+		{
+			expected.add(docId, 1 + random.nextInt(9));
+		}
+		CompressedPostings actual = CompressedPostings.encode(expected);
+		
+		for (int run = 0; run < 200; run++)
+		{
+			PostingsCursor expectedCursor = expected.cursor();
+			PostingsCursor actualCursor = actual.cursor();
+			int target = 0;
+			while (true)
+			{
+				target += (random.nextInt(4) == 0) ? random.nextInt(20000) : random.nextInt(50);
+				boolean next = random.nextInt(3) == 0;
+				int expectedDocId = next ? expectedCursor.nextDoc() : expectedCursor.advance(target);
+				int actualDocId = next ? actualCursor.nextDoc() : actualCursor.advance(target);
+				assertEquals(expectedDocId, actualDocId);
+				if (expectedDocId == PostingsCursor.NO_MORE_DOCS)
+				{
+					break;
+				}
+				assertEquals(expectedCursor.frequency(), actualCursor.frequency());
+				target = Math.max(target, expectedDocId);
+			}
+		}
+	}
+	
+	public void testPositionsRoundTrip()
+	{
+		Random random = new Random(11);
+		PostingsList expected = new PostingsList(true);
+		for (int docId = 0; docId < 1000; docId += 1 + random.nextInt(3))
+		{
+			int[] positions = new int[1 + random.nextInt((random.nextInt(10) == 0) ? 500 : 5)];
+			int position = random.nextInt(100);
+			for (int i = 0; i < positions.length; i++)
+			{
+				positions[i] = position;
+				position += 1 + random.nextInt((random.nextInt(50) == 0) ? 100000 : 20);
+			}
+			expected.add(docId, positions, 0, positions.length);
+		}
+		CompressedPostings actual = CompressedPostings.encode(expected);
+		assertTrue(actual.hasPositions());
+		
+		//positions read for every document, then only for some of them, the others being skipped
+		for (int step = 1; step <= 7; step += 6)
+		{
+			PostingsCursor expectedCursor = expected.cursor();
+			PostingsCursor actualCursor = actual.cursor();
+			int target = 0;
+			while (true)
+			{
+				int expectedDocId = expectedCursor.advance(target);
+				assertEquals(expectedDocId, actualCursor.advance(target));
+				if (expectedDocId == PostingsCursor.NO_MORE_DOCS)
+				{
+					break;
+				}
+				int frequency = expectedCursor.frequency();
+				assertEquals(frequency, actualCursor.frequency());
+				if (expectedDocId % step == 0)
+				{
+					assertTrue(Arrays.equals(Arrays.copyOf(expectedCursor.positions(), frequency),
+							Arrays.copyOf(actualCursor.positions(), frequency)));
+				}
+				target = expectedDocId + 1 + random.nextInt(step);
+			}
+		}
+		
+		assertFalse(CompressedPostings.encode(new PostingsList()).hasPositions());
+		assertNull(CompressedPostings.encode(new PostingsList()).cursor().positions());
+	}
+	
+	/**
+	 * Compares the size of the postings of a synthetic collection (Zipf distributed words) stored
+	 * as file -> count HashMaps, as int arrays and compressed
+	 */
+	public void testSizeReport() throws Exception
+	{
+		Random random = new Random(3);
+		int documents = 2000;
+		int terms = 20000;
+		double[] cumulative = new double[terms];
+		double total = 0;
+		for (int term = 0; term < terms; term++)
+		{
+			total += 1.0 / (term + 1);
+			cumulative[term] = total;
+		}
+		PostingsList[] postings = new PostingsList[terms];
+		for (int docId = 0; docId < documents; docId++)
+		{
+			int words = 200 + random.nextInt(2000);
+			for (int i = 0; i < words; i++)
+			{
+				int index = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+				int term = (index >= 0) ? index : -index - 1;
+				if (postings[term] == null)
+				{
+					postings[term] = new PostingsList();
+				}
+				postings[term].add(docId);
+			}
+		}
+		
+		long[] sizes = measureSizes(postings);
+		long postingsCount = sizes[0];
+		long hashMapBytes = sizes[1];
+		long arrayBytes = sizes[2];
+		long compressedBytes = sizes[3];
+		System.out.println(String.format("%d postings: HashMap ~%d bytes (%.1f/posting), int arrays %d bytes (%.1f/posting), compressed %d bytes (%.2f/posting)",
+				postingsCount, hashMapBytes, (double) hashMapBytes / postingsCount,
+				arrayBytes, (double) arrayBytes / postingsCount,
+				compressedBytes, (double) compressedBytes / postingsCount));
+		assertTrue(compressedBytes * 3 < arrayBytes);
+	}
+	
+	/**
+	 * Checks the sizes of the report on postings small enough to be counted by hand
+	 */
+	public void testSizeReportOfKnownPostings() throws Exception
+	{
+		PostingsList[] postings = new PostingsList[] {new PostingsList(), new PostingsList(), null, new PostingsList()};
+		//3 one-byte gaps and frequencies
+		postings[0].add(0);
+		postings[0].add(1);
+		postings[0].add(2);
+		//a two-byte gap and a two-byte frequency
+		postings[1].add(300, 200);
+		//2 blocks: skip data of 2 * 8 bytes, then 128 + 2 one-byte gaps and as many frequencies
+		for (int docId = 0; docId < 130; docId++)
+		{
+			postings[3].add(docId);
+		}
+		
+		long[] sizes = measureSizes(postings);
+		assertEquals(134, sizes[0]);
+		assertEquals(134 * HASHMAP_BYTES_PER_POSTING, sizes[1]);
+		//24 bytes of object and 2 int arrays of 16 bytes of header, trimmed to the size of the list
+		assertEquals((24 + 2 * (16 + 4 * 3)) + (24 + 2 * (16 + 4 * 1)) + (24 + 2 * (16 + 4 * 130)), sizes[2]);
+		assertEquals(6 + 4 + (16 + 2 * 130), sizes[3]);
+	}
+	
+	/**
+	 * @param postings: postings of the terms, null for the terms without any
+	 * @return the number of postings and the bytes they take as file -> count HashMaps, as int
+	 * arrays and compressed
+	 */
+	private static long[] measureSizes(PostingsList[] postings) throws IOException
+	{
+		long postingsCount = 0;
+		long arrayBytes = 0;
+		long compressedBytes = 0;
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		for (PostingsList list : postings)
+		{
+			if (list != null)
+			{
+				list.trimToSize();
+				postingsCount += list.size();
+				arrayBytes += list.estimateHeapBytes();
+				compressedBytes += CompressedPostings.write(list, null, out);
+			}
+		}
+		assertEquals(bytes.size(), compressedBytes);
+		return new long[] {postingsCount, postingsCount * HASHMAP_BYTES_PER_POSTING, arrayBytes, compressedBytes};
+	}
+}
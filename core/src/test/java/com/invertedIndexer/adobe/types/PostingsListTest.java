@@ -0,0 +1,124 @@
+package com.invertedIndexer.adobe.types;
+
+import java.util.Arrays;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class PostingsListTest extends TestCase
+{
+	public PostingsListTest(String testName)
+	{
+		super(testName);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(PostingsListTest.class);
+	}
+	
+	public void testAddKeepsDocumentsSorted()
+	{
+		PostingsList postings = new PostingsList();
+		postings.add(3);
+		postings.add(3);
+		postings.add(7);
+		postings.add(1);
+		postings.add(5, 4);
+		postings.add(1);
+		
+		assertEquals(4, postings.size());
+		int[] expectedDocIds = {1, 3, 5, 7};
+		int[] expectedFrequencies = {2, 2, 4, 1};
+		for(int i = 0; i < expectedDocIds.length; i++)
+		{
+			assertEquals(expectedDocIds[i], postings.getDocId(i));
+			assertEquals(expectedFrequencies[i], postings.getFrequency(i));
+		}
+		assertEquals(4, postings.getFrequencyOf(5));
+		assertEquals(0, postings.getFrequencyOf(4));
+	}
+	
+	public void testMergeRemapsDocumentIds()
+	{
+		PostingsList postings = new PostingsList();
+		postings.add(0, 2);
+		postings.add(2, 1);
+		
+		PostingsList other = new PostingsList();
+		other.add(0, 5);
+		other.add(1, 3);
+		
+		postings.merge(other, new int[]{1, 2});
+		
+		assertEquals(3, postings.size());
+		assertEquals(2, postings.getFrequencyOf(0));
+		assertEquals(5, postings.getFrequencyOf(1));
+		assertEquals(4, postings.getFrequencyOf(2));
+	}
+	
+	public void testMergeWithMapChangingTheOrder()
+	{
+		PostingsList postings = new PostingsList();
+		postings.add(1, 2);
+		
+		PostingsList other = new PostingsList();
+		other.add(0, 5);
+		other.add(1, 3);
+		other.add(2, 7);
+		
+		postings.merge(other, new int[]{3, 0, 1});
+		
+		assertEquals(3, postings.size());
+		int[] expectedDocIds = {0, 1, 3};
+		int[] expectedFrequencies = {3, 9, 5};
+		for(int i = 0; i < expectedDocIds.length; i++)
+		{
+			assertEquals(expectedDocIds[i], postings.getDocId(i));
+			assertEquals(expectedFrequencies[i], postings.getFrequency(i));
+		}
+		assertEquals(9, postings.getMaxFrequency());
+	}
+	
+	public void testPositions()
+	{
+		PostingsList postings = new PostingsList(true);
+		postings.add(3, new int[] {2, 9}, 0, 2);
+		postings.add(3, new int[] {0, 300}, 1, 1);	//more occurrences in the same document
+		postings.add(1, new int[] {5}, 0, 1);	//older document, inserted before
+		
+		PostingsList other = new PostingsList(true);
+		other.add(0, new int[] {4, 7}, 0, 2);
+		other.add(1, new int[] {1}, 0, 1);
+		postings.merge(other, new int[] {3, 2});
+		
+		assertTrue(postings.hasPositions());
+		assertEquals("1=[5] 2=[1] 3=[2, 4, 7, 9, 300]", toString(postings));
+		assertEquals(5, postings.getMaxFrequency());
+		
+		postings.remove(2);
+		postings.trimToSize();
+		assertEquals("1=[5] 3=[2, 4, 7, 9, 300]", toString(postings));
+		
+		//positions are only kept when both lists have them
+		PostingsList withoutPositions = new PostingsList();
+		withoutPositions.add(8, 2);
+		postings.merge(withoutPositions, new int[] {0, 0, 0, 0, 0, 0, 0, 0, 8});
+		assertFalse(postings.hasPositions());
+		assertNull(postings.cursor().positions());
+		assertEquals(2, postings.getFrequencyOf(8));
+	}
+	
+	private static String toString(Postings postings)
+	{
+		StringBuilder text = new StringBuilder();
+		PostingsCursor cursor = postings.cursor();
+		while (cursor.nextDoc() != PostingsCursor.NO_MORE_DOCS)
+		{
+			text.append((text.length() > 0) ? " " : "").append(cursor.docId()).append('=')
+					.append(Arrays.toString(Arrays.copyOf(cursor.positions(), cursor.frequency())));
+		}
+		return text.toString();
+	}
+}
@@ -0,0 +1,225 @@
+package com.invertedIndexer.adobe.types;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class SegmentedIndexTest extends TestCase
+{
+	private static final String[] WORDS = {"alpha", "beta", "gamma", "delta", "epsilon", "zeta"};
+
+	public SegmentedIndexTest(String testName)
+	{
+		super(testName);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(SegmentedIndexTest.class);
+	}
+
+	public void testMatchesSingleIndex()
+	{
+		Random random = new Random(3);
+		InMemoryIndex expected = new InMemoryIndex();
+		SegmentedIndex actual = SegmentedIndex.EMPTY;
+		int document = 0;
+		for (int segment = 0; segment < 5; segment++)
+		{
+			InMemoryIndex index = new InMemoryIndex();
+			for (int i = random.nextInt(300); i > 0; i--)
+			{
+				addDocument(random, "doc" + (document++), index, expected);
+			}
+			actual = actual.withSegment(index);
+		}
+		assertSameContent(expected, actual);
+
+		List<String> removed = new ArrayList<String>();
+		for (int i = 0; i < document / 3; i++)
+		{
+			removed.add("doc" + random.nextInt(document));
+		}
+		SegmentedIndex withoutRemoved = actual.withoutDocuments(removed);
+		for (String name : removed)
+		{
+			expected.removeDocument(name);
+		}
+		assertSameContent(expected, withoutRemoved);
+		assertEquals(5, withoutRemoved.getSegmentCount());
+
+		SegmentedIndex merged = withoutRemoved.withMergedSegments(1);
+		assertEquals(2, merged.getSegmentCount());
+		assertSameContent(expected, merged);
+	}
+
+	public void testTermDictionaryOfSegments()
+	{
+		InMemoryIndex first = new InMemoryIndex();
+		addDocument("a.txt", "alpha beta", first);
+		InMemoryIndex second = new InMemoryIndex();
+		addDocument("b.txt", "alpha gamma", second);
+
+		SegmentedIndex index = SegmentedIndex.of(first);
+		TermDictionary dictionary = index.getTermDictionary();
+		assertEquals(Arrays.asList("alpha", "beta"), dictionary.expand("*a", 10));
+
+		//the dictionary of the first segment is kept by the next index
+		SegmentedIndex next = index.withSegment(second).withoutDocuments(Arrays.asList("b.txt"));
+		TermDictionary nextDictionary = next.getTermDictionary();
+		assertSame(dictionary, index.withoutDocuments(Arrays.asList("a.txt")).getTermDictionary());
+		assertEquals(Arrays.asList("alpha", "beta", "gamma"), nextDictionary.expand("*a", 10));
+		assertEquals(3, nextDictionary.size());
+		assertEquals(Integer.valueOf(1), nextDictionary.findSimilar("gama", 1).get("gamma"));
+		assertEquals(Arrays.asList("alpha"), new ArrayList<String>(nextDictionary.findSimilar("alpha", 0).keySet()));
+		try
+		{
+			nextDictionary.expand("*a", 2);
+			fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+			//expected, the patterns match 3 terms in all the segments
+		}
+	}
+
+	public void testSnapshotsAreNotModified()
+	{
+		InMemoryIndex first = new InMemoryIndex();
+		addDocument("a.txt", "alpha beta", first);
+		InMemoryIndex second = new InMemoryIndex();
+		addDocument("b.txt", "alpha", second);
+
+		SegmentedIndex index = SegmentedIndex.of(first);
+		SegmentedIndex next = index.withSegment(second).withoutDocuments(Arrays.asList("a.txt"));
+
+		assertEquals(1, index.getDocumentCount());
+		assertEquals("a.txt", index.getDocumentName(0));
+		assertEquals(1, index.getPostings("alpha").size());
+		assertEquals(null, next.getDocumentName(0));
+		assertEquals("b.txt", next.getDocumentName(1));
+		assertEquals(1, next.getPostings("alpha").size());
+		assertEquals(0, next.getPostings("beta").size());
+	}
+
+	public void testAdvance()
+	{
+		Random random = new Random(5);
+		SegmentedIndex index = SegmentedIndex.EMPTY;
+		List<String> names = new ArrayList<String>();
+		for (int segment = 0; segment < 4; segment++)
+		{
+			InMemoryIndex segmentIndex = new InMemoryIndex();
+			for (int i = 0; i < 500; i++)
+			{
+				String name = "doc" + names.size();
+				names.add(name);
+				addDocument(random, name, segmentIndex, new InMemoryIndex());
+			}
+			index = index.withSegment(segmentIndex);
+		}
+		index = index.withoutDocuments(names.subList(100, 900));
+
+		for (String word : WORDS)
+		{
+			List<Integer> docIds = new ArrayList<Integer>();
+			PostingsCursor cursor = index.getPostings(word).cursor();
+			for (int docId = cursor.nextDoc(); docId != PostingsCursor.NO_MORE_DOCS; docId = cursor.nextDoc())
+			{
+				docIds.add(docId);
+			}
+			for (int run = 0; run < 50; run++)
+			{
+				cursor = index.getPostings(word).cursor();
+				int target = 0;
+				int docId = -1;
+				while (docId != PostingsCursor.NO_MORE_DOCS)
+				{
+					target = Math.max(target, docId + 1) + random.nextInt(200);
+					docId = cursor.advance(target);
+					Integer expected = new TreeSet<Integer>(docIds).ceiling(target);
+					assertEquals((expected != null) ? expected.intValue() : PostingsCursor.NO_MORE_DOCS, docId);
+				}
+			}
+		}
+	}
+
+	private static void addDocument(Random random, String name, InMemoryIndex index, InMemoryIndex expected)
+	{
+		StringBuilder text = new StringBuilder();
+		for (String word : WORDS)
+		{
+			for (int i = random.nextInt(4); i > 0; i--)
+			{
+				text.append(word).append(' ');
+			}
+		}
+		addDocument(name, text.toString(), index);
+		addDocument(name, text.toString(), expected);
+	}
+
+	private static void addDocument(String name, String text, InMemoryIndex index)
+	{
+		int docId = index.getDocuments().getOrAdd(name);
+		for (String word : text.split(" "))
+		{
+			if (word.isEmpty())
+			{
+				continue;
+			}
+			PostingsList postings = index.getPostings(word);
+			if (postings == null)
+			{
+				postings = new PostingsList();
+				index.getTermsMap().put(word, postings);
+			}
+			postings.add(docId);
+		}
+	}
+
+	/**
+	 * Compares the documents and frequencies of every term, documents being identified by name
+	 */
+	private static void assertSameContent(IndexView expected, IndexView actual)
+	{
+		assertEquals(toSet(expected.terms()), toSet(actual.terms()));
+		assertEquals(expected.getTermCount(), actual.getTermCount());
+		for (String word : WORDS)
+		{
+			Postings expectedPostings = expected.getPostings(word);
+			Postings actualPostings = actual.getPostings(word);
+			if (expectedPostings == null)
+			{
+				assertNull(actualPostings);
+				continue;
+			}
+			assertEquals(expectedPostings.size(), actualPostings.size());
+			assertEquals(toEntries(expected, expectedPostings), toEntries(actual, actualPostings));
+		}
+	}
+
+	private static TreeSet<String> toSet(Iterator<String> terms)
+	{
+		TreeSet<String> set = new TreeSet<String>();
+		terms.forEachRemaining(set::add);
+		return set;
+	}
+
+	private static TreeSet<String> toEntries(IndexView index, Postings postings)
+	{
+		TreeSet<String> entries = new TreeSet<String>();
+		PostingsCursor cursor = postings.cursor();
+		for (int docId = cursor.nextDoc(); docId != PostingsCursor.NO_MORE_DOCS; docId = cursor.nextDoc())
+		{
+			entries.add(index.getDocumentName(docId) + "=" + cursor.frequency());
+		}
+		return entries;
+	}
+}
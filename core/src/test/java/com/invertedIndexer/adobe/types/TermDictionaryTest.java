@@ -0,0 +1,151 @@
+package com.invertedIndexer.adobe.types;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class TermDictionaryTest extends TestCase
+{
+	public TermDictionaryTest(String testName)
+	{
+		super(testName);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(TermDictionaryTest.class);
+	}
+
+	public void testExpand()
+	{
+		TermDictionary dictionary = new TermDictionary(Arrays.asList("order", "invoic", "invoke", "reorder", "border", "in", "ordin"));
+
+		assertEquals(Arrays.asList("invoic", "invoke"), dictionary.expand("invo*", 10));
+		assertEquals(Arrays.asList("border", "order", "reorder"), dictionary.expand("*order", 10));
+		assertEquals(Arrays.asList("border", "order", "ordin", "reorder"), dictionary.expand("*ord*", 10));
+		assertEquals(Arrays.asList("invoic", "invoke"), dictionary.expand("invo?*", 10));
+		assertEquals(Arrays.asList("border"), dictionary.expand("?order", 10));
+		assertEquals(Arrays.asList("in"), dictionary.expand("in", 10));
+		assertEquals(Collections.emptyList(), dictionary.expand("*xyz", 10));
+		assertEquals(Collections.emptyList(), dictionary.expand("ord", 10));
+		assertTrue(TermDictionary.isPattern("in?"));
+		assertFalse(TermDictionary.isPattern("in"));
+
+		try
+		{
+			dictionary.expand("*r*", 2);
+			fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+			//expected, too many terms
+		}
+	}
+
+	public void testMatchesBruteForce()
+	{
+		Random random = new Random(3);
+		Set<String> terms = new TreeSet<String>();
+		while (terms.size() < 2000)
+		{
+			terms.add(randomWord(random, "abcd", 1 + random.nextInt(8)));
+		}
+		TermDictionary dictionary = new TermDictionary(terms);
+
+		for (int i = 0; i < 300; i++)
+		{
+			String pattern = randomWord(random, "abcd*?", 1 + random.nextInt(6));
+			Pattern regex = Pattern.compile(pattern.replace("?", ".").replace("*", ".*"));
+			List<String> expected = new ArrayList<String>();
+			for (String term : terms)
+			{
+				if (regex.matcher(term).matches())
+				{
+					expected.add(term);
+				}
+			}
+			assertEquals(pattern, expected, dictionary.expand(pattern, terms.size()));
+		}
+	}
+
+	public void testFindSimilar()
+	{
+		TermDictionary dictionary = new TermDictionary(Arrays.asList("receiv", "recit", "reciev", "deceiv", "receipt", "r", "order"));
+
+		Map<String, Integer> similar = dictionary.findSimilar("reciev", 2);
+		assertEquals(Arrays.asList("receiv", "reciev", "recit"), new ArrayList<String>(similar.keySet()));
+		assertEquals(Integer.valueOf(0), similar.get("reciev"));
+		assertEquals(Integer.valueOf(2), similar.get("receiv"));
+		assertEquals(Arrays.asList("reciev"), new ArrayList<String>(dictionary.findSimilar("reciev", 1).keySet()));
+		assertEquals(Arrays.asList("r"), new ArrayList<String>(dictionary.findSimilar("", 1).keySet()));
+	}
+
+	public void testFindSimilarBruteForce()
+	{
+		Random random = new Random(11);
+		Set<String> terms = new TreeSet<String>();
+		while (terms.size() < 3000)
+		{
+			terms.add(randomWord(random, "abcde", 1 + random.nextInt(7)));
+		}
+		TermDictionary dictionary = new TermDictionary(terms);
+
+		for (int i = 0; i < 200; i++)
+		{
+			String word = randomWord(random, "abcdef", random.nextInt(7));
+			int maxEdits = 1 + random.nextInt(2);
+			Map<String, Integer> expected = new LinkedHashMap<String, Integer>();
+			for (String term : terms)
+			{
+				int distance = distance(word, term);
+				if (distance <= maxEdits)
+				{
+					expected.put(term, distance);
+				}
+			}
+			assertEquals(word + "~" + maxEdits, expected, dictionary.findSimilar(word, maxEdits));
+		}
+	}
+
+	private static int distance(String word1, String word2)
+	{
+		int[][] distances = new int[word1.length() + 1][word2.length() + 1];
+		for (int i = 0; i <= word1.length(); i++)
+		{
+			for (int j = 0; j <= word2.length(); j++)
+			{
+				if (i == 0 || j == 0)
+				{
+					distances[i][j] = i + j;
+				}
+				else
+				{
+					int replace = distances[i - 1][j - 1] + ((word1.charAt(i - 1) == word2.charAt(j - 1)) ? 0 : 1);
+					distances[i][j] = Math.min(replace, Math.min(distances[i - 1][j], distances[i][j - 1]) + 1);
+				}
+			}
+		}
+		return distances[word1.length()][word2.length()];
+	}
+
+	private static String randomWord(Random random, String letters, int length)
+	{
+		StringBuilder word = new StringBuilder();
+		for (int i = 0; i < length; i++)
+		{
+			word.append(letters.charAt(random.nextInt(letters.length())));
+		}
+		return word.toString();
+	}
+}
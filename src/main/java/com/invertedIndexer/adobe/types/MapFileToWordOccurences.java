@@ -1,8 +0,0 @@
-package com.invertedIndexer.adobe.types;
-
-import java.util.HashMap;
-
-public class MapFileToWordOccurences extends HashMap<String, MapWordToOccurences>
-{
-	
-}
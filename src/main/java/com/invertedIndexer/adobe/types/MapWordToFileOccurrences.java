@@ -1,8 +0,0 @@
-package com.invertedIndexer.adobe.types;
-
-import java.util.HashMap;
-
-public class MapWordToFileOccurrences extends HashMap<String, MapFileToOccurences>
-{
-
-}
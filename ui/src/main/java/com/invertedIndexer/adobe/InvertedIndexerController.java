@@ -171,6 +171,10 @@ public class InvertedIndexerController implements Initializable{
     private void onFolderBrowse() 
 	{
 		folderPath.setText(selectDirectory(folderPath.getText()));
+		if(mMainWindow != null && !folderPath.getText().isEmpty())
+		{
+			mMainWindow.openSavedIndexes(folderPath.getText());
+		}
 	}
 
     private void onFileBrowse() 
@@ -2,13 +2,15 @@ package com.invertedIndexer.adobe;
 import java.awt.Desktop;
 import java.io.*;
 import java.util.List;
+import java.util.function.Consumer;
 
+import javax.management.JMException;
+
+import com.invertedIndexer.adobe.storage.TextCache;
 import com.invertedIndexer.adobe.types.MapFileToWordOccurencesEntry;
 
 import opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM;
 import javafx.application.*;
-import javafx.beans.value.ChangeListener;
-import javafx.beans.value.ObservableValue;
 import javafx.concurrent.Task;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.JavaFXBuilderFactory;
@@ -35,6 +37,10 @@ public class MainWindow extends Application
 	
 	private static final String RESOURCES_PATH = "layouts/";
 	private static final String CONFIG_DIALOG_PATH = RESOURCES_PATH + "InvertedIndex.fxml";
+	private static final File SAVED_INDEXES_FOLDER = new File(System.getProperty("user.home"), ".invertedIndexer");
+	private static final String SAVED_INDEX_EXTENSION = ".idx";
+	private static final File TEXT_CACHE_FOLDER = new File(SAVED_INDEXES_FOLDER, "text-cache");
+	private static final long TEXT_CACHE_SIZE = 512L * 1024 * 1024;
 	private static Stage mStage;
 	
 	private InverseIndexer mEnglishIndexer = new InverseIndexer(ALGORITHM.ENGLISH);
@@ -56,6 +62,28 @@ public class MainWindow extends Application
 
 		mStage = stage;
 		mStage.setTitle("InvertedIndexerApp");
+		
+		try
+		{
+			//metrics of the indexers, e.g. for JConsole
+			mEnglishIndexer.getMetrics().registerMBean("InverseIndexer-english");
+			mRomanianIndexer.getMetrics().registerMBean("InverseIndexer-romanian");
+		}
+		catch (JMException e)
+		{
+			e.printStackTrace();
+		}
+		try
+		{
+			//PDF and Word documents are parsed once, whatever the language and the number of re-indexings
+			TextCache textCache = new TextCache(TEXT_CACHE_FOLDER, TEXT_CACHE_SIZE);
+			mEnglishIndexer.setTextCache(textCache);
+			mRomanianIndexer.setTextCache(textCache);
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
 		mStage.setResizable(false);
 		
 		InvertedIndexerController dialogController = (InvertedIndexerController)loadScene(CONFIG_DIALOG_PATH);
@@ -125,7 +153,14 @@ public class MainWindow extends Application
 				System.out.println("Indexing started!");
 				try
 				{
-					indexer.index(new File(docsFolder), new File(stopWordsFile));
+					//only the files changed since the saved index was built are indexed again
+					indexer.indexIncremental(new File(docsFolder), new File(stopWordsFile));
+					if (!indexer.isCancelled())
+					{
+						SAVED_INDEXES_FOLDER.mkdirs();
+						indexer.save(getSavedIndexFile(docsFolder, language));
+						indexer.startWatching(new File(docsFolder));
+					}
 				}
 				catch (Exception e)
 				{
@@ -157,6 +192,36 @@ public class MainWindow extends Application
 	}
 	
 	
+	/**
+	 * @param docsFolder
+	 * Opens the indexes saved the last time the given folder was indexed, so it can be searched
+	 * without indexing it again
+	 */
+	public void openSavedIndexes(String docsFolder)
+	{
+		for (IndexerLanguage language : IndexerLanguage.values())
+		{
+			File indexFile = getSavedIndexFile(docsFolder, language);
+			if (indexFile.exists())
+			{
+				try
+				{
+					getIndexer(language).open(indexFile);
+				}
+				catch (IOException e)
+				{
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+	
+	private File getSavedIndexFile(String docsFolder, IndexerLanguage language)
+	{
+		String folderKey = Integer.toHexString(new File(docsFolder).getAbsolutePath().hashCode());
+		return new File(SAVED_INDEXES_FOLDER, folderKey + "-" + language.name().toLowerCase() + SAVED_INDEX_EXTENSION);
+	}
+	
 	private InverseIndexer getIndexer(IndexerLanguage language)
 	{
 		InverseIndexer indexer = null;
@@ -182,18 +247,14 @@ public class MainWindow extends Application
 		mAlert = new Alert(AlertType.NONE, "", ButtonType.CANCEL);
 		mAlert.setTitle("Processing");
 		mAlert.setHeaderText("Please be patient while indexing!");
-		indexer.getCurrentlyIndexedFile().addListener(new ChangeListener<String>()
+		Consumer<String> indexedFileListener = fileName ->
 		{
-			@Override
-			public void changed(ObservableValue<? extends String> observable, String oldValue,
-					String newValue)
+			Platform.runLater(() -> 
 			{
-				Platform.runLater(() -> 
-				{
-					mAlert.setContentText("Indexing: " + newValue);
-				});
-			}
-		});
+				mAlert.setContentText("Indexing: " + fileName + "\n" + indexer.getIndexingStatus());
+			});
+		};
+		indexer.addIndexedFileListener(indexedFileListener);
 		mAlert.setGraphic(new ProgressIndicator(-1));
 		mAlert.setOnCloseRequest(event ->
 		{
@@ -205,6 +266,7 @@ public class MainWindow extends Application
 			{
 				indexer.cancelIndex();
 			});
+		indexer.removeIndexedFileListener(indexedFileListener);
 	}
 	
 	private void closeIndexingPopup()